@@ -0,0 +1,144 @@
+package org.example.oepg.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.engine.AnswerSheetCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 答题卡编解码：原 String.format 拼接 + Jackson 树解析与流式 JSON、紧凑二进制、Deflate 对比
+ * 每份答卷 60 题（40 道选择题、15 道填空题、5 道 200~600 字的论述题），结果为每秒编码/解码的答卷数；
+ * 试验开始时另外编码 10 万份合成答卷，打印各格式按 utf8mb4 计的总存储量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(AnswerSheetCodecBenchmark.SHEETS)
+public class AnswerSheetCodecBenchmark {
+
+    static final int SHEETS = 1000;
+
+    private static final int STORAGE_RECORDS = 100_000;
+
+    private static final String[] WORDS = {
+            "因此", "我们", "可以", "得到", "根据", "题意", "首先", "其次", "最后", "综上所述", "函数", "导数", "单调",
+            "递增", "递减", "区间", "极值", "最大值", "最小值", "证明", "假设", "成立", "矛盾", "所以", "原命题",
+            "力", "加速度", "质量", "速度", "能量守恒", "动量", "物体", "受到", "重力", "摩擦力", "方向", "大小",
+            "历史", "社会", "经济", "发展", "影响", "原因", "结果", "意义", "体现", "分析", "材料", "观点", "认为",
+            "，", "，", "，", "。", "。", "；", "x", "y", "=", "+", "2", "1", "0", "(", ")"};
+
+    @Param({"LEGACY", "JSON", "BINARY", "DEFLATE"})
+    public String format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AnswerSheetCodec codec;
+
+    private List<List<SubmitAnswerRequest.AnswerItem>> sheets;
+
+    private List<String> encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = "LEGACY".equals(format) ? null : new AnswerSheetCodec(AnswerSheetCodec.Format.valueOf(format));
+        Random random = new Random(42);
+        sheets = new ArrayList<>(SHEETS);
+        encoded = new ArrayList<>(SHEETS);
+        for (int i = 0; i < SHEETS; i++) {
+            List<SubmitAnswerRequest.AnswerItem> sheet = sheet(random);
+            sheets.add(sheet);
+            encoded.add(encode(sheet));
+        }
+
+        long bytes = 0;
+        Random storageRandom = new Random(7);
+        for (int i = 0; i < STORAGE_RECORDS; i++) {
+            bytes += encode(sheet(storageRandom)).getBytes(StandardCharsets.UTF_8).length;
+        }
+        System.out.printf(Locale.ROOT, "%n[storage] format=%s records=%d total=%.1f MB avg=%d B%n",
+                format, STORAGE_RECORDS, bytes / 1048576.0, bytes / STORAGE_RECORDS);
+    }
+
+    @Benchmark
+    public void encodeSheets(Blackhole blackhole) {
+        for (List<SubmitAnswerRequest.AnswerItem> sheet : sheets) {
+            blackhole.consume(encode(sheet));
+        }
+    }
+
+    @Benchmark
+    public void decodeSheets(Blackhole blackhole) throws Exception {
+        for (String answers : encoded) {
+            blackhole.consume(codec == null ? legacyDecode(answers) : codec.decode(answers));
+        }
+    }
+
+    private String encode(List<SubmitAnswerRequest.AnswerItem> sheet) {
+        return codec == null ? legacyEncode(sheet) : codec.encode(sheet);
+    }
+
+    private static List<SubmitAnswerRequest.AnswerItem> sheet(Random random) {
+        List<SubmitAnswerRequest.AnswerItem> sheet = new ArrayList<>(60);
+        long questionId = 100_000 + random.nextInt(900_000);
+        for (int i = 0; i < 60; i++) {
+            questionId += 1 + random.nextInt(5000);
+            String answer;
+            if (i < 40) {
+                answer = String.valueOf((char) ('A' + random.nextInt(4)));
+            } else if (i < 55) {
+                answer = WORDS[random.nextInt(WORDS.length)] + "|" + WORDS[random.nextInt(WORDS.length)];
+            } else {
+                int length = 200 + random.nextInt(400);
+                StringBuilder sb = new StringBuilder(length + 8);
+                while (sb.length() < length) {
+                    sb.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                answer = sb.toString();
+            }
+            sheet.add(new SubmitAnswerRequest.AnswerItem(questionId, answer, random.nextInt(3) == 0 ? null : random.nextInt(900)));
+        }
+        return sheet;
+    }
+
+    // 以下为原 StudentExamServiceImpl 的拼接实现和答案自动保存引入的 Jackson 树解析，作为对照
+
+    private static String legacyEncode(List<SubmitAnswerRequest.AnswerItem> answers) {
+        String items = answers.stream().map(a ->
+                String.format(Locale.ROOT, "{\"questionId\":%d,\"answer\":%s%s}",
+                        a.getQuestionId(),
+                        toJsonString(a.getAnswer()),
+                        a.getTimeUsedSeconds() != null ? ",\"timeUsedSeconds\":" + a.getTimeUsedSeconds() : "")
+        ).collect(Collectors.joining(","));
+        return "[" + items + "]";
+    }
+
+    private static String toJsonString(String s) {
+        if (s == null) return "null";
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private Map<Long, SubmitAnswerRequest.AnswerItem> legacyDecode(String answers) throws Exception {
+        Map<Long, SubmitAnswerRequest.AnswerItem> sheet = new LinkedHashMap<>();
+        for (JsonNode node : objectMapper.readTree(answers)) {
+            JsonNode questionId = node.get("questionId");
+            if (questionId == null || !questionId.canConvertToLong()) continue;
+            JsonNode answer = node.get("answer");
+            JsonNode timeUsed = node.get("timeUsedSeconds");
+            sheet.put(questionId.asLong(), new SubmitAnswerRequest.AnswerItem(
+                    questionId.asLong(),
+                    answer == null || answer.isNull() ? null : answer.asText(),
+                    timeUsed == null || timeUsed.isNull() ? null : timeUsed.asInt()));
+        }
+        return sheet;
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.OEPGApplication;
+import org.example.oepg.config.QuestionIndexInitializer;
+import org.example.oepg.index.CategoryTreeCache;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试用的应用上下文
+ * 以非 Web 方式启动完整应用，数据源替换为内存 H2（MySQL 兼容模式），
+ * 写入指定规模的合成题库后重新加载题目索引和分类子树缓存
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private final Long rootCategoryId;
+
+    private BenchmarkContext(ConfigurableApplicationContext context, Long rootCategoryId) {
+        this.context = context;
+        this.rootCategoryId = rootCategoryId;
+    }
+
+    public static BenchmarkContext start(int questionCount) throws Exception {
+        ConfigurableApplicationContext context = startApplication(WebApplicationType.NONE, "oepg_bench_" + questionCount);
+
+        QuestionBankGenerator generator = new QuestionBankGenerator(context.getBean(DataSource.class));
+        generator.generate(questionCount);
+        context.getBean(QuestionIndexInitializer.class).run();
+        context.getBean(CategoryTreeCache.class).rebuild();
+        return new BenchmarkContext(context, generator.firstRootCategoryId());
+    }
+
+    /**
+     * 以内存 H2 启动应用，不写入数据；extraArgs 追加或覆盖配置项
+     */
+    static ConfigurableApplicationContext startApplication(WebApplicationType webType, String database,
+                                                           String... extraArgs) {
+        String url = "jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=classpath:benchmark-schema.sql",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                "--logging.level.root=WARN",
+                "--logging.level.org.example.oepg=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+        return new SpringApplicationBuilder(OEPGApplication.class)
+                .web(webType)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Long rootCategoryId() {
+        return rootCategoryId;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,477 @@
+package org.example.oepg.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.oepg.cache.AnswerAutosaveBuffer;
+import org.example.oepg.engine.ExamAdmissionLimiter;
+import org.example.oepg.util.ExamSessionTokenUtil;
+import org.example.oepg.util.JwtUtil;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 考试日负载模拟
+ * 以 Web 方式启动应用（内存 H2，MySQL 兼容模式），写入若干场考试、每场一张已发布试卷和 N 名学生，
+ * 随后用 clients 个并发客户端按学生的真实流程调用 StudentExamController：
+ * 查询可参加考试 → 开始考试 → 多轮自动保存 → 交卷，最后等待后台批改完成。
+ * 每个阶段全部学生完成后才进入下一阶段（相当于所有人同一时刻开考、同一时刻交卷的最坏情况），
+ * 逐阶段打印请求延迟 p50/p95/p99、吞吐量、响应状态和数据库语句数（H2 QUERY_STATISTICS，按数据库统计，
+ * 包含同一时段内后台任务执行的语句，如自动保存刷盘和批改）。
+ * <p>
+ * 数据和答案由固定随机种子生成，同一参数在同一台机器上可重复运行；开始考试受按考试限流约束，
+ * 收到 429 时按 Retry-After 携带预约凭证重试，延迟包含重试前的等待时间。
+ * <p>
+ * 参数：学生数 并发客户端数 考试场数 自动保存轮数 随机种子
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=org.example.oepg.benchmark.ExamDayLoadTest -Djmh.args="2000 1000 4 3 42"
+ */
+public final class ExamDayLoadTest {
+
+    private static final int CHOICE_QUESTIONS = 20;
+
+    private static final int FILL_BLANK_QUESTIONS = 5;
+
+    private static final int ANSWERS_PER_AUTOSAVE = 5;
+
+    private static final int MAX_START_ATTEMPTS = 30;
+
+    private static final String[] LABELS = {"A", "B", "C", "D"};
+
+    /**
+     * 模拟器自身执行的语句，不计入各阶段统计
+     */
+    private static final String COUNT_GRADED = "SELECT COUNT(*) FROM exam_records WHERE status = 'GRADED'";
+
+    private static final String READ_STATISTICS = "SELECT SQL_STATEMENT, EXECUTION_COUNT FROM INFORMATION_SCHEMA.QUERY_STATISTICS";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int exams = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int autosaveRounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        // HttpURLConnection 默认每个目标只保留 5 条空闲连接，其余请求都会重新建连
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+        System.out.printf(Locale.ROOT, "[config] students=%d clients=%d exams=%d autosave-rounds=%d seed=%d cpus=%d max-heap=%d MB java=%s%n",
+                students, clients, exams, autosaveRounds, seed, Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / 1048576, System.getProperty("java.version"));
+
+        ConfigurableApplicationContext context = BenchmarkContext.startApplication(WebApplicationType.SERVLET,
+                "oepg_exam_day", "--server.port=0");
+        ExecutorService pool = Executors.newFixedThreadPool(clients, new ClientThreadFactory());
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+            Random random = new Random(seed);
+            long seedStart = System.nanoTime();
+            List<Long> examIds = seed(jdbc, exams, students, random);
+            JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+            List<Student> roster = new ArrayList<>(students);
+            for (int i = 0; i < students; i++) {
+                String username = studentName(i);
+                roster.add(new Student(i, examIds.get(i % exams), new Random(random.nextLong()),
+                        jwtUtil.generateToken(User.withUsername(username).password("-").roles("STUDENT").build())));
+            }
+            System.out.printf(Locale.ROOT, "[seed] exams=%d questions/paper=%d students=%d took=%d ms%n",
+                    exams, CHOICE_QUESTIONS + FILL_BLANK_QUESTIONS, students,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            Simulator simulator = new Simulator(port, pool, jdbc);
+            simulator.run(new Phase("available", students), roster, student -> simulator.available(student));
+            simulator.run(new Phase("start", students), roster, student -> simulator.start(student));
+            List<Student> saves = new ArrayList<>(students * autosaveRounds);
+            for (int round = 0; round < autosaveRounds; round++) {
+                saves.addAll(roster);
+            }
+            // 阶段结束时把缓冲区中的答案写入数据库，刷盘语句计入自动保存阶段
+            AnswerAutosaveBuffer buffer = context.getBean(AnswerAutosaveBuffer.class);
+            simulator.run(new Phase("autosave", saves.size()), saves, student -> simulator.autosave(student), buffer::flush);
+            simulator.run(new Phase("submit", students), roster, student -> simulator.submit(student));
+            simulator.awaitGrading(students);
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+            context.close();
+        }
+    }
+
+    private static List<Long> seed(JdbcTemplate jdbc, int exams, int students, Random random) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // 考试服务暂以 ID 1 作为当前教师，教师须先写入
+        jdbc.update("INSERT INTO users (username, password, role, status, created_at) VALUES ('load_teacher', '-', 'TEACHER', 'ACTIVE', ?)", now);
+        List<Long> examIds = new ArrayList<>(exams);
+        for (int e = 0; e < exams; e++) {
+            jdbc.update("INSERT INTO exams (title, duration, total_score, start_time, end_time, status, created_by, created_at) "
+                            + "VALUES (?, 120, ?, ?, ?, 'ONGOING', 1, ?)",
+                    "考试日负载模拟 " + (e + 1), (CHOICE_QUESTIONS + FILL_BLANK_QUESTIONS) * 4,
+                    Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), Timestamp.valueOf(LocalDateTime.now().plusHours(3)), now);
+            long examId = jdbc.queryForObject("SELECT MAX(id) FROM exams", Long.class);
+            jdbc.update("INSERT INTO exam_papers (title, exam_id, total_questions, total_score, duration, status, created_by, created_at) "
+                            + "VALUES (?, ?, ?, ?, 120, 'PUBLISHED', 1, ?)",
+                    "试卷 " + (e + 1), examId, CHOICE_QUESTIONS + FILL_BLANK_QUESTIONS,
+                    (CHOICE_QUESTIONS + FILL_BLANK_QUESTIONS) * 4, now);
+            long paperId = jdbc.queryForObject("SELECT MAX(id) FROM exam_papers", Long.class);
+            for (int q = 0; q < CHOICE_QUESTIONS + FILL_BLANK_QUESTIONS; q++) {
+                boolean choice = q < CHOICE_QUESTIONS;
+                jdbc.update("INSERT INTO questions (title, content, type, difficulty, category_id, answer, options, score, created_by, created_at) "
+                                + "VALUES (?, ?, ?, ?, 1, ?, ?, 4, 1, ?)",
+                        "题目 " + e + "-" + q, "模拟题干 " + e + "-" + q, choice ? "CHOICE" : "FILL_BLANK",
+                        1 + random.nextInt(5), choice ? LABELS[random.nextInt(LABELS.length)] : "答案" + q,
+                        choice ? options(e, q) : null, now);
+                long questionId = jdbc.queryForObject("SELECT MAX(id) FROM questions", Long.class);
+                jdbc.update("INSERT INTO paper_questions (paper_id, question_id, question_order, score, sort_order, created_at) "
+                        + "VALUES (?, ?, ?, 4, ?, ?)", paperId, questionId, q + 1, q + 1, now);
+            }
+            examIds.add(examId);
+        }
+        List<Object[]> users = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            users.add(new Object[]{studentName(i), now});
+        }
+        jdbc.batchUpdate("INSERT INTO users (username, password, role, status, created_at) VALUES (?, '-', 'STUDENT', 'ACTIVE', ?)", users);
+        return examIds;
+    }
+
+    private static String options(int exam, int question) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < LABELS.length; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"label\":\"").append(LABELS[i])
+                    .append("\",\"content\":\"选项 ").append(exam).append('-').append(question).append('-').append(i).append("\"}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String studentName(int i) {
+        return String.format(Locale.ROOT, "exam_day_%05d", i);
+    }
+
+    /**
+     * 单名学生的客户端状态，同一时刻只在一个客户端线程中使用
+     */
+    private static final class Student {
+        final int index;
+        final long examId;
+        final Random random;
+        final String jwt;
+        long recordId;
+        String sessionToken;
+        final List<long[]> questions = new ArrayList<>(); // {questionId, 选择题为 1}
+        final Map<Long, String> answers = new LinkedHashMap<>();
+
+        Student(int index, long examId, Random random, String jwt) {
+            this.index = index;
+            this.examId = examId;
+            this.random = random;
+            this.jwt = jwt;
+        }
+
+        String answerFor(long[] question) {
+            return question[1] == 1 ? LABELS[random.nextInt(LABELS.length)] : "答案" + random.nextInt(10);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        int call(Student student) throws IOException;
+    }
+
+    /**
+     * 按阶段驱动全部学生，收集延迟、状态码和数据库语句数
+     */
+    private static final class Simulator {
+
+        private final int port;
+        private final ExecutorService pool;
+        private final JdbcTemplate jdbc;
+
+        Simulator(int port, ExecutorService pool, JdbcTemplate jdbc) {
+            this.port = port;
+            this.pool = pool;
+            this.jdbc = jdbc;
+            jdbc.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+        }
+
+        void run(Phase phase, List<Student> students, Step step) throws InterruptedException {
+            run(phase, students, step, () -> { });
+        }
+
+        void run(Phase phase, List<Student> students, Step step, Runnable finish) throws InterruptedException {
+            resetStatistics();
+            CountDownLatch done = new CountDownLatch(students.size());
+            long start = System.nanoTime();
+            for (Student student : students) {
+                pool.execute(() -> {
+                    long began = System.nanoTime();
+                    int status;
+                    try {
+                        status = step.call(student);
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    phase.record(status, System.nanoTime() - began);
+                    done.countDown();
+                });
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            finish.run();
+            phase.print(elapsed, readStatistics());
+        }
+
+        void awaitGrading(int students) throws InterruptedException {
+            resetStatistics();
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MINUTES.toNanos(5);
+            int graded;
+            while ((graded = jdbc.queryForObject(COUNT_GRADED, Integer.class)) < students && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            long elapsed = System.nanoTime() - start;
+            Map<String, Long> statistics = readStatistics();
+            System.out.printf(Locale.ROOT, "[grading] graded=%d/%d after last submit=%d ms throughput=%.1f/s db-statements=%d%n",
+                    graded, students, TimeUnit.NANOSECONDS.toMillis(elapsed), graded / seconds(elapsed), total(statistics));
+            printTop(statistics);
+        }
+
+        int available(Student student) throws IOException {
+            Response response = call("GET", "/api/student/exams/available", student.jwt, null, null, null);
+            if (response.status == 200) {
+                for (JsonNode exam : JSON.readTree(response.body)) {
+                    if (exam.path("examId").asLong() == student.examId) {
+                        return 200;
+                    }
+                }
+                return -2; // 列表中没有分配的考试
+            }
+            return response.status;
+        }
+
+        int start(Student student) throws IOException {
+            String ticket = null;
+            for (int attempt = 1; ; attempt++) {
+                Response response = call("POST", "/api/student/exams/" + student.examId + "/start", student.jwt, null,
+                        ticket, null);
+                if (response.status == 429 && attempt < MAX_START_ATTEMPTS) {
+                    // 按预约的秒数重试并带回凭证，到点即放行，不需要随机抖动
+                    long retryAfter = response.retryAfter > 0 ? response.retryAfter : 1;
+                    ticket = response.admissionTicket;
+                    sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+                    continue;
+                }
+                if (response.status == 200) {
+                    JsonNode body = JSON.readTree(response.body);
+                    student.recordId = body.path("recordId").asLong();
+                    student.sessionToken = body.path("sessionToken").asText(null);
+                    for (JsonNode question : body.path("questions")) {
+                        student.questions.add(new long[]{question.path("questionId").asLong(),
+                                "CHOICE".equals(question.path("type").asText()) ? 1 : 0});
+                    }
+                }
+                return response.status;
+            }
+        }
+
+        int autosave(Student student) throws IOException {
+            ObjectNode body = JSON.createObjectNode().put("recordId", student.recordId);
+            ArrayNode answers = body.putArray("answers");
+            for (int i = 0; i < ANSWERS_PER_AUTOSAVE && !student.questions.isEmpty(); i++) {
+                long[] question = student.questions.get(student.random.nextInt(student.questions.size()));
+                String answer = student.answerFor(question);
+                student.answers.put(question[0], answer);
+                answers.addObject().put("questionId", question[0]).put("answer", answer);
+            }
+            return call("PUT", "/api/student/exams/" + student.examId + "/autosave", student.jwt, student.sessionToken, null,
+                    JSON.writeValueAsBytes(body)).status;
+        }
+
+        int submit(Student student) throws IOException {
+            ObjectNode body = JSON.createObjectNode()
+                    .put("recordId", student.recordId)
+                    .put("idempotencyKey", "exam-day-" + student.index);
+            ArrayNode answers = body.putArray("answers");
+            for (long[] question : student.questions) {
+                String answer = student.answers.get(question[0]);
+                answers.addObject().put("questionId", question[0])
+                        .put("answer", answer != null ? answer : student.answerFor(question));
+            }
+            return call("POST", "/api/student/exams/" + student.examId + "/submit", student.jwt, student.sessionToken, null,
+                    JSON.writeValueAsBytes(body)).status;
+        }
+
+        /**
+         * 发送请求并读完响应体，连接回到 keep-alive 池；携带会话令牌时不再发送 JWT
+         */
+        private Response call(String method, String path, String jwt, String sessionToken, String admissionTicket,
+                              byte[] body) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+            connection.setRequestMethod(method);
+            if (sessionToken != null) {
+                connection.setRequestProperty(ExamSessionTokenUtil.HEADER, sessionToken);
+            } else {
+                connection.setRequestProperty("Authorization", "Bearer " + jwt);
+            }
+            if (admissionTicket != null) {
+                connection.setRequestProperty(ExamAdmissionLimiter.TICKET_HEADER, admissionTicket);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (in != null) {
+                try (InputStream stream = in) {
+                    byte[] chunk = new byte[8192];
+                    for (int n; (n = stream.read(chunk)) > 0; ) {
+                        bytes.write(chunk, 0, n);
+                    }
+                }
+            }
+            String retryAfter = connection.getHeaderField("Retry-After");
+            return new Response(status, bytes.toByteArray(), retryAfter == null ? 0 : Long.parseLong(retryAfter.trim()),
+                    connection.getHeaderField(ExamAdmissionLimiter.TICKET_HEADER));
+        }
+
+        private void resetStatistics() {
+            jdbc.execute("SET QUERY_STATISTICS FALSE");
+            jdbc.execute("SET QUERY_STATISTICS TRUE");
+        }
+
+        /**
+         * 读取自上次重置以来各语句的执行次数，去掉模拟器自身和事务控制语句
+         */
+        private Map<String, Long> readStatistics() {
+            Map<String, Long> statistics = new HashMap<>();
+            jdbc.query(READ_STATISTICS, rs -> {
+                String sql = rs.getString(1);
+                if (!sql.equals(COUNT_GRADED) && !sql.equals(READ_STATISTICS) && !sql.startsWith("SET ")
+                        && !sql.equals("COMMIT") && !sql.equals("ROLLBACK")) {
+                    statistics.merge(sql, rs.getLong(2), Long::sum);
+                }
+            });
+            return statistics;
+        }
+    }
+
+    private static long total(Map<String, Long> statistics) {
+        return statistics.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static void printTop(Map<String, Long> statistics) {
+        statistics.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .forEach(e -> System.out.printf(Locale.ROOT, "           %8d  %s%n", e.getValue(),
+                        e.getKey().length() > 120 ? e.getKey().substring(0, 120) + "..." : e.getKey()));
+    }
+
+    private static double seconds(long nanos) {
+        return Math.max(nanos, 1) / 1e9;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Response {
+        final int status;
+        final byte[] body;
+        final long retryAfter;
+        final String admissionTicket;
+
+        Response(int status, byte[] body, long retryAfter, String admissionTicket) {
+            this.status = status;
+            this.body = body;
+            this.retryAfter = retryAfter;
+            this.admissionTicket = admissionTicket;
+        }
+    }
+
+    /**
+     * 一个阶段的请求延迟（纳秒，全部保留后排序取分位数）和状态码计数
+     */
+    private static final class Phase {
+        private final String name;
+        private final long[] latencies;
+        private final AtomicInteger count = new AtomicInteger();
+        private final Map<Integer, AtomicInteger> statuses = new TreeMap<>();
+
+        Phase(String name, int requests) {
+            this.name = name;
+            this.latencies = new long[requests];
+        }
+
+        void record(int status, long nanos) {
+            latencies[count.getAndIncrement()] = nanos;
+            synchronized (statuses) {
+                statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+
+        void print(long elapsedNanos, Map<String, Long> statistics) {
+            long[] sorted = Arrays.copyOf(latencies, count.get());
+            Arrays.sort(sorted);
+            AtomicInteger ok = statuses.get(200);
+            long statements = total(statistics);
+            System.out.printf(Locale.ROOT, "[%s] requests=%d statuses=%s elapsed=%d ms throughput=%.1f req/s "
+                            + "p50=%.1f ms p95=%.1f ms p99=%.1f ms max=%.1f ms db-statements=%d (%.2f/req)%n",
+                    name, sorted.length, statuses, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    (ok == null ? 0 : ok.get()) / seconds(elapsedNanos),
+                    millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6,
+                    statements, sorted.length == 0 ? 0 : (double) statements / sorted.length);
+            printTop(statistics);
+        }
+
+        private static double millis(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(sorted.length * p) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private static final class ClientThreadFactory implements ThreadFactory {
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "exam-day-client-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
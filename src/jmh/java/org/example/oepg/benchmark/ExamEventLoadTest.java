@@ -0,0 +1,450 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.engine.ExamEventHub;
+import org.example.oepg.util.JwtUtil;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 考试事件流（SSE）负载测试
+ * 以 Web 方式启动应用（内存 H2），写入一场考试和 N 名进行中的学生，随后在子进程中用单线程 NIO 客户端
+ * 建立 N 条事件连接，保持 seconds 秒后由教师接口强制交卷（宽限 5 秒），直到全部连接收到 time-up 并结束。
+ * 服务端打印订阅者数、线程数和堆占用，客户端打印时钟事件与强制交卷事件的推送延迟分布。
+ * 客户端放在子进程中是因为同一进程内服务端和客户端各占一个文件描述符，2 万条连接容易触及 ulimit。
+ * <p>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=org.example.oepg.benchmark.ExamEventLoadTest -Djmh.args="10000 60"
+ */
+public final class ExamEventLoadTest {
+
+    private static final int GRACE_SECONDS = 5;
+
+    private static final int CONNECT_TIMEOUT_SECONDS = 300;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "client".equals(args[0])) {
+            Client.run(args);
+            return;
+        }
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int holdSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        ConfigurableApplicationContext context = BenchmarkContext.startApplication(WebApplicationType.SERVLET,
+                "oepg_events", "--server.port=0",
+                "--server.tomcat.max-connections=" + (subscribers + 1000),
+                "--server.tomcat.accept-count=1000",
+                "--oepg.events.max-subscribers=" + (subscribers + 1000));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+            JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+            long seedStart = System.nanoTime();
+            long examId = seed(jdbc, subscribers);
+            Path tokens = Files.createTempFile("oepg-events-", ".tokens");
+            List<String> lines = new ArrayList<>(subscribers);
+            for (int i = 0; i < subscribers; i++) {
+                lines.add(jwtUtil.generateToken(user(studentName(i), "STUDENT")));
+            }
+            Files.write(tokens, lines);
+            String teacherToken = jwtUtil.generateToken(user("load_teacher", "TEACHER"));
+            System.out.printf(Locale.ROOT, "[seed] students=%d took=%d ms port=%d%n",
+                    subscribers, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart), port);
+
+            Process client = new ProcessBuilder(
+                    System.getProperty("java.home") + "/bin/java", "-Xmx256m", "-cp", System.getProperty("java.class.path"),
+                    ExamEventLoadTest.class.getName(), "client", String.valueOf(port), tokens.toString(),
+                    String.valueOf(examId), String.valueOf(holdSeconds + GRACE_SECONDS + 60))
+                    .inheritIO()
+                    .start();
+
+            ExamEventHub hub = context.getBean(ExamEventHub.class);
+            long connectStart = System.nanoTime();
+            long connectDeadline = connectStart + TimeUnit.SECONDS.toNanos(CONNECT_TIMEOUT_SECONDS);
+            while (hub.subscriberCount() < subscribers && System.nanoTime() < connectDeadline && client.isAlive()) {
+                Thread.sleep(100);
+            }
+            System.out.printf(Locale.ROOT, "[server] subscribers=%d connect=%d ms%n", hub.subscriberCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+
+            for (int second = 0; second < holdSeconds && client.isAlive(); second += 10) {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(Math.min(10, holdSeconds - second)));
+                report(hub);
+            }
+
+            forceSubmit(port, examId, teacherToken);
+            System.out.printf(Locale.ROOT, "[server] force-submit sent, grace=%ds%n", GRACE_SECONDS);
+            client.waitFor();
+            // 等待超时交卷扫描处理完全部记录
+            long finalizeDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (jdbc.queryForObject("SELECT COUNT(*) FROM exam_records WHERE status = 'ONGOING'", Integer.class) > 0
+                    && System.nanoTime() < finalizeDeadline) {
+                Thread.sleep(500);
+            }
+            System.out.printf(Locale.ROOT, "[server] subscribers=%d timeout-records=%d%n", hub.subscriberCount(),
+                    jdbc.queryForObject("SELECT COUNT(*) FROM exam_records WHERE status = 'TIMEOUT'", Integer.class));
+            Files.deleteIfExists(tokens);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long seed(JdbcTemplate jdbc, int students) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // 考试服务暂以 ID 1 作为当前教师，教师须先写入
+        jdbc.update("INSERT INTO users (username, password, role, status, created_at) VALUES ('load_teacher', '-', 'TEACHER', 'ACTIVE', ?)", now);
+        jdbc.update("INSERT INTO exams (title, duration, total_score, start_time, end_time, status, created_by, created_at) "
+                        + "VALUES ('事件流负载测试', 120, 100, ?, ?, 'PUBLISHED', 1, ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), Timestamp.valueOf(LocalDateTime.now().plusHours(2)), now);
+        long examId = jdbc.queryForObject("SELECT MAX(id) FROM exams", Long.class);
+        List<Object[]> users = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            users.add(new Object[]{studentName(i), now});
+        }
+        jdbc.batchUpdate("INSERT INTO users (username, password, role, status, created_at) VALUES (?, '-', 'STUDENT', 'ACTIVE', ?)", users);
+        jdbc.update("INSERT INTO exam_records (exam_id, paper_id, student_id, total_score, start_time, status, created_at) "
+                + "SELECT ?, 1, id, 100, ?, 'ONGOING', ? FROM users WHERE role = 'STUDENT'", examId, now, now);
+        return examId;
+    }
+
+    private static String studentName(int i) {
+        return String.format(Locale.ROOT, "load_student_%05d", i);
+    }
+
+    private static User user(String username, String role) {
+        return (User) User.withUsername(username).password("-").roles(role).build();
+    }
+
+    private static void forceSubmit(int port, long examId, String token) throws IOException {
+        URL url = new URL("http://localhost:" + port + "/api/teacher/exams/" + examId
+                + "/force-submit?graceSeconds=" + GRACE_SECONDS);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Authorization", "Bearer " + token);
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        if (status != 200) {
+            throw new IllegalStateException("force-submit returned " + status);
+        }
+    }
+
+    private static void report(ExamEventHub hub) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        System.out.printf(Locale.ROOT, "[server] subscribers=%d threads=%d heap-used=%.1f MB%n",
+                hub.subscriberCount(), ManagementFactory.getThreadMXBean().getThreadCount(),
+                memory.getHeapMemoryUsage().getUsed() / 1048576.0);
+    }
+
+    /**
+     * 单线程 NIO 客户端：解析 HTTP 分块响应和 SSE 事件，按事件中的 serverTime 统计推送延迟
+     */
+    static final class Client {
+
+        private static final int MAX_PENDING_CONNECTS = 256;
+
+        private static final long CONNECT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(CONNECT_TIMEOUT_SECONDS);
+
+        private final Histogram connectingClockLatency = new Histogram(); // 仍有连接在建立时收到的时钟事件
+        private final Histogram clockLatency = new Histogram();
+        private boolean allConnected;
+        private final Histogram forceLatency = new Histogram();
+        private final Map<String, Integer> statuses = new TreeMap<>();
+        private int connected;
+        private int timeUps;
+        private int ended;
+        private int errors;
+        private long clockEvents;
+        private long warningEvents;
+
+        static void run(String[] args) throws Exception {
+            int port = Integer.parseInt(args[1]);
+            List<String> tokens = Files.readAllLines(Paths.get(args[2]));
+            long examId = Long.parseLong(args[3]);
+            long timeoutMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(args[4]));
+            new Client().drive(port, tokens, examId, timeoutMillis);
+        }
+
+        private void drive(int port, List<String> tokens, long examId, long timeoutMillis) throws IOException {
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+            Selector selector = Selector.open();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            long start = System.currentTimeMillis();
+            long deadline = start + CONNECT_TIMEOUT_MILLIS; // 全部连接建立后改为 timeoutMillis
+            int next = 0;
+            int pending = 0;
+            int open = 0;
+            long allConnectedAt = 0;
+
+            while (System.currentTimeMillis() < deadline && (next < tokens.size() || open > 0)) {
+                while (next < tokens.size() && pending < MAX_PENDING_CONNECTS) {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    String request = "GET /api/student/exams/" + examId + "/events HTTP/1.1\r\n"
+                            + "Host: 127.0.0.1:" + port + "\r\n"
+                            + "Accept: text/event-stream\r\n"
+                            + "Authorization: Bearer " + tokens.get(next++) + "\r\n\r\n";
+                    Connection connection = new Connection(ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+                    channel.connect(address);
+                    channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                    pending++;
+                    open++;
+                }
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_WRITE);
+                        } else if (key.isWritable()) {
+                            channel.write(connection.request);
+                            if (!connection.request.hasRemaining()) {
+                                key.interestOps(SelectionKey.OP_READ);
+                            }
+                        } else if (key.isReadable()) {
+                            buffer.clear();
+                            int read = channel.read(buffer);
+                            if (read < 0) {
+                                throw new IOException("closed");
+                            }
+                            buffer.flip();
+                            boolean wasConnected = connection.status != 0;
+                            boolean done = connection.feed(buffer, this);
+                            if (!wasConnected && connection.status != 0) {
+                                pending--;
+                                if (++connected == tokens.size()) {
+                                    allConnectedAt = System.currentTimeMillis();
+                                    allConnected = true;
+                                    deadline = allConnectedAt + timeoutMillis;
+                                }
+                            }
+                            if (done) {
+                                ended++;
+                                open--;
+                                key.cancel();
+                                channel.close();
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (connection.status == 0) {
+                            pending--;
+                        }
+                        errors++;
+                        open--;
+                        key.cancel();
+                        channel.close();
+                    }
+                }
+            }
+
+            System.out.printf(Locale.ROOT, "[client] connections=%d statuses=%s all-connected=%s ended=%d errors=%d open=%d%n",
+                    connected, statuses, allConnectedAt == 0 ? "no" : (allConnectedAt - start) + " ms", ended, errors, open);
+            System.out.printf(Locale.ROOT, "[client] clock events=%d warnings=%d latency while connecting %s, after %s%n",
+                    clockEvents, warningEvents, connectingClockLatency, clockLatency);
+            System.out.printf(Locale.ROOT, "[client] force-submit received=%d latency %s; time-up=%d%n",
+                    forceLatency.count(), forceLatency, timeUps);
+        }
+
+        void onStatus(int status) {
+            statuses.merge(String.valueOf(status), 1, Integer::sum);
+        }
+
+        void onEvent(String event, String data) {
+            long latency = System.currentTimeMillis() - serverTime(data);
+            switch (event) {
+                case "clock":
+                    clockEvents++;
+                    (allConnected ? clockLatency : connectingClockLatency).record(latency);
+                    break;
+                case "warning":
+                    warningEvents++;
+                    (allConnected ? clockLatency : connectingClockLatency).record(latency);
+                    break;
+                case "force-submit":
+                    forceLatency.record(latency);
+                    break;
+                case "time-up":
+                    timeUps++;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static long serverTime(String data) {
+            int from = data.indexOf("\"serverTime\":");
+            if (from < 0) {
+                return System.currentTimeMillis();
+            }
+            from += 13;
+            int to = from;
+            while (to < data.length() && Character.isDigit(data.charAt(to))) {
+                to++;
+            }
+            return Long.parseLong(data.substring(from, to));
+        }
+    }
+
+    /**
+     * 单条连接的解析状态：响应头、分块长度、分块内容，分块内容按行拆成 SSE 字段
+     */
+    private static final class Connection {
+
+        private static final int HEADERS = 0, CHUNK_SIZE = 1, CHUNK_DATA = 2, CHUNK_END = 3;
+
+        final ByteBuffer request;
+        int status;
+        private int state = HEADERS;
+        private int chunkRemaining;
+        private final StringBuilder line = new StringBuilder(128);    // 响应头和分块长度行
+        private final StringBuilder sseLine = new StringBuilder(128); // 分块内容中的 SSE 行，可能跨分块
+        private String event = "message";
+        private final StringBuilder data = new StringBuilder(128);
+
+        Connection(ByteBuffer request) {
+            this.request = request;
+        }
+
+        /**
+         * 处理一段响应数据，流结束时返回 true
+         */
+        boolean feed(ByteBuffer bytes, Client client) {
+            while (bytes.hasRemaining()) {
+                if (state == CHUNK_DATA) {
+                    int n = Math.min(chunkRemaining, bytes.remaining());
+                    for (int i = 0; i < n; i++) {
+                        sseByte(bytes.get(), client);
+                    }
+                    chunkRemaining -= n;
+                    if (chunkRemaining == 0) {
+                        state = CHUNK_END;
+                    }
+                    continue;
+                }
+                char c = (char) (bytes.get() & 0xFF);
+                if (c != '\n') {
+                    if (c != '\r') {
+                        line.append(c);
+                    }
+                    continue;
+                }
+                String text = line.toString();
+                line.setLength(0);
+                if (state == HEADERS) {
+                    if (status == 0 && text.startsWith("HTTP/1.1 ")) {
+                        status = Integer.parseInt(text.substring(9, 12));
+                        client.onStatus(status);
+                    } else if (text.isEmpty()) {
+                        if (status != 200) {
+                            return true;
+                        }
+                        state = CHUNK_SIZE;
+                    }
+                } else if (state == CHUNK_SIZE) {
+                    int semicolon = text.indexOf(';');
+                    chunkRemaining = Integer.parseInt(semicolon < 0 ? text.trim() : text.substring(0, semicolon).trim(), 16);
+                    if (chunkRemaining == 0) {
+                        return true;
+                    }
+                    state = CHUNK_DATA;
+                } else {
+                    state = CHUNK_SIZE; // CHUNK_END：分块后的 CRLF
+                }
+            }
+            return false;
+        }
+
+        private void sseByte(byte b, Client client) {
+            char c = (char) (b & 0xFF);
+            if (c == '\r') {
+                return;
+            }
+            if (c != '\n') {
+                sseLine.append(c);
+                return;
+            }
+            if (sseLine.length() == 0) {
+                if (data.length() > 0) {
+                    client.onEvent(event, data.toString());
+                }
+                event = "message";
+                data.setLength(0);
+            } else if (startsWith(sseLine, "event:")) {
+                event = sseLine.substring(6).trim();
+            } else if (startsWith(sseLine, "data:")) {
+                data.append(sseLine, 5, sseLine.length());
+            }
+            sseLine.setLength(0);
+        }
+
+        private static boolean startsWith(StringBuilder sb, String prefix) {
+            return sb.length() >= prefix.length() && sb.substring(0, prefix.length()).equals(prefix);
+        }
+    }
+
+    /**
+     * 毫秒级延迟直方图，超过 60 秒的计入最后一格
+     */
+    private static final class Histogram {
+        private final long[] buckets = new long[60_001];
+        private long count;
+        private long max;
+
+        void record(long millis) {
+            int bucket = (int) Math.max(0, Math.min(millis, buckets.length - 1));
+            buckets[bucket]++;
+            count++;
+            max = Math.max(max, millis);
+        }
+
+        long count() {
+            return count;
+        }
+
+        private long percentile(double p) {
+            long target = (long) Math.ceil(count * p);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return i;
+                }
+            }
+            return buckets.length - 1;
+        }
+
+        @Override
+        public String toString() {
+            if (count == 0) {
+                return "n/a";
+            }
+            return String.format(Locale.ROOT, "p50=%d ms p99=%d ms max=%d ms", percentile(0.5), percentile(0.99), max);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.util.ExamSession;
+import org.example.oepg.util.ExamSessionTokenUtil;
+import org.example.oepg.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 考试会话令牌校验与原 JWT 解析对比（不含 JWT 认证过滤器随后按用户名查询用户的数据库开销）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExamSessionTokenBenchmark {
+
+    private static final String SECRET = "sk_example_0dc889d3fcdc46feb6b3a9e6a6c8b1d7a2f4c8e9b0d1f2e3a4c5d6e7f8a9b0c";
+
+    private ExamSessionTokenUtil sessionTokens;
+
+    private JwtUtil jwtUtil;
+
+    private UserDetails user;
+
+    private String sessionToken;
+
+    private String jwt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionTokens = new ExamSessionTokenUtil();
+        ReflectionTestUtils.setField(sessionTokens, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(sessionTokens, "graceSeconds", 120L);
+        sessionTokens.init();
+        sessionToken = sessionTokens.issue(new ExamSession(1_234_567L, 98_765L, 4_321L, 8_765L,
+                System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2), 0x5DEECE66DL, "student_2024_0001"));
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        user = User.withUsername("student_2024_0001").password("-").roles("STUDENT").build();
+        jwt = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public ExamSession verifySessionToken() {
+        return sessionTokens.verify(sessionToken);
+    }
+
+    @Benchmark
+    public String issueSessionToken() {
+        return sessionTokens.issue(new ExamSession(1_234_567L, 98_765L, 4_321L, 8_765L, 1_800_000_000_000L, 42L, "student_2024_0001"));
+    }
+
+    @Benchmark
+    public boolean parseAndValidateJwt() {
+        // 过滤器中的 extractUsername + validateToken，共解析两次
+        return jwtUtil.extractUsername(jwt) != null && jwtUtil.validateToken(jwt, user);
+    }
+}
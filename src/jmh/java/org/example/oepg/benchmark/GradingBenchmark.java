@@ -0,0 +1,131 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.engine.ObjectiveGrader;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.PaperQuestion;
+import org.example.oepg.entity.Question;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客观题批改：原先的正则规范化实现与预编译标准答案的批改引擎对比
+ * 每次操作批改一份 60 题答卷（40 道选择题、15 道多空填空题、5 道主观题），单线程，结果为每秒批改的答卷数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(GradingBenchmark.SUBMISSIONS)
+public class GradingBenchmark {
+
+    static final int SUBMISSIONS = 1000;
+
+    private static final int CHOICE = 40;
+    private static final int FILL_BLANK = 15;
+    private static final int SUBJECTIVE = 5;
+
+    private PaperSnapshot paper;
+
+    private Map<Long, Question> questionMap;
+
+    private Map<Long, PaperQuestion> paperQuestionMap;
+
+    private List<List<SubmitAnswerRequest.AnswerItem>> submissions;
+
+    private final ObjectiveGrader grader = new ObjectiveGrader();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<PaperQuestion> paperQuestions = new ArrayList<>();
+        questionMap = new HashMap<>();
+        long id = 1;
+        for (int i = 0; i < CHOICE + FILL_BLANK + SUBJECTIVE; i++, id++) {
+            Question.QuestionType type = i < CHOICE ? Question.QuestionType.CHOICE
+                    : i < CHOICE + FILL_BLANK ? Question.QuestionType.FILL_BLANK : Question.QuestionType.SHORT_ANSWER;
+            String answer = type == Question.QuestionType.CHOICE ? String.valueOf((char) ('A' + random.nextInt(4)))
+                    : type == Question.QuestionType.FILL_BLANK ? "Newton's  second law|F = ma;Acceleration"
+                    : "主观题参考答案";
+            questionMap.put(id, Question.builder().id(id).type(type).answer(answer).build());
+            paperQuestions.add(PaperQuestion.builder().paperId(1L).questionId(id).score(2).sortOrder(i + 1).build());
+        }
+        ExamPaper examPaper = ExamPaper.builder().id(1L).status(ExamPaper.PaperStatus.PUBLISHED).build();
+        paper = PaperSnapshot.of(examPaper, paperQuestions, questionMap, options -> 4);
+        paperQuestionMap = new HashMap<>();
+        for (PaperQuestion pq : paperQuestions) {
+            paperQuestionMap.put(pq.getQuestionId(), pq);
+        }
+
+        // 约七成作答正确，正确答案混入大小写和空白差异
+        submissions = new ArrayList<>(SUBMISSIONS);
+        for (int s = 0; s < SUBMISSIONS; s++) {
+            List<SubmitAnswerRequest.AnswerItem> answers = new ArrayList<>(questionMap.size());
+            for (Question q : questionMap.values()) {
+                String answer;
+                if (q.getType() == Question.QuestionType.CHOICE) {
+                    answer = random.nextInt(10) < 7 ? " " + q.getAnswer().toLowerCase(Locale.ROOT) : "B";
+                } else if (q.getType() == Question.QuestionType.FILL_BLANK) {
+                    answer = random.nextInt(10) < 7 ? "  newton's second   LAW | f =  ma ; acceleration " : "Newton|F=ma";
+                } else {
+                    answer = "学生作答的主观题内容，长度与普通简答题相当";
+                }
+                answers.add(new SubmitAnswerRequest.AnswerItem(q.getId(), answer, null));
+            }
+            submissions.add(answers);
+        }
+    }
+
+    @Benchmark
+    public int legacyRegex() {
+        int total = 0;
+        for (List<SubmitAnswerRequest.AnswerItem> answers : submissions) {
+            for (SubmitAnswerRequest.AnswerItem ans : answers) {
+                Question q = questionMap.get(ans.getQuestionId());
+                if (q == null) continue;
+                if (q.getType() == Question.QuestionType.CHOICE) {
+                    if (normalize(ans.getAnswer()).equalsIgnoreCase(normalize(q.getAnswer()))) {
+                        total += paperQuestionMap.get(q.getId()).getScore();
+                    }
+                } else if (q.getType() == Question.QuestionType.FILL_BLANK) {
+                    if (fillBlankMatch(ans.getAnswer(), q.getAnswer())) {
+                        total += paperQuestionMap.get(q.getId()).getScore();
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int compiledKeys() {
+        int total = 0;
+        for (ObjectiveGrader.Result result : grader.gradeAll(paper, submissions)) {
+            total += result.getObjectiveScore();
+        }
+        return total;
+    }
+
+    // 以下为原 StudentExamServiceImpl 中的批改实现，作为对照
+
+    private static String normalize(String s) {
+        if (s == null) return "";
+        return s.trim().replaceAll("\\s+", " ");
+    }
+
+    private static boolean fillBlankMatch(String user, String standard) {
+        if (user == null || standard == null) return false;
+        String[] ua = user.split("[|;]");
+        String[] sa = standard.split("[|;]");
+        if (ua.length != sa.length) return false;
+        for (int i = 0; i < ua.length; i++) {
+            if (!normalize(ua[i]).equalsIgnoreCase(normalize(sa[i]))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.dto.req.ExamPaperRequest;
+import org.example.oepg.dto.res.ExamPaperResponse;
+import org.example.oepg.index.QuestionPoolIndex;
+import org.example.oepg.service.ExamPaperService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 智能组卷 generatePaperByRules 端到端吞吐量：每次操作生成并写入一张 30 题的试卷
+ * INDEX 使用内存题目池索引抽题，DATABASE 使用未加载的索引使服务回退到数据库 ORDER BY RAND()
+ * 配合 -prof gc 时 gc.alloc.rate.norm 即为每张试卷的内存分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PaperGenerationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int questionCount;
+
+    @Param({"INDEX", "DATABASE"})
+    private String strategy;
+
+    private BenchmarkContext context;
+
+    private ExamPaperService examPaperService;
+
+    private ExamPaperRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(questionCount);
+        examPaperService = context.getBean(ExamPaperService.class);
+        if ("DATABASE".equals(strategy)) {
+            // 替换为未加载的索引，服务会回退到数据库随机查询
+            Object target = AopTestUtils.getUltimateTargetObject(examPaperService);
+            ReflectionTestUtils.setField(target, "questionPoolIndex", new QuestionPoolIndex());
+        }
+        request = buildRequest(context.rootCategoryId());
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearPapers() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("DELETE FROM paper_questions");
+        jdbcTemplate.execute("DELETE FROM exam_papers");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ExamPaperResponse generatePaperByRules() {
+        return examPaperService.generatePaperByRules(request);
+    }
+
+    private static ExamPaperRequest buildRequest(Long categoryId) {
+        ExamPaperRequest request = new ExamPaperRequest();
+        request.setTitle("基准测试试卷");
+        request.setExamId(1L);
+        request.setDuration(120);
+        List<ExamPaperRequest.QuestionSelectionRule> rules = new ArrayList<>();
+        rules.add(rule(categoryId, "CHOICE", 1, 10, 2));
+        rules.add(rule(categoryId, "CHOICE", 2, 10, 3));
+        rules.add(rule(categoryId, "FILL_BLANK", 2, 5, 4));
+        rules.add(rule(categoryId, "SHORT_ANSWER", 3, 5, 6));
+        request.setQuestionRules(rules);
+        return request;
+    }
+
+    private static ExamPaperRequest.QuestionSelectionRule rule(Long categoryId, String type, int difficulty,
+                                                               int count, int score) {
+        ExamPaperRequest.QuestionSelectionRule rule = new ExamPaperRequest.QuestionSelectionRule();
+        rule.setCategoryId(categoryId);
+        rule.setIncludeDescendants(true);
+        rule.setQuestionType(type);
+        rule.setDifficulty(difficulty);
+        rule.setCount(count);
+        rule.setScorePerQuestion(score);
+        return rule;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.oepg.benchmark;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 合成题库生成器
+ * 生成三层分类树（5 个一级分类，每个下有 4 个二级、每个二级下有 5 个三级分类），
+ * 题目均匀分布在三级分类上，题型、难度、分值随机，题干为随机汉字。种子固定，结果可复现。
+ */
+public class QuestionBankGenerator {
+
+    private static final String[] TYPES = {"CHOICE", "FILL_BLANK", "SHORT_ANSWER", "PROOF"};
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private final List<Long> rootCategoryIds = new ArrayList<>();
+
+    private final List<Long> leafCategoryIds = new ArrayList<>();
+
+    public QuestionBankGenerator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 第一个一级分类，规则和查询以它的整棵子树为范围
+     */
+    public Long firstRootCategoryId() {
+        return rootCategoryIds.get(0);
+    }
+
+    public void generate(int questionCount) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            generateCategories(connection);
+            generateQuestions(connection, questionCount);
+            connection.commit();
+        }
+    }
+
+    private void generateCategories(Connection connection) throws SQLException {
+        for (int i = 0; i < 5; i++) {
+            Long root = insertCategory(connection, "一级分类" + i, null);
+            rootCategoryIds.add(root);
+            for (int j = 0; j < 4; j++) {
+                Long child = insertCategory(connection, "二级分类" + i + "-" + j, root);
+                for (int k = 0; k < 5; k++) {
+                    leafCategoryIds.add(insertCategory(connection, "三级分类" + i + "-" + j + "-" + k, child));
+                }
+            }
+        }
+    }
+
+    private Long insertCategory(Connection connection, String name, Long parentId) throws SQLException {
+        String sql = "INSERT INTO question_categories (name, parent_id, sort_order, enabled, created_at, updated_at) "
+                + "VALUES (?, ?, 0, TRUE, NOW(), NOW())";
+        try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"})) {
+            statement.setString(1, name);
+            statement.setObject(2, parentId);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private void generateQuestions(Connection connection, int questionCount) throws SQLException {
+        String sql = "INSERT INTO questions (title, content, type, difficulty, category_id, answer, options, score, "
+                + "created_by, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < questionCount; i++) {
+                String type = TYPES[random.nextInt(TYPES.length)];
+                statement.setString(1, "题目" + i + randomText(8));
+                statement.setString(2, randomText(40 + random.nextInt(40)));
+                statement.setString(3, type);
+                statement.setInt(4, 1 + random.nextInt(3));
+                statement.setLong(5, leafCategoryIds.get(random.nextInt(leafCategoryIds.size())));
+                statement.setString(6, "CHOICE".equals(type) ? String.valueOf((char) ('A' + random.nextInt(4))) : randomText(6));
+                statement.setString(7, "CHOICE".equals(type) ? options() : null);
+                statement.setInt(8, 1 + random.nextInt(10));
+                statement.setTimestamp(9, now);
+                statement.setTimestamp(10, now);
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private String options() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"label\":\"").append((char) ('A' + i)).append("\",\"content\":\"")
+                    .append(randomText(6)).append("\"}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private String randomText(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('一' + random.nextInt(3000));
+        }
+        return new String(chars);
+    }
+}
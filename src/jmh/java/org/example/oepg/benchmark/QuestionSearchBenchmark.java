@@ -0,0 +1,64 @@
+package org.example.oepg.benchmark;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.example.oepg.entity.Question;
+import org.example.oepg.index.QuestionTextIndex;
+import org.example.oepg.repository.QuestionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 题目关键词分页搜索：findQuestionsWithCategory 的 LIKE '%关键词%' 与内存全文索引 + 按ID回表对比
+ * 关键词取自题库中间一道题正文的 3 个连续汉字，每次查询第一页 20 条
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QuestionSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    private int questionCount;
+
+    private BenchmarkContext context;
+
+    private QuestionRepository questionRepository;
+
+    private QuestionTextIndex questionTextIndex;
+
+    private String keyword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(questionCount);
+        questionRepository = context.getBean(QuestionRepository.class);
+        questionTextIndex = context.getBean(QuestionTextIndex.class);
+        Question sample = questionRepository.selectById((long) questionCount / 2);
+        keyword = sample.getContent().substring(10, 13);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Question> searchLike() {
+        IPage<Question> page = questionRepository.findQuestionsWithCategory(new Page<>(1, 20), null, null, null, keyword);
+        return page.getRecords();
+    }
+
+    @Benchmark
+    public List<Question> searchIndex() {
+        QuestionTextIndex.SearchResult result = questionTextIndex.search(keyword, null, null, null, 0, 20);
+        return result.getQuestionIds().isEmpty()
+                ? Collections.emptyList()
+                : questionRepository.selectBatchIds(result.getQuestionIds());
+    }
+}
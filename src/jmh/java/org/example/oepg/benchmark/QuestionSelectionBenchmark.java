@@ -0,0 +1,75 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.entity.Question;
+import org.example.oepg.index.CategoryTreeCache;
+import org.example.oepg.index.QuestionPoolIndex;
+import org.example.oepg.repository.QuestionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 随机抽题与难度分布抽题：数据库 ORDER BY RAND() 与内存题目池索引对比
+ * 范围为第一个一级分类的整棵子树（约占题库 1/5），索引方式包含按ID回表加载题目
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QuestionSelectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int questionCount;
+
+    private BenchmarkContext context;
+
+    private QuestionRepository questionRepository;
+
+    private QuestionPoolIndex questionPoolIndex;
+
+    private Set<Long> categoryIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(questionCount);
+        questionRepository = context.getBean(QuestionRepository.class);
+        questionPoolIndex = context.getBean(QuestionPoolIndex.class);
+        categoryIds = context.getBean(CategoryTreeCache.class).descendantsOf(context.rootCategoryId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Question> randomQuestionsDatabase() {
+        return questionRepository.findRandomQuestions(20, categoryIds, Question.QuestionType.CHOICE, 2);
+    }
+
+    @Benchmark
+    public List<Question> randomQuestionsIndex() {
+        List<Long> ids = questionPoolIndex.sample(categoryIds, Question.QuestionType.CHOICE, 2, 20, Collections.emptySet());
+        return questionRepository.selectBatchIds(ids);
+    }
+
+    @Benchmark
+    public List<Question> difficultyDistributionDatabase() {
+        return questionRepository.findQuestionsByDifficultyDistribution(categoryIds, 5, 10, 5);
+    }
+
+    @Benchmark
+    public List<Question> difficultyDistributionIndex() {
+        List<Long> ids = new ArrayList<>(20);
+        ids.addAll(questionPoolIndex.sample(categoryIds, null, 1, 5, Collections.emptySet()));
+        ids.addAll(questionPoolIndex.sample(categoryIds, null, 2, 10, Collections.emptySet()));
+        ids.addAll(questionPoolIndex.sample(categoryIds, null, 3, 5, Collections.emptySet()));
+        return questionRepository.selectBatchIds(ids);
+    }
+}
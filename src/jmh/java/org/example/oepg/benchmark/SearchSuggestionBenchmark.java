@@ -0,0 +1,129 @@
+package org.example.oepg.benchmark;
+
+import org.example.oepg.entity.Question;
+import org.example.oepg.index.TitleSuggestionIndex;
+import org.example.oepg.repository.QuestionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索建议：getSearchSuggestions 的 SELECT DISTINCT title ... LIKE '%关键词%' 与内存标题后缀索引对比
+ * rare 取题库中间一道题标题随机部分的 2 个连续汉字，common 为几乎所有标题都包含的“题目1”
+ * <p>
+ * main 方法不启动应用，直接用 100 万个合成标题构建索引，打印构建耗时、堆占用和查询耗时：
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=org.example.oepg.benchmark.SearchSuggestionBenchmark -Djmh.args="1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchSuggestionBenchmark {
+
+    @Param({"10000", "100000"})
+    private int questionCount;
+
+    @Param({"rare", "common"})
+    private String keywordKind;
+
+    private BenchmarkContext context;
+
+    private QuestionRepository questionRepository;
+
+    private TitleSuggestionIndex titleSuggestionIndex;
+
+    private String keyword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(questionCount);
+        questionRepository = context.getBean(QuestionRepository.class);
+        titleSuggestionIndex = context.getBean(TitleSuggestionIndex.class);
+        Question sample = questionRepository.selectById((long) questionCount / 2);
+        String title = sample.getTitle();
+        keyword = "rare".equals(keywordKind) ? title.substring(title.length() - 4, title.length() - 2) : "题目1";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<String> suggestLike() {
+        return questionRepository.getSearchSuggestions(keyword);
+    }
+
+    @Benchmark
+    public List<String> suggestIndex() {
+        return titleSuggestionIndex.suggest(keyword, 10);
+    }
+
+    /**
+     * 参数：标题数（默认 100 万）。标题与 QuestionBankGenerator 相同，为“题目 + 序号 + 8 个随机汉字”，修改时间各不相同
+     */
+    public static void main(String[] args) {
+        int titleCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        String[] titles = new String[titleCount];
+        long chars = 0;
+        for (int i = 0; i < titleCount; i++) {
+            titles[i] = "题目" + i + randomText(random, 8);
+            chars += titles[i].length();
+        }
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        TitleSuggestionIndex index = new TitleSuggestionIndex();
+        TitleSuggestionIndex.Builder builder = index.newBuilder();
+        for (int i = 0; i < titleCount; i++) {
+            builder.add((long) i, titles[i], base.plusSeconds(random.nextInt(365 * 86400)));
+        }
+        index.rebuild(builder);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        builder = null;
+        long after = usedHeap();
+        System.out.printf(Locale.ROOT, "%n[suggest] titles=%d avgChars=%.1f build=%dms heap=%.1f MB (%.0f B/title)%n",
+                titleCount, (double) chars / titleCount, buildMillis,
+                (after - before) / 1048576.0, (double) (after - before) / titleCount);
+
+        String[] keywords = {"题目1", "题目12345", titles[titleCount / 2].substring(titles[titleCount / 2].length() - 4,
+                titles[titleCount / 2].length() - 2), "不存在的关键词"};
+        for (String keyword : keywords) {
+            int rounds = 20000;
+            for (int i = 0; i < rounds; i++) {
+                index.suggest(keyword, 10);
+            }
+            long queryStart = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < rounds; i++) {
+                found = index.suggest(keyword, 10).size();
+            }
+            System.out.printf(Locale.ROOT, "[suggest] keyword=%s results=%d avg=%.2f us%n",
+                    keyword, found, (System.nanoTime() - queryStart) / 1000.0 / rounds);
+        }
+    }
+
+    private static String randomText(SplittableRandom random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('一' + random.nextInt(3000));
+        }
+        return new String(chars);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,104 @@
+-- 基准测试使用的 H2（MySQL 兼容模式）表结构，只包含组卷路径涉及的表
+CREATE TABLE IF NOT EXISTS question_categories (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL,
+    parent_id   BIGINT,
+    description VARCHAR(500),
+    sort_order  INT DEFAULT 0,
+    enabled     BOOLEAN DEFAULT TRUE,
+    created_at  DATETIME,
+    updated_at  DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS questions (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    content     TEXT,
+    type        VARCHAR(20) NOT NULL,
+    difficulty  INT,
+    category_id BIGINT,
+    answer      TEXT,
+    analysis    TEXT,
+    options     TEXT,
+    score       INT,
+    created_by  BIGINT,
+    created_at  DATETIME,
+    updated_at  DATETIME
+);
+CREATE INDEX IF NOT EXISTS idx_questions_category ON questions (category_id, type, difficulty);
+
+CREATE TABLE IF NOT EXISTS exam_papers (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title           VARCHAR(255) NOT NULL,
+    exam_id         BIGINT,
+    total_questions INT,
+    total_score     INT,
+    duration        INT,
+    status          VARCHAR(20),
+    created_by      BIGINT,
+    created_at      DATETIME,
+    updated_at      DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS paper_questions (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    paper_id       BIGINT NOT NULL,
+    question_id    BIGINT NOT NULL,
+    question_order INT,
+    score          INT,
+    section        VARCHAR(100),
+    sort_order     INT,
+    created_at     DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS question_usage (
+    question_id BIGINT PRIMARY KEY,
+    usage_count BIGINT NOT NULL DEFAULT 0,
+    updated_at  DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS exams (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    description TEXT,
+    subject_id  BIGINT,
+    duration    INT,
+    total_score INT,
+    start_time  DATETIME,
+    end_time    DATETIME,
+    status      VARCHAR(20),
+    created_by  BIGINT,
+    created_at  DATETIME,
+    updated_at  DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS exam_records (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    exam_id     BIGINT NOT NULL,
+    paper_id    BIGINT NOT NULL,
+    student_id  BIGINT NOT NULL,
+    score       INT,
+    total_score INT,
+    start_time  DATETIME,
+    submit_time DATETIME,
+    time_used   INT,
+    status      VARCHAR(20),
+    answers     TEXT,
+    version     INT NOT NULL DEFAULT 0,
+    created_at  DATETIME,
+    updated_at  DATETIME
+);
+CREATE INDEX IF NOT EXISTS idx_exam_records_status ON exam_records (status, submit_time);
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username   VARCHAR(50) NOT NULL UNIQUE,
+    password   VARCHAR(255) NOT NULL,
+    real_name  VARCHAR(100),
+    email      VARCHAR(100),
+    role       VARCHAR(20),
+    status     VARCHAR(20),
+    created_at DATETIME,
+    updated_at DATETIME
+);
+CREATE INDEX IF NOT EXISTS idx_exam_records_student ON exam_records (student_id, exam_id);
@@ -0,0 +1,232 @@
+package org.example.oepg.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.dto.res.AutosaveStatsResponse;
+import org.example.oepg.engine.AnswerSheetCodec;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 答案自动保存写回缓冲区
+ * 自动保存的答案先按考试记录暂存在内存中，同一题的多次修改只保留最后一次；
+ * 后台定期把缓冲区与数据库中已保存的答案合并，按批次写回 exam_records.answers。
+ * 单条记录的所有修改都在 ConcurrentHashMap.compute 中完成，写回时只移除已落库且未被再次修改的答案。
+ * 写回会递增记录的版本号，交卷时读取的答题卡若已被写回覆盖，条件更新失败后重新读取；
+ * 缓冲答案在交卷或超时交卷落库后才丢弃。
+ */
+@Component
+@Slf4j
+public class AnswerAutosaveBuffer {
+
+    @Autowired
+    private ExamRecordRepository examRecordRepository;
+
+    @Autowired
+    private AnswerSheetCodec answerSheetCodec;
+
+    @Value("${oepg.persistence.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, RecordBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> owners = new ConcurrentHashMap<>(); // 已校验的进行中记录 -> 学生ID
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong flushedRecords = new AtomicLong();
+
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    private volatile LocalDateTime lastFlushAt;
+
+    private volatile long lastFlushMillis;
+
+    private volatile int lastFlushRecords;
+
+    /**
+     * 记录是否已校验为该学生的进行中记录
+     */
+    public boolean isTracked(Long recordId, Long studentId) {
+        return studentId != null && studentId.equals(owners.get(recordId));
+    }
+
+    /**
+     * 登记校验通过的进行中记录，后续自动保存不再查询数据库
+     */
+    public void track(Long recordId, Long studentId) {
+        owners.put(recordId, studentId);
+    }
+
+    /**
+     * 暂存答案增量，同一题覆盖之前未写入的答案
+     */
+    public void save(Long recordId, Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        long now = System.currentTimeMillis();
+        buffers.compute(recordId, (id, buffer) -> {
+            if (buffer == null) {
+                buffer = new RecordBuffer(now);
+            }
+            for (SubmitAnswerRequest.AnswerItem answer : answers) {
+                buffer.pending.put(answer.getQuestionId(), answer);
+            }
+            return buffer;
+        });
+    }
+
+    /**
+     * 记录尚未确认落库的全部答案（副本）；缓冲区保持不变，直到交卷成功后调用 discard
+     */
+    public Map<Long, SubmitAnswerRequest.AnswerItem> pending(Long recordId) {
+        Map<Long, SubmitAnswerRequest.AnswerItem> copy = new LinkedHashMap<>();
+        buffers.computeIfPresent(recordId, (id, buffer) -> {
+            copy.putAll(buffer.pending);
+            return buffer;
+        });
+        return copy;
+    }
+
+    /**
+     * 交卷已落库后丢弃记录的缓冲答案，并停止跟踪该记录
+     */
+    public void discard(Long recordId) {
+        owners.remove(recordId);
+        buffers.remove(recordId);
+    }
+
+    /**
+     * 在当前事务提交后丢弃记录的缓冲答案；事务回滚时答案仍保留在缓冲区
+     */
+    public void discardAfterCommit(Long recordId) {
+        TransactionUtil.afterCommit(() -> discard(recordId));
+    }
+
+    /**
+     * 定期把缓冲区写回数据库
+     */
+    @Scheduled(fixedDelayString = "${oepg.autosave.flush-interval-ms:3000}")
+    public void flush() {
+        if (buffers.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            List<Long> recordIds = new ArrayList<>(buffers.keySet());
+            int written = 0;
+            for (int from = 0; from < recordIds.size(); from += batchSize) {
+                List<Long> batch = recordIds.subList(from, Math.min(from + batchSize, recordIds.size()));
+                try {
+                    written += flushBatch(batch);
+                } catch (Exception e) {
+                    // 答案仍留在缓冲区，下一轮重试
+                    failedFlushes.incrementAndGet();
+                    log.warn("自动保存答案写入失败: 记录数={}, {}", batch.size(), e.getMessage());
+                }
+            }
+            lastFlushAt = LocalDateTime.now();
+            lastFlushMillis = (System.nanoTime() - start) / 1_000_000;
+            lastFlushRecords = written;
+            flushedRecords.addAndGet(written);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 缓冲区指标
+     */
+    public AutosaveStatsResponse stats() {
+        long now = System.currentTimeMillis();
+        int[] answers = new int[1];
+        long[] oldest = {now};
+        int records = 0;
+        for (Long recordId : buffers.keySet()) {
+            buffers.computeIfPresent(recordId, (id, buffer) -> {
+                answers[0] += buffer.pending.size();
+                oldest[0] = Math.min(oldest[0], buffer.dirtySince);
+                return buffer;
+            });
+            records++;
+        }
+        return AutosaveStatsResponse.builder()
+                .bufferedRecords(records)
+                .bufferedAnswers(answers[0])
+                .flushLagMillis(now - oldest[0])
+                .lastFlushAt(lastFlushAt)
+                .lastFlushMillis(lastFlushMillis)
+                .lastFlushRecords(lastFlushRecords)
+                .flushedRecords(flushedRecords.get())
+                .failedFlushes(failedFlushes.get())
+                .build();
+    }
+
+    private int flushBatch(List<Long> recordIds) {
+        Map<Long, Map<Long, SubmitAnswerRequest.AnswerItem>> snapshots = new HashMap<>();
+        for (Long recordId : recordIds) {
+            buffers.computeIfPresent(recordId, (id, buffer) -> {
+                snapshots.put(id, new HashMap<>(buffer.pending));
+                return buffer;
+            });
+        }
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+
+        // 与已保存的答案合并；只有仍在进行中的记录会被写入
+        List<ExamRecord> persisted = examRecordRepository.findOngoingAnswers(snapshots.keySet());
+        Set<Long> ongoing = new HashSet<>();
+        List<ExamRecord> updates = new ArrayList<>(persisted.size());
+        for (ExamRecord record : persisted) {
+            ongoing.add(record.getId());
+            Map<Long, SubmitAnswerRequest.AnswerItem> sheet = answerSheetCodec.decode(record.getAnswers());
+            sheet.putAll(snapshots.get(record.getId()));
+            updates.add(ExamRecord.builder().id(record.getId()).answers(answerSheetCodec.encode(sheet.values())).build());
+        }
+        if (!updates.isEmpty()) {
+            examRecordRepository.updateOngoingAnswersBatch(updates);
+        }
+
+        long now = System.currentTimeMillis();
+        snapshots.forEach((recordId, written) -> buffers.computeIfPresent(recordId, (id, buffer) -> {
+            if (!ongoing.contains(id)) {
+                // 记录已提交或超时，缓冲的答案不再写入
+                owners.remove(id);
+                return null;
+            }
+            buffer.pending.entrySet().removeIf(e -> written.get(e.getKey()) == e.getValue());
+            buffer.dirtySince = now;
+            return buffer.pending.isEmpty() ? null : buffer;
+        }));
+        return updates.size();
+    }
+
+    /**
+     * 单条考试记录的未写入答案，只在 buffers.compute 系列方法内访问
+     */
+    private static final class RecordBuffer {
+        final Map<Long, SubmitAnswerRequest.AnswerItem> pending = new LinkedHashMap<>();
+        long dirtySince;
+
+        RecordBuffer(long dirtySince) {
+            this.dirtySince = dirtySince;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.oepg.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Exam;
+import org.example.oepg.repository.ExamRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 考试预热
+ * 定期查找即将在 lead-minutes 分钟内开始的考试，提前加载其已发布试卷快照，
+ * 开考瞬间的大量开始考试请求直接命中缓存，不会同时回源加载试卷。
+ */
+@Component
+@Slf4j
+public class ExamPrewarmScheduler {
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Value("${oepg.prewarm.enabled:true}")
+    private boolean enabled;
+
+    @Value("${oepg.prewarm.lead-minutes:10}")
+    private long leadMinutes;
+
+    @Scheduled(fixedDelayString = "${oepg.prewarm.interval-ms:60000}")
+    public void prewarm() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Exam> exams = examRepository.findStartingBetween(now, now.plusMinutes(leadMinutes));
+        int warmed = 0;
+        for (Exam exam : exams) {
+            try {
+                if (paperSnapshotCache.getPublishedByExam(exam.getId()) != null) {
+                    warmed++;
+                }
+            } catch (Exception e) {
+                log.warn("考试预热失败: examId={}, {}", exam.getId(), e.getMessage());
+            }
+        }
+        if (!exams.isEmpty()) {
+            log.debug("考试预热完成: 即将开始={}, 已加载试卷快照={}", exams.size(), warmed);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.oepg.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Exam;
+import org.example.oepg.repository.ExamRepository;
+import org.example.oepg.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 学生可参加考试列表缓存
+ * 进行中和即将开始、且有已发布试卷的考试由一条查询得到，按开始时间排序后缓存到当前时间片（默认一分钟）结束；
+ * 考试或试卷发布、修改、归档后在事务提交时失效。所有学生共用同一份列表，是否已完成由调用方按学生过滤。
+ */
+@Component
+@Slf4j
+public class OpenExamCache {
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Value("${oepg.open-exams.bucket-ms:60000}")
+    private long bucketMillis;
+
+    private volatile Bucket current;
+
+    private final AtomicLong generation = new AtomicLong(); // 每次失效加一，加载期间被失效的结果不写入缓存
+
+    /**
+     * 当前时间片的可参加考试，按开始时间排序，不可修改
+     */
+    public List<Exam> get() {
+        long bucket = System.currentTimeMillis() / bucketMillis;
+        Bucket cached = current;
+        if (cached != null && cached.bucket == bucket) {
+            return cached.exams;
+        }
+        synchronized (this) {
+            cached = current;
+            if (cached != null && cached.bucket == bucket) {
+                return cached.exams;
+            }
+            long loadingGeneration = generation.get();
+            List<Exam> exams = Collections.unmodifiableList(examRepository.findOpenWithPublishedPaper().stream()
+                    .sorted(Comparator.comparing(Exam::getStartTime))
+                    .collect(Collectors.toList()));
+            if (generation.get() == loadingGeneration) {
+                current = new Bucket(bucket, exams);
+            }
+            return exams;
+        }
+    }
+
+    /**
+     * 在当前事务提交后失效
+     */
+    public void evictAfterCommit() {
+        TransactionUtil.afterCommit(this::evict);
+    }
+
+    public void evict() {
+        generation.incrementAndGet();
+        current = null;
+    }
+
+    private static final class Bucket {
+        final long bucket;
+        final List<Exam> exams;
+
+        Bucket(long bucket, List<Exam> exams) {
+            this.bucket = bucket;
+            this.exams = exams;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.oepg.cache;
+
+import lombok.Builder;
+import lombok.Value;
+import org.example.oepg.engine.AnswerKey;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.PaperQuestion;
+import org.example.oepg.entity.Question;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * 已发布试卷的不可变快照
+ * 发布时一次性组装试卷题目、分值、顺序和标准答案（客观题答案预编译为 {@link AnswerKey}），
+ * 开始考试和提交批改只读取快照，不再查询试卷内容
+ */
+@Value
+public class PaperSnapshot {
+
+    Long paperId;
+    Long examId;
+    Integer totalScore;
+    ExamPaper.PaperStatus status;
+    List<Item> items; // 按 sortOrder 排序
+    Map<Long, Item> itemsByQuestionId;
+
+    /**
+     * 快照中的一道题目
+     */
+    @Value
+    @Builder
+    public static class Item {
+        Long questionId;
+        String title;
+        String content;
+        Question.QuestionType type;
+        Integer difficulty;
+        int score;
+        Integer sortOrder;
+        String options;
+        int optionCount; // 选项个数，非 JSON 数组选项为 0
+        String answer;
+        AnswerKey answerKey; // 客观题预编译的标准答案，主观题为 null
+    }
+
+    /**
+     * 由试卷、试卷题目和题目组装快照；题库中已不存在的题目被跳过
+     */
+    public static PaperSnapshot of(ExamPaper paper, List<PaperQuestion> paperQuestions,
+                                   Map<Long, Question> questions, ToIntFunction<String> optionCounter) {
+        List<PaperQuestion> ordered = new ArrayList<>(paperQuestions);
+        ordered.sort(Comparator.comparing(PaperQuestion::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<Item> items = new ArrayList<>(ordered.size());
+        Map<Long, Item> byQuestionId = new HashMap<>(Math.max(16, ordered.size() * 4 / 3 + 1));
+        for (PaperQuestion pq : ordered) {
+            Question q = questions.get(pq.getQuestionId());
+            if (q == null) continue;
+            Item item = Item.builder()
+                    .questionId(q.getId())
+                    .title(q.getTitle())
+                    .content(q.getContent())
+                    .type(q.getType())
+                    .difficulty(q.getDifficulty())
+                    .score(pq.getScore() != null ? pq.getScore() : 0)
+                    .sortOrder(pq.getSortOrder())
+                    .options(q.getOptions())
+                    .optionCount(q.getType() == Question.QuestionType.CHOICE ? optionCounter.applyAsInt(q.getOptions()) : 0)
+                    .answer(q.getAnswer())
+                    .answerKey(AnswerKey.compile(q.getType(), q.getAnswer()))
+                    .build();
+            items.add(item);
+            byQuestionId.put(item.getQuestionId(), item);
+        }
+        return new PaperSnapshot(paper.getId(), paper.getExamId(), paper.getTotalScore(), paper.getStatus(),
+                Collections.unmodifiableList(items), Collections.unmodifiableMap(byQuestionId));
+    }
+
+    public Item item(Long questionId) {
+        return itemsByQuestionId.get(questionId);
+    }
+}
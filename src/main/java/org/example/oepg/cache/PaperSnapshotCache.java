@@ -0,0 +1,223 @@
+package org.example.oepg.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.engine.ExamShuffler;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.PaperQuestion;
+import org.example.oepg.entity.Question;
+import org.example.oepg.repository.ExamPaperRepository;
+import org.example.oepg.repository.PaperQuestionRepository;
+import org.example.oepg.repository.QuestionRepository;
+import org.example.oepg.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 已发布试卷快照缓存
+ * 以 paperId 为键保存 {@link PaperSnapshot}，同时维护 examId -> 已发布 paperId 的映射。
+ * 试卷发布时写入，归档、删除、修改题目时失效；容量超过上限时按写入顺序淘汰最早的快照。
+ * 缓存未命中（如应用重启后）时从数据库加载一次，同一试卷的并发请求只触发一次加载。
+ */
+@Component
+@Slf4j
+public class PaperSnapshotCache {
+
+    @Autowired
+    private ExamPaperRepository examPaperRepository;
+
+    @Autowired
+    private PaperQuestionRepository paperQuestionRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ExamShuffler examShuffler;
+
+    @Value("${oepg.snapshot.max-papers:256}")
+    private int maxPapers;
+
+    private final Map<Long, PaperSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> publishedPaperByExam = new ConcurrentHashMap<>();
+
+    // 正在从数据库加载的试卷，同一试卷的并发未命中共用一次加载
+    private final Map<Long, CompletableFuture<PaperSnapshot>> loading = new ConcurrentHashMap<>();
+
+    // 写入顺序，访问时自身加锁；重新写入的试卷先移出再追加到队尾
+    private final Set<Long> insertionOrder = new LinkedHashSet<>();
+
+    /**
+     * 获取试卷快照，未命中时从数据库组装；只有已发布的试卷会被缓存
+     */
+    public PaperSnapshot get(Long paperId) {
+        PaperSnapshot snapshot = snapshots.get(paperId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        CompletableFuture<PaperSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<PaperSnapshot> inFlight = loading.putIfAbsent(paperId, future);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        // 加载在锁外进行，不会因为三次数据库查询阻塞同一哈希桶中其他试卷的读写
+        try {
+            snapshot = snapshots.get(paperId);
+            if (snapshot == null) {
+                snapshot = build(paperId);
+                // 未发布的试卷（如已归档试卷的迟到提交）不进入缓存
+                if (snapshot != null && snapshot.getStatus() == ExamPaper.PaperStatus.PUBLISHED) {
+                    PaperSnapshot published = snapshots.putIfAbsent(paperId, snapshot);
+                    if (published != null) {
+                        // 加载期间试卷重新发布，以发布时写入的快照为准
+                        snapshot = published;
+                    } else if (loading.get(paperId) == future) {
+                        onInserted(snapshot);
+                    } else {
+                        // 加载期间试卷被失效，读到的可能是修改前的数据，不能留在缓存中
+                        snapshots.remove(paperId, snapshot);
+                    }
+                }
+            }
+            future.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(paperId, future);
+        }
+    }
+
+    /**
+     * 获取考试当前已发布试卷的快照，考试没有已发布试卷时返回 null
+     */
+    public PaperSnapshot getPublishedByExam(Long examId) {
+        Long paperId = publishedPaperByExam.get(examId);
+        if (paperId == null) {
+            ExamPaper paper = examPaperRepository.findByExamId(examId).stream()
+                    .filter(p -> p.getStatus() == ExamPaper.PaperStatus.PUBLISHED)
+                    .findFirst().orElse(null);
+            if (paper == null) {
+                return null;
+            }
+            paperId = paper.getId();
+        }
+        PaperSnapshot snapshot = get(paperId);
+        return snapshot != null && snapshot.getStatus() == ExamPaper.PaperStatus.PUBLISHED ? snapshot : null;
+    }
+
+    /**
+     * 试卷发布时写入快照，在当前事务提交后生效
+     */
+    public void putAfterCommit(PaperSnapshot snapshot) {
+        TransactionUtil.afterCommit(() -> {
+            snapshots.put(snapshot.getPaperId(), snapshot);
+            onInserted(snapshot);
+        });
+    }
+
+    /**
+     * 在当前事务提交后失效试卷快照，避免提交前被并发请求以旧数据重新加载
+     */
+    public void evictAfterCommit(Long paperId) {
+        TransactionUtil.afterCommit(() -> evict(paperId));
+    }
+
+    /**
+     * 在当前事务提交后失效包含该题目的快照
+     */
+    public void evictByQuestionAfterCommit(Long questionId) {
+        TransactionUtil.afterCommit(() -> evictByQuestion(questionId));
+    }
+
+    /**
+     * 从数据库组装试卷快照，试卷不存在时返回 null
+     */
+    public PaperSnapshot build(Long paperId) {
+        ExamPaper paper = examPaperRepository.selectById(paperId);
+        if (paper == null) {
+            return null;
+        }
+        List<PaperQuestion> paperQuestions = paperQuestionRepository.findByPaperId(paperId);
+        List<Long> questionIds = paperQuestions.stream().map(PaperQuestion::getQuestionId).collect(Collectors.toList());
+        Map<Long, Question> questions = questionIds.isEmpty() ? Collections.emptyMap() :
+                questionRepository.selectBatchIds(questionIds).stream()
+                        .collect(Collectors.toMap(Question::getId, Function.identity()));
+        return PaperSnapshot.of(paper, paperQuestions, questions, examShuffler::optionCount);
+    }
+
+    /**
+     * 试卷归档、删除或题目变化时失效
+     */
+    public void evict(Long paperId) {
+        // 先摘掉正在进行的加载，加载线程写入后发现已被摘掉会撤销自己的写入
+        loading.remove(paperId);
+        synchronized (insertionOrder) {
+            insertionOrder.remove(paperId);
+        }
+        PaperSnapshot removed = snapshots.remove(paperId);
+        if (removed != null) {
+            publishedPaperByExam.remove(removed.getExamId(), paperId);
+        }
+        publishedPaperByExam.values().removeIf(paperId::equals);
+    }
+
+    /**
+     * 题目内容修改或删除时，失效所有包含该题目的快照
+     */
+    public void evictByQuestion(Long questionId) {
+        // 正在加载的试卷还不知道是否包含该题目，一并摘掉，加载结果不进入缓存
+        loading.clear();
+        for (PaperSnapshot snapshot : snapshots.values()) {
+            if (snapshot.item(questionId) != null) {
+                evict(snapshot.getPaperId());
+            }
+        }
+    }
+
+    private void onInserted(PaperSnapshot snapshot) {
+        if (snapshot.getExamId() != null) {
+            publishedPaperByExam.put(snapshot.getExamId(), snapshot.getPaperId());
+        }
+        synchronized (insertionOrder) {
+            // 淘汰后重新加载的试卷只保留最新位置，旧位置不会把它提前淘汰
+            insertionOrder.remove(snapshot.getPaperId());
+            insertionOrder.add(snapshot.getPaperId());
+        }
+        while (snapshots.size() > maxPapers) {
+            Long eldest;
+            synchronized (insertionOrder) {
+                Iterator<Long> it = insertionOrder.iterator();
+                if (!it.hasNext()) break;
+                eldest = it.next();
+                it.remove();
+            }
+            evict(eldest);
+        }
+    }
+
+    private static PaperSnapshot await(CompletableFuture<PaperSnapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // 加载线程抛出的异常原样传给等待者
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.oepg.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.dto.res.SubmitAnswerResponse;
+import org.example.oepg.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 交卷幂等窗口
+ * 按 记录ID + 幂等键 保存最近完成的交卷回执，客户端超时重试时直接返回第一次的回执，不再访问数据库；
+ * 同一键的重复请求在第一次仍在处理时等待其结果。第一次失败时移除条目，允许客户端重试。
+ * 条目按插入顺序保存，超过容量或保留时间后淘汰；淘汰后的重复请求由数据库的条件更新拒绝。
+ */
+@Component
+@Slf4j
+public class SubmissionDedupeWindow {
+
+    @Value("${oepg.submit.dedupe-max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${oepg.submit.dedupe-ttl-ms:600000}")
+    private long ttlMillis;
+
+    @Value("${oepg.submit.dedupe-wait-ms:10000}")
+    private long waitMillis;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * 以幂等键执行交卷；未携带幂等键时直接执行
+     */
+    public SubmitAnswerResponse submit(Long recordId, String idempotencyKey, String owner,
+                                       Supplier<SubmitAnswerResponse> action) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return action.get();
+        }
+        String id = recordId + ":" + idempotencyKey;
+        Entry entry = new Entry(owner, System.currentTimeMillis());
+        Entry existing;
+        synchronized (entries) {
+            evictExpired(entry.createdAt);
+            existing = entries.get(id);
+            if (existing == null) {
+                entries.put(id, entry);
+                if (entries.size() > maxEntries) {
+                    Iterator<Entry> eldest = entries.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+
+        if (existing != null) {
+            // 其他用户恰好使用了相同的键时不共享结果，按普通请求处理
+            return existing.owner.equals(owner) ? await(existing) : action.get();
+        }
+        try {
+            SubmitAnswerResponse response = action.get();
+            entry.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(id, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private SubmitAnswerResponse await(Entry entry) {
+        try {
+            return entry.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BusinessException("SUBMIT_IN_PROGRESS", "交卷正在处理，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("SUBMIT_IN_PROGRESS", "交卷正在处理，请稍后重试");
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (now - entry.createdAt < ttlMillis) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private static final class Entry {
+        final String owner;
+        final long createdAt;
+        final CompletableFuture<SubmitAnswerResponse> result = new CompletableFuture<>();
+
+        Entry(String owner, long createdAt) {
+            this.owner = owner;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -28,6 +28,9 @@ public class CorsConfig {
         // 允许的请求头
         configuration.setAllowedHeaders(Arrays.asList("*"));
         
+        // 允许前端读取的响应头：开始考试限流时的重试秒数和预约凭证
+        configuration.setExposedHeaders(Arrays.asList("Retry-After", "X-Admission-Ticket"));
+        
         // 允许携带认证信息
         configuration.setAllowCredentials(true);
         
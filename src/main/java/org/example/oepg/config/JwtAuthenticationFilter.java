@@ -1,8 +1,11 @@
 package org.example.oepg.config;
 
+import org.example.oepg.util.ExamSession;
+import org.example.oepg.util.ExamSessionTokenUtil;
 import org.example.oepg.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,24 +18,50 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * JWT 认证过滤器
- * 用于处理 JWT 令牌的验证和用户认证
+ * 用于处理 JWT 令牌的验证和用户认证；
+ * 作答期间的学生考试接口携带有效的考试会话令牌时直接以令牌中的学生身份认证，不加载用户
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Pattern SESSION_PATH =
+            Pattern.compile("/api/student/exams/(\\d+)/(autosave|heartbeat|submit|events)/?");
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private ExamSessionTokenUtil examSessionTokenUtil;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        // 考试会话令牌只在作答期间的接口（自动保存、心跳、交卷、事件流）上生效，且路径中的考试须与令牌一致；
+        // 其余请求（含开始考试、可参加考试列表）按 JWT 认证并校验账号状态。会话声明作为认证详情供控制器使用
+        String sessionToken = request.getHeader(ExamSessionTokenUtil.HEADER);
+        if (sessionToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Matcher matcher = SESSION_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+            ExamSession session = matcher.matches() ? examSessionTokenUtil.verify(sessionToken) : null;
+            if (session != null && matcher.group(1).equals(String.valueOf(session.getExamId()))) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        session.getUsername(), null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_STUDENT")));
+                authentication.setDetails(session);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                filterChain.doFilter(request, response);
+                return;
+            }
+        }
+
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
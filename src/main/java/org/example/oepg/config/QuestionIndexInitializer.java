@@ -0,0 +1,136 @@
+package org.example.oepg.config;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Question;
+import org.example.oepg.entity.QuestionUsage;
+import org.example.oepg.index.QuestionExposureTracker;
+import org.example.oepg.index.QuestionPoolIndex;
+import org.example.oepg.index.QuestionSimilarityIndex;
+import org.example.oepg.index.QuestionTextIndex;
+import org.example.oepg.index.TitleSuggestionIndex;
+import org.example.oepg.repository.QuestionRepository;
+import org.example.oepg.repository.QuestionUsageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 题目索引初始化器
+ * 在应用启动时按主键分批扫描题库，构建内存中的题目池索引、相似度签名、全文索引和标题建议索引，并加载题目曝光次数；
+ * 题干文本只在当前批次内用于计算签名和分词，不随题目常驻内存。
+ * 加载期间题目的增删改由各索引先记录下来，全量替换后再应用；加载失败时通知各索引停止记录。
+ */
+@Component
+@Slf4j
+public class QuestionIndexInitializer implements CommandLineRunner {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuestionPoolIndex questionPoolIndex;
+
+    @Autowired
+    private QuestionSimilarityIndex questionSimilarityIndex;
+
+    @Autowired
+    private QuestionTextIndex questionTextIndex;
+
+    @Autowired
+    private TitleSuggestionIndex titleSuggestionIndex;
+
+    @Autowired
+    private QuestionUsageRepository questionUsageRepository;
+
+    @Autowired
+    private QuestionExposureTracker questionExposureTracker;
+
+    @Value("${oepg.index.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    @Override
+    public void run(String... args) {
+        try {
+            long start = System.currentTimeMillis();
+            Map<Long, long[]> signatures = new HashMap<>();
+            QuestionTextIndex.Builder textIndex = questionTextIndex.newBuilder();
+            TitleSuggestionIndex.Builder titleIndex = titleSuggestionIndex.newBuilder();
+            List<Question> questions = loadQuestions(signatures, textIndex, titleIndex);
+            questionPoolIndex.rebuild(questions);
+            questionSimilarityIndex.rebuild(signatures);
+            questionTextIndex.rebuild(textIndex);
+            titleSuggestionIndex.rebuild(titleIndex);
+            log.info("题目索引加载完成: 题目数={}, 耗时={}ms", questions.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 索引不可用时组卷会回退到数据库随机查询
+            log.error("题目索引加载失败: ", e);
+            questionPoolIndex.loadFailed();
+            questionSimilarityIndex.loadFailed();
+            questionTextIndex.loadFailed();
+            titleSuggestionIndex.loadFailed();
+        }
+
+        try {
+            questionExposureTracker.load(loadUsages());
+        } catch (Exception e) {
+            // 曝光次数缺失时低曝光优先抽题退化为等概率
+            log.error("题目曝光次数加载失败: ", e);
+        }
+    }
+
+    private List<QuestionUsage> loadUsages() {
+        List<QuestionUsage> all = new ArrayList<>();
+        long lastId = 0L;
+        while (true) {
+            QueryWrapper<QuestionUsage> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("question_id", "usage_count")
+                    .gt("question_id", lastId)
+                    .orderByAsc("question_id")
+                    .last("LIMIT " + loadBatchSize);
+            List<QuestionUsage> batch = questionUsageRepository.selectList(queryWrapper);
+            if (batch.isEmpty()) break;
+            all.addAll(batch);
+            lastId = batch.get(batch.size() - 1).getQuestionId();
+            if (batch.size() < loadBatchSize) break;
+        }
+        return all;
+    }
+
+    private List<Question> loadQuestions(Map<Long, long[]> signatures, QuestionTextIndex.Builder textIndex,
+                                         TitleSuggestionIndex.Builder titleIndex) {
+        List<Question> all = new ArrayList<>();
+        long lastId = 0L;
+        while (true) {
+            QueryWrapper<Question> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "category_id", "type", "difficulty", "title", "content", "analysis",
+                            "created_at", "updated_at")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + loadBatchSize);
+            List<Question> batch = questionRepository.selectList(queryWrapper);
+            if (batch.isEmpty()) break;
+            for (Question question : batch) {
+                signatures.put(question.getId(), QuestionSimilarityIndex.signature(question.getTitle(), question.getContent()));
+                textIndex.add(question);
+                titleIndex.add(question.getId(), question.getTitle(),
+                        question.getUpdatedAt() != null ? question.getUpdatedAt() : question.getCreatedAt());
+                question.setTitle(null);
+                question.setContent(null);
+                question.setAnalysis(null);
+                question.setCreatedAt(null);
+                question.setUpdatedAt(null);
+            }
+            all.addAll(batch);
+            lastId = batch.get(batch.size() - 1).getId();
+            if (batch.size() < loadBatchSize) break;
+        }
+        return all;
+    }
+}
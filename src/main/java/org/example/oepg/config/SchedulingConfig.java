@@ -0,0 +1,14 @@
+package org.example.oepg.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置
+ * 调度线程池大小由 spring.task.scheduling.pool.size 配置。超时交卷时间轮、自动保存写回、批改恢复、
+ * 曝光计数写回等定时任务共用这个线程池，只有一个线程时任一任务变慢都会推迟其他任务。
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,11 +1,20 @@
 package org.example.oepg.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import org.example.oepg.cache.AnswerAutosaveBuffer;
 import org.example.oepg.dto.req.ExamRequest;
+import org.example.oepg.dto.res.AutosaveStatsResponse;
 import org.example.oepg.dto.res.ExamResponse;
+import org.example.oepg.dto.res.GradingStatsResponse;
+import org.example.oepg.dto.res.RegradeJobResponse;
+import org.example.oepg.engine.GradingPipeline;
 import org.example.oepg.entity.Exam;
+import org.example.oepg.exception.BusinessException;
 import org.example.oepg.service.ExamService;
+import org.example.oepg.service.RegradeJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +32,15 @@ public class ExamController {
     @Autowired
     private ExamService examService;
 
+    @Autowired
+    private AnswerAutosaveBuffer answerAutosaveBuffer;
+
+    @Autowired
+    private GradingPipeline gradingPipeline;
+
+    @Autowired
+    private RegradeJobService regradeJobService;
+
     /**
      * 创建考试
      */
@@ -160,6 +178,65 @@ public class ExamController {
         }
     }
 
+    /**
+     * 强制交卷：结束时间提前到 graceSeconds 秒后（默认 30 秒），通过考试事件推送给在线学生，
+     * 到时仍未交卷的记录按已保存的答案自动交卷
+     */
+    @PostMapping("/{id}/force-submit")
+    public ResponseEntity<ExamResponse> forceSubmit(@PathVariable Long id,
+                                                    @RequestParam(required = false) Integer graceSeconds) {
+        try {
+            return ResponseEntity.ok(examService.forceSubmit(id, graceSeconds));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 答案自动保存缓冲区指标（缓冲量、写回延迟）
+     */
+    @GetMapping("/autosave/stats")
+    public ResponseEntity<AutosaveStatsResponse> getAutosaveStats() {
+        try {
+            return ResponseEntity.ok(answerAutosaveBuffer.stats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 异步批改队列指标（队列深度、延迟）
+     */
+    @GetMapping("/grading/stats")
+    public ResponseEntity<GradingStatsResponse> getGradingStats() {
+        try {
+            return ResponseEntity.ok(gradingPipeline.stats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 提交重新批改任务：按考试下各试卷的最新答案和分值重算已批改记录的分数
+     */
+    @PostMapping("/{id}/regrade")
+    public ResponseEntity<RegradeJobResponse> submitRegradeJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(regradeJobService.submitForExam(id));
+        } catch (BusinessException e) {
+            if ("JOB_QUEUE_FULL".equals(e.getCode())) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build();
+            }
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * 获取正在进行的考试
      */
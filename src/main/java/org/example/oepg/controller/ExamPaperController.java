@@ -2,10 +2,18 @@ package org.example.oepg.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import org.example.oepg.dto.req.ExamPaperRequest;
+import org.example.oepg.dto.req.PaperAssemblyRequest;
 import org.example.oepg.dto.res.ExamPaperResponse;
+import org.example.oepg.dto.res.PaperJobResponse;
+import org.example.oepg.dto.res.RegradeJobResponse;
 import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.exception.BusinessException;
 import org.example.oepg.service.ExamPaperService;
+import org.example.oepg.service.PaperGenerationJobService;
+import org.example.oepg.service.RegradeJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +31,12 @@ public class ExamPaperController {
     @Autowired
     private ExamPaperService examPaperService;
 
+    @Autowired
+    private PaperGenerationJobService paperGenerationJobService;
+
+    @Autowired
+    private RegradeJobService regradeJobService;
+
     /**
      * 创建试卷
      */
@@ -53,6 +67,120 @@ public class ExamPaperController {
         }
     }
 
+    /**
+     * 多版本组卷（A/B/C 卷）
+     */
+    @PostMapping("/generate-variants")
+    public ResponseEntity<List<ExamPaperResponse>> generatePaperVariants(@Valid @RequestBody ExamPaperRequest request) {
+        try {
+            List<ExamPaperResponse> response = examPaperService.generatePaperVariants(request);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 约束组卷
+     */
+    @PostMapping("/assemble")
+    public ResponseEntity<ExamPaperResponse> assemblePaper(@Valid @RequestBody PaperAssemblyRequest request) {
+        try {
+            ExamPaperResponse response = examPaperService.assemblePaper(request);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 提交异步智能组卷任务
+     */
+    @PostMapping("/jobs/generate")
+    public ResponseEntity<PaperJobResponse> submitGenerateJob(@Valid @RequestBody ExamPaperRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(paperGenerationJobService.submitGenerate(request));
+        } catch (BusinessException e) {
+            return rejectJob(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 提交异步多版本组卷任务
+     */
+    @PostMapping("/jobs/generate-variants")
+    public ResponseEntity<PaperJobResponse> submitVariantsJob(@Valid @RequestBody ExamPaperRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(paperGenerationJobService.submitVariants(request));
+        } catch (BusinessException e) {
+            return rejectJob(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 提交异步约束组卷任务
+     */
+    @PostMapping("/jobs/assemble")
+    public ResponseEntity<PaperJobResponse> submitAssembleJob(@Valid @RequestBody PaperAssemblyRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(paperGenerationJobService.submitAssemble(request));
+        } catch (BusinessException e) {
+            return rejectJob(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 查询组卷任务状态和结果
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PaperJobResponse> getJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(paperGenerationJobService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 提交重新批改任务：修正答案或分值后，按新快照重算该试卷下所有已批改记录的分数
+     */
+    @PostMapping("/{id}/regrade")
+    public ResponseEntity<RegradeJobResponse> submitRegradeJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(regradeJobService.submitForPaper(id));
+        } catch (BusinessException e) {
+            return rejectJob(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 查询重新批改任务进度和分数变化汇总
+     */
+    @GetMapping("/regrade-jobs/{jobId}")
+    public ResponseEntity<RegradeJobResponse> getRegradeJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(regradeJobService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * 更新试卷
      */
@@ -276,4 +404,16 @@ public class ExamPaperController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * 任务队列已满或并发任务超限时返回 429，提示客户端稍后重试
+     */
+    private <T> ResponseEntity<T> rejectJob(BusinessException e) {
+        if ("JOB_QUEUE_FULL".equals(e.getCode()) || "JOB_LIMIT_EXCEEDED".equals(e.getCode())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
 }
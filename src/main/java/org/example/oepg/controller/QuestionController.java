@@ -164,10 +164,12 @@ public class QuestionController {
     public ResponseEntity<List<QuestionResponse>> getRandomQuestions(
             @RequestParam(defaultValue = "10") int count,
             @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeDescendants,
             @RequestParam(required = false) Question.QuestionType type,
             @RequestParam(required = false) Integer difficulty) {
         try {
-            List<QuestionResponse> questions = questionService.getRandomQuestions(count, categoryId, type, difficulty);
+            List<QuestionResponse> questions = questionService.getRandomQuestions(
+                count, categoryId, includeDescendants, type, difficulty);
             return ResponseEntity.ok(questions);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -223,12 +225,13 @@ public class QuestionController {
     @GetMapping("/difficulty-distribution")
     public ResponseEntity<List<QuestionResponse>> getQuestionsByDifficultyDistribution(
             @RequestParam Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeDescendants,
             @RequestParam int easy,
             @RequestParam int medium,
             @RequestParam int hard) {
         try {
             List<QuestionResponse> questions = questionService.getQuestionsByDifficultyDistribution(
-                categoryId, easy, medium, hard);
+                categoryId, includeDescendants, easy, medium, hard);
             return ResponseEntity.ok(questions);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
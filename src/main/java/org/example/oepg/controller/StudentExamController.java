@@ -1,13 +1,24 @@
 package org.example.oepg.controller;
 
+import org.example.oepg.cache.SubmissionDedupeWindow;
+import org.example.oepg.dto.req.AutosaveRequest;
 import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.dto.res.AutosaveResponse;
+import org.example.oepg.dto.res.HeartbeatResponse;
 import org.example.oepg.dto.res.RecordResponse;
 import org.example.oepg.dto.res.StartExamResponse;
 import org.example.oepg.dto.res.SubmitAnswerResponse;
+import org.example.oepg.engine.ExamAdmissionLimiter;
+import org.example.oepg.engine.ExamEventEmitter;
+import org.example.oepg.exception.BusinessException;
 import org.example.oepg.service.StudentExamService;
 import org.example.oepg.repository.UserRepository;
 import org.example.oepg.entity.User;
+import org.example.oepg.util.ExamSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +38,12 @@ public class StudentExamController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ExamAdmissionLimiter examAdmissionLimiter;
+
+    @Autowired
+    private SubmissionDedupeWindow submissionDedupeWindow;
+
     // 列出当前学生可参加的考试
     @GetMapping("/exams/available")
     public ResponseEntity<List<StartExamResponse.AvailableExam>> getAvailableExams() {
@@ -38,12 +55,24 @@ public class StudentExamController {
         }
     }
 
-    // 开始考试：返回记录与试卷结构
+    // 开始考试：返回记录、试卷结构和考试会话令牌；开考高峰时按考试限流，令牌不足返回 429、重试秒数和预约凭证，
+    // 客户端到点携带凭证重试时按预约顺序放行
     @PostMapping("/exams/{examId}/start")
-    public ResponseEntity<StartExamResponse> startExam(@PathVariable Long examId) {
+    public ResponseEntity<StartExamResponse> startExam(@PathVariable Long examId,
+                                                       @RequestHeader(value = ExamAdmissionLimiter.TICKET_HEADER, required = false) String ticket) {
         try {
             Long studentId = getCurrentUserId();
-            StartExamResponse resp = studentExamService.startExam(examId, studentId);
+            // 准入判断在事务外进行，被拒绝的请求不占用数据库连接
+            ExamAdmissionLimiter.Admission admission = examAdmissionLimiter.admit(examId, studentId, ticket);
+            if (!admission.isAdmitted()) {
+                ResponseEntity.BodyBuilder rejected = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+                if (admission.getTicket() != null) {
+                    rejected.header(ExamAdmissionLimiter.TICKET_HEADER, admission.getTicket());
+                }
+                return rejected.build();
+            }
+            StartExamResponse resp = studentExamService.startExam(examId, studentId, currentUsername());
             return ResponseEntity.ok(resp);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -52,14 +81,73 @@ public class StudentExamController {
         }
     }
 
-    // 提交答案：自动批改客观题
+    // 自动保存：只提交修改过的题目，答案先进入缓冲区，数秒内批量写入数据库；携带考试会话令牌时不查询数据库
+    @PutMapping("/exams/{examId}/autosave")
+    public ResponseEntity<AutosaveResponse> autosave(@PathVariable Long examId,
+                                                     @Validated @RequestBody AutosaveRequest request) {
+        try {
+            ExamSession session = currentExamSession(examId);
+            if (session != null) {
+                return ResponseEntity.ok(studentExamService.autosave(session, request));
+            }
+            Long studentId = getCurrentUserId();
+            return ResponseEntity.ok(studentExamService.autosave(examId, studentId, request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // 心跳：返回服务器时间和剩余作答时间；携带考试会话令牌时不查询数据库
+    @PostMapping("/exams/{examId}/heartbeat")
+    public ResponseEntity<HeartbeatResponse> heartbeat(@PathVariable Long examId) {
+        try {
+            ExamSession session = currentExamSession(examId);
+            return ResponseEntity.ok(session != null
+                    ? studentExamService.heartbeat(session)
+                    : studentExamService.heartbeat(examId, getCurrentUserId()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // 提交答案：答题卡落库后立即返回回执，客观题由后台异步批改；携带考试会话令牌时只读取一次已保存的答案
     @PostMapping("/exams/{examId}/submit")
     public ResponseEntity<SubmitAnswerResponse> submitExam(@PathVariable Long examId,
                                                            @Validated @RequestBody SubmitAnswerRequest request) {
         try {
-            Long studentId = getCurrentUserId();
-            SubmitAnswerResponse resp = studentExamService.submitExam(examId, studentId, request);
+            // 携带幂等键的重试直接返回第一次的回执，不访问数据库
+            ExamSession session = currentExamSession(examId);
+            SubmitAnswerResponse resp = submissionDedupeWindow.submit(request.getRecordId(), request.getIdempotencyKey(),
+                    currentUsername(), () -> session != null
+                            ? studentExamService.submitExam(session, request)
+                            : studentExamService.submitExam(examId, getCurrentUserId(), request));
             return ResponseEntity.ok(resp);
+        } catch (BusinessException e) {
+            return "SUBMIT_IN_PROGRESS".equals(e.getCode())
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // 考试事件流（SSE）：服务器时钟、结束前提醒、强制交卷；连接由异步请求承载，不占用请求线程
+    @GetMapping(value = "/exams/{examId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ExamEventEmitter> examEvents(@PathVariable Long examId) {
+        try {
+            ExamSession session = currentExamSession(examId);
+            Long studentId = session != null ? session.getStudentId() : getCurrentUserId();
+            return ResponseEntity.ok(studentExamService.subscribeEvents(examId, studentId));
+        } catch (BusinessException e) {
+            return "EVENTS_FULL".equals(e.getCode())
+                    ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build()
+                    : ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
@@ -78,6 +166,19 @@ public class StudentExamController {
         }
     }
 
+    // 查询提交记录的批改状态和客观题得分
+    @GetMapping("/records/{recordId}/grading")
+    public ResponseEntity<SubmitAnswerResponse> gradingStatus(@PathVariable Long recordId) {
+        try {
+            Long studentId = getCurrentUserId();
+            return ResponseEntity.ok(studentExamService.getGradingStatus(recordId, studentId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     // 单次记录详情
     @GetMapping("/records/{recordId}")
     public ResponseEntity<RecordResponse> recordDetail(@PathVariable Long recordId) {
@@ -92,15 +193,33 @@ public class StudentExamController {
     }
 
     private Long getCurrentUserId() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || auth.getName() == null) {
-            throw new RuntimeException("未认证用户");
-        }
-        String username = auth.getName();
+        String username = currentUsername();
         User user = userRepository.findByUsername(username);
         if (user == null) {
             throw new RuntimeException("用户不存在: " + username);
         }
         return user.getId();
     }
+
+    /**
+     * 由考试会话令牌认证且属于该考试时返回令牌声明，否则返回 null（按用户名查询）
+     */
+    private ExamSession currentExamSession(Long examId) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getDetails() instanceof ExamSession) {
+            ExamSession session = (ExamSession) auth.getDetails();
+            if (examId != null && session.getExamId() == examId) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    private String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null) {
+            throw new RuntimeException("未认证用户");
+        }
+        return auth.getName();
+    }
 }
@@ -0,0 +1,26 @@
+package org.example.oepg.dto.req;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * 答案自动保存请求：只携带自上次保存以来修改过的题目
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutosaveRequest {
+
+    @NotNull
+    private Long recordId;
+
+    @NotEmpty
+    @Valid
+    private List<SubmitAnswerRequest.AnswerItem> answers;
+}
@@ -28,6 +28,19 @@ public class ExamPaperRequest {
 
     // 智能组卷参数
     private List<QuestionSelectionRule> questionRules;
+    private SelectionMode selectionMode = SelectionMode.RANDOM; // 抽题方式
+
+    // 多版本组卷参数（A/B/C 卷）
+    private Integer variantCount; // 版本数量
+    private Double maxOverlapRatio; // 任意两个版本之间重复题目的最大占比
+
+    /**
+     * 抽题方式
+     */
+    public enum SelectionMode {
+        RANDOM,        // 等概率随机
+        LOW_EXPOSURE   // 按曝光次数加权，优先抽取较少出现在已发布试卷中的题目
+    }
 
     /**
      * 题目选择规则
@@ -35,6 +48,7 @@ public class ExamPaperRequest {
     @Data
     public static class QuestionSelectionRule {
         private Long categoryId; // 分类ID
+        private boolean includeDescendants; // 是否包含子分类的题目
         private String questionType; // 题目类型
         private Integer difficulty; // 难度等级
         private Integer count; // 题目数量
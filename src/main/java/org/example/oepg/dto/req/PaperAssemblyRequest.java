@@ -0,0 +1,51 @@
+package org.example.oepg.dto.req;
+
+import lombok.Data;
+import org.example.oepg.entity.Question;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 约束组卷请求DTO
+ * 以全局约束（总分、平均难度、题型比例、分类覆盖）描述整张试卷，由组卷引擎搜索最优题目组合
+ */
+@Data
+public class PaperAssemblyRequest {
+
+    @NotBlank(message = "试卷标题不能为空")
+    private String title;
+
+    @NotNull(message = "考试ID不能为空")
+    private Long examId;
+
+    @NotNull(message = "考试时长不能为空")
+    @Positive(message = "考试时长必须为正数")
+    private Integer duration; // 考试时长（分钟）
+
+    @NotNull(message = "题目数量不能为空")
+    @Positive(message = "题目数量必须为正数")
+    private Integer questionCount; // 试卷题目数量
+
+    @NotNull(message = "目标总分不能为空")
+    @Positive(message = "目标总分必须为正数")
+    private Integer targetScore; // 目标总分
+
+    private Double targetDifficulty; // 目标平均难度，为空表示不限
+
+    private List<Long> categoryIds; // 候选题目所属分类，为空表示全部分类
+
+    private boolean coverAllCategories; // 是否要求 categoryIds 中每个分类至少一道题
+
+    private Map<Question.QuestionType, Double> maxTypeRatios; // 题型占比上限，如 PROOF -> 0.3
+
+    private Map<Question.QuestionType, Integer> minTypeCounts; // 题型最少题数
+
+    @Positive(message = "搜索时间预算必须为正数")
+    @Max(value = 10000, message = "搜索时间预算不能超过 10000 毫秒")
+    private Long timeBudgetMillis; // 搜索时间预算（毫秒），为空使用默认值，服务端再按 oepg.assembly.max-time-budget-ms 截断
+}
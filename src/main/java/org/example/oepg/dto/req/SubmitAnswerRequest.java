@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 @Data
@@ -18,6 +19,9 @@ public class SubmitAnswerRequest {
     @NotNull
     private List<AnswerItem> answers;
 
+    @Size(max = 64)
+    private String idempotencyKey; // 可选：幂等键，超时重试时携带与第一次相同的值
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
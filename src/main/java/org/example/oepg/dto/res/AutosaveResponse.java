@@ -0,0 +1,21 @@
+package org.example.oepg.dto.res;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutosaveResponse {
+
+    private Long recordId;
+
+    private Integer savedAnswers; // 本次接收的答案条数
+
+    private LocalDateTime savedAt; // 服务端接收时间，答案会在数秒内写入数据库
+}
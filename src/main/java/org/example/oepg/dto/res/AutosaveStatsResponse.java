@@ -0,0 +1,34 @@
+package org.example.oepg.dto.res;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 答案自动保存缓冲区指标
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutosaveStatsResponse {
+
+    private int bufferedRecords; // 有未写入答案的考试记录数
+
+    private int bufferedAnswers; // 未写入的答案条数（同一题多次修改只计一次）
+
+    private long flushLagMillis; // 最早一条未写入答案已等待的时长
+
+    private LocalDateTime lastFlushAt;
+
+    private long lastFlushMillis; // 上一次写入耗时
+
+    private int lastFlushRecords; // 上一次写入的记录数
+
+    private long flushedRecords; // 累计写入的记录数
+
+    private long failedFlushes; // 累计失败的批次数
+}
@@ -0,0 +1,34 @@
+package org.example.oepg.dto.res;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步批改队列指标
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradingStatsResponse {
+
+    private int queueDepth; // 等待批改的记录数
+
+    private int inFlight; // 已入队或正在批改的记录数
+
+    private long lagMillis; // 队首记录已等待的时长
+
+    private LocalDateTime lastBatchAt;
+
+    private int lastBatchSize;
+
+    private long lastBatchMillis;
+
+    private long gradedRecords; // 累计批改的记录数
+
+    private long failedBatches; // 累计失败的批次数，失败记录由补偿扫描重新入队
+}
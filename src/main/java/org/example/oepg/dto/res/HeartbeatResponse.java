@@ -0,0 +1,23 @@
+package org.example.oepg.dto.res;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeartbeatResponse {
+
+    private Long recordId;
+
+    private LocalDateTime serverTime; // 客户端据此校准本地时钟
+
+    private LocalDateTime deadline; // 作答截止时间
+
+    private Long remainingSeconds;
+}
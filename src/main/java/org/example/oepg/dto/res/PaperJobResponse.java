@@ -0,0 +1,43 @@
+package org.example.oepg.dto.res;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 组卷任务响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaperJobResponse {
+
+    private String jobId;
+    private JobType type;
+    private JobStatus status;
+    private Integer queuePosition; // 排队中的位置（从1开始），非排队状态为空
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorCode;
+    private String errorMessage;
+    private List<ExamPaperResponse> papers; // 任务成功后生成的试卷
+
+    public enum JobType {
+        GENERATE,   // 智能组卷
+        VARIANTS,   // 多版本组卷
+        ASSEMBLE    // 约束组卷
+    }
+
+    public enum JobStatus {
+        QUEUED,     // 排队中
+        RUNNING,    // 执行中
+        SUCCEEDED,  // 已完成
+        FAILED      // 失败
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.oepg.dto.res;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 重新批改任务响应DTO：进度与分数变化汇总
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegradeJobResponse {
+
+    private String jobId;
+    private Scope scope;
+    private Long targetId; // 试卷ID或考试ID
+    private PaperJobResponse.JobStatus status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorCode;
+    private String errorMessage;
+
+    private long totalRecords;      // 开始时统计的待重新批改记录数
+    private long processedRecords;  // 已重新批改的记录数
+    private double progress;        // 完成百分比（0-100）
+
+    private long changedRecords;    // 分数发生变化的记录数
+    private long increasedRecords;
+    private long decreasedRecords;
+    private long totalScoreDelta;   // 所有记录分数变化之和
+    private int maxIncrease;
+    private int maxDecrease;
+
+    public enum Scope {
+        PAPER,  // 单份试卷
+        EXAM    // 考试下的全部试卷
+    }
+}
@@ -21,6 +21,8 @@ public class StartExamResponse {
     private Integer totalScore;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private LocalDateTime deadline; // 本次作答截止时间 = min(开始时间 + 时长, 结束时间)
+    private String sessionToken; // 考试会话令牌，自动保存、心跳、交卷时放在 X-Exam-Session 请求头中
 
     private List<ExamQuestion> questions;
 
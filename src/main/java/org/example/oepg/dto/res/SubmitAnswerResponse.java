@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,4 +16,10 @@ public class SubmitAnswerResponse {
     private Integer objectiveScore; // 客观题得分
     private Integer totalScore;     // 当前总分（若包含主观题，可能小于试卷总分）
     private boolean pendingReview;  // 是否包含主观题，待人工评分
+    private GradingStatus gradingStatus; // 提交回执为 QUEUED，批改完成后可通过批改状态接口查询分数
+    private LocalDateTime submitTime;
+
+    public enum GradingStatus {
+        QUEUED, GRADED
+    }
 }
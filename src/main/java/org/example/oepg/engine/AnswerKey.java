@@ -0,0 +1,172 @@
+package org.example.oepg.engine;
+
+import org.example.oepg.entity.Question;
+
+/**
+ * 预编译的客观题标准答案
+ * 标准答案在试卷快照组装时规范化一次（去首尾空白、连续空白折叠为一个空格、填空题按 | 或 ; 拆分），
+ * 批改时对学生答案做单遍扫描，边规范化边比较（忽略大小写），不使用正则也不创建中间字符串。
+ * 判定结果与原先 trim().replaceAll("\\s+", " ") + split("[|;]") + equalsIgnoreCase 的实现一致。
+ */
+public final class AnswerKey {
+
+    private final boolean fillBlank;
+
+    private final char[][] blanks; // 选择题只有一段
+
+    private AnswerKey(boolean fillBlank, char[][] blanks) {
+        this.fillBlank = fillBlank;
+        this.blanks = blanks;
+    }
+
+    /**
+     * 编译标准答案；主观题返回 null
+     */
+    public static AnswerKey compile(Question.QuestionType type, String answer) {
+        if (type == Question.QuestionType.CHOICE) {
+            String normalized = normalize(answer == null ? "" : answer, 0, answer == null ? 0 : answer.length());
+            return new AnswerKey(false, new char[][]{normalized.toCharArray()});
+        }
+        if (type == Question.QuestionType.FILL_BLANK) {
+            if (answer == null) {
+                return new AnswerKey(true, null);
+            }
+            int[] bounds = segments(answer);
+            char[][] blanks = new char[bounds.length / 2][];
+            for (int i = 0; i < blanks.length; i++) {
+                blanks[i] = normalize(answer, bounds[2 * i], bounds[2 * i + 1]).toCharArray();
+            }
+            return new AnswerKey(true, blanks);
+        }
+        return null;
+    }
+
+    /**
+     * 学生答案是否与标准答案一致
+     */
+    public boolean matches(String answer) {
+        if (!fillBlank) {
+            return regionMatches(answer == null ? "" : answer, 0, answer == null ? 0 : answer.length(), blanks[0]);
+        }
+        if (answer == null || blanks == null) {
+            return false;
+        }
+        int length = answer.length();
+        int count = segmentCount(answer);
+        if (count != blanks.length) {
+            return false;
+        }
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = start;
+            while (end < length && !isDelimiter(answer.charAt(end))) end++;
+            if (!regionMatches(answer, start, end, blanks[i])) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /**
+     * 按 split("[|;]") 的规则计算分段数：无分隔符时为 1 段，否则去掉末尾的空段
+     */
+    private static int segmentCount(String s) {
+        int length = s.length();
+        int delimiters = 0;
+        int segmentStart = 0;
+        int segments = 0;
+        int nonEmptySegments = 0; // 最后一个非空段的序号
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isDelimiter(s.charAt(i))) {
+                segments++;
+                if (i > segmentStart) {
+                    nonEmptySegments = segments;
+                }
+                if (i < length) delimiters++;
+                segmentStart = i + 1;
+            }
+        }
+        if (delimiters == 0) {
+            return 1;
+        }
+        return nonEmptySegments;
+    }
+
+    /**
+     * 与 segmentCount 规则一致的分段边界 [start0, end0, start1, end1, ...]，只在编译时使用
+     */
+    private static int[] segments(String s) {
+        int count = segmentCount(s);
+        int[] bounds = new int[count * 2];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = start;
+            while (end < s.length() && !isDelimiter(s.charAt(end))) end++;
+            bounds[2 * i] = start;
+            bounds[2 * i + 1] = end;
+            start = end + 1;
+        }
+        return bounds;
+    }
+
+    /**
+     * 将 s[start, end) 规范化后与 key 比较（忽略大小写）
+     */
+    private static boolean regionMatches(String s, int start, int end, char[] key) {
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        int k = 0;
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (isRegexSpace(c)) {
+                do i++; while (i < end && isRegexSpace(s.charAt(i)));
+                c = ' ';
+            } else {
+                i++;
+            }
+            if (k >= key.length || !equalsIgnoreCase(c, key[k])) {
+                return false;
+            }
+            k++;
+        }
+        return k == key.length;
+    }
+
+    private static String normalize(String s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        StringBuilder sb = new StringBuilder(end - start);
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (isRegexSpace(c)) {
+                do i++; while (i < end && isRegexSpace(s.charAt(i)));
+                sb.append(' ');
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean equalsIgnoreCase(char a, char b) {
+        if (a == b) return true;
+        char ua = Character.toUpperCase(a);
+        char ub = Character.toUpperCase(b);
+        return ua == ub || Character.toLowerCase(ua) == Character.toLowerCase(ub);
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '|' || c == ';';
+    }
+
+    /**
+     * 正则 \s 对应的字符
+     */
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
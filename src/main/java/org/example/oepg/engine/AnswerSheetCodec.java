@@ -0,0 +1,364 @@
+package org.example.oepg.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 答题卡编解码
+ * exam_records.answers 支持三种格式，写入格式由 oepg.answers.format 决定，读取时按前缀自动识别，历史数据始终可读：
+ * <ul>
+ *   <li>JSON：[{"questionId":1,"answer":"A","timeUsedSeconds":30}, ...]，以流式生成器直接写出、流式解析器读取，不构建树</li>
+ *   <li>BINARY：前缀 "b1:" + Base64(紧凑二进制)</li>
+ *   <li>DEFLATE：前缀 "z1:" + Base64(Deflate 压缩的紧凑二进制)，压缩后不更小时按 BINARY 写入</li>
+ * </ul>
+ * 紧凑二进制为：varint 题目数，逐题 varint(zigzag(题目ID - 上一题目ID))、
+ * varint(答案 UTF-8 字节数 + 1，0 表示空) + UTF-8 字节、varint(zigzag(作答耗时) + 1，0 表示空)。
+ */
+@Component
+@Slf4j
+public class AnswerSheetCodec {
+
+    public enum Format {
+        JSON, BINARY, DEFLATE
+    }
+
+    private static final String BINARY_PREFIX = "b1:";
+
+    private static final String DEFLATE_PREFIX = "z1:";
+
+    // 旧版 toJsonString 只转义引号和反斜杠，历史记录的作答中可能含未转义的换行、制表符
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build();
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private static final ThreadLocal<Bytes> BUFFERS = ThreadLocal.withInitial(Bytes::new);
+
+    private static final ThreadLocal<Bytes> INPUT_BUFFERS = ThreadLocal.withInitial(Bytes::new);
+
+    @Value("${oepg.answers.format:JSON}")
+    private Format format = Format.JSON;
+
+    public AnswerSheetCodec() {
+    }
+
+    public AnswerSheetCodec(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * 按题目顺序编码答题卡
+     */
+    public String encode(Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        switch (format) {
+            case BINARY:
+                return BINARY_PREFIX + writeBinary(answers).toBase64();
+            case DEFLATE:
+                return encodeDeflate(answers);
+            default:
+                return encodeJson(answers);
+        }
+    }
+
+    /**
+     * 解码答题卡，返回 questionId -> 答案（保持原有顺序）；为空或格式错误时返回已解析的部分
+     */
+    public Map<Long, SubmitAnswerRequest.AnswerItem> decode(String answers) {
+        Map<Long, SubmitAnswerRequest.AnswerItem> sheet = new LinkedHashMap<>();
+        if (answers == null || answers.isEmpty()) {
+            return sheet;
+        }
+        try {
+            if (answers.startsWith(BINARY_PREFIX)) {
+                Bytes bytes = decodeBase64(answers, BINARY_PREFIX.length(), BUFFERS.get());
+                readBinary(bytes.bytes, bytes.size, sheet);
+            } else if (answers.startsWith(DEFLATE_PREFIX)) {
+                Bytes inflated = inflate(decodeBase64(answers, DEFLATE_PREFIX.length(), INPUT_BUFFERS.get()));
+                readBinary(inflated.bytes, inflated.size, sheet);
+            } else {
+                readJson(answers, sheet);
+            }
+        } catch (Exception e) {
+            log.warn("答题卡解析失败，按已解析部分处理: {}", e.getMessage());
+        }
+        return sheet;
+    }
+
+    // ---------- JSON ----------
+
+    private String encodeJson(Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        SegmentedStringWriter writer = new SegmentedStringWriter(new BufferRecycler());
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartArray();
+            for (SubmitAnswerRequest.AnswerItem item : answers) {
+                generator.writeStartObject();
+                generator.writeNumberField("questionId", item.getQuestionId());
+                generator.writeStringField("answer", item.getAnswer());
+                if (item.getTimeUsedSeconds() != null) {
+                    generator.writeNumberField("timeUsedSeconds", item.getTimeUsedSeconds());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("答题卡编码失败", e);
+        }
+        return writer.getAndClear();
+    }
+
+    private void readJson(String answers, Map<Long, SubmitAnswerRequest.AnswerItem> sheet) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(answers)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                Long questionId = null;
+                String answer = null;
+                Integer timeUsed = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if ("questionId".equals(field)) {
+                        questionId = value.isNumeric() ? parser.getValueAsLong() : null;
+                    } else if ("answer".equals(field)) {
+                        answer = value == JsonToken.VALUE_NULL ? null : value.isScalarValue() ? parser.getText() : "";
+                    } else if ("timeUsedSeconds".equals(field)) {
+                        timeUsed = value == JsonToken.VALUE_NULL ? null : value.isScalarValue() ? parser.getValueAsInt() : 0;
+                    }
+                    parser.skipChildren();
+                }
+                if (questionId != null) {
+                    sheet.put(questionId, new SubmitAnswerRequest.AnswerItem(questionId, answer, timeUsed));
+                }
+            }
+        }
+    }
+
+    // ---------- 紧凑二进制 ----------
+
+    private Bytes writeBinary(Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        Bytes out = BUFFERS.get();
+        out.size = 0;
+        out.writeVarLong(answers.size());
+        long previousId = 0;
+        for (SubmitAnswerRequest.AnswerItem item : answers) {
+            long questionId = item.getQuestionId();
+            out.writeVarLong(zigzag(questionId - previousId));
+            previousId = questionId;
+            String answer = item.getAnswer();
+            if (answer == null) {
+                out.writeVarLong(0);
+            } else {
+                out.writeVarLong(utf8Length(answer) + 1L);
+                out.writeUtf8(answer);
+            }
+            Integer timeUsed = item.getTimeUsedSeconds();
+            out.writeVarLong(timeUsed == null ? 0 : zigzag(timeUsed) + 1);
+        }
+        return out;
+    }
+
+    private void readBinary(byte[] bytes, int length, Map<Long, SubmitAnswerRequest.AnswerItem> sheet) {
+        int[] position = {0};
+        long count = readVarLong(bytes, length, position);
+        long questionId = 0;
+        for (long i = 0; i < count; i++) {
+            questionId += unzigzag(readVarLong(bytes, length, position));
+            long answerLength = readVarLong(bytes, length, position);
+            String answer = null;
+            if (answerLength > 0) {
+                int size = (int) (answerLength - 1);
+                if (size > length - position[0]) {
+                    throw new IllegalArgumentException("答案长度越界");
+                }
+                answer = new String(bytes, position[0], size, StandardCharsets.UTF_8);
+                position[0] += size;
+            }
+            long timeUsed = readVarLong(bytes, length, position);
+            sheet.put(questionId, new SubmitAnswerRequest.AnswerItem(questionId, answer,
+                    timeUsed == 0 ? null : (int) unzigzag(timeUsed - 1)));
+        }
+    }
+
+    // ---------- Deflate ----------
+
+    private String encodeDeflate(Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        Bytes raw = writeBinary(answers);
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(raw.bytes, 0, raw.size);
+        deflater.finish();
+        Bytes compressed = INPUT_BUFFERS.get();
+        compressed.size = 0;
+        compressed.ensure(raw.size);
+        while (!deflater.finished() && compressed.size < raw.size) {
+            compressed.size += deflater.deflate(compressed.bytes, compressed.size, raw.size - compressed.size);
+        }
+        if (!deflater.finished()) {
+            // 短答题卡压缩后不会更小
+            return BINARY_PREFIX + raw.toBase64();
+        }
+        return DEFLATE_PREFIX + compressed.toBase64();
+    }
+
+    private static Bytes inflate(Bytes compressed) throws DataFormatException {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(compressed.bytes, 0, compressed.size);
+        Bytes out = BUFFERS.get();
+        out.size = 0;
+        out.ensure(compressed.size * 4);
+        while (!inflater.finished()) {
+            if (out.size == out.bytes.length) {
+                out.ensure(out.bytes.length * 2);
+            }
+            int n = inflater.inflate(out.bytes, out.size, out.bytes.length - out.size);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("压缩数据不完整");
+            }
+            out.size += n;
+        }
+        return out;
+    }
+
+    /**
+     * 解码 s[from..] 的 Base64 到复用的缓冲区
+     */
+    private static Bytes decodeBase64(String s, int from, Bytes out) {
+        byte[] latin1 = s.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer decoded = Base64.getDecoder().decode(ByteBuffer.wrap(latin1, from, latin1.length - from));
+        out.size = 0;
+        out.ensure(decoded.remaining());
+        out.size = decoded.remaining();
+        decoded.get(out.bytes, 0, out.size);
+        return out;
+    }
+
+    // ---------- 工具 ----------
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(byte[] bytes, int length, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= length) {
+                throw new IllegalArgumentException("数据不完整");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint 过长");
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3; // 孤立代理项写为 U+FFFD，同样是 3 字节
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 线程内复用的字节缓冲区，编码时直接写入，不产生中间 byte[]
+     */
+    private static final class Bytes {
+        byte[] bytes = new byte[4096];
+        int size;
+
+        void ensure(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        String toBase64() {
+            ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(bytes, 0, size));
+            return new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1);
+        }
+
+        void writeVarLong(long value) {
+            ensure(size + 10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeUtf8(String s) {
+            ensure(size + s.length() * 3);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    bytes[size++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[size++] = (byte) (0xC0 | (c >> 6));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    bytes[size++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // 孤立代理项写为 EF BF BD（U+FFFD），占 3 字节，与 utf8Length 一致
+                    bytes[size++] = (byte) 0xEF;
+                    bytes[size++] = (byte) 0xBF;
+                    bytes[size++] = (byte) 0xBD;
+                } else {
+                    bytes[size++] = (byte) (0xE0 | (c >> 12));
+                    bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.oepg.engine;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开始考试准入控制
+ * 每场考试一个令牌桶（按 rate-per-second 补充，最多积累 burst 个），以 GCRA 形式只保存下一个请求的理论到达时刻。
+ * 令牌不足的请求立即拒绝，请求线程从不在这里等待；但拒绝时按到达顺序为它预约一个放行时刻（推进理论到达时刻），
+ * 把到该时刻的秒数作为 Retry-After，并签发预约凭证。客户端到点携带凭证重试时直接放行，不再与新请求竞争令牌，
+ * 因此开考瞬间被拒绝的请求按先来先到依次错开，而不是在同一秒集中重试。
+ * 预约数不超过 waiting-room，等待室已满的请求不预约，只返回等到有空位的秒数。
+ */
+@Component
+@Slf4j
+public class ExamAdmissionLimiter {
+
+    /**
+     * 客户端携带预约凭证的请求头，429 响应也在该头中返回凭证
+     */
+    public static final String TICKET_HEADER = "X-Admission-Ticket";
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // 凭证声明：examId + studentId + 预约的放行时刻（各 8 字节）
+    private static final int CLAIMS_LENGTH = 3 * 8;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${oepg.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${oepg.admission.rate-per-second:50}")
+    private double ratePerSecond;
+
+    @Value("${oepg.admission.burst:50}")
+    private int burst;
+
+    @Value("${oepg.admission.waiting-room:1000}")
+    private int waitingRoom;
+
+    @Value("${oepg.admission.ticket-grace-seconds:30}")
+    private long ticketGraceSeconds;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    // 放行时刻取自 System.nanoTime，只在本进程内有意义，所以密钥每次启动随机生成，重启前的凭证自然失效
+    private final SecretKeySpec ticketKey = new SecretKeySpec(randomKey(), ALGORITHM);
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> newMac(ticketKey));
+
+    /**
+     * 申请开始考试：放行时 retryAfterSeconds 为 0，被拒绝时返回建议的重试等待秒数和预约凭证（等待室已满时没有凭证）
+     */
+    public Admission admit(Long examId, Long studentId, String ticket) {
+        return admit(examId, studentId, ticket, System.nanoTime());
+    }
+
+    Admission admit(Long examId, Long studentId, String ticket, long now) {
+        if (!enabled || examId == null) {
+            return Admission.ADMITTED;
+        }
+        Long reserved = verifyTicket(ticket, examId, studentId, now);
+        if (reserved != null) {
+            // 预约时已为该请求推进了理论到达时刻，到点直接放行；提前回来的继续等待同一个时刻
+            long wait = reserved - now;
+            return wait <= 0 ? Admission.ADMITTED : new Admission(seconds(wait), ticket);
+        }
+        Bucket bucket = buckets.computeIfAbsent(examId, k -> new Bucket(now));
+        long interval = (long) (SECOND_NANOS / ratePerSecond);
+        long tolerance = interval * (Math.max(1, burst) - 1);
+        synchronized (bucket) {
+            // 理论到达时刻早于当前时刻说明令牌已补满
+            long tat = Math.max(bucket.theoreticalArrival - now, 0) + now;
+            long wait = tat - tolerance - now;
+            if (wait <= 0) {
+                bucket.theoreticalArrival = tat + interval;
+                return Admission.ADMITTED;
+            }
+            // 每个预约占用一个发放间隔，wait 超过 waiting-room 个间隔说明等待室已满
+            long overflow = wait - interval * Math.max(0, waitingRoom);
+            if (overflow > 0) {
+                return new Admission(seconds(overflow), null);
+            }
+            bucket.theoreticalArrival = tat + interval;
+            return new Admission(seconds(wait), issueTicket(examId, studentId, now + wait));
+        }
+    }
+
+    /**
+     * 清理长时间空闲的考试令牌桶
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeIdle() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> {
+            Bucket bucket = entry.getValue();
+            synchronized (bucket) {
+                return now - bucket.theoreticalArrival > IDLE_NANOS;
+            }
+        });
+    }
+
+    private String issueTicket(Long examId, Long studentId, long slot) {
+        byte[] claims = ByteBuffer.allocate(CLAIMS_LENGTH)
+                .putLong(examId)
+                .putLong(studentId == null ? 0 : studentId)
+                .putLong(slot)
+                .array();
+        return ENCODER.encodeToString(claims) + "." + ENCODER.encodeToString(macs.get().doFinal(claims));
+    }
+
+    /**
+     * 校验预约凭证，返回预约的放行时刻；格式错误、签名不符、不属于该考试和学生或已超过宽限期时返回 null，按新请求处理
+     */
+    private Long verifyTicket(String ticket, Long examId, Long studentId, long now) {
+        if (ticket == null) {
+            return null;
+        }
+        int dot = ticket.indexOf('.');
+        if (dot <= 0 || dot == ticket.length() - 1) {
+            return null;
+        }
+        byte[] claims;
+        byte[] signature;
+        try {
+            claims = DECODER.decode(ticket.substring(0, dot));
+            signature = DECODER.decode(ticket.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.length != CLAIMS_LENGTH || !MessageDigest.isEqual(macs.get().doFinal(claims), signature)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(claims);
+        if (buffer.getLong() != examId || buffer.getLong() != (studentId == null ? 0 : studentId)) {
+            return null;
+        }
+        long slot = buffer.getLong();
+        if (now - slot > TimeUnit.SECONDS.toNanos(ticketGraceSeconds)) {
+            return null;
+        }
+        return slot;
+    }
+
+    // 向上取整，客户端按整秒重试时不会早于预约时刻
+    private static long seconds(long nanos) {
+        return Math.max(1, (nanos + SECOND_NANOS - 1) / SECOND_NANOS);
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 不可用", e);
+        }
+    }
+
+    /**
+     * 准入结果
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Admission {
+
+        static final Admission ADMITTED = new Admission(0, null);
+
+        private final long retryAfterSeconds; // 0 表示放行
+
+        private final String ticket; // 预约凭证，重试时放在 X-Admission-Ticket 请求头中
+
+        public boolean isAdmitted() {
+            return retryAfterSeconds == 0;
+        }
+    }
+
+    /**
+     * 令牌桶状态，以 GCRA 形式保存：下一个请求的理论到达时刻
+     */
+    private static final class Bucket {
+        long theoreticalArrival;
+
+        Bucket(long now) {
+            this.theoreticalArrival = now;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.oepg.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.cache.AnswerAutosaveBuffer;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.entity.Exam;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.repository.ExamRepository;
+import org.example.oepg.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 考试作答截止时间调度器
+ * 每条进行中记录的截止时间为 min(开始时间 + 考试时长, 考试结束时间)，保存在分层时间轮中，启动时从数据库恢复。
+ * 定期推进时间轮，对到期的记录合并已保存和缓冲区中的自动保存答案，用试卷快照批改客观题，
+ * 再以批量 UPDATE 置为 TIMEOUT；学生已自行提交的记录不受影响。
+ */
+@Component
+@Slf4j
+public class ExamDeadlineScheduler implements CommandLineRunner {
+
+    private static final int MAX_FINALIZE_ATTEMPTS = 3; // 与自动保存写回冲突时同一刻度内的最大交卷次数
+
+    @Autowired
+    private ExamRecordRepository examRecordRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Autowired
+    private AnswerAutosaveBuffer answerAutosaveBuffer;
+
+    @Autowired
+    private AnswerSheetCodec answerSheetCodec;
+
+    @Autowired
+    private ExamShuffler examShuffler;
+
+    @Autowired
+    private ObjectiveGrader objectiveGrader;
+
+    @Value("${oepg.deadline.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${oepg.deadline.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${oepg.persistence.batch-size:500}")
+    private int batchSize;
+
+    private TimingWheel<Long> wheel;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * 启动时加载全部进行中记录的截止时间；应用停机期间已到期的记录在第一次推进时交卷
+     */
+    @Override
+    public void run(String... args) {
+        try {
+            List<ExamRecord> ongoing = examRecordRepository.findOngoing();
+            Map<Long, Exam> exams = loadExams(ongoing);
+            int scheduled = 0;
+            for (ExamRecord record : ongoing) {
+                LocalDateTime deadline = deadlineOf(record, exams.get(record.getExamId()));
+                if (deadline != null) {
+                    schedule(record.getId(), deadline);
+                    scheduled++;
+                }
+            }
+            log.info("作答截止时间加载完成: 进行中记录={}, 已调度={}", ongoing.size(), scheduled);
+        } catch (Exception e) {
+            // 未加载的记录不会自动交卷，学生超时提交时仍会被拒绝
+            log.error("作答截止时间加载失败: ", e);
+        }
+    }
+
+    /**
+     * 作答截止时间；考试既无时长也无结束时间时返回 null
+     */
+    public static LocalDateTime deadlineOf(ExamRecord record, Exam exam) {
+        if (exam == null) {
+            return null;
+        }
+        LocalDateTime deadline = exam.getEndTime();
+        if (exam.getDuration() != null && record.getStartTime() != null) {
+            LocalDateTime byDuration = record.getStartTime().plusMinutes(exam.getDuration());
+            if (deadline == null || byDuration.isBefore(deadline)) {
+                deadline = byDuration;
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * 在当前事务提交后登记记录的截止时间
+     */
+    public void scheduleAfterCommit(Long recordId, LocalDateTime deadline) {
+        if (deadline != null) {
+            TransactionUtil.afterCommit(() -> schedule(recordId, deadline));
+        }
+    }
+
+    /**
+     * 在当前事务提交后把考试下全部进行中记录的截止时间提前到 deadline（强制交卷）
+     */
+    public void rescheduleExamAfterCommit(Long examId, LocalDateTime deadline) {
+        TransactionUtil.afterCommit(() -> {
+            List<Long> recordIds = examRecordRepository.findOngoingIdsByExam(examId);
+            long millis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            synchronized (wheel) {
+                recordIds.forEach(id -> wheel.schedule(id, millis));
+            }
+            log.info("强制交卷调度: examId={}, 记录数={}", examId, recordIds.size());
+        });
+    }
+
+    /**
+     * 学生提交后移出时间轮
+     */
+    public void cancelAfterCommit(Long recordId) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (wheel) {
+                wheel.cancel(recordId);
+            }
+        });
+    }
+
+    /**
+     * 记录当前生效的截止时间（含强制交卷提前后的时间），已交卷或未调度时返回 null
+     */
+    public Long deadlineMillis(Long recordId) {
+        synchronized (wheel) {
+            return wheel.deadlineOf(recordId);
+        }
+    }
+
+    /**
+     * 推进时间轮，批量处理到期记录
+     */
+    @Scheduled(fixedDelayString = "${oepg.deadline.tick-ms:1000}")
+    public void sweep() {
+        List<Long> expired = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), expired::add);
+        }
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Long> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            try {
+                finalizeBatch(batch);
+            } catch (Exception e) {
+                // 放回时间轮，下一个刻度重试
+                log.error("超时交卷失败，稍后重试: 记录数={}", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + tickMillis;
+                synchronized (wheel) {
+                    batch.forEach(id -> wheel.schedule(id, retryAt));
+                }
+            }
+        }
+    }
+
+    private void schedule(Long recordId, LocalDateTime deadline) {
+        long millis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (wheel) {
+            wheel.schedule(recordId, millis);
+        }
+    }
+
+    /**
+     * 超时交卷一批记录；与自动保存写回冲突而未写入的记录重新读取后再交卷，多次冲突时留到下一个刻度
+     */
+    void finalizeBatch(List<Long> recordIds) {
+        List<Long> pending = recordIds;
+        for (int attempt = 1; ; attempt++) {
+            pending = finalizeOnce(pending);
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (attempt >= MAX_FINALIZE_ATTEMPTS) {
+                log.warn("超时交卷与自动保存写回持续冲突，下一个刻度重试: 记录数={}", pending.size());
+                long retryAt = System.currentTimeMillis() + tickMillis;
+                synchronized (wheel) {
+                    pending.forEach(id -> wheel.schedule(id, retryAt));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 超时交卷一批记录：一次查询记录和考试，逐条批改，一条带版本号条件的 UPDATE 写回；
+     * 返回读取后被自动保存写回改动过（版本号已变）而未写入的记录ID
+     */
+    private List<Long> finalizeOnce(List<Long> recordIds) {
+        // 先复制缓冲区中的答案再读已保存的答案，避免与自动保存写回交错时遗漏；落库后才丢弃缓冲区
+        Map<Long, Map<Long, SubmitAnswerRequest.AnswerItem>> buffered = new HashMap<>();
+        for (Long recordId : recordIds) {
+            buffered.put(recordId, answerAutosaveBuffer.pending(recordId));
+        }
+        List<ExamRecord> records = examRecordRepository.findOngoingByIds(recordIds);
+        if (records.isEmpty()) {
+            // 已自行提交或已超时交卷的记录不再跟踪
+            recordIds.forEach(answerAutosaveBuffer::discard);
+            return Collections.emptyList();
+        }
+        Map<Long, Exam> exams = loadExams(records);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<ExamRecord> results = new ArrayList<>(records.size());
+        for (ExamRecord record : records) {
+            LocalDateTime deadline = deadlineOf(record, exams.get(record.getExamId()));
+            if (deadline == null || deadline.isAfter(now)) {
+                // 考试时间被延长或取消限制，按新的截止时间重新调度
+                if (deadline != null) {
+                    schedule(record.getId(), deadline);
+                }
+                continue;
+            }
+            Map<Long, SubmitAnswerRequest.AnswerItem> sheet = answerSheetCodec.decode(record.getAnswers());
+            sheet.putAll(buffered.get(record.getId()));
+            PaperSnapshot paper = paperSnapshotCache.get(record.getPaperId());
+            int score = 0;
+            if (paper != null) {
+                examShuffler.restoreAnswers(record.getId(), paper, sheet.values());
+                score = objectiveGrader.grade(paper, sheet.values()).getObjectiveScore();
+            }
+            results.add(ExamRecord.builder()
+                    .id(record.getId())
+                    .answers(answerSheetCodec.encode(sheet.values()))
+                    .score(score)
+                    .submitTime(deadline)
+                    .version(record.getVersion())
+                    .build());
+        }
+        List<Long> conflicted = Collections.emptyList();
+        if (!results.isEmpty()) {
+            int updated = examRecordRepository.finalizeTimeoutBatch(results);
+            log.info("超时自动交卷: 记录数={}", updated);
+            if (updated < results.size()) {
+                // 未写入的记录中仍在进行的，是读取后被自动保存写回改动过的；其余已由学生自行提交
+                conflicted = examRecordRepository.findOngoingByIds(results.stream()
+                        .map(ExamRecord::getId).collect(Collectors.toList()))
+                        .stream().map(ExamRecord::getId).collect(Collectors.toList());
+            }
+        }
+        // 超时交卷的记录和已不在进行中的记录停止跟踪；写入失败时抛出异常，缓冲区保留到重试
+        Set<Long> keep = records.stream().map(ExamRecord::getId).collect(Collectors.toSet());
+        results.forEach(result -> keep.remove(result.getId()));
+        keep.addAll(conflicted);
+        for (Long recordId : recordIds) {
+            if (!keep.contains(recordId)) {
+                answerAutosaveBuffer.discard(recordId);
+            }
+        }
+        return conflicted;
+    }
+
+    private Map<Long, Exam> loadExams(List<ExamRecord> records) {
+        Set<Long> examIds = records.stream().map(ExamRecord::getExamId).collect(Collectors.toSet());
+        if (examIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return examRepository.selectBatchIds(examIds).stream()
+                .collect(Collectors.toMap(Exam::getId, Function.identity()));
+    }
+}
@@ -0,0 +1,332 @@
+package org.example.oepg.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.exception.BusinessException;
+import org.example.oepg.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 考试时钟与强制交卷推送（Server-Sent Events）
+ * 连接由 Servlet 异步请求承载，建立后不占用请求线程；每场考试一个周期任务，在共享的少量调度线程上
+ * 按刻度为该考试的全部订阅者生成服务器时间和剩余秒数，剩余时间进入提醒窗口时推送一次 warning，
+ * 到达截止时间时推送 time-up 并关闭连接。教师强制交卷时向全部订阅者推送 force-submit 和新的截止时间。
+ * 最后一个订阅者断开后取消该考试的周期任务。
+ * <p>
+ * 周期任务和强制交卷只把事件放入订阅者自己的队列，由独立的发送线程写出，慢连接不会拖住其他订阅者；
+ * 上一个事件还未写出时新的 clock 直接丢弃，单次写出超过 send-timeout-ms 的连接被移除。
+ * <p>
+ * 事件数据均为 JSON：
+ * clock / warning / time-up: {"serverTime":毫秒,"deadline":毫秒,"remainingSeconds":秒}
+ * force-submit: {"serverTime":毫秒,"deadline":毫秒,"graceSeconds":秒}
+ */
+@Component
+@Slf4j
+public class ExamEventHub {
+
+    @Value("${oepg.events.tick-ms:5000}")
+    private long tickMillis;
+
+    @Value("${oepg.events.threads:2}")
+    private int threads;
+
+    @Value("${oepg.events.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${oepg.events.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${oepg.events.warn-minutes:5}")
+    private int warnMinutes;
+
+    @Value("${oepg.events.max-subscribers:20000}")
+    private int maxSubscribers;
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService sender;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "exam-events-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderIndex = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(Math.max(1, sendThreads), runnable -> {
+            Thread thread = new Thread(runnable, "exam-events-send-" + senderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.values().forEach(s -> s.emitter.complete()));
+        channels.clear();
+    }
+
+    /**
+     * 订阅考试事件；同一记录重复订阅时替换旧连接。连接超时时间为剩余作答时间加两个刻度。
+     */
+    public ExamEventEmitter subscribe(Long examId, Long recordId, LocalDateTime deadline) {
+        long deadlineMillis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long now = System.currentTimeMillis();
+        if (deadlineMillis <= now) {
+            throw new BusinessException("EXAM_TIME_UP", "作答时间已结束");
+        }
+        if (subscriberCount.get() >= maxSubscribers) {
+            throw new BusinessException("EVENTS_FULL", "考试事件连接数已达上限");
+        }
+        ExamEventEmitter emitter = new ExamEventEmitter(deadlineMillis - now + tickMillis * 2);
+        Subscriber subscriber = new Subscriber(examId, recordId, emitter, deadlineMillis);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // 首个时钟事件先于周期任务入队；连接尚未开始时写出的内容由 emitter 暂存
+        enqueue(subscriber, new Frame("clock", clockData(now, subscriber), false));
+        Subscriber[] replaced = new Subscriber[1];
+        channels.compute(examId, (id, channel) -> {
+            if (channel == null) {
+                channel = new Channel(id);
+                Channel created = channel;
+                channel.task = scheduler.scheduleWithFixedDelay(() -> tick(created),
+                        tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            }
+            replaced[0] = channel.subscribers.put(recordId, subscriber);
+            if (replaced[0] == null) {
+                subscriberCount.incrementAndGet();
+            }
+            return channel;
+        });
+        if (replaced[0] != null) {
+            // 完成回调会再次进入 channels，不能在 compute 内关闭
+            enqueue(replaced[0], Frame.CLOSE);
+        }
+        return emitter;
+    }
+
+    /**
+     * 在当前事务提交后向考试的全部订阅者推送强制交卷，截止时间提前到 deadline
+     */
+    public void forceSubmitAfterCommit(Long examId, LocalDateTime deadline) {
+        long deadlineMillis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        TransactionUtil.afterCommit(() -> scheduler.execute(() -> forceSubmit(examId, deadlineMillis)));
+    }
+
+    /**
+     * 在当前事务提交后关闭记录的事件连接（学生已交卷）
+     */
+    public void closeAfterCommit(Long examId, Long recordId) {
+        TransactionUtil.afterCommit(() -> {
+            Channel channel = channels.get(examId);
+            Subscriber subscriber = channel == null ? null : channel.subscribers.get(recordId);
+            if (subscriber != null) {
+                remove(subscriber);
+                enqueue(subscriber, Frame.CLOSE);
+            }
+        });
+    }
+
+    /**
+     * 当前订阅者总数
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void forceSubmit(Long examId, long deadlineMillis) {
+        Channel channel = channels.get(examId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            long now = System.currentTimeMillis();
+            long grace = Math.max(0, (deadlineMillis - now) / 1000);
+            for (Subscriber subscriber : channel.subscribers.values()) {
+                subscriber.deadlineMillis = Math.min(subscriber.deadlineMillis, deadlineMillis);
+                String data = "{\"serverTime\":" + now + ",\"deadline\":" + subscriber.deadlineMillis
+                        + ",\"graceSeconds\":" + grace + "}";
+                enqueue(subscriber, new Frame("force-submit", data, false));
+            }
+            log.info("推送强制交卷: examId={}, 订阅者={}", examId, channel.subscribers.size());
+        }
+    }
+
+    /**
+     * 一场考试的一个刻度：为每个订阅者入队时钟事件，移除写出卡住的连接
+     */
+    private void tick(Channel channel) {
+        synchronized (channel) {
+            long now = System.currentTimeMillis();
+            long warnMillis = TimeUnit.MINUTES.toMillis(warnMinutes);
+            for (Subscriber subscriber : channel.subscribers.values()) {
+                long writeStartedAt = subscriber.writeStartedAt;
+                if (writeStartedAt > 0 && now - writeStartedAt > sendTimeoutMillis) {
+                    // 写出阻塞在该连接上，emitter 的方法都持有同一把锁，这里不能调用 complete
+                    log.warn("考试事件连接写出超时，移除: examId={}, recordId={}", channel.examId, subscriber.recordId);
+                    remove(subscriber);
+                    continue;
+                }
+                long remaining = subscriber.deadlineMillis - now;
+                if (remaining <= 0) {
+                    enqueue(subscriber, new Frame("time-up", clockData(now, subscriber), true));
+                    remove(subscriber);
+                } else if (!subscriber.warned && remaining <= warnMillis) {
+                    subscriber.warned = true;
+                    enqueue(subscriber, new Frame("warning", clockData(now, subscriber), false));
+                } else if (subscriber.frames.isEmpty()) {
+                    // 上一个事件还未写出时跳过本次时钟，下一个刻度会带上最新时间
+                    enqueue(subscriber, new Frame("clock", clockData(now, subscriber), false));
+                }
+            }
+        }
+    }
+
+    private static String clockData(long now, Subscriber subscriber) {
+        long remainingSeconds = Math.max(0, (subscriber.deadlineMillis - now + 999) / 1000);
+        return "{\"serverTime\":" + now + ",\"deadline\":" + subscriber.deadlineMillis
+                + ",\"remainingSeconds\":" + remainingSeconds + "}";
+    }
+
+    /**
+     * 事件入队；订阅者没有发送任务在运行时提交一个
+     */
+    private void enqueue(Subscriber subscriber, Frame frame) {
+        if (subscriber.closed) {
+            return;
+        }
+        subscriber.frames.add(frame);
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * 依次写出订阅者队列中的事件，同一订阅者同时只有一个发送任务
+     */
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Frame frame = subscriber.frames.poll();
+            if (frame == null) {
+                subscriber.draining.set(false);
+                // 释放标记与新事件入队交错时由本任务继续写出
+                if (subscriber.frames.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (subscriber.closed) {
+                subscriber.frames.clear();
+                continue;
+            }
+            if (frame.event != null && !send(subscriber, frame)) {
+                subscriber.closed = true;
+                remove(subscriber);
+                continue;
+            }
+            if (frame.last) {
+                subscriber.closed = true;
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private static boolean send(Subscriber subscriber, Frame frame) {
+        subscriber.writeStartedAt = System.currentTimeMillis();
+        try {
+            subscriber.emitter.sendEvent(frame.event, frame.data);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或连接已结束
+            return false;
+        } finally {
+            subscriber.writeStartedAt = 0;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        channels.computeIfPresent(subscriber.examId, (id, channel) -> {
+            if (channel.subscribers.remove(subscriber.recordId, subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            if (channel.subscribers.isEmpty()) {
+                channel.task.cancel(false);
+                return null;
+            }
+            return channel;
+        });
+    }
+
+    /**
+     * 待写出的事件；event 为空时只关闭连接
+     */
+    private static final class Frame {
+        static final Frame CLOSE = new Frame(null, null, true);
+
+        final String event;
+        final String data;
+        final boolean last;
+
+        Frame(String event, String data, boolean last) {
+            this.event = event;
+            this.data = data;
+            this.last = last;
+        }
+    }
+
+    private static final class Channel {
+        final Long examId;
+        final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+        ScheduledFuture<?> task;
+
+        Channel(Long examId) {
+            this.examId = examId;
+        }
+    }
+
+    private static final class Subscriber {
+        final Long examId;
+        final Long recordId;
+        final ExamEventEmitter emitter;
+        final Queue<Frame> frames = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long deadlineMillis;
+        volatile long writeStartedAt;
+        volatile boolean closed;
+        boolean warned;
+
+        Subscriber(Long examId, Long recordId, ExamEventEmitter emitter, long deadlineMillis) {
+            this.examId = examId;
+            this.recordId = recordId;
+            this.emitter = emitter;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.oepg.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.entity.Question;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 考试乱序工具
+ * 由 (recordId, paperId) 派生随机种子，在返回试卷时打乱题目顺序和选择题选项顺序，
+ * 提交时用同一种子把选项字母还原为原始字母。不写入任何额外数据，同一份试卷对所有学生保持不变。
+ */
+@Component
+@Slf4j
+public class ExamShuffler {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${oepg.shuffle.questions:false}")
+    private boolean shuffleQuestions;
+
+    @Value("${oepg.shuffle.options:false}")
+    private boolean shuffleOptions;
+
+    public boolean isShuffleQuestions() {
+        return shuffleQuestions;
+    }
+
+    public boolean isShuffleOptions() {
+        return shuffleOptions;
+    }
+
+    /**
+     * 根据考试记录和试卷派生种子
+     */
+    public long seed(Long recordId, Long paperId) {
+        long r = recordId != null ? recordId : 0L;
+        long p = paperId != null ? paperId : 0L;
+        return mix64(mix64(r * GOLDEN_GAMMA) ^ p);
+    }
+
+    /**
+     * 按种子打乱题目顺序，返回新列表
+     */
+    public <T> List<T> shuffleQuestions(long seed, List<T> questions) {
+        if (!shuffleQuestions || questions.size() < 2) {
+            return questions;
+        }
+        int[] permutation = permutation(seed, questions.size());
+        List<T> shuffled = new ArrayList<>(questions.size());
+        for (int index : permutation) {
+            shuffled.add(questions.get(index));
+        }
+        return shuffled;
+    }
+
+    /**
+     * 按种子打乱选项（JSON 数组）顺序；选项带 label 字段时按新位置重写字母
+     */
+    public String shuffleOptions(long seed, Long questionId, String options) {
+        if (!shuffleOptions) {
+            return options;
+        }
+        ArrayNode items = parseOptions(options);
+        if (items == null || items.size() < 2) {
+            return options;
+        }
+        int[] permutation = permutation(optionSeed(seed, questionId), items.size());
+        ArrayNode shuffled = objectMapper.createArrayNode();
+        for (int i = 0; i < permutation.length; i++) {
+            JsonNode item = items.get(permutation[i]).deepCopy();
+            if (item.isObject() && item.has("label")) {
+                ((ObjectNode) item).put("label", String.valueOf((char) ('A' + i)));
+            }
+            shuffled.add(item);
+        }
+        return shuffled.toString();
+    }
+
+    /**
+     * 选项个数，选项不是 JSON 数组时返回 0
+     */
+    public int optionCount(String options) {
+        ArrayNode items = parseOptions(options);
+        return items == null ? 0 : items.size();
+    }
+
+    /**
+     * 将学生按乱序选项作答的字母还原为原始选项字母。
+     * 只还原 A-Z 字母，其余非字母字符都视为分隔符，与大小写一起保持原样；多选时还原后的字母按升序依次填回原来的字母位置，
+     * 例如显示顺序下的 "A, C"、"A、C" 分别还原为 "B, D"、"B、D" 而不是 "BD"，批改时仍能与按同样格式录入的标准答案比对。
+     */
+    public String restoreChoiceAnswer(long seed, Long questionId, int optionCount, String answer) {
+        if (!shuffleOptions || answer == null || optionCount < 2) {
+            return answer;
+        }
+        int[] permutation = permutation(optionSeed(seed, questionId), optionCount);
+        char[] restored = answer.toCharArray();
+        int[] slots = new int[restored.length];
+        char[] letters = new char[restored.length];
+        int count = 0;
+        for (int i = 0; i < restored.length; i++) {
+            char c = restored[i];
+            int position = c >= 'a' && c <= 'z' ? c - 'a' : c >= 'A' && c <= 'Z' ? c - 'A' : -1;
+            if (position < 0 && !Character.isLetter(c)) {
+                // 字母以外的字符（逗号、分号、竖线、顿号、全角逗号、空白等）都视为分隔符，原样保留
+                continue;
+            }
+            if (position < 0 || position >= permutation.length) {
+                // 超出选项范围的字母或其他文字无法识别，作答内容保持原样，由批改逻辑判错
+                return answer;
+            }
+            slots[count] = i;
+            letters[count++] = (char) ('A' + permutation[position]);
+        }
+        Arrays.sort(letters, 0, count);
+        for (int k = 0; k < count; k++) {
+            int i = slots[k];
+            restored[i] = Character.isLowerCase(restored[i]) ? Character.toLowerCase(letters[k]) : letters[k];
+        }
+        return new String(restored);
+    }
+
+    /**
+     * 将答题卡中选择题的答案按考试记录的种子还原为原始选项字母（原地修改）
+     */
+    public void restoreAnswers(Long recordId, PaperSnapshot paper, Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        restoreAnswersWithSeed(seed(recordId, paper.getPaperId()), paper, answers);
+    }
+
+    /**
+     * 按已知种子（考试会话令牌中携带）还原选择题答案（原地修改）
+     */
+    public void restoreAnswersWithSeed(long seed, PaperSnapshot paper, Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        if (!shuffleOptions) return;
+        for (SubmitAnswerRequest.AnswerItem ans : answers) {
+            PaperSnapshot.Item q = paper.item(ans.getQuestionId());
+            if (q == null || q.getType() != Question.QuestionType.CHOICE) continue;
+            ans.setAnswer(restoreChoiceAnswer(seed, q.getQuestionId(), q.getOptionCount(), ans.getAnswer()));
+        }
+    }
+
+    /**
+     * 用 SplitMix64 驱动的 Fisher–Yates 生成 0..n-1 的排列，permutation[显示位置] = 原始位置
+     */
+    int[] permutation(long seed, int n) {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = i;
+        }
+        long state = seed;
+        for (int i = n - 1; i > 0; i--) {
+            state += GOLDEN_GAMMA;
+            int j = (int) ((mix64(state) >>> 1) % (i + 1));
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    private long optionSeed(long seed, Long questionId) {
+        return mix64(seed ^ (questionId != null ? questionId : 0L) * GOLDEN_GAMMA);
+    }
+
+    private ArrayNode parseOptions(String options) {
+        if (options == null) {
+            return null;
+        }
+        String trimmed = options.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) != '[') {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(trimmed);
+            return node.isArray() ? (ArrayNode) node : null;
+        } catch (Exception e) {
+            log.debug("选项不是合法的 JSON 数组，跳过乱序: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
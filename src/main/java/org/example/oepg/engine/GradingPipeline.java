@@ -0,0 +1,217 @@
+package org.example.oepg.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.dto.res.GradingStatsResponse;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 异步批改流水线
+ * 提交时只把答题卡写入 exam_records（status = SUBMITTED、score 为空）并在事务提交后入队；
+ * 固定数量的批改线程从有界队列中成批取出记录，按试卷分组用快照批改，再以批量 UPDATE 写回分数。
+ * 队列满、批次失败或应用重启导致未批改的记录由定期补偿扫描重新入队，答题卡已落库，不会丢失。
+ */
+@Component
+@Slf4j
+public class GradingPipeline {
+
+    @Autowired
+    private ExamRecordRepository examRecordRepository;
+
+    @Autowired
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Autowired
+    private AnswerSheetCodec answerSheetCodec;
+
+    @Autowired
+    private ObjectiveGrader objectiveGrader;
+
+    @Value("${oepg.grading.workers:2}")
+    private int workers;
+
+    @Value("${oepg.grading.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${oepg.grading.batch-size:200}")
+    private int batchSize;
+
+    private BlockingQueue<Long> queue;
+
+    private final Map<Long, Long> enqueuedAt = new ConcurrentHashMap<>(); // 已入队或正在批改的记录 -> 入队时间
+
+    private final AtomicLong gradedRecords = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private volatile LocalDateTime lastBatchAt;
+
+    private volatile int lastBatchSize;
+
+    private volatile long lastBatchMillis;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "grading-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::workLoop);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在当前事务提交后把记录加入批改队列
+     */
+    public void enqueueAfterCommit(Long recordId) {
+        TransactionUtil.afterCommit(() -> enqueue(recordId));
+    }
+
+    /**
+     * 加入批改队列；已在队列中返回 true，队列已满返回 false（由补偿扫描稍后入队）
+     */
+    public boolean enqueue(Long recordId) {
+        if (enqueuedAt.putIfAbsent(recordId, System.currentTimeMillis()) != null) {
+            return true;
+        }
+        if (!queue.offer(recordId)) {
+            enqueuedAt.remove(recordId);
+            log.debug("批改队列已满，等待补偿扫描: recordId={}", recordId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录是否在批改队列中或正在批改
+     */
+    public boolean isPending(Long recordId) {
+        return enqueuedAt.containsKey(recordId);
+    }
+
+    /**
+     * 补偿扫描：把已提交但尚未批改且不在队列中的记录重新入队
+     */
+    @Scheduled(fixedDelayString = "${oepg.grading.recovery-interval-ms:30000}")
+    public void recover() {
+        int capacity = queue.remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        int requeued = 0;
+        for (Long recordId : examRecordRepository.findUngradedIds(capacity + enqueuedAt.size())) {
+            if (!enqueuedAt.containsKey(recordId) && enqueue(recordId)) {
+                requeued++;
+            }
+        }
+        if (requeued > 0) {
+            log.info("未批改记录重新入队: {}", requeued);
+        }
+    }
+
+    /**
+     * 队列深度与延迟指标
+     */
+    public GradingStatsResponse stats() {
+        Long head = queue.peek();
+        Long headEnqueuedAt = head == null ? null : enqueuedAt.get(head);
+        return GradingStatsResponse.builder()
+                .queueDepth(queue.size())
+                .inFlight(enqueuedAt.size())
+                .lagMillis(headEnqueuedAt == null ? 0 : System.currentTimeMillis() - headEnqueuedAt)
+                .lastBatchAt(lastBatchAt)
+                .lastBatchSize(lastBatchSize)
+                .lastBatchMillis(lastBatchMillis)
+                .gradedRecords(gradedRecords.get())
+                .failedBatches(failedBatches.get())
+                .build();
+    }
+
+    private void workLoop() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                long start = System.nanoTime();
+                gradeBatch(batch);
+                lastBatchAt = LocalDateTime.now();
+                lastBatchSize = batch.size();
+                lastBatchMillis = (System.nanoTime() - start) / 1_000_000;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                log.error("批改批次失败，记录将由补偿扫描重新入队: 记录数={}", batch.size(), e);
+            } finally {
+                batch.forEach(enqueuedAt::remove);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 批改一批记录：一次查询答题卡，按试卷分组批量批改，一条 UPDATE 写回
+     */
+    void gradeBatch(List<Long> recordIds) {
+        List<ExamRecord> records = examRecordRepository.findUngradedByIds(recordIds);
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<Long, List<ExamRecord>> byPaper = records.stream()
+                .collect(Collectors.groupingBy(ExamRecord::getPaperId, LinkedHashMap::new, Collectors.toList()));
+
+        List<ExamRecord> results = new ArrayList<>(records.size());
+        byPaper.forEach((paperId, paperRecords) -> {
+            PaperSnapshot paper = paperSnapshotCache.get(paperId);
+            List<Collection<SubmitAnswerRequest.AnswerItem>> sheets = new ArrayList<>(paperRecords.size());
+            for (ExamRecord record : paperRecords) {
+                sheets.add(answerSheetCodec.decode(record.getAnswers()).values());
+            }
+            List<ObjectiveGrader.Result> graded = paper != null ? objectiveGrader.gradeAll(paper, sheets) : null;
+            for (int i = 0; i < paperRecords.size(); i++) {
+                ExamRecord.ExamRecordBuilder result = ExamRecord.builder().id(paperRecords.get(i).getId());
+                if (graded == null) {
+                    // 试卷已被删除，无法自动批改，交由人工处理
+                    log.warn("试卷不存在，记录转人工批阅: recordId={}, paperId={}", paperRecords.get(i).getId(), paperId);
+                    results.add(result.score(0).status(ExamRecord.RecordStatus.SUBMITTED).build());
+                    continue;
+                }
+                ObjectiveGrader.Result r = graded.get(i);
+                results.add(result.score(r.getObjectiveScore())
+                        .status(r.isPendingReview() ? ExamRecord.RecordStatus.SUBMITTED : ExamRecord.RecordStatus.GRADED)
+                        .build());
+            }
+        });
+        examRecordRepository.updateGradingResultBatch(results);
+        gradedRecords.addAndGet(results.size());
+    }
+}
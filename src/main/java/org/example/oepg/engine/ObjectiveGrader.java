@@ -0,0 +1,60 @@
+package org.example.oepg.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 客观题批改引擎
+ * 使用试卷快照中预编译的 {@link AnswerKey} 比较学生答案，批改过程不分配内存；
+ * 批量模式对同一份试卷连续批改多份答卷，适合重新批改和异步批改。
+ */
+@Component
+public class ObjectiveGrader {
+
+    /**
+     * 批改一份答卷的客观题；答卷中包含主观题时标记为待人工批阅
+     */
+    public Result grade(PaperSnapshot paper, Collection<SubmitAnswerRequest.AnswerItem> answers) {
+        int objectiveScore = 0;
+        boolean hasSubjective = false;
+        for (SubmitAnswerRequest.AnswerItem ans : answers) {
+            PaperSnapshot.Item item = paper.item(ans.getQuestionId());
+            if (item == null) continue;
+            AnswerKey key = item.getAnswerKey();
+            if (key == null) {
+                hasSubjective = true;
+            } else if (key.matches(ans.getAnswer())) {
+                objectiveScore += item.getScore();
+            }
+        }
+        return new Result(objectiveScore, hasSubjective);
+    }
+
+    /**
+     * 批量批改同一份试卷的多份答卷，结果与输入顺序一致
+     */
+    public List<Result> gradeAll(PaperSnapshot paper, List<? extends Collection<SubmitAnswerRequest.AnswerItem>> submissions) {
+        List<Result> results = new ArrayList<>(submissions.size());
+        for (Collection<SubmitAnswerRequest.AnswerItem> answers : submissions) {
+            results.add(grade(paper, answers));
+        }
+        return results;
+    }
+
+    /**
+     * 客观题批改结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Result {
+        private int objectiveScore;
+        private boolean pendingReview; // 答卷包含主观题，需人工批阅
+    }
+}
@@ -0,0 +1,343 @@
+package org.example.oepg.engine;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Question;
+import org.example.oepg.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 约束组卷引擎
+ * 使用遗传算法在候选题目中搜索满足全局约束（总分、平均难度、题型比例、分类覆盖）的题目组合，
+ * 每一代的候选试卷在 ForkJoinPool 上并行评分，在时间预算内返回找到的最优试卷。
+ */
+@Component
+@Slf4j
+public class PaperAssemblyEngine {
+
+    private static final double WEIGHT_SCORE = 4.0;
+    private static final double WEIGHT_DIFFICULTY = 2.0;
+    private static final double WEIGHT_COVERAGE = 3.0;
+    private static final double WEIGHT_TYPE = 3.0;
+    private static final double DIFFICULTY_TOLERANCE = 0.05;
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final int ELITE_COUNT = 2;
+
+    @Value("${oepg.assembly.parallelism:0}")
+    private int parallelism;
+
+    @Value("${oepg.assembly.population-size:64}")
+    private int populationSize;
+
+    private ForkJoinPool forkJoinPool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        forkJoinPool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forkJoinPool.shutdownNow();
+    }
+
+    /**
+     * 在候选题目中搜索最优试卷
+     *
+     * @param candidates  候选题目（需包含 id、分类、题型、难度、分值）
+     * @param constraints 全局约束
+     * @param timeBudgetMillis 搜索时间预算
+     */
+    public Result assemble(List<Question> candidates, Constraints constraints, long timeBudgetMillis) {
+        long start = System.currentTimeMillis();
+        Problem problem = new Problem(candidates, constraints);
+        int n = Math.min(constraints.getQuestionCount(), candidates.size());
+        if (n == 0) {
+            return Result.builder().questionIds(Collections.emptyList()).penalty(Double.MAX_VALUE).build();
+        }
+
+        SplittableRandom random = constraints.getSeed() != null ? new SplittableRandom(constraints.getSeed()) : new SplittableRandom();
+        int size = Math.max(ELITE_COUNT + 2, populationSize);
+        int[][] population = new int[size][];
+        for (int i = 0; i < size; i++) {
+            population[i] = randomIndividual(problem, n, random);
+        }
+        double[] fitness = evaluateAll(problem, population);
+
+        int best = argMin(fitness);
+        int[] bestGenes = population[best].clone();
+        double bestPenalty = fitness[best];
+        int generations = 0;
+        long deadline = start + timeBudgetMillis;
+
+        while (bestPenalty > 0 && System.currentTimeMillis() < deadline) {
+            int[][] next = new int[size][];
+            Integer[] order = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+            final double[] currentFitness = fitness;
+            Arrays.sort(order, Comparator.comparingDouble(i -> currentFitness[i]));
+            for (int i = 0; i < ELITE_COUNT; i++) {
+                next[i] = population[order[i]];
+            }
+            for (int i = ELITE_COUNT; i < size; i++) {
+                int[] a = population[tournament(fitness, random)];
+                int[] b = population[tournament(fitness, random)];
+                int[] child = crossover(a, b, problem, random);
+                mutate(child, problem, random);
+                next[i] = child;
+            }
+            population = next;
+            fitness = evaluateAll(problem, population);
+            generations++;
+
+            int currentBest = argMin(fitness);
+            if (fitness[currentBest] < bestPenalty) {
+                bestPenalty = fitness[currentBest];
+                bestGenes = population[currentBest].clone();
+            }
+        }
+
+        List<Long> questionIds = new ArrayList<>(n);
+        for (int gene : bestGenes) {
+            questionIds.add(problem.ids[gene]);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.debug("约束组卷完成: 候选题数={}, 代数={}, 惩罚值={}, 耗时={}ms", candidates.size(), generations, bestPenalty, elapsed);
+        return Result.builder()
+                .questionIds(questionIds)
+                .penalty(bestPenalty)
+                .generations(generations)
+                .elapsedMillis(elapsed)
+                .build();
+    }
+
+    /**
+     * 并行计算整代个体的惩罚值
+     */
+    private double[] evaluateAll(Problem problem, int[][] population) {
+        double[] fitness = new double[population.length];
+        try {
+            forkJoinPool.submit(() -> IntStream.range(0, population.length).parallel()
+                    .forEach(i -> fitness[i] = problem.penalty(population[i]))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("ASSEMBLY_INTERRUPTED", "组卷被中断");
+        } catch (ExecutionException e) {
+            throw new BusinessException("ASSEMBLY_FAILED", "组卷失败: " + e.getCause().getMessage());
+        }
+        return fitness;
+    }
+
+    private int[] randomIndividual(Problem problem, int n, SplittableRandom random) {
+        int total = problem.ids.length;
+        Map<Integer, Integer> swapped = new HashMap<>();
+        int[] genes = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(total - i);
+            genes[i] = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+        }
+        return genes;
+    }
+
+    private int tournament(double[] fitness, SplittableRandom random) {
+        int best = random.nextInt(fitness.length);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            int other = random.nextInt(fitness.length);
+            if (fitness[other] < fitness[best]) best = other;
+        }
+        return best;
+    }
+
+    /**
+     * 交叉：从两个父代的题目并集中随机取 n 道不重复的题目
+     */
+    private int[] crossover(int[] a, int[] b, Problem problem, SplittableRandom random) {
+        int n = a.length;
+        int[] pool = new int[n * 2];
+        System.arraycopy(a, 0, pool, 0, n);
+        System.arraycopy(b, 0, pool, n, n);
+        Set<Integer> used = new HashSet<>(n * 2);
+        int[] child = new int[n];
+        int filled = 0;
+        for (int i = 0; i < pool.length && filled < n; i++) {
+            int j = i + random.nextInt(pool.length - i);
+            int gene = pool[j];
+            pool[j] = pool[i];
+            if (used.add(gene)) child[filled++] = gene;
+        }
+        while (filled < n) {
+            int gene = random.nextInt(problem.ids.length);
+            if (used.add(gene)) child[filled++] = gene;
+        }
+        return child;
+    }
+
+    /**
+     * 变异：随机替换若干道题，一半概率从需覆盖的分类中挑选替换题
+     */
+    private void mutate(int[] genes, Problem problem, SplittableRandom random) {
+        int mutations = 1 + random.nextInt(Math.max(1, genes.length / 10));
+        Set<Integer> used = new HashSet<>(genes.length * 2);
+        for (int gene : genes) used.add(gene);
+        for (int m = 0; m < mutations; m++) {
+            int replacement;
+            if (problem.coverMembers.length > 0 && random.nextBoolean()) {
+                int[] members = problem.coverMembers[random.nextInt(problem.coverMembers.length)];
+                if (members.length == 0) continue;
+                replacement = members[random.nextInt(members.length)];
+            } else {
+                replacement = random.nextInt(problem.ids.length);
+            }
+            if (used.contains(replacement)) continue;
+            int position = random.nextInt(genes.length);
+            used.remove(genes[position]);
+            genes[position] = replacement;
+            used.add(replacement);
+        }
+    }
+
+    private int argMin(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[best]) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * 组卷全局约束
+     */
+    @Data
+    @Builder
+    public static class Constraints {
+        private int questionCount; // 题目数量
+        private int targetScore; // 目标总分
+        private Double targetDifficulty; // 目标平均难度
+        private List<Long> coverCategoryIds; // 每个分类至少一道题
+        private Map<Question.QuestionType, Double> maxTypeRatios; // 题型占比上限
+        private Map<Question.QuestionType, Integer> minTypeCounts; // 题型最少题数
+        private Long seed; // 随机种子，便于复现
+    }
+
+    /**
+     * 组卷结果
+     */
+    @Data
+    @Builder
+    public static class Result {
+        private List<Long> questionIds;
+        private double penalty; // 约束偏离程度，0 表示完全满足
+        private int generations;
+        private long elapsedMillis;
+    }
+
+    /**
+     * 候选题目的紧凑表示，评分时只访问基本类型数组
+     */
+    private static class Problem {
+        private final long[] ids;
+        private final int[] scores;
+        private final int[] difficulties;
+        private final int[] types;
+        private final int[] coverIndex; // 所属需覆盖分类的下标，-1 表示无
+        private final int[][] coverMembers;
+        private final int targetScore;
+        private final double targetDifficulty;
+        private final boolean hasTargetDifficulty;
+        private final double[] maxTypeRatios;
+        private final int[] minTypeCounts;
+
+        Problem(List<Question> candidates, Constraints constraints) {
+            int size = candidates.size();
+            ids = new long[size];
+            scores = new int[size];
+            difficulties = new int[size];
+            types = new int[size];
+            coverIndex = new int[size];
+
+            List<Long> cover = constraints.getCoverCategoryIds() != null ? constraints.getCoverCategoryIds() : Collections.emptyList();
+            Map<Long, Integer> coverPosition = new HashMap<>();
+            for (Long categoryId : cover) coverPosition.putIfAbsent(categoryId, coverPosition.size());
+            List<List<Integer>> members = new ArrayList<>();
+            for (int i = 0; i < coverPosition.size(); i++) members.add(new ArrayList<>());
+
+            for (int i = 0; i < size; i++) {
+                Question q = candidates.get(i);
+                ids[i] = q.getId();
+                scores[i] = q.getScore() != null ? q.getScore() : 0;
+                difficulties[i] = q.getDifficulty() != null ? q.getDifficulty() : 0;
+                types[i] = q.getType() != null ? q.getType().ordinal() : -1;
+                Integer position = coverPosition.get(q.getCategoryId());
+                coverIndex[i] = position != null ? position : -1;
+                if (position != null) members.get(position).add(i);
+            }
+            coverMembers = new int[members.size()][];
+            for (int i = 0; i < members.size(); i++) {
+                coverMembers[i] = members.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            targetScore = Math.max(1, constraints.getTargetScore());
+            hasTargetDifficulty = constraints.getTargetDifficulty() != null;
+            targetDifficulty = hasTargetDifficulty ? constraints.getTargetDifficulty() : 0;
+
+            int typeCount = Question.QuestionType.values().length;
+            maxTypeRatios = new double[typeCount];
+            minTypeCounts = new int[typeCount];
+            Arrays.fill(maxTypeRatios, 1.0);
+            if (constraints.getMaxTypeRatios() != null) {
+                constraints.getMaxTypeRatios().forEach((type, ratio) -> maxTypeRatios[type.ordinal()] = ratio);
+            }
+            if (constraints.getMinTypeCounts() != null) {
+                constraints.getMinTypeCounts().forEach((type, count) -> minTypeCounts[type.ordinal()] = count);
+            }
+        }
+
+        /**
+         * 计算个体偏离约束的惩罚值，越小越好
+         */
+        double penalty(int[] genes) {
+            int n = genes.length;
+            int scoreSum = 0;
+            int difficultySum = 0;
+            int[] typeCounts = new int[maxTypeRatios.length];
+            boolean[] covered = new boolean[coverMembers.length];
+            int coveredCount = 0;
+            for (int gene : genes) {
+                scoreSum += scores[gene];
+                difficultySum += difficulties[gene];
+                if (types[gene] >= 0) typeCounts[types[gene]]++;
+                int c = coverIndex[gene];
+                if (c >= 0 && !covered[c]) {
+                    covered[c] = true;
+                    coveredCount++;
+                }
+            }
+
+            double penalty = WEIGHT_SCORE * Math.abs(scoreSum - targetScore) / targetScore;
+            if (hasTargetDifficulty) {
+                double deviation = Math.abs((double) difficultySum / n - targetDifficulty);
+                penalty += WEIGHT_DIFFICULTY * Math.max(0, deviation - DIFFICULTY_TOLERANCE);
+            }
+            if (coverMembers.length > 0) {
+                penalty += WEIGHT_COVERAGE * (coverMembers.length - coveredCount) / coverMembers.length;
+            }
+            for (int t = 0; t < typeCounts.length; t++) {
+                double ratio = (double) typeCounts[t] / n;
+                if (ratio > maxTypeRatios[t]) penalty += WEIGHT_TYPE * (ratio - maxTypeRatios[t]);
+                if (typeCounts[t] < minTypeCounts[t]) penalty += WEIGHT_TYPE * (minTypeCounts[t] - typeCounts[t]) / n;
+            }
+            // 浮点误差内视为完全满足
+            return penalty < 1e-9 ? 0 : penalty;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.oepg.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 第 0 层每格 1 个刻度，第 i 层每格 wheelSize^i 个刻度，层数随最远的到期时间按需增加；
+ * 到期时间落在哪一层由距当前刻度的远近决定，高层的格子转到时把其中的条目重新放入低层，最终在第 0 层到期。
+ * 添加、取消为 O(1)，推进一个刻度只处理当前格子中的条目，与条目总数无关。
+ * 取消是惰性的：只从到期表中移除，格子中的残留条目在转到时丢弃。非线程安全，由调用方加锁。
+ */
+public final class TimingWheel<K> {
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    private final List<List<K>[]> levels = new ArrayList<>();
+
+    private final Map<K, Long> deadlines = new HashMap<>(); // 条目 -> 到期刻度
+
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 添加或重新设置条目的到期时间；已到期的条目在下一个刻度到期
+     */
+    public void schedule(K key, long deadlineMillis) {
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        Long previous = deadlines.put(key, tick);
+        if (previous == null || previous != tick) {
+            place(key, tick);
+        }
+    }
+
+    public void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    /**
+     * 条目当前的到期时间（按刻度向上取整的毫秒时间戳），不在时间轮中时返回 null
+     */
+    public Long deadlineOf(K key) {
+        Long tick = deadlines.get(key);
+        return tick == null ? null : tick * tickMillis;
+    }
+
+    public boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * 推进到 nowMillis，依次交出期间到期的条目
+     */
+    public void advance(long nowMillis, Consumer<K> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // 先把高层当前格子中的条目降层，再处理第 0 层
+            long span = wheelSize;
+            for (int level = 1; level < levels.size() && currentTick % span == 0; level++, span *= wheelSize) {
+                cascade(level, span);
+            }
+            List<K>[] wheel = levels.isEmpty() ? null : levels.get(0);
+            int slot = (int) (currentTick % wheelSize);
+            List<K> due = wheel == null ? null : wheel[slot];
+            if (due == null) {
+                continue;
+            }
+            wheel[slot] = null;
+            for (K key : due) {
+                Long tick = deadlines.get(key);
+                if (tick != null && tick <= currentTick) {
+                    deadlines.remove(key);
+                    expired.accept(key);
+                }
+            }
+        }
+    }
+
+    private void cascade(int level, long span) {
+        List<K>[] wheel = levels.get(level);
+        int slot = (int) ((currentTick / span) % wheelSize);
+        List<K> entries = wheel[slot];
+        if (entries == null) {
+            return;
+        }
+        wheel[slot] = null;
+        for (K key : entries) {
+            Long tick = deadlines.get(key);
+            if (tick != null) {
+                place(key, tick);
+            }
+        }
+    }
+
+    /**
+     * 按距当前刻度的远近放入对应层：第 i 层容纳 [wheelSize^i, wheelSize^(i+1)) 个刻度之后到期的条目
+     */
+    @SuppressWarnings("unchecked")
+    private void place(K key, long tick) {
+        long delay = tick - currentTick;
+        int level = 0;
+        long span = 1;
+        while (delay >= span * wheelSize) {
+            span *= wheelSize;
+            level++;
+        }
+        while (levels.size() <= level) {
+            levels.add(new List[wheelSize]);
+        }
+        List<K>[] wheel = levels.get(level);
+        int slot = (int) ((tick / span) % wheelSize);
+        if (wheel[slot] == null) {
+            wheel[slot] = new ArrayList<>();
+        }
+        wheel[slot].add(key);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
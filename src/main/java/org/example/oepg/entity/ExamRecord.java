@@ -51,6 +51,13 @@ public class ExamRecord {
     @TableField("answers")
     private String answers; // 学生答案（JSON字符串）
 
+    /**
+     * 版本号，交卷和超时交卷的条件更新同时校验状态和版本，每次状态变更加一
+     * DDL: ALTER TABLE exam_records ADD COLUMN version INT NOT NULL DEFAULT 0;
+     */
+    @TableField("version")
+    private Integer version;
+
     @TableField(value = "created_at", fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
 
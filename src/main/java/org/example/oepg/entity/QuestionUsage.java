@@ -0,0 +1,37 @@
+package org.example.oepg.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 题目曝光次数实体类
+ * 记录题目随试卷发布的累计次数，由 QuestionExposureTracker 定期增量写入。
+ * <pre>
+ * CREATE TABLE question_usage (
+ *     question_id BIGINT PRIMARY KEY,
+ *     usage_count BIGINT NOT NULL DEFAULT 0,
+ *     updated_at  DATETIME
+ * );
+ * </pre>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("question_usage")
+public class QuestionUsage {
+
+    @TableId(value = "question_id", type = IdType.INPUT)
+    private Long questionId; // 题目ID
+
+    @TableField("usage_count")
+    private Long usageCount; // 累计曝光次数（批量写入时为增量）
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,71 @@
+package org.example.oepg.index;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.QuestionCategory;
+import org.example.oepg.repository.QuestionCategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 分类子树缓存
+ * 一次查询全部分类的 (id, parent_id)，在内存中计算每个分类的后代闭包（包含自身），
+ * 代替每次调用 findAllChildIds 的递归 CTE。分类新增、修改、删除后由 QuestionCategoryServiceImpl 触发重建。
+ */
+@Component
+@Slf4j
+public class CategoryTreeCache {
+
+    @Autowired
+    private QuestionCategoryRepository categoryRepository;
+
+    private volatile Map<Long, Set<Long>> descendants;
+
+    /**
+     * 获取分类及其全部后代分类ID；分类不存在时只返回自身
+     */
+    public Set<Long> descendantsOf(Long categoryId) {
+        Map<Long, Set<Long>> closure = descendants;
+        if (closure == null) {
+            closure = rebuild();
+        }
+        Set<Long> result = closure.get(categoryId);
+        return result != null ? result : Collections.singleton(categoryId);
+    }
+
+    /**
+     * 从数据库重新加载分类树并计算后代闭包
+     */
+    public synchronized Map<Long, Set<Long>> rebuild() {
+        QueryWrapper<QuestionCategory> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "parent_id");
+        List<QuestionCategory> categories = categoryRepository.selectList(queryWrapper);
+
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (QuestionCategory category : categories) {
+            if (category.getParentId() != null) {
+                children.computeIfAbsent(category.getParentId(), k -> new ArrayList<>()).add(category.getId());
+            }
+        }
+
+        Map<Long, Set<Long>> closure = new HashMap<>(Math.max(16, categories.size() * 4 / 3 + 1));
+        for (QuestionCategory category : categories) {
+            // 按层遍历子树，visited 同时防止脏数据中的环
+            Set<Long> visited = new LinkedHashSet<>();
+            Deque<Long> queue = new ArrayDeque<>();
+            queue.add(category.getId());
+            while (!queue.isEmpty()) {
+                Long id = queue.poll();
+                if (!visited.add(id)) continue;
+                queue.addAll(children.getOrDefault(id, Collections.emptyList()));
+            }
+            closure.put(category.getId(), Collections.unmodifiableSet(visited));
+        }
+
+        descendants = closure;
+        log.info("分类子树缓存重建完成: 分类数={}", categories.size());
+        return closure;
+    }
+}
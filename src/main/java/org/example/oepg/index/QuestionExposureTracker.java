@@ -0,0 +1,124 @@
+package org.example.oepg.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.QuestionUsage;
+import org.example.oepg.repository.QuestionUsageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 题目曝光计数器
+ * 试卷发布时为其中每道题累加曝光次数。计数使用按题目分散的 LongAdder，发布路径上没有共享锁；
+ * 增量定期批量写入 question_usage 表，启动时从表中加载历史总数。
+ * 低曝光优先抽题按 1 / (1 + 曝光次数) 加权，权重版本号在每次写入后递增，题目池据此重建别名表。
+ */
+@Component
+@Slf4j
+public class QuestionExposureTracker {
+
+    @Autowired
+    private QuestionUsageRepository questionUsageRepository;
+
+    @Value("${oepg.persistence.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, LongAdder> totals = new ConcurrentHashMap<>();
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private volatile long version = 0;
+
+    /**
+     * 加载历史曝光次数（题目只需包含 questionId、usageCount）
+     */
+    public void load(Collection<QuestionUsage> usages) {
+        for (QuestionUsage usage : usages) {
+            if (usage.getQuestionId() == null || usage.getUsageCount() == null) continue;
+            totals.computeIfAbsent(usage.getQuestionId(), k -> new LongAdder()).add(usage.getUsageCount());
+        }
+        version++;
+        log.info("题目曝光次数加载完成: 题目数={}", usages.size());
+    }
+
+    /**
+     * 记录一次试卷发布：试卷中的每道题曝光次数加一
+     */
+    public void recordPublished(Collection<Long> questionIds) {
+        for (Long id : questionIds) {
+            if (id == null) continue;
+            totals.computeIfAbsent(id, k -> new LongAdder()).increment();
+            pending.computeIfAbsent(id, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 题目累计曝光次数
+     */
+    public long exposure(long questionId) {
+        LongAdder adder = totals.get(questionId);
+        return adder == null ? 0L : adder.sum();
+    }
+
+    /**
+     * 低曝光优先抽题的权重
+     */
+    public double weight(long questionId) {
+        return 1.0 / (1 + exposure(questionId));
+    }
+
+    /**
+     * 权重版本号，曝光次数写入后递增
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 定期把曝光增量批量写入数据库；写入失败的增量放回缓冲区等待下次写入
+     */
+    @Scheduled(fixedDelayString = "${oepg.exposure.flush-interval-ms:30000}")
+    public void flush() {
+        // 条目不删除只清零，避免与并发的 increment 竞争丢失计数
+        List<QuestionUsage> increments = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                increments.add(QuestionUsage.builder().questionId(entry.getKey()).usageCount(delta).build());
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        int written = 0;
+        try {
+            for (; written < increments.size(); written += batchSize) {
+                questionUsageRepository.upsertIncrements(
+                        increments.subList(written, Math.min(written + batchSize, increments.size())));
+            }
+        } catch (Exception e) {
+            log.error("题目曝光次数写入失败，稍后重试: ", e);
+            for (int i = written; i < increments.size(); i++) {
+                QuestionUsage usage = increments.get(i);
+                pending.computeIfAbsent(usage.getQuestionId(), k -> new LongAdder()).add(usage.getUsageCount());
+            }
+        }
+        version++;
+        log.debug("题目曝光次数写入完成: 题目数={}", increments.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
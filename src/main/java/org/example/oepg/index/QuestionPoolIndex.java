@@ -0,0 +1,421 @@
+package org.example.oepg.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Question;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * 题目池索引
+ * 按 (分类, 题型, 难度) 将题目ID保存在 long[] 中，随机抽题在内存中用部分 Fisher–Yates 完成，
+ * 代替数据库的 ORDER BY RAND() 全表排序。题目增删改时由 QuestionServiceImpl 增量维护。
+ * 低曝光优先抽题时每个题目池额外缓存一张按曝光权重构建的别名表。
+ * 初始加载期间的增删改先记录下来，全量索引替换后按顺序重放，避免扫描之后的修改被替换掉。
+ */
+@Component
+@Slf4j
+public class QuestionPoolIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<PoolKey, Pool> pools = new HashMap<>();
+
+    private Map<Long, Slot> slotById = new HashMap<>();
+
+    // 初始加载期间的变更，重建替换后重放；加载完成或失败后为 null
+    private List<Runnable> replay = new ArrayList<>();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 索引是否已完成初始加载
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用全量题目重建索引（题目只需包含 id、分类、题型、难度），随后重放初始加载期间的变更
+     */
+    public void rebuild(Collection<Question> questions) {
+        Map<PoolKey, Pool> newPools = new HashMap<>();
+        Map<Long, Slot> newSlotById = new HashMap<>(Math.max(16, questions.size() * 4 / 3 + 1));
+        for (Question question : questions) {
+            if (question.getId() == null || newSlotById.containsKey(question.getId())) continue;
+            PoolKey key = keyOf(question);
+            int position = newPools.computeIfAbsent(key, k -> new Pool()).add(question.getId());
+            newSlotById.put(question.getId(), new Slot(key, position));
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            List<Runnable> ops = replay != null ? replay : Collections.emptyList();
+            replay = null;
+            pools = newPools;
+            slotById = newSlotById;
+            ops.forEach(Runnable::run);
+            replayed = ops.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("题目池索引重建完成: 题目数={}, 题目池数={}, 重放变更={}", slotById.size(), pools.size(), replayed);
+    }
+
+    /**
+     * 初始加载失败：停止记录变更，索引保持未就绪
+     */
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新题目（分类、题型、难度变化时移动到新的题目池）
+     */
+    public void put(Question question) {
+        if (question == null || question.getId() == null) return;
+        PoolKey key = keyOf(question);
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(() -> put(question));
+                return;
+            }
+            moveTo(question.getId(), key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除题目
+     */
+    public void remove(Long questionId) {
+        if (questionId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(() -> remove(questionId));
+                return;
+            }
+            Slot old = slotById.remove(questionId);
+            if (old != null) removeFromPool(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量修改题目分类
+     */
+    public void updateCategory(Collection<Long> questionIds, Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                List<Long> ids = new ArrayList<>(questionIds);
+                replay.add(() -> updateCategory(ids, categoryId));
+                return;
+            }
+            for (Long id : questionIds) {
+                Slot old = slotById.get(id);
+                if (old == null) continue;
+                moveTo(id, new PoolKey(categoryId, old.key.getType(), old.key.getDifficulty()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 统计满足条件的题目数量，条件为 null 表示不限
+     */
+    public int count(Collection<Long> categoryIds, Question.QuestionType type, Integer difficulty) {
+        lock.readLock().lock();
+        try {
+            int total = 0;
+            for (Pool pool : matchingPools(categoryIds, type, difficulty)) {
+                total += pool.size;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 随机抽取题目ID，条件为 null 表示不限
+     */
+    public List<Long> sample(Long categoryId, Question.QuestionType type, Integer difficulty, int count) {
+        return sample(categoryId == null ? null : Collections.singleton(categoryId), type, difficulty, count, Collections.emptySet());
+    }
+
+    /**
+     * 随机抽取题目ID，跳过 exclude 中已选的题目
+     * 多个题目池视为一个虚拟数组，只对被访问到的位置做交换记录，代价为 O(k) 而不是 O(n)
+     */
+    public List<Long> sample(Collection<Long> categoryIds, Question.QuestionType type, Integer difficulty,
+                             int count, Set<Long> exclude) {
+        if (count <= 0) return new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Pool> matched = matchingPools(categoryIds, type, difficulty);
+            int[] offsets = new int[matched.size() + 1];
+            for (int i = 0; i < matched.size(); i++) {
+                offsets[i + 1] = offsets[i] + matched.get(i).size;
+            }
+            int n = offsets[matched.size()];
+
+            List<Long> result = new ArrayList<>(Math.min(count, n));
+            Map<Integer, Integer> swapped = new HashMap<>();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < n && result.size() < count; i++) {
+                int j = i + random.nextInt(n - i);
+                int picked = swapped.getOrDefault(j, j);
+                swapped.put(j, swapped.getOrDefault(i, i));
+                long id = idAt(matched, offsets, picked);
+                if (!exclude.contains(id)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按权重抽取题目ID（不放回），跳过 exclude 中已选的题目
+     * 每个题目池缓存一张别名表，单次抽样 O(1)；权重版本号变化或题目池增删后重建。
+     * 重复命中过多（候选接近耗尽）时剩余数量改为等概率抽取
+     */
+    public List<Long> sampleWeighted(Collection<Long> categoryIds, Question.QuestionType type, Integer difficulty,
+                                     int count, Set<Long> exclude, LongToDoubleFunction weight, long weightVersion) {
+        if (count <= 0) return new ArrayList<>();
+        List<Long> result = new ArrayList<>(count);
+        Set<Long> picked = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            List<Pool> matched = matchingPools(categoryIds, type, difficulty);
+            List<AliasTable> tables = new ArrayList<>(matched.size());
+            double[] cumulative = new double[matched.size()];
+            double total = 0;
+            for (int i = 0; i < matched.size(); i++) {
+                AliasTable table = matched.get(i).aliasTable(weight, weightVersion);
+                tables.add(table);
+                total += table.totalWeight;
+                cumulative[i] = total;
+            }
+            if (total <= 0) {
+                return sample(categoryIds, type, difficulty, count, exclude);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int maxAttempts = count * 4 + 64;
+            for (int attempt = 0; attempt < maxAttempts && result.size() < count; attempt++) {
+                int poolIndex = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                poolIndex = poolIndex >= 0 ? poolIndex : Math.min(-poolIndex - 1, cumulative.length - 1);
+                long id = tables.get(poolIndex).next(random);
+                if (!exclude.contains(id) && picked.add(id)) {
+                    result.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (result.size() < count) {
+            Set<Long> skip = new HashSet<>(exclude);
+            skip.addAll(picked);
+            result.addAll(sample(categoryIds, type, difficulty, count - result.size(), skip));
+        }
+        return result;
+    }
+
+    private List<Pool> matchingPools(Collection<Long> categoryIds, Question.QuestionType type, Integer difficulty) {
+        // 条件完整时直接定位题目池
+        if (categoryIds != null && type != null && difficulty != null) {
+            List<Pool> result = new ArrayList<>(categoryIds.size());
+            for (Long categoryId : categoryIds) {
+                Pool pool = pools.get(new PoolKey(categoryId, type, difficulty));
+                if (pool != null && pool.size > 0) result.add(pool);
+            }
+            return result;
+        }
+        List<Pool> result = new ArrayList<>();
+        for (Map.Entry<PoolKey, Pool> entry : pools.entrySet()) {
+            PoolKey key = entry.getKey();
+            if (categoryIds != null && !categoryIds.contains(key.getCategoryId())) continue;
+            if (type != null && type != key.getType()) continue;
+            if (difficulty != null && !difficulty.equals(key.getDifficulty())) continue;
+            if (entry.getValue().size > 0) result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    private long idAt(List<Pool> matched, int[] offsets, int position) {
+        int lo = 0;
+        int hi = matched.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= position) lo = mid; else hi = mid - 1;
+        }
+        return matched.get(lo).ids[position - offsets[lo]];
+    }
+
+    /**
+     * 将题目放入 key 对应的题目池，已在其他题目池中时先移出
+     */
+    private void moveTo(Long id, PoolKey key) {
+        Slot old = slotById.get(id);
+        if (old != null) {
+            if (key.equals(old.key)) return;
+            removeFromPool(old);
+        }
+        int position = pools.computeIfAbsent(key, k -> new Pool()).add(id);
+        slotById.put(id, new Slot(key, position));
+    }
+
+    /**
+     * 按位置从题目池删除，末尾题目移到空出的位置并更新其位置
+     */
+    private void removeFromPool(Slot slot) {
+        Pool pool = pools.get(slot.key);
+        if (pool == null) return;
+        long moved = pool.removeAt(slot.position);
+        if (slot.position < pool.size) {
+            slotById.get(moved).position = slot.position;
+        }
+        if (pool.size == 0) pools.remove(slot.key);
+    }
+
+    private PoolKey keyOf(Question question) {
+        return new PoolKey(question.getCategoryId(), question.getType(), question.getDifficulty());
+    }
+
+    /**
+     * 题目池键
+     */
+    @Data
+    @AllArgsConstructor
+    private static class PoolKey {
+        private Long categoryId;
+        private Question.QuestionType type;
+        private Integer difficulty;
+    }
+
+    /**
+     * 题目所在的题目池及其在题目池数组中的位置
+     */
+    private static final class Slot {
+        final PoolKey key;
+        int position;
+
+        Slot(PoolKey key, int position) {
+            this.key = key;
+            this.position = position;
+        }
+    }
+
+    /**
+     * 可增长的题目ID数组，删除时用末尾元素填补空位
+     */
+    private static class Pool {
+        private long[] ids = new long[8];
+        private int size;
+        private volatile AliasTable aliasTable;
+
+        int add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+            }
+            ids[size] = id;
+            aliasTable = null;
+            return size++;
+        }
+
+        /**
+         * 删除指定位置的题目，返回移入该位置的末尾题目ID
+         */
+        long removeAt(int position) {
+            long last = ids[--size];
+            ids[position] = last;
+            aliasTable = null;
+            return last;
+        }
+
+        /**
+         * 获取当前权重版本的别名表，读锁下调用，多个线程同时重建时结果相同
+         */
+        AliasTable aliasTable(LongToDoubleFunction weight, long version) {
+            AliasTable table = aliasTable;
+            if (table == null || table.version != version) {
+                table = new AliasTable(ids, size, weight, version);
+                aliasTable = table;
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Vose 别名表：O(n) 构建，O(1) 按权重抽样
+     */
+    private static class AliasTable {
+        private final long[] ids;
+        private final double[] probability;
+        private final int[] alias;
+        private final double totalWeight;
+        private final long version;
+
+        AliasTable(long[] source, int size, LongToDoubleFunction weight, long version) {
+            this.ids = Arrays.copyOf(source, size);
+            this.probability = new double[size];
+            this.alias = new int[size];
+            this.version = version;
+
+            double[] scaled = new double[size];
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                scaled[i] = Math.max(0, weight.applyAsDouble(ids[i]));
+                total += scaled[i];
+            }
+            this.totalWeight = total;
+            if (size == 0 || total <= 0) return;
+
+            int[] small = new int[size];
+            int[] large = new int[size];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < size; i++) {
+                scaled[i] = scaled[i] * size / total;
+                if (scaled[i] < 1.0) small[smallCount++] = i; else large[largeCount++] = i;
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1.0;
+                if (scaled[more] < 1.0) small[smallCount++] = more; else large[largeCount++] = more;
+            }
+            while (largeCount > 0) probability[large[--largeCount]] = 1.0;
+            while (smallCount > 0) probability[small[--smallCount]] = 1.0;
+        }
+
+        long next(ThreadLocalRandom random) {
+            int i = random.nextInt(ids.length);
+            return random.nextDouble() < probability[i] ? ids[i] : ids[alias[i]];
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package org.example.oepg.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Question;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 题目相似度索引
+ * 对 title + content 的字符二元组计算 MinHash 签名（适合中文短文本），用于组卷时排除近似重复的题目。
+ * 签名共 32 个 16 位分量，每 4 个分量打包成一个 long 作为一个 LSH 分段（共 8 段），
+ * 全部签名平铺保存在以题目ID为键的开放寻址表中，每题 64 字节，50 万题连同空槽约占 80MB。
+ * 组卷时通过 {@link DuplicateGuard} 维护已选题目的分段桶，每个候选题只需 8 次哈希查找。
+ * 启动加载期间题目的签名变更先暂存，换上全量签名表后再应用。
+ */
+@Component
+@Slf4j
+public class QuestionSimilarityIndex {
+
+    static final int BANDS = 8;
+
+    private static final int ROWS_PER_BAND = 4;
+
+    private static final int HASHES = BANDS * ROWS_PER_BAND;
+
+    private static final int SHINGLE_SIZE = 2;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final long[] HASH_SEEDS = new long[HASHES];
+
+    static {
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < HASHES; i++) {
+            state += GOLDEN_GAMMA;
+            HASH_SEEDS[i] = mix64(state);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SignatureTable table = new SignatureTable(16);
+
+    // 初始加载期间的变更，重建替换后重放；加载完成或失败后为 null
+    private List<Runnable> replay = new ArrayList<>();
+
+    private volatile boolean ready = false;
+
+    @Value("${oepg.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${oepg.dedup.threshold:0.7}")
+    private double defaultThreshold;
+
+    /**
+     * 是否启用近似重复排除（索引未加载完成时不生效）
+     */
+    public boolean isEnabled() {
+        return enabled && ready;
+    }
+
+    /**
+     * 用全量签名重建索引，随后重放初始加载期间的变更
+     */
+    public void rebuild(Map<Long, long[]> signatures) {
+        SignatureTable newTable = new SignatureTable(signatures.size());
+        signatures.forEach(newTable::put);
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            List<Runnable> ops = replay != null ? replay : Collections.emptyList();
+            replay = null;
+            table = newTable;
+            ops.forEach(Runnable::run);
+            replayed = ops.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("题目相似度索引重建完成: 题目数={}, 重放变更={}", newTable.size, replayed);
+    }
+
+    /**
+     * 初始加载失败：停止记录变更，索引保持未就绪
+     */
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新题目签名（需包含 title、content）
+     */
+    public void put(Question question) {
+        if (question == null || question.getId() == null) return;
+        Long id = question.getId();
+        long[] signature = signature(question.getTitle(), question.getContent());
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(() -> table.put(id, signature));
+                return;
+            }
+            table.put(id, signature);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除题目签名
+     */
+    public void remove(Long questionId) {
+        if (questionId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(() -> table.remove(questionId));
+                return;
+            }
+            table.remove(questionId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 创建一次组卷使用的去重器，阈值使用配置默认值
+     */
+    public DuplicateGuard newGuard() {
+        return new DuplicateGuard(defaultThreshold);
+    }
+
+    /**
+     * 计算文本的 MinHash 签名：只保留字母和数字并转为小写后取字符二元组
+     */
+    public static long[] signature(String title, String content) {
+        String text = normalize(title, content);
+        int[] mins = new int[HASHES];
+        Arrays.fill(mins, Integer.MAX_VALUE);
+        int shingles = Math.max(1, text.length() - SHINGLE_SIZE + 1);
+        for (int s = 0; s < shingles; s++) {
+            long h = 0;
+            int end = Math.min(text.length(), s + SHINGLE_SIZE);
+            for (int i = s; i < end; i++) {
+                h = h * 0x100000001B3L + text.charAt(i);
+            }
+            for (int k = 0; k < HASHES; k++) {
+                int v = (int) (mix64(h ^ HASH_SEEDS[k]) >>> 33);
+                if (v < mins[k]) mins[k] = v;
+            }
+        }
+        long[] signature = new long[BANDS];
+        for (int b = 0; b < BANDS; b++) {
+            long word = 0;
+            for (int r = 0; r < ROWS_PER_BAND; r++) {
+                word = (word << 16) | (mins[b * ROWS_PER_BAND + r] & 0xFFFFL);
+            }
+            signature[b] = word;
+        }
+        return signature;
+    }
+
+    static double estimate(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < BANDS; i++) {
+            long x = a[i] ^ b[i];
+            for (int r = 0; r < ROWS_PER_BAND; r++) {
+                if ((x & 0xFFFFL) == 0) equal++;
+                x >>>= 16;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static String normalize(String title, String content) {
+        StringBuilder sb = new StringBuilder();
+        appendNormalized(sb, title);
+        appendNormalized(sb, content);
+        return sb.toString();
+    }
+
+    private static void appendNormalized(StringBuilder sb, String text) {
+        if (text == null) return;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 单次组卷的近似重复过滤器（非线程安全）
+     * 已接受题目的每个分段放入桶中，候选题目只与分段相同的已选题目比较签名
+     */
+    public class DuplicateGuard {
+
+        private final double threshold;
+
+        private final Map<Long, List<long[]>> buckets = new HashMap<>();
+
+        private DuplicateGuard(double threshold) {
+            this.threshold = threshold;
+        }
+
+        /**
+         * 候选题目与已接受题目都不相似时接受并返回 true；未启用或无签名的题目直接接受
+         */
+        public boolean tryAccept(Long questionId) {
+            if (!isEnabled()) {
+                return true;
+            }
+            long[] signature;
+            lock.readLock().lock();
+            try {
+                signature = table.get(questionId);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (signature == null) {
+                return true;
+            }
+            for (int b = 0; b < BANDS; b++) {
+                List<long[]> bucket = buckets.get(bandKey(b, signature[b]));
+                if (bucket == null) continue;
+                for (long[] accepted : bucket) {
+                    if (estimate(signature, accepted) >= threshold) {
+                        return false;
+                    }
+                }
+            }
+            for (int b = 0; b < BANDS; b++) {
+                buckets.computeIfAbsent(bandKey(b, signature[b]), k -> new ArrayList<>(1)).add(signature);
+            }
+            return true;
+        }
+
+        /**
+         * 依次尝试接受候选题目，返回被接受的题目
+         */
+        public List<Long> filter(Collection<Long> questionIds) {
+            List<Long> accepted = new ArrayList<>(questionIds.size());
+            for (Long id : questionIds) {
+                if (tryAccept(id)) {
+                    accepted.add(id);
+                }
+            }
+            return accepted;
+        }
+
+        private Long bandKey(int band, long word) {
+            return mix64(word + band * GOLDEN_GAMMA);
+        }
+    }
+
+    /**
+     * 题目ID -> 签名的开放寻址表（线性探测，删除时回移），签名平铺在一个 long[] 中
+     */
+    private static final class SignatureTable {
+
+        private long[] keys;
+        private long[] values;
+        private boolean[] used;
+        private int size;
+
+        SignatureTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 4 / 3 + 1) - 1) << 1;
+            keys = new long[capacity];
+            values = new long[capacity * BANDS];
+            used = new boolean[capacity];
+        }
+
+        long[] get(Long key) {
+            if (key == null) return null;
+            int slot = find(key);
+            if (slot < 0) return null;
+            long[] result = new long[BANDS];
+            System.arraycopy(values, slot * BANDS, result, 0, BANDS);
+            return result;
+        }
+
+        void put(Long key, long[] signature) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length << 1);
+            }
+            int mask = keys.length - 1;
+            int slot = (int) mix64(key) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                size++;
+            }
+            System.arraycopy(signature, 0, values, slot * BANDS, BANDS);
+        }
+
+        void remove(Long key) {
+            int slot = find(key);
+            if (slot < 0) return;
+            int mask = keys.length - 1;
+            used[slot] = false;
+            size--;
+            // 回移后续探测链上的元素，保持线性探测不出现空洞
+            int next = (slot + 1) & mask;
+            while (used[next]) {
+                int home = (int) mix64(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    System.arraycopy(values, next * BANDS, values, slot * BANDS, BANDS);
+                    used[slot] = true;
+                    used[next] = false;
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) mix64(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[capacity];
+            values = new long[capacity * BANDS];
+            used = new boolean[capacity];
+            size = 0;
+            long[] signature = new long[BANDS];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    System.arraycopy(oldValues, i * BANDS, signature, 0, BANDS);
+                    put(oldKeys[i], signature);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,654 @@
+package org.example.oepg.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.entity.Question;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 题目全文索引
+ * 对 title、content、analysis 建立内存倒排索引，代替 findQuestionsWithCategory 中无法走索引的
+ * LIKE '%关键词%' 全表扫描。分词：连续的中日韩字符取相邻二元组（孤立的单字单独成词），
+ * 字母和数字按连续片段成词并转为小写，其余字符为分隔符；标题中的词频按 title-boost 加权。
+ * 每个词的倒排表按文档号递增保存为 (文档号差值, 词频) 的变长字节编码。查询时全部关键词取交集，
+ * 按 BM25 排序后只返回当前页的题目ID，由调用方按ID回表。
+ * 题目增删改时由 QuestionServiceImpl 增量维护：更新视为删除旧文档再追加新文档，已删除文档在查询时跳过，
+ * 删除数超过存活文档的 1/4 时压缩倒排表。
+ * 初始加载期间的增删改在全量索引替换后按顺序重放。
+ * 内存主要取决于不同二元组的数量：按词频近似齐夫分布的题干实测每 10 万题约 60MB，
+ * 字符均匀随机的合成题库（二元组几乎不重复）每 10 万题约 360MB。
+ */
+@Component
+@Slf4j
+public class QuestionTextIndex {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int MIN_COMPACT_DELETES = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment = new Segment(1);
+
+    // 初始加载期间的变更，重建替换后重放；加载完成或失败后为 null
+    private List<Runnable> replay = new ArrayList<>();
+
+    private volatile boolean ready = false;
+
+    @Value("${oepg.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${oepg.search.title-boost:2}")
+    private int titleBoost;
+
+    /**
+     * 是否启用索引搜索（索引未加载完成时不生效）
+     */
+    public boolean isEnabled() {
+        return enabled && ready;
+    }
+
+    /**
+     * 创建用于全量重建的构建器，题目需包含 id、分类、题型、难度和 title、content、analysis
+     */
+    public Builder newBuilder() {
+        return new Builder(new Segment(Math.max(1, titleBoost)));
+    }
+
+    /**
+     * 用构建器中的全部题目替换当前索引，随后重放初始加载期间的变更
+     */
+    public void rebuild(Builder builder) {
+        Segment built = builder.segment;
+        built.trim();
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            List<Runnable> ops = replay != null ? replay : Collections.emptyList();
+            replay = null;
+            segment = built;
+            ops.forEach(Runnable::run);
+            replayed = ops.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("题目全文索引重建完成: 题目数={}, 词数={}, 倒排表={}KB, 重放变更={}",
+                built.liveCount, built.termCount, built.postingBytes() / 1024, replayed);
+    }
+
+    /**
+     * 初始加载失败：停止记录变更，索引保持未就绪
+     */
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新题目
+     */
+    public void put(Question question) {
+        if (question == null || question.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(() -> put(question));
+                return;
+            }
+            segment.remove(question.getId());
+            segment.add(question);
+            segment.compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除题目
+     */
+    public void remove(Long questionId) {
+        if (questionId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(() -> remove(questionId));
+                return;
+            }
+            segment.remove(questionId);
+            segment.compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量修改题目分类（只影响过滤条件，不重新分词）
+     */
+    public void updateCategory(Collection<Long> questionIds, Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                List<Long> ids = new ArrayList<>(questionIds);
+                replay.add(() -> updateCategory(ids, categoryId));
+                return;
+            }
+            for (Long id : questionIds) {
+                Integer doc = segment.docByQuestion.get(id);
+                if (doc != null) segment.categoryIds[doc] = categoryId == null ? Long.MIN_VALUE : categoryId;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 关键词搜索，返回命中总数和第 offset 起的 limit 个题目ID（按 BM25 得分降序，同分按ID降序）；
+     * 条件为 null 表示不限。关键词不含可检索的词、或含孤立的单个汉字（二元组无法覆盖其出现位置）时返回 null，
+     * 调用方应回退到数据库查询。
+     */
+    public SearchResult search(String keyword, Long categoryId, Question.QuestionType type, Integer difficulty,
+                               long offset, int limit) {
+        if (!isEnabled() || keyword == null) return null;
+        List<Object> tokens = new ArrayList<>();
+        boolean[] isolated = new boolean[1];
+        tokenize(keyword, new TokenSink() {
+            @Override
+            public void cjk(long key) {
+                if ((key & CJK_MASK) == 0) isolated[0] = true;
+                tokens.add(key);
+            }
+
+            @Override
+            public void word(String word) {
+                tokens.add(word);
+            }
+        });
+        if (tokens.isEmpty() || isolated[0]) return null;
+
+        lock.readLock().lock();
+        try {
+            return segment.search(tokens, categoryId, type, difficulty, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 分词结果接收者
+     */
+    interface TokenSink {
+        /**
+         * 中日韩二元组（高位为第一个字符，低 21 位为第二个字符）或孤立单字（低 21 位为 0）
+         */
+        void cjk(long key);
+
+        /**
+         * 小写的字母数字片段
+         */
+        void word(String word);
+    }
+
+    private static final long CJK_MASK = (1L << 21) - 1;
+
+    /**
+     * 分词：中日韩字符取相邻二元组，字母数字片段成词，其余字符为分隔符
+     */
+    static void tokenize(String text, TokenSink sink) {
+        if (text == null) return;
+        int length = text.length();
+        int i = 0;
+        StringBuilder word = new StringBuilder();
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int first = cp;
+                int runLength = 1;
+                i += Character.charCount(cp);
+                while (i < length && isCjk(cp = text.codePointAt(i))) {
+                    sink.cjk(((long) first << 21) | cp);
+                    first = cp;
+                    runLength++;
+                    i += Character.charCount(cp);
+                }
+                if (runLength == 1) sink.cjk((long) first << 21);
+            } else if (Character.isLetterOrDigit(cp)) {
+                word.setLength(0);
+                while (i < length && Character.isLetterOrDigit(cp = text.codePointAt(i)) && !isCjk(cp)) {
+                    word.appendCodePoint(Character.toLowerCase(cp));
+                    i += Character.charCount(cp);
+                }
+                sink.word(word.toString());
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 搜索结果：命中总数和当前页题目ID
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SearchResult {
+        private final long total;
+        private final List<Long> questionIds;
+    }
+
+    /**
+     * 全量重建构建器（非线程安全），在独立的段中逐个加入题目，完成后由 rebuild 一次性替换
+     */
+    public static class Builder {
+        private final Segment segment;
+
+        private Builder(Segment segment) {
+            this.segment = segment;
+        }
+
+        public void add(Question question) {
+            if (question == null || question.getId() == null) return;
+            segment.remove(question.getId());
+            segment.add(question);
+        }
+    }
+
+    /**
+     * 索引数据：词典、倒排表和按文档号排列的题目属性，访问由外层读写锁保护
+     */
+    private static class Segment {
+        private final int titleBoost;
+
+        // 词典：二元组和单字用开放寻址表，字母数字词用 HashMap
+        private long[] cjkKeys = new long[1024];
+        private int[] cjkTerms = new int[1024];
+        private int cjkSize;
+        private final Map<String, Integer> wordTerms = new HashMap<>();
+        private int termCount;
+
+        // 倒排表：每个词一段变长字节编码
+        private byte[][] postings = new byte[1024][];
+        private int[] postingLength = new int[1024];
+        private int[] lastDoc = new int[1024];
+        private int[] docFrequency = new int[1024];
+
+        // 文档：文档号为数组下标，按加入顺序递增
+        private long[] questionIds = new long[1024];
+        private long[] categoryIds = new long[1024];
+        private byte[] types = new byte[1024];
+        private int[] difficulties = new int[1024];
+        private int[] docLength = new int[1024];
+        private int docCount;
+        private final Map<Long, Integer> docByQuestion = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private int deletedCount;
+        private int liveCount;
+        private long totalLength;
+
+        private int[] termBuffer = new int[256];
+
+        Segment(int titleBoost) {
+            this.titleBoost = titleBoost;
+        }
+
+        void add(Question question) {
+            int[] count = {0};
+            collect(question.getTitle(), titleBoost, count);
+            collect(question.getContent(), 1, count);
+            collect(question.getAnalysis(), 1, count);
+            int n = count[0];
+
+            int doc = docCount++;
+            ensureDocCapacity(docCount);
+            questionIds[doc] = question.getId();
+            categoryIds[doc] = question.getCategoryId() == null ? Long.MIN_VALUE : question.getCategoryId();
+            types[doc] = question.getType() == null ? -1 : (byte) question.getType().ordinal();
+            difficulties[doc] = question.getDifficulty() == null ? Integer.MIN_VALUE : question.getDifficulty();
+            docLength[doc] = n;
+            docByQuestion.put(question.getId(), doc);
+            liveCount++;
+            totalLength += n;
+
+            // 排序后相同词相邻，连续段长度即词频
+            Arrays.sort(termBuffer, 0, n);
+            for (int i = 0; i < n; ) {
+                int term = termBuffer[i];
+                int j = i + 1;
+                while (j < n && termBuffer[j] == term) j++;
+                appendPosting(term, doc, j - i);
+                i = j;
+            }
+        }
+
+        void remove(long questionId) {
+            Integer doc = docByQuestion.remove(questionId);
+            if (doc == null) return;
+            deleted.set(doc);
+            deletedCount++;
+            liveCount--;
+            totalLength -= docLength[doc];
+        }
+
+        private void collect(String text, int weight, int[] count) {
+            tokenize(text, new TokenSink() {
+                @Override
+                public void cjk(long key) {
+                    push(cjkTerm(key, true), weight, count);
+                }
+
+                @Override
+                public void word(String word) {
+                    push(wordTerm(word, true), weight, count);
+                }
+            });
+        }
+
+        private void push(int term, int weight, int[] count) {
+            if (count[0] + weight > termBuffer.length) {
+                termBuffer = Arrays.copyOf(termBuffer, Math.max(termBuffer.length * 2, count[0] + weight));
+            }
+            for (int w = 0; w < weight; w++) {
+                termBuffer[count[0]++] = term;
+            }
+        }
+
+        SearchResult search(List<Object> tokens, Long categoryId, Question.QuestionType type, Integer difficulty,
+                            long offset, int limit) {
+            int[] terms = new int[tokens.size()];
+            int distinct = 0;
+            for (Object token : tokens) {
+                int term = token instanceof Long ? cjkTerm((Long) token, false) : wordTerm((String) token, false);
+                if (term < 0 || docFrequency[term] == 0) {
+                    return new SearchResult(0, Collections.emptyList());
+                }
+                boolean seen = false;
+                for (int i = 0; i < distinct; i++) seen |= terms[i] == term;
+                if (!seen) terms[distinct++] = term;
+            }
+            terms = Arrays.copyOf(terms, distinct);
+            // 从最短的倒排表开始求交集
+            Integer[] order = new Integer[distinct];
+            for (int i = 0; i < distinct; i++) order[i] = terms[i];
+            Arrays.sort(order, (a, b) -> Integer.compare(docFrequency[a], docFrequency[b]));
+
+            double averageLength = liveCount == 0 ? 1 : Math.max(1.0, (double) totalLength / liveCount);
+            long categoryFilter = categoryId == null ? Long.MIN_VALUE : categoryId;
+            int typeFilter = type == null ? -1 : type.ordinal();
+
+            int[] docs = new int[docFrequency[order[0]]];
+            double[] scores = new double[docs.length];
+            int size = 0;
+            PostingReader reader = new PostingReader(postings[order[0]], postingLength[order[0]]);
+            double idf = idf(order[0]);
+            while (reader.next()) {
+                int doc = reader.doc;
+                if (deleted.get(doc)) continue;
+                if (categoryId != null && categoryIds[doc] != categoryFilter) continue;
+                if (type != null && types[doc] != typeFilter) continue;
+                if (difficulty != null && difficulties[doc] != difficulty) continue;
+                docs[size] = doc;
+                scores[size++] = idf * termWeight(reader.tf, docLength[doc], averageLength);
+            }
+            for (int t = 1; t < distinct && size > 0; t++) {
+                reader = new PostingReader(postings[order[t]], postingLength[order[t]]);
+                idf = idf(order[t]);
+                int kept = 0;
+                int i = 0;
+                while (i < size && reader.next()) {
+                    while (i < size && docs[i] < reader.doc) i++;
+                    if (i < size && docs[i] == reader.doc) {
+                        docs[kept] = docs[i];
+                        scores[kept++] = scores[i] + idf * termWeight(reader.tf, docLength[docs[i]], averageLength);
+                        i++;
+                    }
+                }
+                size = kept;
+            }
+            return new SearchResult(size, topPage(docs, scores, size, offset, limit));
+        }
+
+        /**
+         * 只保留前 offset + limit 名的小顶堆，再取出当前页
+         */
+        private List<Long> topPage(int[] docs, double[] scores, int size, long offset, int limit) {
+            if (limit <= 0 || offset >= size) return Collections.emptyList();
+            int keep = (int) Math.min(size, offset + limit);
+            PriorityQueue<Integer> heap = new PriorityQueue<>(keep, (a, b) -> {
+                int c = Double.compare(scores[a], scores[b]);
+                return c != 0 ? c : Long.compare(questionIds[docs[a]], questionIds[docs[b]]);
+            });
+            for (int i = 0; i < size; i++) {
+                heap.offer(i);
+                if (heap.size() > keep) heap.poll();
+            }
+            long[] ranked = new long[heap.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = questionIds[docs[heap.poll()]];
+            }
+            List<Long> page = new ArrayList<>(ranked.length - (int) offset);
+            for (int i = (int) offset; i < ranked.length; i++) {
+                page.add(ranked[i]);
+            }
+            return page;
+        }
+
+        private double idf(int term) {
+            double df = Math.min(docFrequency[term], Math.max(1, liveCount));
+            return Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+        }
+
+        private static double termWeight(int tf, int length, double averageLength) {
+            return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+        }
+
+        /**
+         * 删除数超过存活文档的 1/4 时重排文档号并重写全部倒排表
+         */
+        void compactIfNeeded() {
+            if (deletedCount < MIN_COMPACT_DELETES || deletedCount * 4 < liveCount) return;
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                    continue;
+                }
+                remap[doc] = next;
+                questionIds[next] = questionIds[doc];
+                categoryIds[next] = categoryIds[doc];
+                types[next] = types[doc];
+                difficulties[next] = difficulties[doc];
+                docLength[next] = docLength[doc];
+                next++;
+            }
+            for (int term = 0; term < termCount; term++) {
+                PostingReader reader = new PostingReader(postings[term], postingLength[term]);
+                postings[term] = null;
+                postingLength[term] = 0;
+                lastDoc[term] = 0;
+                docFrequency[term] = 0;
+                while (reader.next()) {
+                    int doc = remap[reader.doc];
+                    if (doc >= 0) appendPosting(term, doc, reader.tf);
+                }
+            }
+            docCount = next;
+            docByQuestion.clear();
+            for (int doc = 0; doc < docCount; doc++) {
+                docByQuestion.put(questionIds[doc], doc);
+            }
+            deleted.clear();
+            log.info("题目全文索引压缩完成: 清除已删除文档={}, 存活文档={}", deletedCount, liveCount);
+            deletedCount = 0;
+        }
+
+        private void appendPosting(int term, int doc, int tf) {
+            byte[] data = postings[term];
+            int length = postingLength[term];
+            if (data == null) {
+                data = new byte[8];
+            } else if (data.length - length < 10) {
+                data = Arrays.copyOf(data, data.length + Math.max(8, data.length >> 1));
+            }
+            int gap = docFrequency[term] == 0 ? doc : doc - lastDoc[term];
+            length = writeVarInt(data, length, gap);
+            length = writeVarInt(data, length, tf);
+            postings[term] = data;
+            postingLength[term] = length;
+            lastDoc[term] = doc;
+            docFrequency[term]++;
+        }
+
+        private static int writeVarInt(byte[] data, int position, int value) {
+            while ((value & ~0x7F) != 0) {
+                data[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[position++] = (byte) value;
+            return position;
+        }
+
+        /**
+         * 全量构建完成后去掉倒排表的扩容余量，之后的增量追加按需再扩
+         */
+        void trim() {
+            for (int term = 0; term < termCount; term++) {
+                if (postings[term] != null && postings[term].length > postingLength[term]) {
+                    postings[term] = Arrays.copyOf(postings[term], postingLength[term]);
+                }
+            }
+        }
+
+        long postingBytes() {
+            long total = 0;
+            for (int term = 0; term < termCount; term++) total += postingLength[term];
+            return total;
+        }
+
+        private int cjkTerm(long key, boolean create) {
+            int mask = cjkKeys.length - 1;
+            int slot = (int) (mix(key) & mask);
+            // 键加 1 保存，0 表示空槽
+            while (cjkKeys[slot] != 0) {
+                if (cjkKeys[slot] == key + 1) return cjkTerms[slot];
+                slot = (slot + 1) & mask;
+            }
+            if (!create) return -1;
+            int term = newTerm();
+            cjkKeys[slot] = key + 1;
+            cjkTerms[slot] = term;
+            if (++cjkSize * 4 > cjkKeys.length * 3) growCjkTable();
+            return term;
+        }
+
+        private int wordTerm(String word, boolean create) {
+            Integer term = wordTerms.get(word);
+            if (term != null) return term;
+            if (!create) return -1;
+            int created = newTerm();
+            wordTerms.put(word, created);
+            return created;
+        }
+
+        private int newTerm() {
+            if (termCount == postings.length) {
+                int capacity = termCount * 2;
+                postings = Arrays.copyOf(postings, capacity);
+                postingLength = Arrays.copyOf(postingLength, capacity);
+                lastDoc = Arrays.copyOf(lastDoc, capacity);
+                docFrequency = Arrays.copyOf(docFrequency, capacity);
+            }
+            return termCount++;
+        }
+
+        private void growCjkTable() {
+            long[] oldKeys = cjkKeys;
+            int[] oldTerms = cjkTerms;
+            cjkKeys = new long[oldKeys.length * 2];
+            cjkTerms = new int[oldKeys.length * 2];
+            int mask = cjkKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) continue;
+                int slot = (int) (mix(oldKeys[i] - 1) & mask);
+                while (cjkKeys[slot] != 0) slot = (slot + 1) & mask;
+                cjkKeys[slot] = oldKeys[i];
+                cjkTerms[slot] = oldTerms[i];
+            }
+        }
+
+        private void ensureDocCapacity(int capacity) {
+            if (capacity <= questionIds.length) return;
+            int grown = Math.max(capacity, questionIds.length * 2);
+            questionIds = Arrays.copyOf(questionIds, grown);
+            categoryIds = Arrays.copyOf(categoryIds, grown);
+            types = Arrays.copyOf(types, grown);
+            difficulties = Arrays.copyOf(difficulties, grown);
+            docLength = Arrays.copyOf(docLength, grown);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * 顺序解码一段倒排表
+     */
+    private static final class PostingReader {
+        private final byte[] data;
+        private final int length;
+        private int position;
+        int doc;
+        int tf;
+
+        PostingReader(byte[] data, int length) {
+            this.data = data;
+            this.length = data == null ? 0 : length;
+        }
+
+        boolean next() {
+            if (position >= length) return false;
+            doc += readVarInt();
+            tf = readVarInt();
+            return true;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
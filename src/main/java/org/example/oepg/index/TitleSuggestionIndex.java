@@ -0,0 +1,670 @@
+package org.example.oepg.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 题目标题搜索建议索引
+ * 代替每次按键都执行的 SELECT DISTINCT title ... LIKE '%kw%'。去重后的标题平铺在一个 char[] 中，
+ * 每个标题的每个起始位置是一个后缀，全部后缀按前 16 个字符（忽略大小写）排序，即标题全部 n 元子串的有序前缀表。
+ * 关键词的匹配项在表中是连续的一段，两次二分查找即可定位；段内按标题最近修改时间取前 N 个，
+ * 每 64 / 4096 个后缀预存一次最大时间，低于当前第 N 名的整块直接跳过，不需要扫描整段。
+ * <p>
+ * 题目增删改时增量维护：标题计数和时间在原数组上修改，新标题和时间变新的已有标题先放入待合并区，
+ * 查询时与有序表的结果一起排名；待合并的变更达到 merge-threshold 后在后台重建有序表并替换。
+ * 每个后缀占 4 字节，每个标题另需约 2 字节/字符和 16 字节计数、时间与偏移；实测 100 万个平均 16 字的标题
+ * 常驻约 114MB，单核构建约 14 秒，构建期间另需约 200MB 临时数组（见 SearchSuggestionBenchmark）。
+ * <p>
+ * 标题计数是增量，不能简单重放。初始加载期间按题目ID只记录每道题的最终标题，全量索引替换后
+ * 先减去扫描时读到的该题标题（构建器按题目ID保存），再加上最终标题，无论修改发生在扫描该题之前还是之后都只计一次。
+ */
+@Component
+@Slf4j
+public class TitleSuggestionIndex {
+
+    /**
+     * 排序和二分查找比较的最大字符数，更长的关键词在候选后缀上逐字校验
+     */
+    static final int MAX_DEPTH = 16;
+
+    private static final int POSITION_BITS = 8;
+
+    private static final int MAX_POSITIONS = 1 << POSITION_BITS;
+
+    private static final int MAX_TITLES = 1 << (32 - POSITION_BITS);
+
+    private static final int BLOCK = 64;
+
+    private static final int SUPER_BLOCK = 4096;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment = Segment.build(new String[0], new int[0], new long[0]);
+
+    // 有序表之外的标题：{题目数, 最近修改时间}
+    private final Map<String, long[]> pending = new HashMap<>();
+
+    // 有序表内时间变新的标题，查询时单独排名
+    private final BitSet touched = new BitSet();
+
+    private final List<Integer> touchedList = new ArrayList<>();
+
+    private int changes;
+
+    // 后台重建期间的变更，替换有序表后重放
+    private List<Object[]> replay;
+
+    // 初始加载期间每道题目的最终 {标题（已删除为 null）, 修改时间}；加载完成或失败后为 null
+    private Map<Long, Object[]> loading = new LinkedHashMap<>();
+
+    private volatile boolean ready = false;
+
+    @Value("${oepg.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${oepg.suggest.merge-threshold:1024}")
+    private int mergeThreshold;
+
+    /**
+     * 是否启用索引建议（索引未加载完成时不生效）
+     */
+    public boolean isEnabled() {
+        return enabled && ready;
+    }
+
+    /**
+     * 创建用于全量重建的构建器
+     */
+    public Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 用构建器中的全部标题替换当前索引，随后按题目修正初始加载期间的变更
+     */
+    public void rebuild(Builder builder) {
+        long start = System.currentTimeMillis();
+        Segment built = builder.build();
+        int corrected;
+        lock.writeLock().lock();
+        try {
+            Map<Long, Object[]> changed = loading != null ? loading : Collections.emptyMap();
+            loading = null;
+            segment = built;
+            pending.clear();
+            touched.clear();
+            touchedList.clear();
+            changes = 0;
+            changed.forEach((questionId, state) -> {
+                apply(builder.titleOf(questionId), -1, Long.MIN_VALUE);
+                apply((String) state[0], 1, (Long) state[1]);
+            });
+            corrected = changed.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("题目标题建议索引重建完成: 标题数={}, 后缀数={}, 加载期间修改的题目={}, 耗时={}ms",
+                built.titleCount, built.entries.length, corrected, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 初始加载失败：停止记录变更，索引保持未就绪
+     */
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            loading = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增题目标题
+     */
+    public void add(Long questionId, String title, LocalDateTime modifiedAt) {
+        if (recordDuringLoad(questionId, title, modifiedAt)) return;
+        apply(title, 1, millis(modifiedAt));
+    }
+
+    /**
+     * 删除题目标题
+     */
+    public void remove(Long questionId, String title) {
+        if (recordDuringLoad(questionId, null, null)) return;
+        apply(title, -1, Long.MIN_VALUE);
+    }
+
+    /**
+     * 题目更新：标题变化时从旧标题移到新标题，未变化时只刷新时间
+     */
+    public void replace(Long questionId, String oldTitle, String newTitle, LocalDateTime modifiedAt) {
+        if (recordDuringLoad(questionId, newTitle, modifiedAt)) return;
+        if (oldTitle != null && oldTitle.equals(newTitle)) {
+            apply(newTitle, 0, millis(modifiedAt));
+            return;
+        }
+        apply(oldTitle, -1, Long.MIN_VALUE);
+        apply(newTitle, 1, millis(modifiedAt));
+    }
+
+    /**
+     * 返回包含关键词（忽略大小写）的标题，按最近修改时间降序，最多 limit 个
+     */
+    public List<String> suggest(String keyword, int limit) {
+        if (keyword == null || limit <= 0) return Collections.emptyList();
+        char[] key = keyword.trim().toCharArray();
+        if (key.length == 0) return Collections.emptyList();
+        for (int i = 0; i < key.length; i++) {
+            key[i] = lower(key[i]);
+        }
+
+        lock.readLock().lock();
+        try {
+            TopTitles top = new TopTitles(limit);
+            segment.collect(key, top, touched);
+            for (Integer title : touchedList) {
+                if (segment.counts[title] > 0 && containsIgnoreCase(segment.title(title), key)) {
+                    top.offer(title, segment.title(title), segment.modifiedAt[title]);
+                }
+            }
+            for (Map.Entry<String, long[]> entry : pending.entrySet()) {
+                if (containsIgnoreCase(entry.getKey(), key)) {
+                    top.offer(-1, entry.getKey(), entry.getValue()[1]);
+                }
+            }
+            return top.titles(segment);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 待合并的变更达到阈值时在后台重建有序表：读锁下取快照，锁外排序，写锁下替换并重放期间的变更
+     */
+    @Scheduled(fixedDelayString = "${oepg.suggest.merge-interval-ms:10000}")
+    public void mergePending() {
+        Builder builder = new Builder();
+        lock.writeLock().lock();
+        try {
+            if (!ready || changes < mergeThreshold || replay != null) return;
+            for (int title = 0; title < segment.titleCount; title++) {
+                if (segment.counts[title] > 0) {
+                    builder.put(segment.title(title), segment.counts[title], segment.modifiedAt[title]);
+                }
+            }
+            pending.forEach((title, state) -> builder.put(title, state[0], state[1]));
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Segment built;
+        try {
+            built = builder.build();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Object[]> ops = replay;
+            replay = null;
+            segment = built;
+            pending.clear();
+            touched.clear();
+            touchedList.clear();
+            changes = 0;
+            for (Object[] op : ops) {
+                apply((String) op[0], (Integer) op[1], (Long) op[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("题目标题建议索引合并完成: 标题数={}, 耗时={}ms", built.titleCount, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 初始加载期间只记录题目的最终标题，返回 true；加载完成后返回 false，由调用方直接修改索引
+     */
+    private boolean recordDuringLoad(Long questionId, String title, LocalDateTime modifiedAt) {
+        if (questionId == null) return false;
+        lock.writeLock().lock();
+        try {
+            if (loading == null) return false;
+            loading.put(questionId, new Object[]{title, millis(modifiedAt)});
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(String title, int countDelta, long modifiedAt) {
+        if (title == null || title.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(new Object[]{title, countDelta, modifiedAt});
+            }
+            changes++;
+            int index = segment.find(title);
+            if (index >= 0) {
+                segment.counts[index] += countDelta;
+                if (modifiedAt > segment.modifiedAt[index]) {
+                    // 时间变新后块内最大值可能失效，改由 touchedList 单独排名
+                    segment.modifiedAt[index] = modifiedAt;
+                    if (!touched.get(index)) {
+                        touched.set(index);
+                        touchedList.add(index);
+                    }
+                }
+                return;
+            }
+            long[] state = pending.computeIfAbsent(title, t -> new long[]{0, Long.MIN_VALUE});
+            state[0] += countDelta;
+            state[1] = Math.max(state[1], modifiedAt);
+            if (state[0] <= 0) pending.remove(title);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean containsIgnoreCase(String text, char[] key) {
+        int last = text.length() - key.length;
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < key.length && lower(text.charAt(start + i)) == key[i]) i++;
+            if (i == key.length) return true;
+        }
+        return false;
+    }
+
+    private static char lower(char c) {
+        if (c < 128) return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * 全量构建器：按标题去重并累计题目数和最近修改时间；
+     * 另按题目ID保存扫描到的标题，供重建时修正加载期间修改过的题目
+     */
+    public static class Builder {
+        private final Map<String, long[]> titles = new HashMap<>();
+
+        private long[] questionIds = new long[0];
+
+        private String[] questionTitles = new String[0];
+
+        private int questionCount;
+
+        private boolean sorted = true;
+
+        public void add(Long questionId, String title, LocalDateTime modifiedAt) {
+            put(title, 1, millis(modifiedAt));
+            if (questionId == null || title == null || title.isEmpty()) return;
+            if (questionCount == questionIds.length) {
+                int capacity = Math.max(1024, questionCount << 1);
+                questionIds = Arrays.copyOf(questionIds, capacity);
+                questionTitles = Arrays.copyOf(questionTitles, capacity);
+            }
+            if (questionCount > 0 && questionIds[questionCount - 1] >= questionId) {
+                sorted = false;
+            }
+            questionIds[questionCount] = questionId;
+            questionTitles[questionCount++] = title;
+        }
+
+        /**
+         * 扫描时该题目的标题，未扫描到时返回 null
+         */
+        String titleOf(long questionId) {
+            if (!sorted) {
+                sortByQuestionId();
+            }
+            int i = Arrays.binarySearch(questionIds, 0, questionCount, questionId);
+            return i >= 0 ? questionTitles[i] : null;
+        }
+
+        private void sortByQuestionId() {
+            Integer[] order = new Integer[questionCount];
+            for (int i = 0; i < questionCount; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(questionIds[a], questionIds[b]));
+            long[] ids = new long[questionCount];
+            String[] sortedTitles = new String[questionCount];
+            for (int i = 0; i < questionCount; i++) {
+                ids[i] = questionIds[order[i]];
+                sortedTitles[i] = questionTitles[order[i]];
+            }
+            questionIds = ids;
+            questionTitles = sortedTitles;
+            sorted = true;
+        }
+
+        void put(String title, long count, long modifiedAt) {
+            if (title == null || title.isEmpty()) return;
+            long[] state = titles.computeIfAbsent(title, t -> new long[]{0, Long.MIN_VALUE});
+            state[0] += count;
+            state[1] = Math.max(state[1], modifiedAt);
+        }
+
+        Segment build() {
+            String[] sorted = titles.keySet().toArray(new String[0]);
+            Arrays.sort(sorted);
+            int[] counts = new int[sorted.length];
+            long[] modifiedAt = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                long[] state = titles.get(sorted[i]);
+                counts[i] = (int) state[0];
+                modifiedAt[i] = state[1];
+            }
+            return Segment.build(sorted, counts, modifiedAt);
+        }
+    }
+
+    /**
+     * 有序后缀表。标题按字典序编号；后缀编码为 (标题号 << 8 | 起始位置)，每个标题最多取前 256 个起始位置
+     */
+    private static final class Segment {
+        final int titleCount;
+        final char[] chars;
+        final int[] offsets;
+        final int[] counts;
+        final long[] modifiedAt;
+        final int[] entries;
+        final long[] blockMax;
+        final long[] superBlockMax;
+
+        private Segment(char[] chars, int[] offsets, int[] counts, long[] modifiedAt, int[] entries) {
+            this.titleCount = counts.length;
+            this.chars = chars;
+            this.offsets = offsets;
+            this.counts = counts;
+            this.modifiedAt = modifiedAt;
+            this.entries = entries;
+            this.blockMax = new long[(entries.length + BLOCK - 1) / BLOCK];
+            this.superBlockMax = new long[(entries.length + SUPER_BLOCK - 1) / SUPER_BLOCK];
+            Arrays.fill(blockMax, Long.MIN_VALUE);
+            Arrays.fill(superBlockMax, Long.MIN_VALUE);
+            for (int i = 0; i < entries.length; i++) {
+                long time = modifiedAt[entries[i] >>> POSITION_BITS];
+                blockMax[i / BLOCK] = Math.max(blockMax[i / BLOCK], time);
+                superBlockMax[i / SUPER_BLOCK] = Math.max(superBlockMax[i / SUPER_BLOCK], time);
+            }
+        }
+
+        static Segment build(String[] sortedTitles, int[] counts, long[] modifiedAt) {
+            if (sortedTitles.length > MAX_TITLES) {
+                throw new IllegalStateException("标题数超过建议索引上限: " + sortedTitles.length);
+            }
+            int[] offsets = new int[sortedTitles.length + 1];
+            long totalChars = 0;
+            long totalEntries = 0;
+            for (int i = 0; i < sortedTitles.length; i++) {
+                totalChars += sortedTitles[i].length();
+                totalEntries += Math.min(sortedTitles[i].length(), MAX_POSITIONS);
+            }
+            char[] chars = new char[(int) totalChars];
+            int[] entries = new int[(int) totalEntries];
+            int position = 0;
+            int entry = 0;
+            for (int i = 0; i < sortedTitles.length; i++) {
+                String title = sortedTitles[i];
+                offsets[i] = position;
+                title.getChars(0, title.length(), chars, position);
+                position += title.length();
+                for (int p = 0; p < Math.min(title.length(), MAX_POSITIONS); p++) {
+                    entries[entry++] = (i << POSITION_BITS) | p;
+                }
+            }
+            offsets[sortedTitles.length] = position;
+            Segment unsorted = new Segment(chars, offsets, counts, modifiedAt, new int[0]);
+            return new Segment(chars, offsets, counts, modifiedAt, unsorted.sortEntries(entries));
+        }
+
+        String title(int index) {
+            return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+        }
+
+        /**
+         * 按完整标题（区分大小写）查找标题号，不存在时返回 -1
+         */
+        int find(String title) {
+            int lo = 0;
+            int hi = titleCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compareTitle(mid, title);
+                if (c == 0) return mid;
+                if (c < 0) lo = mid + 1; else hi = mid - 1;
+            }
+            return -1;
+        }
+
+        private int compareTitle(int index, String title) {
+            int start = offsets[index];
+            int length = offsets[index + 1] - start;
+            int n = Math.min(length, title.length());
+            for (int i = 0; i < n; i++) {
+                char a = chars[start + i];
+                char b = title.charAt(i);
+                if (a != b) return a - b;
+            }
+            return length - title.length();
+        }
+
+        /**
+         * 定位前缀匹配的连续段，跳过最大时间不超过当前第 N 名的块
+         */
+        void collect(char[] key, TopTitles top, BitSet touched) {
+            int depth = Math.min(key.length, MAX_DEPTH);
+            int lo = bound(key, depth, false);
+            int hi = bound(key, depth, true);
+            int i = lo;
+            while (i < hi) {
+                if (i % SUPER_BLOCK == 0 && i + SUPER_BLOCK <= hi && superBlockMax[i / SUPER_BLOCK] <= top.threshold()) {
+                    i += SUPER_BLOCK;
+                    continue;
+                }
+                if (i % BLOCK == 0 && i + BLOCK <= hi && blockMax[i / BLOCK] <= top.threshold()) {
+                    i += BLOCK;
+                    continue;
+                }
+                int entry = entries[i++];
+                int title = entry >>> POSITION_BITS;
+                if (counts[title] <= 0 || touched.get(title) || modifiedAt[title] <= top.threshold()) continue;
+                if (key.length > MAX_DEPTH && !matchesAt(entry, key)) continue;
+                top.offer(title, null, modifiedAt[title]);
+            }
+        }
+
+        /**
+         * 第一个前 depth 个字符不小于（upper 为 true 时大于）关键词的后缀位置
+         */
+        private int bound(char[] key, int depth, boolean upper) {
+            int lo = 0;
+            int hi = entries.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = comparePrefix(entries[mid], key, depth);
+                if (c < 0 || (upper && c == 0)) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int comparePrefix(int entry, char[] key, int depth) {
+            for (int d = 0; d < depth; d++) {
+                int c = charAt(entry, d);
+                if (c != key[d]) return c < key[d] ? -1 : 1;
+            }
+            return 0;
+        }
+
+        private boolean matchesAt(int entry, char[] key) {
+            for (int d = 0; d < key.length; d++) {
+                if (charAt(entry, d) != key[d]) return false;
+            }
+            return true;
+        }
+
+        /**
+         * 后缀第 d 个字符的小写形式，超出标题末尾时返回 0（排在所有字符之前，标题中的 \0 视同结尾）
+         */
+        private int charAt(int entry, int d) {
+            int title = entry >>> POSITION_BITS;
+            int index = offsets[title] + (entry & (MAX_POSITIONS - 1)) + d;
+            return index < offsets[title + 1] ? lower(chars[index]) : 0;
+        }
+
+        /**
+         * 先把前两个字符和后缀编码拼成 long 整体排序，前两个字符相同的段再从第三个字符开始做三路基数快速排序
+         */
+        private int[] sortEntries(int[] entries) {
+            long[] keys = new long[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                long prefix = ((long) charAt(entries[i], 0) << 16) | charAt(entries[i], 1);
+                // 翻转符号位，使有符号排序等价于无符号排序
+                keys[i] = ((prefix << 32) | (entries[i] & 0xFFFFFFFFL)) ^ Long.MIN_VALUE;
+            }
+            Arrays.sort(keys);
+            int[] sorted = new int[entries.length];
+            int from = 0;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] ^= Long.MIN_VALUE;
+                sorted[i] = (int) keys[i];
+                if (i > 0 && (keys[i] >>> 32) != (keys[from] >>> 32)) {
+                    if ((keys[from] & 0xFFFF00000000L) != 0) sort(sorted, from, i, 2);
+                    from = i;
+                }
+            }
+            if (keys.length > 0 && (keys[from] & 0xFFFF00000000L) != 0) sort(sorted, from, keys.length, 2);
+            return sorted;
+        }
+
+        /**
+         * 三路基数快速排序（Bentley–Sedgewick），只比较到 MAX_DEPTH 个字符
+         */
+        private void sort(int[] a, int from, int to, int depth) {
+            while (to - from > 1 && depth < MAX_DEPTH) {
+                if (to - from < 16) {
+                    insertionSort(a, from, to, depth);
+                    return;
+                }
+                int pivot = charAt(a[from + ThreadLocalRandom.current().nextInt(to - from)], depth);
+                int lt = from;
+                int gt = to - 1;
+                int i = from;
+                while (i <= gt) {
+                    int c = charAt(a[i], depth);
+                    if (c < pivot) swap(a, lt++, i++);
+                    else if (c > pivot) swap(a, i, gt--);
+                    else i++;
+                }
+                sort(a, from, lt, depth);
+                sort(a, gt + 1, to, depth);
+                if (pivot == 0) return; // 相等段都已到达标题末尾
+                from = lt;
+                to = gt + 1;
+                depth++;
+            }
+        }
+
+        private void insertionSort(int[] a, int from, int to, int depth) {
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && compareSuffix(a[j], a[j - 1], depth) < 0; j--) {
+                    swap(a, j, j - 1);
+                }
+            }
+        }
+
+        private int compareSuffix(int x, int y, int depth) {
+            for (int d = depth; d < MAX_DEPTH; d++) {
+                int a = charAt(x, d);
+                int b = charAt(y, d);
+                if (a != b) return a - b;
+                if (a == 0) return 0;
+            }
+            return 0;
+        }
+
+        private static void swap(int[] a, int i, int j) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /**
+     * 按时间降序保留前 N 个不同标题；有序表中的标题以标题号去重，其余以标题文本去重
+     */
+    private static final class TopTitles {
+        private final int limit;
+        private final int[] ids;
+        private final String[] texts;
+        private final long[] times;
+        private int size;
+
+        TopTitles(int limit) {
+            this.limit = limit;
+            this.ids = new int[limit];
+            this.texts = new String[limit];
+            this.times = new long[limit];
+        }
+
+        long threshold() {
+            return size < limit ? Long.MIN_VALUE : times[size - 1];
+        }
+
+        void offer(int id, String text, long time) {
+            if (size == limit && time <= times[size - 1]) return;
+            for (int i = 0; i < size; i++) {
+                if (id >= 0 ? ids[i] == id : text.equals(texts[i])) return;
+            }
+            int i = size < limit ? size++ : size - 1;
+            while (i > 0 && times[i - 1] < time) {
+                ids[i] = ids[i - 1];
+                texts[i] = texts[i - 1];
+                times[i] = times[i - 1];
+                i--;
+            }
+            ids[i] = id;
+            texts[i] = text;
+            times[i] = time;
+        }
+
+        List<String> titles(Segment segment) {
+            List<String> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(texts[i] != null ? texts[i] : segment.title(ids[i]));
+            }
+            return result;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package org.example.oepg.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 import org.example.oepg.entity.ExamRecord;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -25,4 +28,139 @@ public interface ExamRecordRepository extends BaseMapper<ExamRecord> {
                            @Param("submitTime") LocalDateTime submitTime,
                            @Param("score") Integer score,
                            @Param("status") String status);
+
+    /**
+     * 查询仍在进行中的记录已保存的答案
+     */
+    @Select("<script>" +
+            "SELECT id, answers FROM exam_records WHERE status = 'ONGOING' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<ExamRecord> findOngoingAnswers(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量更新进行中记录的答案（单条 UPDATE ... CASE，调用方负责分批）；已提交的记录不受影响
+     * 版本号递增，使读取了旧答题卡的交卷条件更新失败
+     */
+    @Update("<script>" +
+            "UPDATE exam_records SET answers = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.answers} </foreach>" +
+            "END, version = version + 1 WHERE status = 'ONGOING' AND id IN " +
+            "<foreach collection='list' item='item' open='(' separator=',' close=')'>#{item.id}</foreach>" +
+            "</script>")
+    int updateOngoingAnswersBatch(@Param("list") List<ExamRecord> list);
+
+    /**
+     * 提交答题卡：只有仍处于进行中且版本未变化的记录会被更新，分数置空等待异步批改
+     */
+    @Update("UPDATE exam_records SET answers = #{answers}, submit_time = #{submitTime}, status = 'SUBMITTED', score = NULL, " +
+            "version = version + 1 WHERE id = #{recordId} AND status = 'ONGOING' AND version = #{version}")
+    int markSubmitted(@Param("recordId") Long recordId,
+                      @Param("version") Integer version,
+                      @Param("answers") String answers,
+                      @Param("submitTime") LocalDateTime submitTime);
+
+    /**
+     * 已提交但尚未批改（score 为空）的记录ID，按提交时间排序
+     */
+    @Select("SELECT id FROM exam_records WHERE status = 'SUBMITTED' AND score IS NULL ORDER BY submit_time ASC LIMIT #{limit}")
+    List<Long> findUngradedIds(@Param("limit") int limit);
+
+    /**
+     * 批量查询待批改记录的试卷和答题卡
+     */
+    @Select("<script>" +
+            "SELECT id, paper_id, answers FROM exam_records WHERE status = 'SUBMITTED' AND score IS NULL AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<ExamRecord> findUngradedByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量写入批改结果（分数与状态各一个 CASE，调用方负责分批）；已批改的记录不会被覆盖
+     */
+    @Update("<script>" +
+            "UPDATE exam_records SET score = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.score} </foreach>" +
+            "END, status = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.status} </foreach>" +
+            "END WHERE status = 'SUBMITTED' AND score IS NULL AND id IN " +
+            "<foreach collection='list' item='item' open='(' separator=',' close=')'>#{item.id}</foreach>" +
+            "</script>")
+    int updateGradingResultBatch(@Param("list") List<ExamRecord> list);
+
+    /**
+     * 试卷下已批改（含待人工批阅和超时自动交卷）的记录数
+     */
+    @Select("SELECT COUNT(*) FROM exam_records WHERE paper_id = #{paperId} AND status IN ('SUBMITTED', 'GRADED', 'TIMEOUT') AND score IS NOT NULL")
+    long countGradedByPaper(@Param("paperId") Long paperId);
+
+    /**
+     * 以游标逐行读取试卷下已批改的记录，调用方需在事务内遍历并关闭游标
+     * MySQL 需在连接串中开启 useCursorFetch=true，fetchSize 才会按批从服务端读取
+     */
+    @Select("SELECT id, paper_id, score, answers FROM exam_records " +
+            "WHERE paper_id = #{paperId} AND status IN ('SUBMITTED', 'GRADED', 'TIMEOUT') AND score IS NOT NULL")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<ExamRecord> streamGradedByPaper(@Param("paperId") Long paperId);
+
+    /**
+     * 批量更新分数（单条 UPDATE ... CASE，调用方负责分批）
+     */
+    @Update("<script>" +
+            "UPDATE exam_records SET score = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.score} </foreach>" +
+            "END WHERE score IS NOT NULL AND id IN " +
+            "<foreach collection='list' item='item' open='(' separator=',' close=')'>#{item.id}</foreach>" +
+            "</script>")
+    int updateScoresBatch(@Param("list") List<ExamRecord> list);
+
+    /**
+     * 全部进行中记录的开始时间，启动时用于恢复作答截止时间
+     */
+    @Select("SELECT id, exam_id, start_time FROM exam_records WHERE status = 'ONGOING'")
+    List<ExamRecord> findOngoing();
+
+    /**
+     * 交卷时读取进行中记录已保存的答案和版本号，与随后的条件更新构成读-改-写
+     * 加行锁读取最新提交的数据，事务结束前自动保存写回会等待，不会再改动这条记录
+     */
+    @Select("SELECT id, exam_id, student_id, answers, version FROM exam_records WHERE id = #{id} AND status = 'ONGOING' FOR UPDATE")
+    ExamRecord findOngoingSheet(@Param("id") Long id);
+
+    /**
+     * 考试下全部进行中记录的ID，强制交卷时用于提前截止时间
+     */
+    @Select("SELECT id FROM exam_records WHERE exam_id = #{examId} AND status = 'ONGOING'")
+    List<Long> findOngoingIdsByExam(@Param("examId") Long examId);
+
+    /**
+     * 批量查询进行中记录的开始时间、试卷、已保存的答案和版本号
+     */
+    @Select("<script>" +
+            "SELECT id, exam_id, paper_id, start_time, answers, version FROM exam_records WHERE status = 'ONGOING' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<ExamRecord> findOngoingByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量超时交卷：写入答题卡、批改分数和截止时间，状态置为 TIMEOUT（调用方负责分批）；
+     * 只更新版本号与读取时一致的进行中记录，已提交或读取后被自动保存写回改动过的记录不受影响
+     */
+    @Update("<script>" +
+            "UPDATE exam_records SET answers = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.answers} </foreach>" +
+            "END, score = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.score} </foreach>" +
+            "END, submit_time = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.submitTime} </foreach>" +
+            "END, status = 'TIMEOUT', version = version + 1 WHERE status = 'ONGOING' AND (" +
+            "<foreach collection='list' item='item' separator=' OR '>(id = #{item.id} AND version = #{item.version})</foreach>" +
+            ")</script>")
+    int finalizeTimeoutBatch(@Param("list") List<ExamRecord> list);
+
+    /**
+     * 学生已完成（已提交、已批改或超时交卷）的考试ID
+     */
+    @Select("SELECT DISTINCT exam_id FROM exam_records WHERE student_id = #{studentId} AND status IN ('SUBMITTED', 'GRADED', 'TIMEOUT')")
+    List<Long> findFinishedExamIds(@Param("studentId") Long studentId);
 }
@@ -2,9 +2,11 @@ package org.example.oepg.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.example.oepg.entity.Exam;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -42,4 +44,19 @@ public interface ExamRepository extends BaseMapper<Exam> {
      */
     @Select("SELECT * FROM exams WHERE status = 'PUBLISHED' AND start_time > NOW() ORDER BY start_time ASC")
     List<Exam> findUpcomingExams();
+
+    /**
+     * 获取开始时间落在指定区间内的已发布考试
+     */
+    @Select("SELECT * FROM exams WHERE status IN ('PUBLISHED', 'ONGOING') AND start_time >= #{from} AND start_time <= #{to} ORDER BY start_time ASC")
+    List<Exam> findStartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 学生可参加的考试：进行中或即将开始，且有已发布的试卷
+     */
+    @Select("SELECT e.* FROM exams e " +
+            "WHERE ((e.status = 'ONGOING' AND e.start_time <= NOW() AND e.end_time >= NOW()) " +
+            "OR (e.status = 'PUBLISHED' AND e.start_time > NOW())) " +
+            "AND EXISTS (SELECT 1 FROM exam_papers p WHERE p.exam_id = e.id AND p.status = 'PUBLISHED')")
+    List<Exam> findOpenWithPublishedPaper();
 }
@@ -1,7 +1,9 @@
 package org.example.oepg.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.example.oepg.entity.PaperQuestion;
 
@@ -30,4 +32,15 @@ public interface PaperQuestionRepository extends BaseMapper<PaperQuestion> {
      */
     @Select("DELETE FROM paper_questions WHERE paper_id = #{paperId}")
     void deleteByPaperId(Long paperId);
+
+    /**
+     * 批量插入试卷题目（多行 INSERT，调用方负责分批）
+     */
+    @Insert("<script>" +
+            "INSERT INTO paper_questions (paper_id, question_id, score, sort_order, created_at) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.paperId}, #{item.questionId}, #{item.score}, #{item.sortOrder}, NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<PaperQuestion> list);
 }
@@ -8,6 +8,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -47,17 +48,18 @@ public interface QuestionRepository extends BaseMapper<Question> {
     List<Question> findByCreatedById(@Param("createdById") Long createdById);
     
     /**
-     * 随机获取题目
+     * 随机获取题目，categoryIds 为空表示不限分类
      */
     @Select("<script>" +
             "SELECT * FROM questions WHERE 1=1 " +
-            "<if test='categoryId != null'> AND category_id = #{categoryId} </if>" +
+            "<if test='categoryIds != null and categoryIds.size() > 0'> AND category_id IN " +
+            "<foreach collection='categoryIds' item='cid' open='(' separator=',' close=')'>#{cid}</foreach> </if>" +
             "<if test='type != null'> AND type = #{type} </if>" +
             "<if test='difficulty != null'> AND difficulty = #{difficulty} </if>" +
             "ORDER BY RAND() LIMIT #{count}" +
             "</script>")
     List<Question> findRandomQuestions(@Param("count") int count,
-                                     @Param("categoryId") Long categoryId,
+                                     @Param("categoryIds") Collection<Long> categoryIds,
                                      @Param("type") Question.QuestionType type,
                                      @Param("difficulty") Integer difficulty);
     
@@ -97,14 +99,20 @@ public interface QuestionRepository extends BaseMapper<Question> {
     /**
      * 根据难度分布获取题目
      */
-    @Select("(" +
-            "SELECT * FROM questions WHERE category_id = #{categoryId} AND difficulty = 1 ORDER BY RAND() LIMIT #{easy}" +
+    @Select("<script>(" +
+            "SELECT * FROM questions WHERE category_id IN " +
+            "<foreach collection='categoryIds' item='cid' open='(' separator=',' close=')'>#{cid}</foreach>" +
+            " AND difficulty = 1 ORDER BY RAND() LIMIT #{easy}" +
             ") UNION ALL (" +
-            "SELECT * FROM questions WHERE category_id = #{categoryId} AND difficulty = 2 ORDER BY RAND() LIMIT #{medium}" +
+            "SELECT * FROM questions WHERE category_id IN " +
+            "<foreach collection='categoryIds' item='cid' open='(' separator=',' close=')'>#{cid}</foreach>" +
+            " AND difficulty = 2 ORDER BY RAND() LIMIT #{medium}" +
             ") UNION ALL (" +
-            "SELECT * FROM questions WHERE category_id = #{categoryId} AND difficulty = 3 ORDER BY RAND() LIMIT #{hard}" +
-            ")")
-    List<Question> findQuestionsByDifficultyDistribution(@Param("categoryId") Long categoryId,
+            "SELECT * FROM questions WHERE category_id IN " +
+            "<foreach collection='categoryIds' item='cid' open='(' separator=',' close=')'>#{cid}</foreach>" +
+            " AND difficulty = 3 ORDER BY RAND() LIMIT #{hard}" +
+            ")</script>")
+    List<Question> findQuestionsByDifficultyDistribution(@Param("categoryIds") Collection<Long> categoryIds,
                                                         @Param("easy") int easy,
                                                         @Param("medium") int medium,
                                                         @Param("hard") int hard);
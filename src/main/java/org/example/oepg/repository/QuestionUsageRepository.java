@@ -0,0 +1,28 @@
+package org.example.oepg.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.example.oepg.entity.QuestionUsage;
+
+import java.util.List;
+
+/**
+ * 题目曝光次数数据访问层
+ */
+@Mapper
+public interface QuestionUsageRepository extends BaseMapper<QuestionUsage> {
+
+    /**
+     * 批量累加曝光次数，usageCount 为增量（多行 INSERT，调用方负责分批）
+     */
+    @Insert("<script>" +
+            "INSERT INTO question_usage (question_id, usage_count, updated_at) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.questionId}, #{item.usageCount}, NOW())" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE usage_count = usage_count + VALUES(usage_count), updated_at = NOW()" +
+            "</script>")
+    int upsertIncrements(@Param("list") List<QuestionUsage> list);
+}
@@ -2,6 +2,7 @@ package org.example.oepg.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import org.example.oepg.dto.req.ExamPaperRequest;
+import org.example.oepg.dto.req.PaperAssemblyRequest;
 import org.example.oepg.dto.res.ExamPaperResponse;
 import org.example.oepg.entity.ExamPaper;
 
@@ -22,6 +23,16 @@ public interface ExamPaperService {
      */
     ExamPaperResponse generatePaperByRules(ExamPaperRequest request);
 
+    /**
+     * 多版本组卷：一次生成多份等价试卷，版本之间的重复题目受最大重叠度约束
+     */
+    List<ExamPaperResponse> generatePaperVariants(ExamPaperRequest request);
+
+    /**
+     * 约束组卷：按总分、难度、题型比例、分类覆盖等全局约束搜索最优试卷
+     */
+    ExamPaperResponse assemblePaper(PaperAssemblyRequest request);
+
     /**
      * 更新试卷
      */
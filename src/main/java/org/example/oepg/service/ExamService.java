@@ -57,6 +57,11 @@ public interface ExamService {
      */
     ExamResponse archiveExam(Long id);
 
+    /**
+     * 强制交卷：考试结束时间提前到 graceSeconds 秒后，推送给在线学生，到时未交卷的记录自动交卷
+     */
+    ExamResponse forceSubmit(Long id, Integer graceSeconds);
+
     /**
      * 获取正在进行的考试
      */
@@ -0,0 +1,32 @@
+package org.example.oepg.service;
+
+import org.example.oepg.dto.req.ExamPaperRequest;
+import org.example.oepg.dto.req.PaperAssemblyRequest;
+import org.example.oepg.dto.res.PaperJobResponse;
+
+/**
+ * 异步组卷任务服务接口
+ * 组卷请求提交后立即返回任务ID，由后台有界线程池执行，客户端轮询任务状态获取结果
+ */
+public interface PaperGenerationJobService {
+
+    /**
+     * 提交智能组卷任务
+     */
+    PaperJobResponse submitGenerate(ExamPaperRequest request);
+
+    /**
+     * 提交多版本组卷任务
+     */
+    PaperJobResponse submitVariants(ExamPaperRequest request);
+
+    /**
+     * 提交约束组卷任务
+     */
+    PaperJobResponse submitAssemble(PaperAssemblyRequest request);
+
+    /**
+     * 查询任务状态，只能查询本人提交的任务
+     */
+    PaperJobResponse getJob(String jobId);
+}
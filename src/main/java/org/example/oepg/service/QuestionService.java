@@ -59,9 +59,10 @@ public interface QuestionService {
     QuestionResponse copyQuestion(Long id);
     
     /**
-     * 随机获取题目（用于组卷）
+     * 随机获取题目（用于组卷），includeDescendants 为 true 时包含子分类的题目
      */
-    List<QuestionResponse> getRandomQuestions(int count, Long categoryId, Question.QuestionType type, Integer difficulty);
+    List<QuestionResponse> getRandomQuestions(int count, Long categoryId, boolean includeDescendants,
+                                              Question.QuestionType type, Integer difficulty);
     
     /**
      * 批量更新题目状态
@@ -79,9 +80,10 @@ public interface QuestionService {
     Object getQuestionStatistics();
     
     /**
-     * 根据难度分布获取题目
+     * 根据难度分布获取题目，includeDescendants 为 true 时包含子分类的题目
      */
-    List<QuestionResponse> getQuestionsByDifficultyDistribution(Long categoryId, int easy, int medium, int hard);
+    List<QuestionResponse> getQuestionsByDifficultyDistribution(Long categoryId, boolean includeDescendants,
+                                                                int easy, int medium, int hard);
     
     /**
      * 获取搜索建议
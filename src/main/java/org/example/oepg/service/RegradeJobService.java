@@ -0,0 +1,25 @@
+package org.example.oepg.service;
+
+import org.example.oepg.dto.res.RegradeJobResponse;
+
+/**
+ * 重新批改任务服务接口
+ * 标准答案或题目分值修正后，对已批改的考试记录重新计算客观题得分，任务在后台执行，客户端轮询进度
+ */
+public interface RegradeJobService {
+
+    /**
+     * 提交单份试卷的重新批改任务
+     */
+    RegradeJobResponse submitForPaper(Long paperId);
+
+    /**
+     * 提交考试下全部试卷的重新批改任务
+     */
+    RegradeJobResponse submitForExam(Long examId);
+
+    /**
+     * 查询任务进度和分数变化汇总，只能查询本人提交的任务
+     */
+    RegradeJobResponse getJob(String jobId);
+}
@@ -1,9 +1,14 @@
 package org.example.oepg.service;
 
+import org.example.oepg.dto.req.AutosaveRequest;
 import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.dto.res.AutosaveResponse;
+import org.example.oepg.dto.res.HeartbeatResponse;
 import org.example.oepg.dto.res.RecordResponse;
 import org.example.oepg.dto.res.StartExamResponse;
 import org.example.oepg.dto.res.SubmitAnswerResponse;
+import org.example.oepg.engine.ExamEventEmitter;
+import org.example.oepg.util.ExamSession;
 
 import java.util.List;
 
@@ -11,10 +16,24 @@ public interface StudentExamService {
 
     List<StartExamResponse.AvailableExam> getAvailableExams(Long studentId);
 
-    StartExamResponse startExam(Long examId, Long studentId);
+    StartExamResponse startExam(Long examId, Long studentId, String username);
+
+    AutosaveResponse autosave(Long examId, Long studentId, AutosaveRequest request);
+
+    AutosaveResponse autosave(ExamSession session, AutosaveRequest request);
+
+    HeartbeatResponse heartbeat(Long examId, Long studentId);
+
+    HeartbeatResponse heartbeat(ExamSession session);
 
     SubmitAnswerResponse submitExam(Long examId, Long studentId, SubmitAnswerRequest request);
 
+    SubmitAnswerResponse submitExam(ExamSession session, SubmitAnswerRequest request);
+
+    ExamEventEmitter subscribeEvents(Long examId, Long studentId);
+
+    SubmitAnswerResponse getGradingStatus(Long recordId, Long studentId);
+
     List<RecordResponse> getMyRecords(Long studentId);
 
     RecordResponse getRecordDetail(Long recordId, Long studentId);
@@ -3,31 +3,49 @@ package org.example.oepg.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.cache.OpenExamCache;
+import org.example.oepg.cache.PaperSnapshotCache;
 import org.example.oepg.dto.req.ExamPaperRequest;
+import org.example.oepg.dto.req.PaperAssemblyRequest;
 import org.example.oepg.dto.res.ExamPaperResponse;
+import org.example.oepg.engine.PaperAssemblyEngine;
 import org.example.oepg.entity.ExamPaper;
 import org.example.oepg.entity.PaperQuestion;
 import org.example.oepg.entity.Question;
 import org.example.oepg.exception.BusinessException;
+import org.example.oepg.index.CategoryTreeCache;
+import org.example.oepg.index.QuestionExposureTracker;
+import org.example.oepg.index.QuestionPoolIndex;
+import org.example.oepg.index.QuestionSimilarityIndex;
 import org.example.oepg.repository.ExamPaperRepository;
 import org.example.oepg.repository.PaperQuestionRepository;
 import org.example.oepg.repository.QuestionRepository;
 import org.example.oepg.service.ExamPaperService;
+import org.example.oepg.util.TransactionUtil;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 试卷服务实现类
  */
 @Service
 @Transactional
+@Slf4j
 public class ExamPaperServiceImpl implements ExamPaperService {
 
+    private static final int DEDUP_MAX_ROUNDS = 8; // 近似重复被拒绝后的最大补抽轮数
+
     @Autowired
     private ExamPaperRepository examPaperRepository;
 
@@ -37,6 +55,48 @@ public class ExamPaperServiceImpl implements ExamPaperService {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private QuestionPoolIndex questionPoolIndex;
+
+    @Autowired
+    private QuestionSimilarityIndex questionSimilarityIndex;
+
+    @Autowired
+    private QuestionExposureTracker questionExposureTracker;
+
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Autowired
+    private OpenExamCache openExamCache;
+
+    @Autowired
+    private PaperAssemblyEngine paperAssemblyEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${oepg.persistence.batch-size:500}")
+    private int batchInsertSize;
+
+    @Value("${oepg.variants.max-count:8}")
+    private int maxVariantCount;
+
+    @Value("${oepg.variants.default-max-overlap:0.3}")
+    private double defaultMaxOverlapRatio;
+
+    @Value("${oepg.assembly.max-candidates:5000}")
+    private int assemblyMaxCandidates;
+
+    @Value("${oepg.assembly.default-time-budget-ms:2000}")
+    private long assemblyDefaultTimeBudgetMillis;
+
+    @Value("${oepg.assembly.max-time-budget-ms:10000}")
+    private long assemblyMaxTimeBudgetMillis;
+
     @Override
     public ExamPaperResponse createExamPaper(ExamPaperRequest request) {
         ExamPaper examPaper = ExamPaper.builder()
@@ -54,7 +114,29 @@ public class ExamPaperServiceImpl implements ExamPaperService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ExamPaperResponse generatePaperByRules(ExamPaperRequest request) {
+        // 智能组卷逻辑：抽题在内存索引中完成，不占用数据库连接
+        List<PaperQuestion> paperQuestions = new ArrayList<>();
+        int sortOrder = 1;
+        Set<Long> selectedIds = new HashSet<>();
+        QuestionSimilarityIndex.DuplicateGuard guard = questionSimilarityIndex.newGuard();
+
+        for (ExamPaperRequest.QuestionSelectionRule rule : request.getQuestionRules()) {
+            List<Long> questionIds = selectDistinctQuestionIds(rule, rule.getCount(), selectedIds, guard, request.getSelectionMode());
+            
+            for (Long questionId : questionIds) {
+                selectedIds.add(questionId);
+                PaperQuestion paperQuestion = PaperQuestion.builder()
+                        .questionId(questionId)
+                        .score(rule.getScorePerQuestion())
+                        .sortOrder(sortOrder++)
+                        .build();
+                
+                paperQuestions.add(paperQuestion);
+            }
+        }
+
         // 创建试卷
         ExamPaper examPaper = ExamPaper.builder()
                 .title(request.getTitle())
@@ -63,35 +145,119 @@ public class ExamPaperServiceImpl implements ExamPaperService {
                 .status(ExamPaper.PaperStatus.DRAFT)
                 .createdById(getCurrentUserId())
                 .build();
+        transactionTemplate.executeWithoutResult(status -> persistPaper(examPaper, paperQuestions));
 
-        examPaperRepository.insert(examPaper);
+        return convertToResponse(examPaper);
+    }
 
-        // 智能组卷逻辑
-        List<PaperQuestion> paperQuestions = new ArrayList<>();
-        int totalScore = 0;
-        int sortOrder = 1;
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ExamPaperResponse> generatePaperVariants(ExamPaperRequest request) {
+        int variantCount = request.getVariantCount() != null ? request.getVariantCount() : 2;
+        if (variantCount < 2 || variantCount > maxVariantCount) {
+            throw new BusinessException("INVALID_VARIANT_COUNT", "试卷版本数量必须在 2 到 " + maxVariantCount + " 之间");
+        }
+        double maxOverlapRatio = request.getMaxOverlapRatio() != null ? request.getMaxOverlapRatio() : defaultMaxOverlapRatio;
+        List<ExamPaperRequest.QuestionSelectionRule> rules = request.getQuestionRules();
+        if (rules == null || rules.isEmpty()) {
+            throw new BusinessException("INVALID_RULES", "组卷规则不能为空");
+        }
 
-        for (ExamPaperRequest.QuestionSelectionRule rule : request.getQuestionRules()) {
-            List<Question> selectedQuestions = selectQuestionsByRule(rule);
-            
-            for (Question question : selectedQuestions) {
-                PaperQuestion paperQuestion = PaperQuestion.builder()
-                        .paperId(examPaper.getId())
-                        .questionId(question.getId())
-                        .score(rule.getScorePerQuestion())
-                        .sortOrder(sortOrder++)
+        // 共享候选快照：每条规则只抽取一次，数量为 题数 × 版本数，题库充足时各版本可完全不重复
+        List<List<Long>> snapshots = new ArrayList<>(rules.size());
+        Set<Long> taken = new HashSet<>();
+        QuestionSimilarityIndex.DuplicateGuard guard = questionSimilarityIndex.newGuard();
+        for (ExamPaperRequest.QuestionSelectionRule rule : rules) {
+            List<Long> ids = selectDistinctQuestionIds(rule, rule.getCount() * variantCount, taken, guard, request.getSelectionMode());
+            taken.addAll(ids);
+            snapshots.add(ids);
+        }
+
+        // 各版本在快照上并行生成
+        List<List<PaperQuestion>> variants = IntStream.range(0, variantCount).parallel()
+                .mapToObj(v -> buildVariant(rules, snapshots, v, variantCount))
+                .collect(Collectors.toList());
+        checkVariantOverlap(variants, maxOverlapRatio);
+
+        // 同一事务内写入全部版本，题目统一批量插入
+        Long currentUserId = getCurrentUserId();
+        List<ExamPaper> papers = new ArrayList<>(variantCount);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<PaperQuestion> allQuestions = new ArrayList<>();
+            for (int v = 0; v < variantCount; v++) {
+                List<PaperQuestion> questions = variants.get(v);
+                ExamPaper examPaper = ExamPaper.builder()
+                        .title(request.getTitle() + " - " + (char) ('A' + v) + "卷")
+                        .examId(request.getExamId())
+                        .duration(request.getDuration())
+                        .status(ExamPaper.PaperStatus.DRAFT)
+                        .totalQuestions(questions.size())
+                        .totalScore(questions.stream().mapToInt(PaperQuestion::getScore).sum())
+                        .createdById(currentUserId)
                         .build();
-                
-                paperQuestionRepository.insert(paperQuestion);
-                paperQuestions.add(paperQuestion);
-                totalScore += rule.getScorePerQuestion();
+                examPaperRepository.insert(examPaper);
+                questions.forEach(pq -> pq.setPaperId(examPaper.getId()));
+                papers.add(examPaper);
+                allQuestions.addAll(questions);
             }
+            insertPaperQuestions(allQuestions);
+        });
+
+        return papers.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ExamPaperResponse assemblePaper(PaperAssemblyRequest request) {
+        // 候选题目只加载一次，搜索过程全部在内存中完成
+        List<Question> candidates = loadAssemblyCandidates(request.getCategoryIds());
+        // 候选集中近似重复的题目只保留一道，搜索结果自然不会同时包含两者
+        QuestionSimilarityIndex.DuplicateGuard guard = questionSimilarityIndex.newGuard();
+        candidates.removeIf(question -> !guard.tryAccept(question.getId()));
+        if (candidates.isEmpty()) {
+            throw new BusinessException("NO_CANDIDATE_QUESTIONS", "没有满足条件的候选题目");
         }
 
-        // 更新试卷统计信息
-        examPaper.setTotalQuestions(paperQuestions.size());
-        examPaper.setTotalScore(totalScore);
-        examPaperRepository.updateById(examPaper);
+        PaperAssemblyEngine.Constraints constraints = PaperAssemblyEngine.Constraints.builder()
+                .questionCount(request.getQuestionCount())
+                .targetScore(request.getTargetScore())
+                .targetDifficulty(request.getTargetDifficulty())
+                .coverCategoryIds(request.isCoverAllCategories() ? request.getCategoryIds() : null)
+                .maxTypeRatios(request.getMaxTypeRatios())
+                .minTypeCounts(request.getMinTypeCounts())
+                .build();
+        long timeBudget = request.getTimeBudgetMillis() != null ? request.getTimeBudgetMillis() : assemblyDefaultTimeBudgetMillis;
+        // 搜索期间占用评分线程池，服务端再截断一次，不依赖入口的参数校验
+        timeBudget = Math.min(assemblyMaxTimeBudgetMillis, Math.max(1, timeBudget));
+        PaperAssemblyEngine.Result result = paperAssemblyEngine.assemble(candidates, constraints, timeBudget);
+        log.info("约束组卷: 候选题数={}, 代数={}, 惩罚值={}, 耗时={}ms",
+                candidates.size(), result.getGenerations(), result.getPenalty(), result.getElapsedMillis());
+
+        Map<Long, Question> candidateMap = candidates.stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+
+        List<PaperQuestion> paperQuestions = new ArrayList<>(result.getQuestionIds().size());
+        int sortOrder = 1;
+        for (Long questionId : result.getQuestionIds()) {
+            Question question = candidateMap.get(questionId);
+            PaperQuestion paperQuestion = PaperQuestion.builder()
+                    .questionId(questionId)
+                    .score(question.getScore() != null ? question.getScore() : 0)
+                    .sortOrder(sortOrder++)
+                    .build();
+            paperQuestions.add(paperQuestion);
+        }
+
+        ExamPaper examPaper = ExamPaper.builder()
+                .title(request.getTitle())
+                .examId(request.getExamId())
+                .duration(request.getDuration())
+                .status(ExamPaper.PaperStatus.DRAFT)
+                .createdById(getCurrentUserId())
+                .build();
+        transactionTemplate.executeWithoutResult(status -> persistPaper(examPaper, paperQuestions));
 
         return convertToResponse(examPaper);
     }
@@ -114,6 +280,8 @@ public class ExamPaperServiceImpl implements ExamPaperService {
         examPaper.setStatus(request.getStatus());
 
         examPaperRepository.updateById(examPaper);
+        paperSnapshotCache.evictAfterCommit(id);
+        openExamCache.evictAfterCommit();
         return convertToResponse(examPaper);
     }
 
@@ -139,6 +307,7 @@ public class ExamPaperServiceImpl implements ExamPaperService {
         
         // 删除试卷
         examPaperRepository.deleteById(id);
+        paperSnapshotCache.evictAfterCommit(id);
     }
 
     @Override
@@ -218,6 +387,10 @@ public class ExamPaperServiceImpl implements ExamPaperService {
 
         examPaper.setStatus(ExamPaper.PaperStatus.PUBLISHED);
         examPaperRepository.updateById(examPaper);
+        recordExposureAfterCommit(questions);
+        // 发布后试卷内容不再变化，提交后直接写入快照，开考时无需再查库
+        paperSnapshotCache.putAfterCommit(paperSnapshotCache.build(id));
+        openExamCache.evictAfterCommit();
         return convertToResponse(examPaper);
     }
 
@@ -235,6 +408,8 @@ public class ExamPaperServiceImpl implements ExamPaperService {
 
         examPaper.setStatus(ExamPaper.PaperStatus.ARCHIVED);
         examPaperRepository.updateById(examPaper);
+        paperSnapshotCache.evictAfterCommit(id);
+        openExamCache.evictAfterCommit();
         return convertToResponse(examPaper);
     }
 
@@ -260,6 +435,7 @@ public class ExamPaperServiceImpl implements ExamPaperService {
 
         // 复制试卷题目
         List<PaperQuestion> originalQuestions = paperQuestionRepository.findByPaperId(id);
+        List<PaperQuestion> newQuestions = new ArrayList<>(originalQuestions.size());
         for (PaperQuestion originalQuestion : originalQuestions) {
             PaperQuestion newQuestion = PaperQuestion.builder()
                     .paperId(newPaper.getId())
@@ -267,8 +443,9 @@ public class ExamPaperServiceImpl implements ExamPaperService {
                     .score(originalQuestion.getScore())
                     .sortOrder(originalQuestion.getSortOrder())
                     .build();
-            paperQuestionRepository.insert(newQuestion);
+            newQuestions.add(newQuestion);
         }
+        insertPaperQuestions(newQuestions);
 
         return convertToResponse(newPaper);
     }
@@ -339,6 +516,7 @@ public class ExamPaperServiceImpl implements ExamPaperService {
 
         // 更新试卷统计信息
         updatePaperStatistics(paperId);
+        paperSnapshotCache.evictAfterCommit(paperId);
     }
 
     @Override
@@ -349,17 +527,54 @@ public class ExamPaperServiceImpl implements ExamPaperService {
 
         // 更新试卷统计信息
         updatePaperStatistics(paperId);
+        paperSnapshotCache.evictAfterCommit(paperId);
     }
 
     @Override
     public void batchAddQuestionsToPaper(Long paperId, List<Long> questionIds) {
+        // 检查试卷是否存在
+        ExamPaper paper = examPaperRepository.selectById(paperId);
+        if (paper == null) {
+            throw new BusinessException("EXAM_PAPER_NOT_FOUND", "试卷不存在");
+        }
+        if (questionIds == null || questionIds.isEmpty()) {
+            return;
+        }
+
+        // 一次查询题目分值，一次查询试卷已有题目，重复检查在内存中完成
+        QueryWrapper<Question> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "score").in("id", new HashSet<>(questionIds));
+        Map<Long, Question> questionMap = questionRepository.selectList(queryWrapper).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+
+        List<PaperQuestion> existing = paperQuestionRepository.findByPaperId(paperId);
+        Set<Long> paperQuestionIds = existing.stream()
+                .map(PaperQuestion::getQuestionId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        List<PaperQuestion> newQuestions = new ArrayList<>(questionIds.size());
         for (int i = 0; i < questionIds.size(); i++) {
-            Long questionId = questionIds.get(i);
-            Question question = questionRepository.selectById(questionId);
-            if (question != null) {
-                addQuestionToPaper(paperId, questionId, question.getScore(), i + 1);
+            Question question = questionMap.get(questionIds.get(i));
+            if (question == null) {
+                continue;
             }
+            if (!paperQuestionIds.add(question.getId())) {
+                throw new BusinessException("DUPLICATE_QUESTION", "题目已在试卷中");
+            }
+            newQuestions.add(PaperQuestion.builder()
+                    .paperId(paperId)
+                    .questionId(question.getId())
+                    .score(question.getScore())
+                    .sortOrder(i + 1)
+                    .build());
         }
+        insertPaperQuestions(newQuestions);
+
+        // 试卷统计信息只更新一次
+        List<PaperQuestion> allQuestions = new ArrayList<>(existing);
+        allQuestions.addAll(newQuestions);
+        applyPaperStatistics(paper, allQuestions);
+        paperSnapshotCache.evictAfterCommit(paperId);
     }
 
     @Override
@@ -375,6 +590,7 @@ public class ExamPaperServiceImpl implements ExamPaperService {
                 paperQuestionRepository.updateById(paperQuestion);
             }
         }
+        paperSnapshotCache.evictAfterCommit(paperId);
     }
 
     @Override
@@ -412,13 +628,29 @@ public class ExamPaperServiceImpl implements ExamPaperService {
     }
 
     /**
-     * 根据规则选择题目
+     * 根据规则随机抽取题目ID
+     * 优先从内存题目池索引中抽取（低曝光优先模式按曝光权重抽取），索引尚未加载完成时回退到数据库等概率随机查询
      */
-    private List<Question> selectQuestionsByRule(ExamPaperRequest.QuestionSelectionRule rule) {
+    private List<Long> selectQuestionIdsByRule(ExamPaperRequest.QuestionSelectionRule rule, int count, Set<Long> excludeIds,
+                                               ExamPaperRequest.SelectionMode mode) {
+        if (questionPoolIndex.isReady()) {
+            Question.QuestionType type = parseQuestionType(rule.getQuestionType());
+            if (rule.getQuestionType() != null && type == null) {
+                return Collections.emptyList();
+            }
+            Collection<Long> categoryIds = ruleCategoryIds(rule);
+            if (mode == ExamPaperRequest.SelectionMode.LOW_EXPOSURE) {
+                return questionPoolIndex.sampleWeighted(categoryIds, type, rule.getDifficulty(), count, excludeIds,
+                        questionExposureTracker::weight, questionExposureTracker.version());
+            }
+            return questionPoolIndex.sample(categoryIds, type, rule.getDifficulty(), count, excludeIds);
+        }
+
         QueryWrapper<Question> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id");
         
         if (rule.getCategoryId() != null) {
-            queryWrapper.eq("category_id", rule.getCategoryId());
+            queryWrapper.in("category_id", ruleCategoryIds(rule));
         }
         if (rule.getQuestionType() != null) {
             queryWrapper.eq("type", rule.getQuestionType());
@@ -427,25 +659,184 @@ public class ExamPaperServiceImpl implements ExamPaperService {
             queryWrapper.eq("difficulty", rule.getDifficulty());
         }
         
-        queryWrapper.last("ORDER BY RAND() LIMIT " + rule.getCount()); // 随机排序并限制数量
+        if (!excludeIds.isEmpty()) {
+            queryWrapper.notIn("id", excludeIds);
+        }
+        queryWrapper.last("ORDER BY RAND() LIMIT " + count); // 随机排序并限制数量
         
+        return questionRepository.selectList(queryWrapper).stream()
+                .map(Question::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 规则的分类范围：包含子分类时从分类子树缓存取后代闭包
+     */
+    private Collection<Long> ruleCategoryIds(ExamPaperRequest.QuestionSelectionRule rule) {
+        if (rule.getCategoryId() == null) {
+            return null;
+        }
+        return rule.isIncludeDescendants()
+                ? categoryTreeCache.descendantsOf(rule.getCategoryId())
+                : Collections.singleton(rule.getCategoryId());
+    }
+
+    /**
+     * 按规则抽题并排除与已选题目近似重复的题目：被拒绝的题目加入排除集合后补抽，直到数量满足或候选耗尽
+     */
+    private List<Long> selectDistinctQuestionIds(ExamPaperRequest.QuestionSelectionRule rule, int count,
+                                                 Set<Long> excludeIds, QuestionSimilarityIndex.DuplicateGuard guard,
+                                                 ExamPaperRequest.SelectionMode mode) {
+        List<Long> result = new ArrayList<>(count);
+        Set<Long> tried = new HashSet<>(excludeIds);
+        for (int round = 0; round < DEDUP_MAX_ROUNDS && result.size() < count; round++) {
+            int need = count - result.size();
+            List<Long> batch = selectQuestionIdsByRule(rule, need, tried, mode);
+            for (Long id : batch) {
+                tried.add(id);
+                if (guard.tryAccept(id)) {
+                    result.add(id);
+                }
+            }
+            if (batch.size() < need) break;
+        }
+        return result;
+    }
+
+    /**
+     * 生成第 v 个版本：每条规则在快照上取一段长度为题数的环形窗口，各版本窗口起点均匀错开，
+     * 使任意两个版本的重复题目尽可能少；规则内题目顺序按版本号打乱
+     */
+    private List<PaperQuestion> buildVariant(List<ExamPaperRequest.QuestionSelectionRule> rules,
+                                             List<List<Long>> snapshots, int variant, int variantCount) {
+        List<PaperQuestion> questions = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(variant);
+        int sortOrder = 1;
+        for (int r = 0; r < rules.size(); r++) {
+            List<Long> snapshot = snapshots.get(r);
+            int size = snapshot.size();
+            int count = Math.min(rules.get(r).getCount(), size);
+            int offset = (int) ((long) variant * size / variantCount);
+            long[] picked = new long[count];
+            for (int j = 0; j < count; j++) {
+                picked[j] = snapshot.get((offset + j) % size);
+            }
+            for (int j = count - 1; j > 0; j--) {
+                int k = random.nextInt(j + 1);
+                long tmp = picked[j];
+                picked[j] = picked[k];
+                picked[k] = tmp;
+            }
+            for (long questionId : picked) {
+                questions.add(PaperQuestion.builder()
+                        .questionId(questionId)
+                        .score(rules.get(r).getScorePerQuestion())
+                        .sortOrder(sortOrder++)
+                        .build());
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * 校验任意两个版本之间的题目重叠度
+     */
+    private void checkVariantOverlap(List<List<PaperQuestion>> variants, double maxOverlapRatio) {
+        List<Set<Long>> questionSets = variants.stream()
+                .map(v -> v.stream().map(PaperQuestion::getQuestionId).collect(Collectors.toSet()))
+                .collect(Collectors.toList());
+        for (int i = 0; i < questionSets.size(); i++) {
+            for (int j = i + 1; j < questionSets.size(); j++) {
+                Set<Long> a = questionSets.get(i);
+                Set<Long> b = questionSets.get(j);
+                int overlap = (int) a.stream().filter(b::contains).count();
+                int size = Math.max(1, Math.min(a.size(), b.size()));
+                if ((double) overlap / size > maxOverlapRatio) {
+                    throw new BusinessException("VARIANT_OVERLAP_EXCEEDED",
+                            "题库题目不足，无法满足版本间最大重叠度 " + maxOverlapRatio);
+                }
+            }
+        }
+    }
+
+    /**
+     * 加载约束组卷的候选题目（只查询组卷需要的列），数量超过上限时随机截取
+     */
+    private List<Question> loadAssemblyCandidates(List<Long> categoryIds) {
+        Collection<Long> scope = categoryIds == null || categoryIds.isEmpty() ? null : categoryIds;
+        QueryWrapper<Question> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "category_id", "type", "difficulty", "score");
+        if (questionPoolIndex.isReady()) {
+            List<Long> ids = questionPoolIndex.sample(scope, null, null, assemblyMaxCandidates, Collections.emptySet());
+            if (ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+            queryWrapper.in("id", ids);
+        } else {
+            if (scope != null) {
+                queryWrapper.in("category_id", scope);
+            }
+            queryWrapper.last("ORDER BY RAND() LIMIT " + assemblyMaxCandidates);
+        }
         return questionRepository.selectList(queryWrapper);
     }
 
+    private Question.QuestionType parseQuestionType(String questionType) {
+        if (questionType == null) {
+            return null;
+        }
+        try {
+            return Question.QuestionType.valueOf(questionType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * 更新试卷统计信息
      */
     private void updatePaperStatistics(Long paperId) {
         List<PaperQuestion> questions = paperQuestionRepository.findByPaperId(paperId);
-        int totalQuestions = questions.size();
-        int totalScore = questions.stream().mapToInt(PaperQuestion::getScore).sum();
-
         ExamPaper paper = examPaperRepository.selectById(paperId);
-        paper.setTotalQuestions(totalQuestions);
+        applyPaperStatistics(paper, questions);
+    }
+
+    private void applyPaperStatistics(ExamPaper paper, List<PaperQuestion> questions) {
+        int totalScore = questions.stream().mapToInt(pq -> pq.getScore() != null ? pq.getScore() : 0).sum();
+        paper.setTotalQuestions(questions.size());
         paper.setTotalScore(totalScore);
         examPaperRepository.updateById(paper);
     }
 
+    /**
+     * 事务提交后累加题目曝光次数，回滚时不计数
+     */
+    private void recordExposureAfterCommit(List<PaperQuestion> questions) {
+        List<Long> questionIds = questions.stream().map(PaperQuestion::getQuestionId).collect(Collectors.toList());
+        TransactionUtil.afterCommit(() -> questionExposureTracker.recordPublished(questionIds));
+    }
+
+    /**
+     * 写入新试卷及其题目：预先计算统计信息，试卷一次插入，题目批量插入
+     */
+    private void persistPaper(ExamPaper examPaper, List<PaperQuestion> paperQuestions) {
+        examPaper.setTotalQuestions(paperQuestions.size());
+        examPaper.setTotalScore(paperQuestions.stream().mapToInt(pq -> pq.getScore() != null ? pq.getScore() : 0).sum());
+        examPaperRepository.insert(examPaper);
+        paperQuestions.forEach(pq -> pq.setPaperId(examPaper.getId()));
+        insertPaperQuestions(paperQuestions);
+    }
+
+    /**
+     * 批量插入试卷题目，按配置的批大小拆分为多行 INSERT
+     */
+    private void insertPaperQuestions(List<PaperQuestion> paperQuestions) {
+        for (int from = 0; from < paperQuestions.size(); from += batchInsertSize) {
+            int to = Math.min(from + batchInsertSize, paperQuestions.size());
+            paperQuestionRepository.insertBatch(paperQuestions.subList(from, to));
+        }
+    }
+
     /**
      * 转换为响应DTO
      */
@@ -3,14 +3,18 @@ package org.example.oepg.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.example.oepg.cache.OpenExamCache;
 import org.example.oepg.dto.req.ExamRequest;
 import org.example.oepg.dto.res.ExamResponse;
+import org.example.oepg.engine.ExamDeadlineScheduler;
+import org.example.oepg.engine.ExamEventHub;
 import org.example.oepg.entity.Exam;
 import org.example.oepg.exception.BusinessException;
 import org.example.oepg.repository.ExamRepository;
 import org.example.oepg.service.ExamService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +34,18 @@ public class ExamServiceImpl implements ExamService {
     @Autowired
     private ExamRepository examRepository;
 
+    @Autowired
+    private OpenExamCache openExamCache;
+
+    @Autowired
+    private ExamDeadlineScheduler examDeadlineScheduler;
+
+    @Autowired
+    private ExamEventHub examEventHub;
+
+    @Value("${oepg.events.force-submit-grace-seconds:30}")
+    private int defaultGraceSeconds;
+
     @Override
     public ExamResponse createExam(ExamRequest request) {
         // 验证时间逻辑
@@ -80,6 +96,7 @@ public class ExamServiceImpl implements ExamService {
         exam.setStatus(request.getStatus());
 
         examRepository.updateById(exam);
+        openExamCache.evictAfterCommit();
         return convertToResponse(exam);
     }
 
@@ -181,6 +198,7 @@ public class ExamServiceImpl implements ExamService {
 
         exam.setStatus(Exam.ExamStatus.PUBLISHED);
         examRepository.updateById(exam);
+        openExamCache.evictAfterCommit();
         return convertToResponse(exam);
     }
 
@@ -198,6 +216,43 @@ public class ExamServiceImpl implements ExamService {
 
         exam.setStatus(Exam.ExamStatus.ARCHIVED);
         examRepository.updateById(exam);
+        openExamCache.evictAfterCommit();
+        return convertToResponse(exam);
+    }
+
+    @Override
+    public ExamResponse forceSubmit(Long id, Integer graceSeconds) {
+        Exam exam = examRepository.selectById(id);
+        if (exam == null) {
+            throw new BusinessException("EXAM_NOT_FOUND", "考试不存在");
+        }
+
+        // 验证权限
+        if (!exam.getCreatedById().equals(getCurrentUserId())) {
+            throw new BusinessException("PERMISSION_DENIED", "无权限结束此考试");
+        }
+
+        if (exam.getStatus() != Exam.ExamStatus.PUBLISHED && exam.getStatus() != Exam.ExamStatus.ONGOING) {
+            throw new BusinessException("INVALID_EXAM_STATUS", "只有已发布或进行中的考试可以强制交卷");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (exam.getStartTime() != null && now.isBefore(exam.getStartTime())) {
+            throw new BusinessException("EXAM_NOT_STARTED", "考试尚未开始");
+        }
+        int grace = graceSeconds != null ? graceSeconds : defaultGraceSeconds;
+        if (grace < 0) {
+            throw new BusinessException("INVALID_GRACE_SECONDS", "宽限时间不能为负数");
+        }
+
+        // 结束时间只提前不推后；截止时间由结束时间决定，超时交卷和新开始的考试都以此为准
+        LocalDateTime deadline = now.plusSeconds(grace);
+        if (exam.getEndTime() == null || exam.getEndTime().isAfter(deadline)) {
+            exam.setEndTime(deadline);
+            examRepository.updateById(exam);
+            openExamCache.evictAfterCommit();
+        }
+        examDeadlineScheduler.rescheduleExamAfterCommit(id, exam.getEndTime());
+        examEventHub.forceSubmitAfterCommit(id, exam.getEndTime());
         return convertToResponse(exam);
     }
 
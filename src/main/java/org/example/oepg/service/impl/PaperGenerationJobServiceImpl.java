@@ -0,0 +1,247 @@
+package org.example.oepg.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.oepg.dto.req.ExamPaperRequest;
+import org.example.oepg.dto.req.PaperAssemblyRequest;
+import org.example.oepg.dto.res.ExamPaperResponse;
+import org.example.oepg.dto.res.PaperJobResponse;
+import org.example.oepg.exception.BusinessException;
+import org.example.oepg.service.ExamPaperService;
+import org.example.oepg.service.PaperGenerationJobService;
+import org.example.oepg.util.SecurityUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 异步组卷任务服务实现
+ * 任务在固定大小的工作线程池中执行，等待队列有界，队列满或教师并发任务数超限时直接拒绝，
+ * 组卷过程中不占用 Tomcat 请求线程；组卷服务只在写入试卷时短暂开启事务
+ */
+@Service
+@Slf4j
+public class PaperGenerationJobServiceImpl implements PaperGenerationJobService {
+
+    @Autowired
+    private ExamPaperService examPaperService;
+
+    @Value("${oepg.jobs.workers:2}")
+    private int workers;
+
+    @Value("${oepg.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${oepg.jobs.per-teacher-limit:2}")
+    private int perTeacherLimit;
+
+    @Value("${oepg.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> activeJobsByOwner = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "paper-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public PaperJobResponse submitGenerate(ExamPaperRequest request) {
+        return submit(PaperJobResponse.JobType.GENERATE,
+                () -> Collections.singletonList(examPaperService.generatePaperByRules(request)));
+    }
+
+    @Override
+    public PaperJobResponse submitVariants(ExamPaperRequest request) {
+        return submit(PaperJobResponse.JobType.VARIANTS,
+                () -> examPaperService.generatePaperVariants(request));
+    }
+
+    @Override
+    public PaperJobResponse submitAssemble(PaperAssemblyRequest request) {
+        return submit(PaperJobResponse.JobType.ASSEMBLE,
+                () -> Collections.singletonList(examPaperService.assemblePaper(request)));
+    }
+
+    @Override
+    public PaperJobResponse getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.owner.equals(currentOwner())) {
+            throw new BusinessException("JOB_NOT_FOUND", "组卷任务不存在或已过期");
+        }
+        return toResponse(job);
+    }
+
+    /**
+     * 定期清理已结束且超过保留时间的任务
+     */
+    @Scheduled(fixedDelayString = "${oepg.jobs.purge-interval-ms:60000}")
+    public void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private PaperJobResponse submit(PaperJobResponse.JobType type, Supplier<List<ExamPaperResponse>> work) {
+        String owner = currentOwner();
+        AtomicInteger active = activeJobsByOwner.computeIfAbsent(owner, key -> new AtomicInteger());
+        if (active.incrementAndGet() > perTeacherLimit) {
+            active.decrementAndGet();
+            throw new BusinessException("JOB_LIMIT_EXCEEDED", "进行中的组卷任务过多，请等待已有任务完成");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), type, owner);
+        // 工作线程沿用提交者的安全上下文，保证创建者等信息与同步接口一致
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        JobTask task = new JobTask(job, () -> {
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                return work.get();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            active.decrementAndGet();
+            throw new BusinessException("JOB_QUEUE_FULL", "组卷任务队列已满，请稍后重试");
+        }
+        log.info("组卷任务已提交: jobId={}, type={}, owner={}", job.id, type, owner);
+        return toResponse(job);
+    }
+
+    private String currentOwner() {
+        String username = SecurityUtil.getCurrentUsername();
+        return username != null ? username : "anonymous";
+    }
+
+    /**
+     * 计算任务在等待队列中的位置，队列容量有限，直接遍历即可
+     */
+    private Integer queuePosition(Job job) {
+        if (job.status != PaperJobResponse.JobStatus.QUEUED) {
+            return null;
+        }
+        int position = 1;
+        for (Runnable queued : executor.getQueue()) {
+            if (queued instanceof JobTask && ((JobTask) queued).job == job) {
+                return position;
+            }
+            position++;
+        }
+        return null;
+    }
+
+    private PaperJobResponse toResponse(Job job) {
+        return PaperJobResponse.builder()
+                .jobId(job.id)
+                .type(job.type)
+                .status(job.status)
+                .queuePosition(queuePosition(job))
+                .submittedAt(job.submittedAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .errorCode(job.errorCode)
+                .errorMessage(job.errorMessage)
+                .papers(job.papers)
+                .build();
+    }
+
+    private void release(String owner) {
+        AtomicInteger active = activeJobsByOwner.get(owner);
+        if (active != null) {
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * 组卷任务状态，字段由工作线程写入、请求线程读取
+     */
+    private static class Job {
+        private final String id;
+        private final PaperJobResponse.JobType type;
+        private final String owner;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile PaperJobResponse.JobStatus status = PaperJobResponse.JobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorCode;
+        private volatile String errorMessage;
+        private volatile List<ExamPaperResponse> papers;
+
+        private Job(String id, PaperJobResponse.JobType type, String owner) {
+            this.id = id;
+            this.type = type;
+            this.owner = owner;
+        }
+    }
+
+    private class JobTask implements Runnable {
+        private final Job job;
+        private final Supplier<List<ExamPaperResponse>> work;
+
+        private JobTask(Job job, Supplier<List<ExamPaperResponse>> work) {
+            this.job = job;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            job.startedAt = LocalDateTime.now();
+            job.status = PaperJobResponse.JobStatus.RUNNING;
+            try {
+                job.papers = work.get();
+                job.status = PaperJobResponse.JobStatus.SUCCEEDED;
+            } catch (BusinessException e) {
+                job.errorCode = e.getCode();
+                job.errorMessage = e.getMessage();
+                job.status = PaperJobResponse.JobStatus.FAILED;
+            } catch (Exception e) {
+                log.error("组卷任务执行失败: jobId={}", job.id, e);
+                job.errorCode = "JOB_FAILED";
+                job.errorMessage = e.getMessage();
+                job.status = PaperJobResponse.JobStatus.FAILED;
+            } finally {
+                job.finishedAt = LocalDateTime.now();
+                release(job.owner);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.example.oepg.dto.res.CategoryResponse;
 import org.example.oepg.entity.QuestionCategory;
 import org.example.oepg.entity.User;
 import org.example.oepg.exception.BusinessException;
+import org.example.oepg.index.CategoryTreeCache;
 import org.example.oepg.repository.QuestionCategoryRepository;
 import org.example.oepg.repository.QuestionRepository;
 import org.example.oepg.repository.UserRepository;
@@ -39,6 +40,9 @@ public class QuestionCategoryServiceImpl implements QuestionCategoryService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
     @Override
     public CategoryResponse createCategory(CategoryRequest request) {
         log.info("=== 开始创建分类 ===");
@@ -83,6 +87,7 @@ public class QuestionCategoryServiceImpl implements QuestionCategoryService {
 
             log.info("准备插入分类: {}", category);
             categoryRepository.insert(category);
+            categoryTreeCache.rebuild();
             log.info("分类创建成功: id={}", category.getId());
             
             return CategoryResponse.fromEntity(category);
@@ -130,6 +135,7 @@ public class QuestionCategoryServiceImpl implements QuestionCategoryService {
 
             log.info("准备更新分类: {}", category);
             categoryRepository.updateById(category);
+            categoryTreeCache.rebuild();
             log.info("分类更新成功: id={}", category.getId());
             
             return CategoryResponse.fromEntity(category);
@@ -158,6 +164,7 @@ public class QuestionCategoryServiceImpl implements QuestionCategoryService {
 
             log.info("准备删除分类: id={}", id);
             categoryRepository.deleteById(id);
+            categoryTreeCache.rebuild();
             log.info("分类删除成功: id={}", id);
         } catch (Exception e) {
             log.error("删除分类失败: ", e);
@@ -2,6 +2,7 @@ package org.example.oepg.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.example.oepg.cache.PaperSnapshotCache;
 import org.example.oepg.dto.req.QuestionRequest;
 import org.example.oepg.dto.res.QuestionResponse;
 import org.example.oepg.dto.res.QuestionStatisticsResponse;
@@ -10,6 +11,11 @@ import org.example.oepg.dto.res.QuestionUsageHistoryResponse;
 import org.example.oepg.entity.Question;
 import org.example.oepg.entity.User;
 import org.example.oepg.exception.BusinessException;
+import org.example.oepg.index.CategoryTreeCache;
+import org.example.oepg.index.QuestionPoolIndex;
+import org.example.oepg.index.QuestionSimilarityIndex;
+import org.example.oepg.index.QuestionTextIndex;
+import org.example.oepg.index.TitleSuggestionIndex;
 import org.example.oepg.repository.QuestionRepository;
 import org.example.oepg.repository.UserRepository;
 import org.example.oepg.service.QuestionService;
@@ -18,9 +24,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +45,24 @@ public class QuestionServiceImpl implements QuestionService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private QuestionPoolIndex questionPoolIndex;
+
+    @Autowired
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Autowired
+    private QuestionSimilarityIndex questionSimilarityIndex;
+
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    private QuestionTextIndex questionTextIndex;
+
+    @Autowired
+    private TitleSuggestionIndex titleSuggestionIndex;
+
     @Override
     public QuestionResponse createQuestion(QuestionRequest request) {
         // 权限检查：只有教师和管理员可以创建题目
@@ -69,6 +97,10 @@ public class QuestionServiceImpl implements QuestionService {
                 .build();
 
         questionRepository.insert(question);
+        questionPoolIndex.put(question);
+        questionSimilarityIndex.put(question);
+        questionTextIndex.put(question);
+        titleSuggestionIndex.add(question.getId(), question.getTitle(), question.getUpdatedAt());
         return QuestionResponse.fromEntity(question);
     }
 
@@ -95,6 +127,7 @@ public class QuestionServiceImpl implements QuestionService {
             }
         }
 
+        String oldTitle = question.getTitle();
         question.setTitle(request.getTitle());
         question.setContent(request.getContent());
         question.setType(request.getType());
@@ -111,6 +144,11 @@ public class QuestionServiceImpl implements QuestionService {
         question.setUpdatedAt(LocalDateTime.now());
 
         questionRepository.updateById(question);
+        questionPoolIndex.put(question);
+        questionSimilarityIndex.put(question);
+        questionTextIndex.put(question);
+        titleSuggestionIndex.replace(id, oldTitle, question.getTitle(), question.getUpdatedAt());
+        paperSnapshotCache.evictByQuestionAfterCommit(id);
         return QuestionResponse.fromEntity(question);
     }
 
@@ -138,6 +176,11 @@ public class QuestionServiceImpl implements QuestionService {
         }
 
         questionRepository.deleteById(id);
+        questionPoolIndex.remove(id);
+        questionSimilarityIndex.remove(id);
+        questionTextIndex.remove(id);
+        titleSuggestionIndex.remove(id, question.getTitle());
+        paperSnapshotCache.evictByQuestionAfterCommit(id);
     }
 
     @Override
@@ -162,6 +205,20 @@ public class QuestionServiceImpl implements QuestionService {
             throw new BusinessException("PERMISSION_DENIED", "权限不足：只有教师和管理员可以查看题目");
         }
 
+        // 有关键词时走全文索引，只按ID回表读取当前页；索引不可用或关键词无法由索引检索时回退到 LIKE 查询
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            QuestionTextIndex.SearchResult result = questionTextIndex.search(keyword.trim(), categoryId, type, difficulty,
+                    (long) (Math.max(page, 1) - 1) * size, size);
+            if (result != null) {
+                IPage<QuestionResponse> responsePage = new Page<>(page, size);
+                responsePage.setTotal(result.getTotal());
+                responsePage.setRecords(selectInOrder(result.getQuestionIds()).stream()
+                        .map(QuestionResponse::fromEntity)
+                        .collect(Collectors.toList()));
+                return responsePage;
+            }
+        }
+
         Page<Question> pageParam = new Page<>(page, size);
         IPage<Question> questionPage = questionRepository.findQuestionsWithCategory(
                 pageParam, categoryId, type, difficulty, keyword);
@@ -271,17 +328,27 @@ public class QuestionServiceImpl implements QuestionService {
                 .build();
 
         questionRepository.insert(copiedQuestion);
+        questionPoolIndex.put(copiedQuestion);
+        questionSimilarityIndex.put(copiedQuestion);
+        questionTextIndex.put(copiedQuestion);
         return QuestionResponse.fromEntity(copiedQuestion);
     }
 
     @Override
-    public List<QuestionResponse> getRandomQuestions(int count, Long categoryId, Question.QuestionType type, Integer difficulty) {
+    public List<QuestionResponse> getRandomQuestions(int count, Long categoryId, boolean includeDescendants,
+                                                     Question.QuestionType type, Integer difficulty) {
         // 权限检查：教师和管理员可以获取随机题目
         if (!SecurityUtil.isTeacherOrAdmin()) {
             throw new BusinessException("PERMISSION_DENIED", "权限不足：只有教师和管理员可以获取随机题目");
         }
 
-        List<Question> questions = questionRepository.findRandomQuestions(count, categoryId, type, difficulty);
+        Set<Long> categoryIds = resolveCategoryIds(categoryId, includeDescendants);
+        List<Question> questions;
+        if (questionPoolIndex.isReady()) {
+            questions = selectInOrder(questionPoolIndex.sample(categoryIds, type, difficulty, count, Collections.emptySet()));
+        } else {
+            questions = questionRepository.findRandomQuestions(count, categoryIds, type, difficulty);
+        }
         return questions.stream()
                 .map(QuestionResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -345,6 +412,8 @@ public class QuestionServiceImpl implements QuestionService {
         }
 
         questionRepository.batchUpdateCategory(ids, categoryId);
+        questionPoolIndex.updateCategory(ids, categoryId);
+        questionTextIndex.updateCategory(ids, categoryId);
     }
 
     @Override
@@ -381,13 +450,24 @@ public class QuestionServiceImpl implements QuestionService {
     }
 
     @Override
-    public List<QuestionResponse> getQuestionsByDifficultyDistribution(Long categoryId, int easy, int medium, int hard) {
+    public List<QuestionResponse> getQuestionsByDifficultyDistribution(Long categoryId, boolean includeDescendants,
+                                                                       int easy, int medium, int hard) {
         // 权限检查：教师和管理员可以按难度分布获取题目
         if (!SecurityUtil.isTeacherOrAdmin()) {
             throw new BusinessException("PERMISSION_DENIED", "权限不足：只有教师和管理员可以按难度分布获取题目");
         }
 
-        List<Question> questions = questionRepository.findQuestionsByDifficultyDistribution(categoryId, easy, medium, hard);
+        Set<Long> categoryIds = resolveCategoryIds(categoryId, includeDescendants);
+        List<Question> questions;
+        if (questionPoolIndex.isReady()) {
+            List<Long> ids = new ArrayList<>(easy + medium + hard);
+            ids.addAll(questionPoolIndex.sample(categoryIds, null, 1, easy, Collections.emptySet()));
+            ids.addAll(questionPoolIndex.sample(categoryIds, null, 2, medium, Collections.emptySet()));
+            ids.addAll(questionPoolIndex.sample(categoryIds, null, 3, hard, Collections.emptySet()));
+            questions = selectInOrder(ids);
+        } else {
+            questions = questionRepository.findQuestionsByDifficultyDistribution(categoryIds, easy, medium, hard);
+        }
         return questions.stream()
                 .map(QuestionResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -404,6 +484,10 @@ public class QuestionServiceImpl implements QuestionService {
             return new ArrayList<>();
         }
 
+        // 内存标题索引按最近修改时间排序，未加载完成时回退到 LIKE 查询
+        if (titleSuggestionIndex.isEnabled()) {
+            return titleSuggestionIndex.suggest(keyword.trim(), 10);
+        }
         return questionRepository.getSearchSuggestions(keyword.trim());
     }
 
@@ -488,6 +572,31 @@ public class QuestionServiceImpl implements QuestionService {
         return response;
     }
 
+    /**
+     * 解析分类条件：为空表示不限；包含子分类时从分类子树缓存取后代闭包
+     */
+    private Set<Long> resolveCategoryIds(Long categoryId, boolean includeDescendants) {
+        if (categoryId == null) {
+            return null;
+        }
+        return includeDescendants ? categoryTreeCache.descendantsOf(categoryId) : Collections.singleton(categoryId);
+    }
+
+    /**
+     * 按ID批量查询题目，并保持ID的顺序
+     */
+    private List<Question> selectInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Question> questionMap = questionRepository.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        return ids.stream()
+                .map(questionMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 处理选项字段 - 如果是JSON格式，提取content字段；否则直接使用
      */
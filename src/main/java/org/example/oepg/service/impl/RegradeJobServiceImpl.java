@@ -0,0 +1,355 @@
+package org.example.oepg.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.res.PaperJobResponse;
+import org.example.oepg.dto.res.RegradeJobResponse;
+import org.example.oepg.engine.AnswerSheetCodec;
+import org.example.oepg.engine.ObjectiveGrader;
+import org.example.oepg.entity.Exam;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.exception.BusinessException;
+import org.example.oepg.repository.ExamPaperRepository;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.repository.ExamRepository;
+import org.example.oepg.repository.UserRepository;
+import org.example.oepg.service.RegradeJobService;
+import org.example.oepg.util.SecurityUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 重新批改任务服务实现
+ * 任务线程在只读事务中以游标逐行读取考试记录，每攒满一块交给批改线程池：
+ * 解析答题卡、用重新组装的试卷快照批改，只把分数变化的记录分批写回。
+ * 同时在途的块数有上限，内存占用与记录总数无关。各块独立提交，任务失败后重新执行即可。
+ */
+@Service
+@Slf4j
+public class RegradeJobServiceImpl implements RegradeJobService {
+
+    @Autowired
+    private ExamRecordRepository examRecordRepository;
+
+    @Autowired
+    private ExamPaperRepository examPaperRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Autowired
+    private AnswerSheetCodec answerSheetCodec;
+
+    @Autowired
+    private ObjectiveGrader objectiveGrader;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${oepg.regrade.parallelism:0}")
+    private int parallelism;
+
+    @Value("${oepg.regrade.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${oepg.regrade.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${oepg.persistence.batch-size:500}")
+    private int batchSize;
+
+    @Value("${oepg.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor jobExecutor;
+
+    private ExecutorService gradingExecutor;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger jobThreadIndex = new AtomicInteger();
+        jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "regrade-job-" + jobThreadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger workerIndex = new AtomicInteger();
+        gradingExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "regrade-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        gradingExecutor.shutdownNow();
+    }
+
+    @Override
+    public RegradeJobResponse submitForPaper(Long paperId) {
+        ExamPaper paper = examPaperRepository.selectById(paperId);
+        if (paper == null) {
+            throw new BusinessException("EXAM_PAPER_NOT_FOUND", "试卷不存在");
+        }
+        if (!paper.getCreatedById().equals(getCurrentUserId())) {
+            throw new BusinessException("PERMISSION_DENIED", "无权限重新批改此试卷");
+        }
+        return submit(RegradeJobResponse.Scope.PAPER, paperId, Collections.singletonList(paperId));
+    }
+
+    @Override
+    public RegradeJobResponse submitForExam(Long examId) {
+        Exam exam = examRepository.selectById(examId);
+        if (exam == null) {
+            throw new BusinessException("EXAM_NOT_FOUND", "考试不存在");
+        }
+        if (!exam.getCreatedById().equals(getCurrentUserId())) {
+            throw new BusinessException("PERMISSION_DENIED", "无权限重新批改此考试");
+        }
+        List<Long> paperIds = examPaperRepository.findByExamId(examId).stream()
+                .map(ExamPaper::getId)
+                .collect(Collectors.toList());
+        return submit(RegradeJobResponse.Scope.EXAM, examId, paperIds);
+    }
+
+    @Override
+    public RegradeJobResponse getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.owner.equals(currentOwner())) {
+            throw new BusinessException("JOB_NOT_FOUND", "重新批改任务不存在或已过期");
+        }
+        return toResponse(job);
+    }
+
+    /**
+     * 定期清理已结束且超过保留时间的任务
+     */
+    @Scheduled(fixedDelayString = "${oepg.jobs.purge-interval-ms:60000}")
+    public void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private RegradeJobResponse submit(RegradeJobResponse.Scope scope, Long targetId, List<Long> paperIds) {
+        Job job = new Job(UUID.randomUUID().toString(), scope, targetId, currentOwner());
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> execute(job, paperIds));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new BusinessException("JOB_QUEUE_FULL", "重新批改任务队列已满，请稍后重试");
+        }
+        log.info("重新批改任务已提交: jobId={}, scope={}, targetId={}", job.id, scope, targetId);
+        return toResponse(job);
+    }
+
+    private void execute(Job job, List<Long> paperIds) {
+        job.startedAt = LocalDateTime.now();
+        job.status = PaperJobResponse.JobStatus.RUNNING;
+        try {
+            long total = 0;
+            for (Long paperId : paperIds) {
+                total += examRecordRepository.countGradedByPaper(paperId);
+            }
+            job.totalRecords = total;
+
+            Semaphore inFlight = new Semaphore(parallelism * 2);
+            List<Future<?>> chunks = new ArrayList<>();
+            for (Long paperId : paperIds) {
+                // 重新组装快照，不使用缓存，保证读取到修正后的答案和分值
+                PaperSnapshot paper = paperSnapshotCache.build(paperId);
+                if (paper == null) continue;
+                readOnlyTemplate.executeWithoutResult(status -> streamChunks(job, paper, inFlight, chunks));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            job.status = PaperJobResponse.JobStatus.SUCCEEDED;
+            log.info("重新批改任务完成: jobId={}, 记录数={}, 分数变化={}, 耗时={}ms", job.id, job.processed.sum(),
+                    job.changed.sum(), java.time.Duration.between(job.startedAt, LocalDateTime.now()).toMillis());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("重新批改任务失败: jobId={}", job.id, cause);
+            job.errorCode = "JOB_FAILED";
+            job.errorMessage = cause.getMessage();
+            job.status = PaperJobResponse.JobStatus.FAILED;
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * 游标遍历试卷下的记录，按块提交给批改线程池；在途块数达到上限时阻塞读取
+     */
+    private void streamChunks(Job job, PaperSnapshot paper, Semaphore inFlight, List<Future<?>> chunks) {
+        try (Cursor<ExamRecord> cursor = examRecordRepository.streamGradedByPaper(paper.getPaperId())) {
+            List<ExamRecord> chunk = new ArrayList<>(chunkSize);
+            for (ExamRecord record : cursor) {
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    chunks.add(submitChunk(job, paper, chunk, inFlight));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(submitChunk(job, paper, chunk, inFlight));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Future<?> submitChunk(Job job, PaperSnapshot paper, List<ExamRecord> records, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        try {
+            return gradingExecutor.submit(() -> {
+                try {
+                    regradeChunk(job, paper, records);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void regradeChunk(Job job, PaperSnapshot paper, List<ExamRecord> records) {
+        List<ExamRecord> changed = new ArrayList<>();
+        for (ExamRecord record : records) {
+            int score = objectiveGrader.grade(paper, answerSheetCodec.decode(record.getAnswers()).values()).getObjectiveScore();
+            int delta = score - record.getScore();
+            if (delta != 0) {
+                changed.add(ExamRecord.builder().id(record.getId()).score(score).build());
+                job.recordChange(delta);
+            }
+        }
+        for (int from = 0; from < changed.size(); from += batchSize) {
+            examRecordRepository.updateScoresBatch(changed.subList(from, Math.min(from + batchSize, changed.size())));
+        }
+        job.processed.add(records.size());
+    }
+
+    private Long getCurrentUserId() {
+        String username = SecurityUtil.getCurrentUsername();
+        if (username == null) {
+            throw new BusinessException("UNAUTHORIZED", "用户未登录");
+        }
+        return userRepository.findByUsername(username).getId();
+    }
+
+    private String currentOwner() {
+        String username = SecurityUtil.getCurrentUsername();
+        return username != null ? username : "anonymous";
+    }
+
+    private RegradeJobResponse toResponse(Job job) {
+        long processed = job.processed.sum();
+        return RegradeJobResponse.builder()
+                .jobId(job.id)
+                .scope(job.scope)
+                .targetId(job.targetId)
+                .status(job.status)
+                .submittedAt(job.submittedAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .errorCode(job.errorCode)
+                .errorMessage(job.errorMessage)
+                .totalRecords(job.totalRecords)
+                .processedRecords(processed)
+                .progress(job.totalRecords == 0 ? (job.finishedAt != null ? 100 : 0)
+                        : Math.min(100, processed * 100.0 / job.totalRecords))
+                .changedRecords(job.changed.sum())
+                .increasedRecords(job.increased.sum())
+                .decreasedRecords(job.decreased.sum())
+                .totalScoreDelta(job.scoreDelta.sum())
+                .maxIncrease(job.maxIncrease.get())
+                .maxDecrease(job.maxDecrease.get())
+                .build();
+    }
+
+    /**
+     * 重新批改任务状态，计数由批改线程并发累加
+     */
+    private static class Job {
+        private final String id;
+        private final RegradeJobResponse.Scope scope;
+        private final Long targetId;
+        private final String owner;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile PaperJobResponse.JobStatus status = PaperJobResponse.JobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorCode;
+        private volatile String errorMessage;
+        private volatile long totalRecords;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder changed = new LongAdder();
+        private final LongAdder increased = new LongAdder();
+        private final LongAdder decreased = new LongAdder();
+        private final LongAdder scoreDelta = new LongAdder();
+        private final AtomicInteger maxIncrease = new AtomicInteger();
+        private final AtomicInteger maxDecrease = new AtomicInteger();
+
+        private Job(String id, RegradeJobResponse.Scope scope, Long targetId, String owner) {
+            this.id = id;
+            this.scope = scope;
+            this.targetId = targetId;
+            this.owner = owner;
+        }
+
+        private void recordChange(int delta) {
+            changed.increment();
+            scoreDelta.add(delta);
+            if (delta > 0) {
+                increased.increment();
+                maxIncrease.accumulateAndGet(delta, Math::max);
+            } else {
+                decreased.increment();
+                maxDecrease.accumulateAndGet(-delta, Math::max);
+            }
+        }
+    }
+}
@@ -1,19 +1,37 @@
 package org.example.oepg.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.example.oepg.cache.AnswerAutosaveBuffer;
+import org.example.oepg.cache.OpenExamCache;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.AutosaveRequest;
 import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.dto.res.AutosaveResponse;
+import org.example.oepg.dto.res.HeartbeatResponse;
 import org.example.oepg.dto.res.StartExamResponse;
 import org.example.oepg.dto.res.SubmitAnswerResponse;
 import org.example.oepg.dto.res.RecordResponse;
+import org.example.oepg.engine.AnswerSheetCodec;
+import org.example.oepg.engine.ExamDeadlineScheduler;
+import org.example.oepg.engine.ExamEventEmitter;
+import org.example.oepg.engine.ExamEventHub;
+import org.example.oepg.engine.ExamShuffler;
+import org.example.oepg.engine.GradingPipeline;
 import org.example.oepg.entity.*;
 import org.example.oepg.repository.*;
 import org.example.oepg.service.StudentExamService;
+import org.example.oepg.util.ExamSession;
+import org.example.oepg.util.ExamSessionTokenUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,39 +42,40 @@ public class StudentExamServiceImpl implements StudentExamService {
     @Autowired
     private ExamRepository examRepository;
     @Autowired
-    private ExamPaperRepository examPaperRepository;
+    private ExamRecordRepository examRecordRepository;
     @Autowired
-    private PaperQuestionRepository paperQuestionRepository;
+    private ExamShuffler examShuffler;
     @Autowired
-    private QuestionRepository questionRepository;
+    private PaperSnapshotCache paperSnapshotCache;
     @Autowired
-    private ExamRecordRepository examRecordRepository;
+    private OpenExamCache openExamCache;
+    @Autowired
+    private AnswerAutosaveBuffer answerAutosaveBuffer;
+    @Autowired
+    private AnswerSheetCodec answerSheetCodec;
+    @Autowired
+    private GradingPipeline gradingPipeline;
+    @Autowired
+    private ExamDeadlineScheduler examDeadlineScheduler;
+    @Autowired
+    private ExamEventHub examEventHub;
+    @Autowired
+    private ExamSessionTokenUtil examSessionTokenUtil;
 
     @Override
     public List<StartExamResponse.AvailableExam> getAvailableExams(Long studentId) {
-        // 可参加的考试：已发布，且当前时间在开始和结束之间，且未提交/未完成
-        List<Exam> ongoing = examRepository.findOngoingExams();
+        // 可参加的考试：进行中或即将开始、有已发布试卷（所有学生共用的缓存列表），且本人未提交/未完成
         LocalDateTime now = LocalDateTime.now();
-        // 基于时间窗口的发布考试（可能尚未到开始时间，这里一并展示）
-        List<Exam> upcoming = examRepository.findUpcomingExams();
-        List<Exam> all = new ArrayList<>();
-        all.addAll(ongoing);
-        all.addAll(upcoming);
-        // 去重
-        Map<Long, Exam> map = new LinkedHashMap<>();
-        for (Exam e : all) map.put(e.getId(), e);
-
-        // 过滤掉已经提交/评分完成的考试
-        return map.values().stream()
-                .filter(exam -> hasPublishedPaper(exam.getId()))
-                .filter(exam -> !hasFinishedRecord(studentId, exam.getId()))
+        Set<Long> finished = new HashSet<>(examRecordRepository.findFinishedExamIds(studentId));
+        return openExamCache.get().stream()
+                .filter(exam -> exam.getEndTime() == null || !now.isAfter(exam.getEndTime()))
+                .filter(exam -> !finished.contains(exam.getId()))
                 .map(this::toAvailableExam)
-                .sorted(Comparator.comparing(StartExamResponse.AvailableExam::getStartTime))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public StartExamResponse startExam(Long examId, Long studentId) {
+    public StartExamResponse startExam(Long examId, Long studentId, String username) {
         Exam exam = examRepository.selectById(examId);
         if (exam == null) throw new RuntimeException("考试不存在");
         LocalDateTime now = LocalDateTime.now();
@@ -70,10 +89,8 @@ public class StudentExamServiceImpl implements StudentExamService {
             throw new RuntimeException("考试不可参加");
         }
 
-        // 获取一份发布状态的试卷
-        ExamPaper paper = examPaperRepository.findByExamId(examId).stream()
-                .filter(p -> p.getStatus() == ExamPaper.PaperStatus.PUBLISHED)
-                .findFirst().orElse(null);
+        // 获取发布状态试卷的快照
+        PaperSnapshot paper = paperSnapshotCache.getPublishedByExam(examId);
         if (paper == null) throw new RuntimeException("考试无可用试卷");
 
         // 是否存在未完成的记录
@@ -81,21 +98,125 @@ public class StudentExamServiceImpl implements StudentExamService {
         wrapper.eq("student_id", studentId).eq("exam_id", examId).eq("status", ExamRecord.RecordStatus.ONGOING);
         ExamRecord ongoing = examRecordRepository.selectOne(wrapper);
         if (ongoing != null) {
-            return buildStartResponse(ongoing, exam, paper);
+            return buildStartResponse(ongoing, exam, paper, username);
         }
 
         // 创建新的记录
         ExamRecord record = ExamRecord.builder()
                 .examId(examId)
-                .paperId(paper.getId())
+                .paperId(paper.getPaperId())
                 .studentId(studentId)
                 .totalScore(paper.getTotalScore())
                 .startTime(now)
                 .status(ExamRecord.RecordStatus.ONGOING)
                 .build();
         examRecordRepository.insert(record);
+        examDeadlineScheduler.scheduleAfterCommit(record.getId(), ExamDeadlineScheduler.deadlineOf(record, exam));
+
+        return buildStartResponse(record, exam, paper, username);
+    }
 
-        return buildStartResponse(record, exam, paper);
+    @Override
+    public AutosaveResponse autosave(Long examId, Long studentId, AutosaveRequest request) {
+        // 首次保存时校验记录归属和状态，之后直接写入缓冲区
+        if (!answerAutosaveBuffer.isTracked(request.getRecordId(), studentId)) {
+            ExamRecord record = examRecordRepository.selectById(request.getRecordId());
+            if (record == null || !Objects.equals(record.getStudentId(), studentId) || !Objects.equals(record.getExamId(), examId)) {
+                throw new RuntimeException("记录不存在或无权限");
+            }
+            if (record.getStatus() != ExamRecord.RecordStatus.ONGOING) {
+                throw new RuntimeException("考试已结束，无法保存答案");
+            }
+            answerAutosaveBuffer.track(record.getId(), studentId);
+        }
+        answerAutosaveBuffer.save(request.getRecordId(), request.getAnswers());
+        return AutosaveResponse.builder()
+                .recordId(request.getRecordId())
+                .savedAnswers(request.getAnswers().size())
+                .savedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 不开启事务，令牌有效时全程不占用数据库连接
+    public AutosaveResponse autosave(ExamSession session, AutosaveRequest request) {
+        // 令牌已证明记录归属，截止时间内直接写入缓冲区；截止后按数据库中的状态校验
+        long nowMillis = System.currentTimeMillis();
+        if (session.isExpired(nowMillis) || !Objects.equals(request.getRecordId(), session.getRecordId())) {
+            return autosave(session.getExamId(), session.getStudentId(), request);
+        }
+        // 令牌中的截止时间可能已被强制交卷提前：已过时间轮中的截止时间时拒绝，不在时间轮中时按数据库校验
+        Long deadlineMillis = examDeadlineScheduler.deadlineMillis(session.getRecordId());
+        if (deadlineMillis == null) {
+            return autosave(session.getExamId(), session.getStudentId(), request);
+        }
+        if (nowMillis > deadlineMillis) {
+            throw new RuntimeException("考试已结束，无法保存答案");
+        }
+        if (!answerAutosaveBuffer.isTracked(session.getRecordId(), session.getStudentId())) {
+            answerAutosaveBuffer.track(session.getRecordId(), session.getStudentId());
+        }
+        answerAutosaveBuffer.save(request.getRecordId(), request.getAnswers());
+        return AutosaveResponse.builder()
+                .recordId(request.getRecordId())
+                .savedAnswers(request.getAnswers().size())
+                .savedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Override
+    public HeartbeatResponse heartbeat(Long examId, Long studentId) {
+        Exam exam = examRepository.selectById(examId);
+        if (exam == null) throw new RuntimeException("考试不存在");
+        QueryWrapper<ExamRecord> wrapper = new QueryWrapper<>();
+        wrapper.eq("student_id", studentId).eq("exam_id", examId).eq("status", ExamRecord.RecordStatus.ONGOING);
+        ExamRecord record = examRecordRepository.selectOne(wrapper);
+        if (record == null) throw new RuntimeException("没有进行中的考试记录");
+        return buildHeartbeat(record.getId(), ExamDeadlineScheduler.deadlineOf(record, exam));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public HeartbeatResponse heartbeat(ExamSession session) {
+        // 截止时间取时间轮中当前生效的值，强制交卷提前后立即可见；不在时间轮中时按数据库查询
+        Long deadlineMillis = examDeadlineScheduler.deadlineMillis(session.getRecordId());
+        if (session.isExpired(System.currentTimeMillis()) || deadlineMillis == null) {
+            return heartbeat(session.getExamId(), session.getStudentId());
+        }
+        LocalDateTime deadline = LocalDateTime.ofInstant(Instant.ofEpochMilli(deadlineMillis), ZoneId.systemDefault());
+        return buildHeartbeat(session.getRecordId(), deadline);
+    }
+
+    private HeartbeatResponse buildHeartbeat(Long recordId, LocalDateTime deadline) {
+        LocalDateTime now = LocalDateTime.now();
+        return HeartbeatResponse.builder()
+                .recordId(recordId)
+                .serverTime(now)
+                .deadline(deadline)
+                .remainingSeconds(deadline == null ? null : Math.max(0, Duration.between(now, deadline).getSeconds()))
+                .build();
+    }
+
+    @Override
+    public SubmitAnswerResponse submitExam(ExamSession session, SubmitAnswerRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        if (session.isExpired(System.currentTimeMillis()) || !Objects.equals(request.getRecordId(), session.getRecordId())) {
+            return submitExam(session.getExamId(), session.getStudentId(), request);
+        }
+        // 令牌中的截止时间可能已被强制交卷提前：不在时间轮中或已过当前截止时间时按数据库完整校验
+        Long deadlineMillis = examDeadlineScheduler.deadlineMillis(session.getRecordId());
+        if (deadlineMillis == null || System.currentTimeMillis() > deadlineMillis) {
+            return submitExam(session.getExamId(), session.getStudentId(), request);
+        }
+        // 时间轮中的截止时间已取考试结束时间与作答时长的较早者，无需再读取考试
+        PaperSnapshot paper = paperSnapshotCache.get(session.getPaperId());
+        if (paper == null) throw new RuntimeException("试卷不存在");
+        // 读取已保存的答案和版本号；记录已提交或已超时时按完整校验给出具体原因
+        ExamRecord record = examRecordRepository.findOngoingSheet(session.getRecordId());
+        if (record == null) {
+            return submitExam(session.getExamId(), session.getStudentId(), request);
+        }
+        return completeSubmission(record, paper, session.getSeed(), request, now);
     }
 
     @Override
@@ -107,64 +228,105 @@ public class StudentExamServiceImpl implements StudentExamService {
         if (record.getStatus() == ExamRecord.RecordStatus.SUBMITTED || record.getStatus() == ExamRecord.RecordStatus.GRADED) {
             throw new RuntimeException("该记录已提交");
         }
+        if (record.getStatus() == ExamRecord.RecordStatus.TIMEOUT) {
+            throw new RuntimeException("考试已超时，答案已自动提交");
+        }
 
+        // 超时的记录由截止时间调度器按已自动保存的答案交卷
         Exam exam = examRepository.selectById(examId);
         LocalDateTime now = LocalDateTime.now();
         if (exam.getEndTime() != null && now.isAfter(exam.getEndTime())) {
-            record.setStatus(ExamRecord.RecordStatus.TIMEOUT);
-            examRecordRepository.updateById(record);
             throw new RuntimeException("已超过考试结束时间");
         }
         // 时长校验
         if (exam.getDuration() != null && record.getStartTime() != null) {
             long minutes = Duration.between(record.getStartTime(), now).toMinutes();
             if (minutes > exam.getDuration()) {
-                record.setStatus(ExamRecord.RecordStatus.TIMEOUT);
-                examRecordRepository.updateById(record);
                 throw new RuntimeException("已超过考试时长");
             }
         }
 
-        // 构建试卷题目映射
-        List<PaperQuestion> pqs = paperQuestionRepository.findByPaperId(record.getPaperId());
-        Map<Long, PaperQuestion> pqByQuestionId = pqs.stream().collect(Collectors.toMap(PaperQuestion::getQuestionId, x -> x));
-        List<Long> questionIds = pqs.stream().map(PaperQuestion::getQuestionId).collect(Collectors.toList());
-        Map<Long, Question> questionMap = questionIds.isEmpty() ? Collections.emptyMap() :
-                questionRepository.selectBatchIds(questionIds).stream().collect(Collectors.toMap(Question::getId, q -> q));
-
-        // 自动批改客观题
-        int objectiveScore = 0;
-        boolean hasSubjective = false;
-        for (SubmitAnswerRequest.AnswerItem ans : request.getAnswers()) {
-            Question q = questionMap.get(ans.getQuestionId());
-            if (q == null) continue;
-            if (q.getType() == Question.QuestionType.CHOICE) {
-                if (normalize(ans.getAnswer()).equalsIgnoreCase(normalize(q.getAnswer()))) {
-                    objectiveScore += safeScore(pqByQuestionId.get(q.getId()));
-                }
-            } else if (q.getType() == Question.QuestionType.FILL_BLANK) {
-                if (fillBlankMatch(ans.getAnswer(), q.getAnswer())) {
-                    objectiveScore += safeScore(pqByQuestionId.get(q.getId()));
-                }
-            } else {
-                hasSubjective = true;
+        // 试卷题目、分值和标准答案取自快照
+        PaperSnapshot paper = paperSnapshotCache.get(record.getPaperId());
+        if (paper == null) throw new RuntimeException("试卷不存在");
+        return completeSubmission(record, paper, examShuffler.seed(record.getId(), paper.getPaperId()), request, now);
+    }
+
+    private SubmitAnswerResponse completeSubmission(ExamRecord record, PaperSnapshot paper, long seed,
+                                                   SubmitAnswerRequest request, LocalDateTime now) {
+        List<SubmitAnswerRequest.AnswerItem> submitted = request.getAnswers();
+        if (!trySubmit(record, paper, seed, submitted, now)) {
+            // 读取之后自动保存写回了这条记录（版本号已变化），加锁重新读取后再提交一次
+            record = examRecordRepository.findOngoingSheet(record.getId());
+            if (record == null || !trySubmit(record, paper, seed, submitted, now)) {
+                throw new RuntimeException("该记录已提交");
             }
         }
-
-        int totalScore = objectiveScore; // 先不计主观题
-        record.setScore(totalScore);
-        record.setSubmitTime(now);
-        record.setStatus(hasSubjective ? ExamRecord.RecordStatus.SUBMITTED : ExamRecord.RecordStatus.GRADED);
-        // 保存原始答案 JSON
-        String answersJson = toAnswersJson(request);
-        record.setAnswers(answersJson);
-        examRecordRepository.updateById(record);
+        answerAutosaveBuffer.discardAfterCommit(record.getId());
+        gradingPipeline.enqueueAfterCommit(record.getId());
+        examDeadlineScheduler.cancelAfterCommit(record.getId());
+        examEventHub.closeAfterCommit(record.getExamId(), record.getId());
 
         return SubmitAnswerResponse.builder()
                 .recordId(record.getId())
-                .objectiveScore(objectiveScore)
-                .totalScore(totalScore)
-                .pendingReview(hasSubjective)
+                .gradingStatus(SubmitAnswerResponse.GradingStatus.QUEUED)
+                .submitTime(now)
+                .build();
+    }
+
+    /**
+     * 合并答题卡并按版本号条件更新，版本号已变化时返回 false
+     */
+    private boolean trySubmit(ExamRecord record, PaperSnapshot paper, long seed,
+                              List<SubmitAnswerRequest.AnswerItem> submitted, LocalDateTime now) {
+        // 最终答题卡 = 已落库的自动保存答案 + 缓冲区中未写入的答案 + 本次提交的答案，后者优先
+        Map<Long, SubmitAnswerRequest.AnswerItem> sheet = answerSheetCodec.decode(record.getAnswers());
+        sheet.putAll(answerAutosaveBuffer.pending(record.getId()));
+        for (SubmitAnswerRequest.AnswerItem ans : submitted) {
+            sheet.put(ans.getQuestionId(), ans);
+        }
+        List<SubmitAnswerRequest.AnswerItem> answers = new ArrayList<>(sheet.values());
+
+        // 按开始考试时的种子把乱序选项还原为原始选项
+        examShuffler.restoreAnswersWithSeed(seed, paper, answers);
+
+        // 只落库答题卡，批改由异步流水线在事务提交后完成
+        String answersJson = answerSheetCodec.encode(answers);
+        // 条件更新：并发的重复提交、超时交卷或自动保存写回只有一个能成功；缓冲答案在提交后才丢弃
+        return examRecordRepository.markSubmitted(record.getId(), record.getVersion(), answersJson, now) > 0;
+    }
+
+    @Override
+    public ExamEventEmitter subscribeEvents(Long examId, Long studentId) {
+        Exam exam = examRepository.selectById(examId);
+        if (exam == null) throw new RuntimeException("考试不存在");
+        QueryWrapper<ExamRecord> wrapper = new QueryWrapper<>();
+        wrapper.eq("student_id", studentId).eq("exam_id", examId).eq("status", ExamRecord.RecordStatus.ONGOING);
+        ExamRecord record = examRecordRepository.selectOne(wrapper);
+        if (record == null) throw new RuntimeException("没有进行中的考试记录");
+        LocalDateTime deadline = ExamDeadlineScheduler.deadlineOf(record, exam);
+        if (deadline == null) throw new RuntimeException("考试未设置作答时限");
+        return examEventHub.subscribe(examId, record.getId(), deadline);
+    }
+
+    @Override
+    public SubmitAnswerResponse getGradingStatus(Long recordId, Long studentId) {
+        ExamRecord r = examRecordRepository.selectById(recordId);
+        if (r == null || !Objects.equals(r.getStudentId(), studentId)) {
+            throw new RuntimeException("记录不存在或无权限");
+        }
+        if (r.getStatus() == ExamRecord.RecordStatus.ONGOING
+                || (r.getStatus() == ExamRecord.RecordStatus.TIMEOUT && r.getScore() == null)) {
+            throw new RuntimeException("该记录未提交");
+        }
+        boolean graded = r.getScore() != null;
+        return SubmitAnswerResponse.builder()
+                .recordId(r.getId())
+                .objectiveScore(r.getScore())
+                .totalScore(r.getScore())
+                .pendingReview(graded && r.getStatus() == ExamRecord.RecordStatus.SUBMITTED)
+                .gradingStatus(graded ? SubmitAnswerResponse.GradingStatus.GRADED : SubmitAnswerResponse.GradingStatus.QUEUED)
+                .submitTime(r.getSubmitTime())
                 .build();
     }
 
@@ -185,18 +347,6 @@ public class StudentExamServiceImpl implements StudentExamService {
         return toRecordResponse(r);
     }
 
-    private boolean hasPublishedPaper(Long examId) {
-        return examPaperRepository.findByExamId(examId).stream()
-                .anyMatch(p -> p.getStatus() == ExamPaper.PaperStatus.PUBLISHED);
-    }
-
-    private boolean hasFinishedRecord(Long studentId, Long examId) {
-        QueryWrapper<ExamRecord> qw = new QueryWrapper<>();
-        qw.eq("student_id", studentId).eq("exam_id", examId)
-                .in("status", ExamRecord.RecordStatus.SUBMITTED, ExamRecord.RecordStatus.GRADED);
-        return examRecordRepository.selectCount(qw) > 0;
-    }
-
     private StartExamResponse.AvailableExam toAvailableExam(Exam exam) {
         return StartExamResponse.AvailableExam.builder()
                 .examId(exam.getId())
@@ -208,78 +358,47 @@ public class StudentExamServiceImpl implements StudentExamService {
                 .build();
     }
 
-    private StartExamResponse buildStartResponse(ExamRecord record, Exam exam, ExamPaper paper) {
-        List<PaperQuestion> pqs = paperQuestionRepository.findByPaperId(paper.getId());
-        List<Long> qids = pqs.stream().map(PaperQuestion::getQuestionId).collect(Collectors.toList());
-        Map<Long, Question> qmap = qids.isEmpty() ? Collections.emptyMap() :
-                questionRepository.selectBatchIds(qids).stream().collect(Collectors.toMap(Question::getId, q -> q));
-
-        List<StartExamResponse.ExamQuestion> questions = pqs.stream()
-                .sorted(Comparator.comparing(PaperQuestion::getSortOrder))
-                .map(pq -> {
-                    Question q = qmap.get(pq.getQuestionId());
-                    return StartExamResponse.ExamQuestion.builder()
-                            .questionId(q.getId())
-                            .title(q.getTitle())
-                            .content(q.getContent())
-                            .type(q.getType().name())
-                            .difficulty(q.getDifficulty())
-                            .score(pq.getScore())
-                            .sortOrder(pq.getSortOrder())
-                            .options(q.getOptions())
-                            .build();
-                }).collect(Collectors.toList());
+    private StartExamResponse buildStartResponse(ExamRecord record, Exam exam, PaperSnapshot paper, String username) {
+        long seed = examShuffler.seed(record.getId(), paper.getPaperId());
+        // 每个学生按自己的种子得到不同的题目和选项顺序，sortOrder 为乱序后的展示顺序
+        List<PaperSnapshot.Item> shuffled = examShuffler.shuffleQuestions(seed, paper.getItems());
+        List<StartExamResponse.ExamQuestion> questions = new ArrayList<>(shuffled.size());
+        for (int i = 0; i < shuffled.size(); i++) {
+            PaperSnapshot.Item q = shuffled.get(i);
+            questions.add(StartExamResponse.ExamQuestion.builder()
+                    .questionId(q.getQuestionId())
+                    .title(q.getTitle())
+                    .content(q.getContent())
+                    .type(q.getType().name())
+                    .difficulty(q.getDifficulty())
+                    .score(q.getScore())
+                    .sortOrder(examShuffler.isShuffleQuestions() ? i + 1 : q.getSortOrder())
+                    .options(q.getType() == Question.QuestionType.CHOICE
+                            ? examShuffler.shuffleOptions(seed, q.getQuestionId(), q.getOptions()) : q.getOptions())
+                    .build());
+        }
+
+        // 没有作答时限的考试不签发令牌，后续请求按数据库校验
+        LocalDateTime deadline = ExamDeadlineScheduler.deadlineOf(record, exam);
+        String sessionToken = deadline == null ? null : examSessionTokenUtil.issue(new ExamSession(
+                record.getId(), record.getStudentId(), exam.getId(), paper.getPaperId(),
+                deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), seed, username));
 
         return StartExamResponse.builder()
                 .recordId(record.getId())
                 .examId(exam.getId())
-                .paperId(paper.getId())
+                .paperId(paper.getPaperId())
                 .examTitle(exam.getTitle())
                 .durationMinutes(exam.getDuration())
                 .totalScore(paper.getTotalScore())
                 .startTime(record.getStartTime())
                 .endTime(exam.getEndTime())
+                .deadline(deadline)
+                .sessionToken(sessionToken)
                 .questions(questions)
                 .build();
     }
 
-    private String normalize(String s) {
-        if (s == null) return "";
-        return s.trim().replaceAll("\\s+", " ");
-    }
-
-    private boolean fillBlankMatch(String user, String standard) {
-        if (user == null || standard == null) return false;
-        // 支持多空：用 | 或 ; 作为分隔符进行对比（忽略空白和大小写）
-        String[] ua = user.split("[|;]");
-        String[] sa = standard.split("[|;]");
-        if (ua.length != sa.length) return false;
-        for (int i = 0; i < ua.length; i++) {
-            if (!normalize(ua[i]).equalsIgnoreCase(normalize(sa[i]))) return false;
-        }
-        return true;
-    }
-
-    private int safeScore(PaperQuestion pq) {
-        return pq != null && pq.getScore() != null ? pq.getScore() : 0;
-    }
-
-    private String toAnswersJson(SubmitAnswerRequest request) {
-        // 简单拼接为 JSON 数组字符串，避免引入额外依赖
-        String items = request.getAnswers().stream().map(a ->
-                String.format(Locale.ROOT, "{\"questionId\":%d,\"answer\":%s%s}",
-                        a.getQuestionId(),
-                        toJsonString(a.getAnswer()),
-                        a.getTimeUsedSeconds() != null ? ",\"timeUsedSeconds\":" + a.getTimeUsedSeconds() : "")
-        ).collect(Collectors.joining(","));
-        return "[" + items + "]";
-    }
-
-    private String toJsonString(String s) {
-        if (s == null) return "null";
-        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
-        }
-
     private RecordResponse toRecordResponse(ExamRecord r) {
         // 轻量实现，后续可补充更多字段（考试/试卷标题等）
         RecordResponse resp = new RecordResponse();
@@ -0,0 +1,36 @@
+package org.example.oepg.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 考试会话令牌中的声明
+ * 开始考试时签发，作答期间的自动保存、心跳和交卷据此完成鉴权和路由，不再查询用户和考试记录
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ExamSession {
+
+    private final long recordId;
+
+    private final long studentId;
+
+    private final long examId;
+
+    private final long paperId;
+
+    private final long deadlineMillis; // 签发时的作答截止时间（毫秒时间戳）
+
+    private final long seed; // 题目和选项乱序种子
+
+    private final String username;
+
+    /**
+     * 截止时间已过：考试可能已被延长或提前结束，调用方应改为查询数据库确认
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > deadlineMillis;
+    }
+}
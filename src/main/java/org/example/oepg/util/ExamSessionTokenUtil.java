@@ -0,0 +1,133 @@
+package org.example.oepg.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 考试会话令牌工具类
+ * 令牌格式为 base64url(声明).base64url(HMAC-SHA256(声明))，声明为定长二进制：
+ * 版本(1) + recordId + studentId + examId + paperId + 截止时间 + 乱序种子（各 8 字节）+ 用户名（UTF-8）。
+ * 校验只做一次 Base64 解码和一次 HMAC，不查询数据库，单次在微秒级。
+ * 令牌在截止时间后再保留 grace-seconds，期间由调用方回退到查询数据库的校验。
+ */
+@Component
+@Slf4j
+public class ExamSessionTokenUtil {
+
+    /**
+     * 客户端携带令牌的请求头
+     */
+    public static final String HEADER = "X-Exam-Session";
+
+    private static final byte VERSION = 1;
+
+    private static final int FIXED_LENGTH = 1 + 6 * 8;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${oepg.session.secret:}")
+    private String secret;
+
+    @Value("${jwt.secret:defaultSecretKey}")
+    private String jwtSecret;
+
+    @Value("${oepg.session.grace-seconds:120}")
+    private long graceSeconds;
+
+    private SecretKeySpec key;
+
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret != null && !secret.isEmpty()) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            // 未单独配置时由 JWT 密钥派生，两类令牌不共用同一把密钥
+            keyBytes = hmac(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                    "oepg-exam-session".getBytes(StandardCharsets.UTF_8));
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    /**
+     * 签发令牌
+     */
+    public String issue(ExamSession session) {
+        byte[] username = session.getUsername().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer claims = ByteBuffer.allocate(FIXED_LENGTH + username.length)
+                .put(VERSION)
+                .putLong(session.getRecordId())
+                .putLong(session.getStudentId())
+                .putLong(session.getExamId())
+                .putLong(session.getPaperId())
+                .putLong(session.getDeadlineMillis())
+                .putLong(session.getSeed())
+                .put(username);
+        byte[] payload = claims.array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(macs.get().doFinal(payload));
+    }
+
+    /**
+     * 校验令牌；格式错误、签名不符或超过截止时间加宽限期时返回 null
+     */
+    public ExamSession verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length < FIXED_LENGTH + 1 || payload[0] != VERSION
+                || !MessageDigest.isEqual(macs.get().doFinal(payload), signature)) {
+            return null;
+        }
+        ByteBuffer claims = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        ExamSession session = new ExamSession(claims.getLong(), claims.getLong(), claims.getLong(), claims.getLong(),
+                claims.getLong(), claims.getLong(),
+                new String(payload, FIXED_LENGTH, payload.length - FIXED_LENGTH, StandardCharsets.UTF_8));
+        if (System.currentTimeMillis() > session.getDeadlineMillis() + graceSeconds * 1000) {
+            return null;
+        }
+        return session;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 不可用", e);
+        }
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        return newMac(key).doFinal(data);
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.oepg.cache;
+
+import org.example.oepg.engine.ExamShuffler;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.repository.ExamPaperRepository;
+import org.example.oepg.repository.PaperQuestionRepository;
+import org.example.oepg.repository.QuestionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 试卷快照缓存：并发未命中只加载一次、加载期间失效的结果不进入缓存、重新加载的试卷不被旧的淘汰位置挤出
+ */
+@ExtendWith(MockitoExtension.class)
+class PaperSnapshotCacheTest {
+
+    @Mock
+    private ExamPaperRepository examPaperRepository;
+
+    @Mock
+    private PaperQuestionRepository paperQuestionRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private ExamShuffler examShuffler;
+
+    @InjectMocks
+    private PaperSnapshotCache cache;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxPapers", 2);
+        lenient().when(paperQuestionRepository.findByPaperId(anyLong())).thenReturn(Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(examPaperRepository.selectById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return paper(1L);
+        });
+
+        Future<PaperSnapshot> first = executor.submit(() -> cache.get(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<PaperSnapshot> second = executor.submit(() -> cache.get(1L));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertSame(first.get(), cache.get(1L));
+        verify(examPaperRepository, times(1)).selectById(1L);
+    }
+
+    @Test
+    void evictionDuringLoadIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(examPaperRepository.selectById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return paper(1L);
+        }).thenReturn(paper(1L));
+
+        Future<PaperSnapshot> stale = executor.submit(() -> cache.get(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.evict(1L);
+        release.countDown();
+        assertNotNull(stale.get(5, TimeUnit.SECONDS));
+
+        // 失效前读到的快照没有留在缓存中，再次访问重新加载
+        assertNotSame(stale.get(), cache.get(1L));
+        verify(examPaperRepository, times(2)).selectById(1L);
+    }
+
+    @Test
+    void reloadedPaperIsNotEvictedByStalePosition() {
+        when(examPaperRepository.selectById(anyLong())).thenAnswer(invocation -> paper(invocation.getArgument(0)));
+        cache.get(1L);
+        cache.get(2L);
+        cache.evict(1L);
+        cache.get(1L);
+
+        // 超出容量时淘汰最早写入的试卷 2，而不是刚重新加载的试卷 1
+        cache.get(3L);
+        cache.get(1L);
+        verify(examPaperRepository, times(2)).selectById(1L);
+        cache.get(2L);
+        verify(examPaperRepository, times(2)).selectById(2L);
+    }
+
+    private static ExamPaper paper(Long id) {
+        return ExamPaper.builder().id(id).examId(id + 100).status(ExamPaper.PaperStatus.PUBLISHED).build();
+    }
+}
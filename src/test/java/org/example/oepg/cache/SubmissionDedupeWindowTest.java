@@ -0,0 +1,148 @@
+package org.example.oepg.cache;
+
+import org.example.oepg.dto.res.SubmitAnswerResponse;
+import org.example.oepg.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交卷幂等窗口：重复请求返回第一次的回执、并发重复请求等待第一次完成、失败后允许重试，以及按容量和时间淘汰
+ */
+class SubmissionDedupeWindowTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private SubmissionDedupeWindow window;
+
+    @BeforeEach
+    void setUp() {
+        window = new SubmissionDedupeWindow();
+        ReflectionTestUtils.setField(window, "maxEntries", 100);
+        ReflectionTestUtils.setField(window, "ttlMillis", 600_000L);
+        ReflectionTestUtils.setField(window, "waitMillis", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void duplicateReturnsFirstReceipt() {
+        SubmitAnswerResponse first = window.submit(1L, "k1", "alice", this::respond);
+        assertSame(first, window.submit(1L, "k1", "alice", this::respond));
+        assertEquals(1, calls.get());
+
+        // 不同记录、不同用户或未携带幂等键时正常执行
+        assertNotSame(first, window.submit(2L, "k1", "alice", this::respond));
+        assertNotSame(first, window.submit(1L, "k1", "bob", this::respond));
+        window.submit(1L, null, "alice", this::respond);
+        window.submit(1L, "", "alice", this::respond);
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForFirst() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<SubmitAnswerResponse> first = executor.submit(() -> window.submit(1L, "k1", "alice", () -> {
+            entered.countDown();
+            await(release);
+            return respond();
+        }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<SubmitAnswerResponse> duplicate = executor.submit(() -> window.submit(1L, "k1", "alice", this::respond));
+
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+        assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void duplicateTimesOutWhileFirstIsStillRunning() throws Exception {
+        ReflectionTestUtils.setField(window, "waitMillis", 50L);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<SubmitAnswerResponse> first = executor.submit(() -> window.submit(1L, "k1", "alice", () -> {
+            entered.countDown();
+            await(release);
+            return respond();
+        }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> window.submit(1L, "k1", "alice", this::respond));
+        assertEquals("SUBMIT_IN_PROGRESS", e.getCode());
+        release.countDown();
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failureIsPropagatedAndAllowsRetry() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<SubmitAnswerResponse> first = executor.submit(() -> window.submit(1L, "k1", "alice", () -> {
+            entered.countDown();
+            await(release);
+            throw new BusinessException("EXAM_ENDED", "考试已结束");
+        }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<SubmitAnswerResponse> duplicate = executor.submit(() -> window.submit(1L, "k1", "alice", this::respond));
+        Thread.sleep(50);
+        release.countDown();
+
+        for (Future<SubmitAnswerResponse> future : Arrays.asList(first, duplicate)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertEquals("EXAM_ENDED", ((BusinessException) e.getCause()).getCode());
+        }
+        // 失败的条目已移除，重试会重新执行
+        assertNotNull(window.submit(1L, "k1", "alice", this::respond));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void entriesAreEvictedByCapacityAndAge() throws Exception {
+        ReflectionTestUtils.setField(window, "maxEntries", 2);
+        window.submit(1L, "k1", "alice", this::respond);
+        window.submit(2L, "k2", "alice", this::respond);
+        window.submit(3L, "k3", "alice", this::respond);
+        assertEquals(3, calls.get());
+
+        // 最早的 k1 被挤出，k3 仍在窗口内
+        window.submit(3L, "k3", "alice", this::respond);
+        assertEquals(3, calls.get());
+        window.submit(1L, "k1", "alice", this::respond);
+        assertEquals(4, calls.get());
+
+        ReflectionTestUtils.setField(window, "ttlMillis", 20L);
+        Thread.sleep(40);
+        window.submit(1L, "k1", "alice", this::respond);
+        assertEquals(5, calls.get());
+    }
+
+    private SubmitAnswerResponse respond() {
+        return SubmitAnswerResponse.builder().recordId((long) calls.incrementAndGet()).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
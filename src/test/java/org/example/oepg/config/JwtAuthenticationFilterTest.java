@@ -0,0 +1,70 @@
+package org.example.oepg.config;
+
+import org.example.oepg.util.ExamSession;
+import org.example.oepg.util.ExamSessionTokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 考试会话令牌的生效范围测试：只认作答期间的接口和令牌所属的考试
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final long EXAM_ID = 33;
+
+    private JwtAuthenticationFilter filter;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        ExamSessionTokenUtil tokens = new ExamSessionTokenUtil();
+        ReflectionTestUtils.setField(tokens, "secret", "test-secret");
+        ReflectionTestUtils.setField(tokens, "graceSeconds", 120L);
+        tokens.init();
+        token = tokens.issue(new ExamSession(11, 22, EXAM_ID, 44, System.currentTimeMillis() + 60_000, 7, "alice"));
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "examSessionTokenUtil", tokens);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesAnsweringEndpointsOfTheTokenExam() throws Exception {
+        for (String action : new String[]{"autosave", "heartbeat", "submit", "events"}) {
+            Authentication authentication = filter("/api/student/exams/" + EXAM_ID + "/" + action);
+            assertNotNull(authentication, action);
+            assertTrue(authentication.getDetails() instanceof ExamSession, action);
+            assertEquals("alice", authentication.getName(), action);
+        }
+    }
+
+    @Test
+    void fallsThroughToJwtElsewhere() throws Exception {
+        assertNull(filter("/api/student/exams/" + EXAM_ID + "/start"));
+        assertNull(filter("/api/student/exams/available"));
+        assertNull(filter("/api/student/exams/34/autosave"));
+        assertNull(filter("/api/student/records"));
+        assertNull(filter("/api/student/exams/" + EXAM_ID + "/autosave/extra"));
+    }
+
+    private Authentication filter(String uri) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.addHeader(ExamSessionTokenUtil.HEADER, token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
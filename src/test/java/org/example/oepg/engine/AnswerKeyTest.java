@@ -0,0 +1,86 @@
+package org.example.oepg.engine;
+
+import org.example.oepg.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预编译标准答案与原正则实现的判定一致性测试
+ */
+class AnswerKeyTest {
+
+    private static final String ALPHABET = "aAbB |;\t\n\u000B\f\r\u0001xyÄäßİı";
+
+    @Test
+    void choiceIgnoresCaseAndWhitespace() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.CHOICE, " A C ");
+        assertTrue(key.matches("a   c"));
+        assertTrue(key.matches("\tA\nC\r"));
+        assertFalse(key.matches("AC"));
+        assertFalse(AnswerKey.compile(Question.QuestionType.CHOICE, "A").matches(null));
+        assertTrue(AnswerKey.compile(Question.QuestionType.CHOICE, null).matches("  "));
+    }
+
+    @Test
+    void fillBlankComparesEachBlank() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.FILL_BLANK, "Newton's  law|F = ma");
+        assertTrue(key.matches(" newton's law ; f =   MA "));
+        assertTrue(key.matches("newton's law|f = ma|"));
+        assertFalse(key.matches("newton's law"));
+        assertFalse(key.matches(null));
+        assertFalse(AnswerKey.compile(Question.QuestionType.FILL_BLANK, null).matches("x"));
+    }
+
+    @Test
+    void subjectiveQuestionsHaveNoKey() {
+        assertNull(AnswerKey.compile(Question.QuestionType.SHORT_ANSWER, "任意"));
+        assertNull(AnswerKey.compile(Question.QuestionType.PROOF, "任意"));
+    }
+
+    @Test
+    void matchesLegacyImplementationOnRandomInput() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            String standard = randomText(random);
+            String answer = random.nextInt(4) == 0 ? standard : randomText(random);
+            assertEquals(legacyChoice(answer, standard),
+                    AnswerKey.compile(Question.QuestionType.CHOICE, standard).matches(answer),
+                    () -> "choice: [" + answer + "] vs [" + standard + "]");
+            assertEquals(legacyFillBlank(answer, standard),
+                    AnswerKey.compile(Question.QuestionType.FILL_BLANK, standard).matches(answer),
+                    () -> "fill blank: [" + answer + "] vs [" + standard + "]");
+        }
+    }
+
+    private static String randomText(Random random) {
+        int length = random.nextInt(8);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String normalize(String s) {
+        if (s == null) return "";
+        return s.trim().replaceAll("\\s+", " ");
+    }
+
+    private static boolean legacyChoice(String user, String standard) {
+        return normalize(user).equalsIgnoreCase(normalize(standard));
+    }
+
+    private static boolean legacyFillBlank(String user, String standard) {
+        if (user == null || standard == null) return false;
+        String[] ua = user.split("[|;]");
+        String[] sa = standard.split("[|;]");
+        if (ua.length != sa.length) return false;
+        for (int i = 0; i < ua.length; i++) {
+            if (!normalize(ua[i]).equalsIgnoreCase(normalize(sa[i]))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.oepg.engine;
+
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 答题卡各存储格式的往返与历史 JSON 兼容性测试
+ */
+class AnswerSheetCodecTest {
+
+    @Test
+    void everyFormatRoundTripsAndIsReadableByAnyCodec() {
+        List<SubmitAnswerRequest.AnswerItem> answers = Arrays.asList(
+                new SubmitAnswerRequest.AnswerItem(1024L, "A", 12),
+                new SubmitAnswerRequest.AnswerItem(7L, "牛顿第二定律|F = ma", null),
+                new SubmitAnswerRequest.AnswerItem(3_000_000_000L, null, -5),
+                new SubmitAnswerRequest.AnswerItem(8L, "引号\"、反斜杠\\、换行\n、表情😀", 0),
+                new SubmitAnswerRequest.AnswerItem(9L, String.join("", Collections.nCopies(200, "论述题作答内容。")), 600));
+        AnswerSheetCodec reader = new AnswerSheetCodec();
+        for (AnswerSheetCodec.Format format : AnswerSheetCodec.Format.values()) {
+            String encoded = new AnswerSheetCodec(format).encode(answers);
+            List<SubmitAnswerRequest.AnswerItem> decoded = new ArrayList<>(reader.decode(encoded).values());
+            assertEquals(answers.size(), decoded.size(), format.name());
+            for (int i = 0; i < answers.size(); i++) {
+                SubmitAnswerRequest.AnswerItem expected = answers.get(i);
+                SubmitAnswerRequest.AnswerItem actual = decoded.get(i);
+                assertEquals(expected.getQuestionId(), actual.getQuestionId(), format.name());
+                assertEquals(expected.getTimeUsedSeconds(), actual.getTimeUsedSeconds(), format.name());
+                assertEquals(expected.getAnswer(), actual.getAnswer(), format.name());
+            }
+        }
+    }
+
+    @Test
+    void deflateFallsBackToBinaryForShortSheets() {
+        String encoded = new AnswerSheetCodec(AnswerSheetCodec.Format.DEFLATE)
+                .encode(Collections.singletonList(new SubmitAnswerRequest.AnswerItem(1L, "B", null)));
+        assertTrue(encoded.startsWith("b1:"), encoded);
+    }
+
+    @Test
+    void readsLegacyJsonLeniently() {
+        AnswerSheetCodec codec = new AnswerSheetCodec();
+        Map<Long, SubmitAnswerRequest.AnswerItem> sheet = codec.decode(
+                " [{\"questionId\":1,\"answer\":\"A\",\"extra\":{\"x\":[1,2]}},{\"answer\":\"skip\"},"
+                        + "{\"questionId\":2,\"answer\":5,\"timeUsedSeconds\":\"30\"},{\"questionId\":3,\"answer\":null}]");
+        assertEquals(Arrays.asList(1L, 2L, 3L), new ArrayList<>(sheet.keySet()));
+        assertEquals("A", sheet.get(1L).getAnswer());
+        assertEquals("5", sheet.get(2L).getAnswer());
+        assertEquals(30, sheet.get(2L).getTimeUsedSeconds());
+        assertNull(sheet.get(3L).getAnswer());
+
+        // 旧版未转义的换行和制表符不截断后续作答
+        Map<Long, SubmitAnswerRequest.AnswerItem> essay = codec.decode(
+                "[{\"questionId\":7,\"answer\":\"第一段\n\t第二段\"},{\"questionId\":8,\"answer\":\"B\"}]");
+        assertEquals(Arrays.asList(7L, 8L), new ArrayList<>(essay.keySet()));
+        assertEquals("第一段\n\t第二段", essay.get(7L).getAnswer());
+        assertEquals("B", essay.get(8L).getAnswer());
+        assertTrue(codec.decode(null).isEmpty());
+        assertTrue(codec.decode("{\"questionId\":1}").isEmpty());
+        assertEquals(1, codec.decode("[{\"questionId\":1,\"answer\":\"A\"},{\"questionId\":").size());
+        assertTrue(codec.decode("z1:not-base64!").isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.oepg.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 开始考试准入：突发容量、被拒绝请求按到达顺序预约放行时刻、凭证到点放行、等待室上限、无效凭证和按考试隔离
+ */
+class ExamAdmissionLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final long T0 = 1_000_000_000_000L;
+
+    private ExamAdmissionLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new ExamAdmissionLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "ratePerSecond", 1.0);
+        ReflectionTestUtils.setField(limiter, "burst", 1);
+        ReflectionTestUtils.setField(limiter, "waitingRoom", 100);
+        ReflectionTestUtils.setField(limiter, "ticketGraceSeconds", 30L);
+    }
+
+    @Test
+    void rejectedRequestsReserveSlotsInArrivalOrder() {
+        assertTrue(limiter.admit(1L, 1L, null, T0).isAdmitted());
+        // 同一时刻被拒绝的请求各自预约下一个放行时刻，重试秒数依次错开
+        for (long student = 2; student <= 4; student++) {
+            ExamAdmissionLimiter.Admission admission = limiter.admit(1L, student, null, T0);
+            assertFalse(admission.isAdmitted());
+            assertEquals(student - 1, admission.getRetryAfterSeconds(), "student " + student);
+            assertNotNull(admission.getTicket());
+        }
+    }
+
+    @Test
+    void ticketIsHonoredAtReservedSlot() {
+        limiter.admit(1L, 1L, null, T0);
+        String ticket = limiter.admit(1L, 2L, null, T0).getTicket();
+
+        // 提前回来仍被拒绝，等待同一个预约时刻，不重新排队
+        ExamAdmissionLimiter.Admission early = limiter.admit(1L, 2L, ticket, T0 + SECOND / 2);
+        assertEquals(1, early.getRetryAfterSeconds());
+        assertEquals(ticket, early.getTicket());
+
+        // 到点时新请求排在预约之后，持凭证的请求直接放行
+        assertEquals(1, limiter.admit(1L, 3L, null, T0 + SECOND).getRetryAfterSeconds());
+        assertTrue(limiter.admit(1L, 2L, ticket, T0 + SECOND).isAdmitted());
+    }
+
+    @Test
+    void waitingRoomCapsReservations() {
+        ReflectionTestUtils.setField(limiter, "waitingRoom", 2);
+        limiter.admit(1L, 1L, null, T0);
+        String ticket = limiter.admit(1L, 2L, null, T0).getTicket();
+        assertEquals(2, limiter.admit(1L, 3L, null, T0).getRetryAfterSeconds());
+
+        // 等待室已满：不预约，提示等到有空位
+        ExamAdmissionLimiter.Admission full = limiter.admit(1L, 4L, null, T0);
+        assertEquals(1, full.getRetryAfterSeconds());
+        assertNull(full.getTicket());
+
+        // 未预约的请求没有推进理论到达时刻
+        assertTrue(limiter.admit(1L, 2L, ticket, T0 + SECOND).isAdmitted());
+        assertEquals(2, limiter.admit(1L, 4L, null, T0 + SECOND).getRetryAfterSeconds());
+    }
+
+    @Test
+    void invalidTicketsAreTreatedAsNewRequests() {
+        limiter.admit(1L, 1L, null, T0);
+        String ticket = limiter.admit(1L, 2L, null, T0).getTicket();
+        long slot = T0 + SECOND;
+
+        // 其他学生、篡改和格式错误的凭证按新请求排到队尾
+        assertEquals(1, limiter.admit(1L, 3L, ticket, slot).getRetryAfterSeconds());
+        String tampered = ticket.substring(0, ticket.length() - 2) + (ticket.endsWith("AA") ? "BB" : "AA");
+        assertEquals(2, limiter.admit(1L, 2L, tampered, slot).getRetryAfterSeconds());
+        assertEquals(3, limiter.admit(1L, 2L, "not-a-ticket", slot).getRetryAfterSeconds());
+        // 其他考试的凭证不能在本场使用
+        assertTrue(limiter.admit(2L, 8L, null, slot).isAdmitted());
+        assertFalse(limiter.admit(2L, 2L, ticket, slot).isAdmitted());
+        assertTrue(limiter.admit(1L, 2L, ticket, slot).isAdmitted());
+
+        // 超过宽限期的凭证失效
+        long expired = slot + 31 * SECOND;
+        assertTrue(limiter.admit(1L, 9L, null, expired).isAdmitted());
+        assertFalse(limiter.admit(1L, 2L, ticket, expired).isAdmitted());
+    }
+
+    @Test
+    void clientsFollowingRetryAfterAreAdmittedInOrderAtConfiguredRate() {
+        ReflectionTestUtils.setField(limiter, "ratePerSecond", 10.0);
+        ReflectionTestUtils.setField(limiter, "burst", 5);
+        // 50 个学生同时到达，被拒绝的按 Retry-After 携带凭证重试一次
+        Map<Long, Long> admittedAt = new HashMap<>();
+        Map<Long, String> tickets = new HashMap<>();
+        long lastRetry = 0;
+        for (long student = 1; student <= 50; student++) {
+            ExamAdmissionLimiter.Admission admission = limiter.admit(1L, student, null, T0);
+            if (admission.isAdmitted()) {
+                admittedAt.put(student, 0L);
+            } else {
+                // 后到的学生重试秒数不早于先到的
+                assertTrue(admission.getRetryAfterSeconds() >= lastRetry, "student " + student);
+                lastRetry = admission.getRetryAfterSeconds();
+                admittedAt.put(student, lastRetry);
+                tickets.put(student, admission.getTicket());
+            }
+        }
+        assertEquals(45, tickets.size());
+        assertEquals(5, lastRetry);
+
+        int[] perSecond = new int[(int) lastRetry + 1];
+        for (Map.Entry<Long, Long> entry : admittedAt.entrySet()) {
+            String ticket = tickets.get(entry.getKey());
+            if (ticket != null) {
+                assertTrue(limiter.admit(1L, entry.getKey(), ticket, T0 + entry.getValue() * SECOND).isAdmitted(),
+                        "student " + entry.getKey());
+            }
+            perSecond[entry.getValue().intValue()]++;
+        }
+        // 开考瞬间放行突发容量，之后每秒按速率放行
+        assertArrayEquals(new int[]{5, 10, 10, 10, 10, 5}, perSecond);
+    }
+
+    @Test
+    void examsHaveSeparateBucketsAndDisabledAdmitsAll() {
+        limiter.admit(1L, 1L, null, T0);
+        assertFalse(limiter.admit(1L, 2L, null, T0).isAdmitted());
+        assertTrue(limiter.admit(2L, 2L, null, T0).isAdmitted());
+        assertTrue(limiter.admit(null, 2L, null, T0).isAdmitted());
+
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+        assertTrue(limiter.admit(1L, 3L, null, T0).isAdmitted());
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.oepg.engine;
+
+import org.example.oepg.cache.AnswerAutosaveBuffer;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.entity.Exam;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.repository.ExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 超时交卷：按读取时的版本号写回，与自动保存写回冲突的记录重新读取后再交卷，持续冲突时留到下一个刻度
+ */
+@ExtendWith(MockitoExtension.class)
+class ExamDeadlineSchedulerTest {
+
+    private static final long EXAM_ID = 3L;
+
+    @Mock
+    private ExamRecordRepository examRecordRepository;
+
+    @Mock
+    private ExamRepository examRepository;
+
+    @Mock
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Mock
+    private AnswerAutosaveBuffer answerAutosaveBuffer;
+
+    @Mock
+    private ExamShuffler examShuffler;
+
+    @Spy
+    private AnswerSheetCodec answerSheetCodec = new AnswerSheetCodec();
+
+    @Spy
+    private ObjectiveGrader objectiveGrader = new ObjectiveGrader();
+
+    @InjectMocks
+    private ExamDeadlineScheduler scheduler;
+
+    private final AnswerSheetCodec encoder = new AnswerSheetCodec();
+
+    // 模拟数据库中的进行中记录
+    private final Map<Long, ExamRecord> ongoing = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "tickMillis", 1000L);
+        ReflectionTestUtils.setField(scheduler, "wheelSize", 64);
+        scheduler.init();
+        ongoing.put(1L, record(1L, 0, "A"));
+        ongoing.put(2L, record(2L, 0, "A"));
+        when(answerAutosaveBuffer.pending(anyLong())).thenReturn(Collections.emptyMap());
+        when(examRepository.selectBatchIds(anyCollection())).thenReturn(Collections.singletonList(
+                Exam.builder().id(EXAM_ID).endTime(LocalDateTime.now().minusMinutes(1)).build()));
+        when(examRecordRepository.findOngoingByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(ongoing::get).filter(Objects::nonNull).map(this::copy).collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void recordChangedByAutosaveFlushIsReread() {
+        List<List<ExamRecord>> writes = new ArrayList<>();
+        when(examRecordRepository.finalizeTimeoutBatch(anyList())).thenAnswer(invocation -> {
+            List<ExamRecord> batch = invocation.getArgument(0);
+            writes.add(batch);
+            if (writes.size() == 1) {
+                // 读取之后、写回之前自动保存写回了记录 2 的新答案
+                ongoing.put(2L, record(2L, 1, "B"));
+            }
+            return apply(batch);
+        });
+
+        scheduler.finalizeBatch(Arrays.asList(1L, 2L));
+
+        assertEquals(2, writes.size());
+        assertEquals(Collections.singletonList(2L), ids(writes.get(1)));
+        assertEquals(1, writes.get(1).get(0).getVersion());
+        assertEquals("B", encoder.decode(writes.get(1).get(0).getAnswers()).get(100L).getAnswer());
+        assertTrue(ongoing.isEmpty());
+        verify(answerAutosaveBuffer).discard(1L);
+        verify(answerAutosaveBuffer).discard(2L);
+        assertNull(scheduler.deadlineMillis(2L));
+    }
+
+    @Test
+    void persistentConflictIsRetriedOnNextTick() {
+        when(examRecordRepository.finalizeTimeoutBatch(anyList())).thenAnswer(invocation -> {
+            // 每次写回前记录 2 都被自动保存写回改动
+            ExamRecord current = ongoing.get(2L);
+            ongoing.put(2L, record(2L, current.getVersion() + 1, "B"));
+            return apply(invocation.getArgument(0));
+        });
+
+        scheduler.finalizeBatch(Arrays.asList(1L, 2L));
+
+        verify(examRecordRepository, times(3)).finalizeTimeoutBatch(anyList());
+        assertEquals(Collections.singleton(2L), ongoing.keySet());
+        verify(answerAutosaveBuffer).discard(1L);
+        verify(answerAutosaveBuffer, never()).discard(2L);
+        assertNotNull(scheduler.deadlineMillis(2L));
+    }
+
+    @Test
+    void submittedRecordIsNotRetried() {
+        when(examRecordRepository.finalizeTimeoutBatch(anyList())).thenAnswer(invocation -> {
+            // 学生在读取之后自行交卷
+            ongoing.remove(2L);
+            return apply(invocation.getArgument(0));
+        });
+
+        scheduler.finalizeBatch(Arrays.asList(1L, 2L));
+
+        verify(examRecordRepository, times(1)).finalizeTimeoutBatch(anyList());
+        verify(answerAutosaveBuffer).discard(1L);
+        verify(answerAutosaveBuffer).discard(2L);
+        assertNull(scheduler.deadlineMillis(2L));
+    }
+
+    // 按 WHERE status = 'ONGOING' AND version = #{item.version} 更新
+    private int apply(List<ExamRecord> batch) {
+        int updated = 0;
+        for (ExamRecord item : batch) {
+            ExamRecord current = ongoing.get(item.getId());
+            if (current != null && current.getVersion().equals(item.getVersion())) {
+                ongoing.remove(item.getId());
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private ExamRecord record(Long id, int version, String answer) {
+        String answers = encoder.encode(Collections.singletonList(new SubmitAnswerRequest.AnswerItem(100L, answer, null)));
+        return ExamRecord.builder().id(id).examId(EXAM_ID).paperId(4L).answers(answers).version(version).build();
+    }
+
+    private ExamRecord copy(ExamRecord record) {
+        return ExamRecord.builder().id(record.getId()).examId(record.getExamId()).paperId(record.getPaperId())
+                .answers(record.getAnswers()).version(record.getVersion()).build();
+    }
+
+    private static List<Long> ids(List<ExamRecord> records) {
+        return records.stream().map(ExamRecord::getId).collect(Collectors.toList());
+    }
+}
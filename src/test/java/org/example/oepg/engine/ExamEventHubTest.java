@@ -0,0 +1,128 @@
+package org.example.oepg.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * 考试事件推送：订阅后的时钟、强制交卷和到时关闭，以及重复订阅替换旧连接
+ */
+class ExamEventHubTest {
+
+    private static final long EXAM_ID = 7L;
+
+    private ExamEventHub hub;
+
+    private MockMvc mockMvc;
+
+    private LocalDateTime deadline;
+
+    @BeforeEach
+    void setUp() {
+        hub = new ExamEventHub();
+        ReflectionTestUtils.setField(hub, "tickMillis", 50L);
+        ReflectionTestUtils.setField(hub, "threads", 1);
+        ReflectionTestUtils.setField(hub, "sendThreads", 2);
+        ReflectionTestUtils.setField(hub, "sendTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(hub, "warnMinutes", 0);
+        ReflectionTestUtils.setField(hub, "maxSubscribers", 10);
+        hub.init();
+        deadline = LocalDateTime.now().plusMinutes(10);
+        mockMvc = MockMvcBuilders.standaloneSetup(new EventsController()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void clockThenForceSubmitThenTimeUp() throws Exception {
+        MvcResult result = subscribe(1L);
+        MockHttpServletResponse response = result.getResponse();
+        await(() -> count(response, "event:clock\ndata:{\"serverTime\":") >= 2);
+        assertEquals(1, hub.subscriberCount());
+        assertTrue(response.getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+
+        // 没有事务时立即推送；截止时间提前到 200 毫秒后
+        long forced = System.currentTimeMillis() + 200;
+        hub.forceSubmitAfterCommit(EXAM_ID, LocalDateTime.now().plusNanos(200_000_000L));
+        await(() -> count(response, "event:force-submit\n") == 1);
+        await(() -> count(response, "event:time-up\n") == 1);
+        await(() -> hub.subscriberCount() == 0);
+
+        String content = response.getContentAsString();
+        assertTrue(content.indexOf("event:force-submit") < content.indexOf("event:time-up"));
+        assertTrue(content.endsWith("\n\n"));
+        long deadlineInTimeUp = Long.parseLong(content.replaceAll("(?s).*event:time-up\ndata:.*\"deadline\":(\\d+).*", "$1"));
+        assertTrue(Math.abs(deadlineInTimeUp - forced) < 1000);
+    }
+
+    @Test
+    void resubscribeClosesPreviousConnection() throws Exception {
+        MvcResult first = subscribe(2L);
+        await(() -> count(first.getResponse(), "event:clock\n") >= 1);
+        MvcResult second = subscribe(2L);
+        await(() -> count(second.getResponse(), "event:clock\n") >= 1);
+
+        assertEquals(1, hub.subscriberCount());
+        int before = count(first.getResponse(), "event:");
+        Thread.sleep(200);
+        // 旧连接不再收到事件，新连接继续收到时钟
+        assertEquals(before, count(first.getResponse(), "event:"));
+        await(() -> count(second.getResponse(), "event:clock\n") >= 3);
+    }
+
+    private MvcResult subscribe(Long recordId) throws Exception {
+        return mockMvc.perform(get("/exams/{examId}/events/{recordId}", EXAM_ID, recordId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static int count(MockHttpServletResponse response, String token) {
+        try {
+            String content = response.getContentAsString();
+            int count = 0;
+            for (int i = content.indexOf(token); i >= 0; i = content.indexOf(token, i + token.length())) {
+                count++;
+            }
+            return count;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > until) {
+                fail("等待事件超时");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @RestController
+    class EventsController {
+        @GetMapping("/exams/{examId}/events/{recordId}")
+        public ExamEventEmitter events(@PathVariable Long examId, @PathVariable Long recordId) {
+            return hub.subscribe(examId, recordId, deadline);
+        }
+    }
+}
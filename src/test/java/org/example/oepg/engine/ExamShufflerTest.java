@@ -0,0 +1,147 @@
+package org.example.oepg.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题目与选项乱序：排列的确定性，以及乱序作答还原为原始选项字母的往返一致性
+ */
+class ExamShufflerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ExamShuffler shuffler;
+
+    @BeforeEach
+    void setUp() {
+        shuffler = new ExamShuffler();
+        ReflectionTestUtils.setField(shuffler, "shuffleQuestions", true);
+        ReflectionTestUtils.setField(shuffler, "shuffleOptions", true);
+    }
+
+    @Test
+    void permutationIsDeterministicAndComplete() {
+        for (int n = 1; n <= 12; n++) {
+            for (long recordId = 1; recordId <= 50; recordId++) {
+                long seed = shuffler.seed(recordId, 9L);
+                int[] permutation = shuffler.permutation(seed, n);
+                assertArrayEquals(permutation, shuffler.permutation(seed, n));
+                assertEquals(IntStream.range(0, n).boxed().collect(Collectors.toSet()),
+                        Arrays.stream(permutation).boxed().collect(Collectors.toSet()));
+            }
+        }
+        List<Integer> questions = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        List<Integer> shuffled = shuffler.shuffleQuestions(shuffler.seed(1L, 9L), questions);
+        assertEquals(new HashSet<>(questions), new HashSet<>(shuffled));
+        assertNotEquals(shuffled, shuffler.shuffleQuestions(shuffler.seed(2L, 9L), questions));
+    }
+
+    @Test
+    void restoreRoundTripsEveryAnswerSubset() throws Exception {
+        String options = "[{\"label\":\"A\",\"text\":\"t0\"},{\"label\":\"B\",\"text\":\"t1\"},"
+                + "{\"label\":\"C\",\"text\":\"t2\"},{\"label\":\"D\",\"text\":\"t3\"},{\"label\":\"E\",\"text\":\"t4\"}]";
+        for (long recordId = 1; recordId <= 20; recordId++) {
+            long seed = shuffler.seed(recordId, 9L);
+            JsonNode shown = objectMapper.readTree(shuffler.shuffleOptions(seed, 5L, options));
+            assertEquals(5, shown.size());
+            for (int subset = 1; subset < 32; subset++) {
+                // 学生看到的是乱序后的字母，按显示顺序升序作答
+                List<String> original = new ArrayList<>();
+                List<String> displayed = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    if ((subset & (1 << i)) != 0) {
+                        original.add(String.valueOf((char) ('A' + i)));
+                    }
+                    int shownOriginal = shown.get(i).get("text").asText().charAt(1) - '0';
+                    assertEquals(String.valueOf((char) ('A' + i)), shown.get(i).get("label").asText());
+                    if ((subset & (1 << shownOriginal)) != 0) {
+                        displayed.add(String.valueOf((char) ('A' + i)));
+                    }
+                }
+                assertEquals(String.join(",", original),
+                        shuffler.restoreChoiceAnswer(seed, 5L, 5, String.join(",", displayed)));
+                assertEquals(String.join(", ", original),
+                        shuffler.restoreChoiceAnswer(seed, 5L, 5, String.join(", ", displayed)));
+                assertEquals(String.join("", original),
+                        shuffler.restoreChoiceAnswer(seed, 5L, 5, String.join("", displayed)));
+            }
+        }
+    }
+
+    @Test
+    void restoreKeepsSeparatorsAndMatchesAnswerKey() {
+        long seed = shuffler.seed(3L, 9L);
+        char first = shuffler.restoreChoiceAnswer(seed, 5L, 4, "A").charAt(0);
+        char second = shuffler.restoreChoiceAnswer(seed, 5L, 4, "B").charAt(0);
+        char low = (char) Math.min(first, second);
+        char high = (char) Math.max(first, second);
+
+        assertEquals(" " + Character.toLowerCase(low) + " ,  " + Character.toLowerCase(high) + " ",
+                shuffler.restoreChoiceAnswer(seed, 5L, 4, " a ,  b "));
+        assertEquals(low + "," + high, shuffler.restoreChoiceAnswer(seed, 5L, 4, "B,A"));
+        assertTrue(AnswerKey.compile(Question.QuestionType.CHOICE, low + "," + high)
+                .matches(shuffler.restoreChoiceAnswer(seed, 5L, 4, "A,B")));
+    }
+
+    @Test
+    void anyNonLetterIsKeptAsSeparator() {
+        long seed = shuffler.seed(3L, 9L);
+        char first = shuffler.restoreChoiceAnswer(seed, 5L, 4, "A").charAt(0);
+        char third = shuffler.restoreChoiceAnswer(seed, 5L, 4, "C").charAt(0);
+        char low = (char) Math.min(first, third);
+        char high = (char) Math.max(first, third);
+
+        assertEquals(low + "、" + high, shuffler.restoreChoiceAnswer(seed, 5L, 4, "A、C"));
+        assertEquals(low + ";" + high, shuffler.restoreChoiceAnswer(seed, 5L, 4, "A;C"));
+        assertEquals(low + "|" + high, shuffler.restoreChoiceAnswer(seed, 5L, 4, "C|A"));
+        assertEquals(low + "，" + high, shuffler.restoreChoiceAnswer(seed, 5L, 4, "A，C"));
+        assertEquals("(" + first + ")", shuffler.restoreChoiceAnswer(seed, 5L, 4, "(A)"));
+    }
+
+    @Test
+    void unrecognizedOrDisabledAnswersAreUnchanged() {
+        long seed = shuffler.seed(3L, 9L);
+        assertEquals("A,F", shuffler.restoreChoiceAnswer(seed, 5L, 4, "A,F"));
+        assertEquals("不知道", shuffler.restoreChoiceAnswer(seed, 5L, 4, "不知道"));
+        assertEquals("选A", shuffler.restoreChoiceAnswer(seed, 5L, 4, "选A"));
+        assertNull(shuffler.restoreChoiceAnswer(seed, 5L, 4, null));
+        assertEquals("B", shuffler.restoreChoiceAnswer(seed, 5L, 1, "B"));
+
+        ReflectionTestUtils.setField(shuffler, "shuffleOptions", false);
+        assertEquals("A, C", shuffler.restoreChoiceAnswer(seed, 5L, 4, "A, C"));
+        assertEquals("[1,2]", shuffler.shuffleOptions(seed, 5L, "[1,2]"));
+    }
+
+    @Test
+    void restoreAnswersOnlyTouchesChoiceQuestions() {
+        PaperSnapshot.Item choice = PaperSnapshot.Item.builder().questionId(5L)
+                .type(Question.QuestionType.CHOICE).optionCount(4).build();
+        PaperSnapshot.Item blank = PaperSnapshot.Item.builder().questionId(6L)
+                .type(Question.QuestionType.FILL_BLANK).build();
+        Map<Long, PaperSnapshot.Item> items = new HashMap<>();
+        items.put(5L, choice);
+        items.put(6L, blank);
+        PaperSnapshot paper = new PaperSnapshot(9L, 1L, 10, ExamPaper.PaperStatus.PUBLISHED,
+                Arrays.asList(choice, blank), items);
+
+        List<SubmitAnswerRequest.AnswerItem> answers = Arrays.asList(
+                new SubmitAnswerRequest.AnswerItem(5L, "A", null),
+                new SubmitAnswerRequest.AnswerItem(6L, "A", null));
+        shuffler.restoreAnswers(3L, paper, answers);
+        assertEquals(shuffler.restoreChoiceAnswer(shuffler.seed(3L, 9L), 5L, 4, "A"), answers.get(0).getAnswer());
+        assertEquals("A", answers.get(1).getAnswer());
+    }
+}
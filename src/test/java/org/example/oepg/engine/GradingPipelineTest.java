@@ -0,0 +1,187 @@
+package org.example.oepg.engine;
+
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.entity.Question;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步批改流水线：按试卷分组批改并一次写回、入队去重与队列满、补偿扫描重新入队、批次失败后的恢复
+ */
+@ExtendWith(MockitoExtension.class)
+class GradingPipelineTest {
+
+    @Mock
+    private ExamRecordRepository examRecordRepository;
+
+    @Mock
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Spy
+    private AnswerSheetCodec answerSheetCodec = new AnswerSheetCodec();
+
+    @Spy
+    private ObjectiveGrader objectiveGrader = new ObjectiveGrader();
+
+    @InjectMocks
+    private GradingPipeline pipeline;
+
+    // 构造答题卡用，不经过 spy，避免在 stub 过程中调用
+    private final AnswerSheetCodec encoder = new AnswerSheetCodec();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pipeline, "workers", 1);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 3);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 10);
+        // 未调用 init 的用例不启动批改线程，只使用队列
+        ReflectionTestUtils.setField(pipeline, "queue", new ArrayBlockingQueue<Long>(3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ReflectionTestUtils.getField(pipeline, "executor") != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void gradeBatchGroupsByPaperAndWritesOnce() {
+        // 试卷 1 含主观题，试卷 2 只有客观题，试卷 3 已被删除
+        when(paperSnapshotCache.get(1L)).thenReturn(paper(1L, true));
+        when(paperSnapshotCache.get(2L)).thenReturn(paper(2L, false));
+        when(examRecordRepository.findUngradedByIds(anyCollection())).thenReturn(Arrays.asList(
+                record(11L, 1L, "A"), record(12L, 2L, "A"), record(13L, 2L, "B"), record(14L, 3L, "A")));
+
+        pipeline.gradeBatch(Arrays.asList(11L, 12L, 13L, 14L));
+
+        Map<Long, ExamRecord> written = captureWritten(1).get(0).stream()
+                .collect(Collectors.toMap(ExamRecord::getId, r -> r));
+        assertEquals(4, written.size());
+        assertResult(written.get(11L), 5, ExamRecord.RecordStatus.SUBMITTED);
+        assertResult(written.get(12L), 5, ExamRecord.RecordStatus.GRADED);
+        assertResult(written.get(13L), 0, ExamRecord.RecordStatus.GRADED);
+        assertResult(written.get(14L), 0, ExamRecord.RecordStatus.SUBMITTED);
+        verify(paperSnapshotCache, times(1)).get(2L);
+        assertEquals(4, pipeline.stats().getGradedRecords());
+    }
+
+    @Test
+    void alreadyGradedRecordsAreSkipped() {
+        when(examRecordRepository.findUngradedByIds(anyCollection())).thenReturn(Collections.emptyList());
+        pipeline.gradeBatch(Collections.singletonList(11L));
+        verify(examRecordRepository, never()).updateGradingResultBatch(anyList());
+    }
+
+    @Test
+    void enqueueDeduplicatesAndRecoverRefillsWhenQueueFull() {
+        assertTrue(pipeline.enqueue(1L));
+        assertTrue(pipeline.enqueue(1L));
+        assertTrue(pipeline.enqueue(2L));
+        assertTrue(pipeline.enqueue(3L));
+        assertFalse(pipeline.enqueue(4L));
+        assertFalse(pipeline.isPending(4L));
+        assertEquals(3, pipeline.stats().getQueueDepth());
+
+        // 队列满时补偿扫描不查询数据库
+        pipeline.recover();
+        verifyNoInteractions(examRecordRepository);
+
+        // 模拟批改线程取走第 1 条记录并批改完成
+        @SuppressWarnings("unchecked")
+        ArrayBlockingQueue<Long> queue = (ArrayBlockingQueue<Long>) ReflectionTestUtils.getField(pipeline, "queue");
+        @SuppressWarnings("unchecked")
+        Map<Long, Long> enqueuedAt = (Map<Long, Long>) ReflectionTestUtils.getField(pipeline, "enqueuedAt");
+        enqueuedAt.remove(queue.poll());
+        when(examRecordRepository.findUngradedIds(anyInt())).thenReturn(Arrays.asList(2L, 4L, 5L));
+        pipeline.recover();
+        assertTrue(pipeline.isPending(4L));
+        assertFalse(pipeline.isPending(5L));
+        assertEquals(Arrays.asList(2L, 3L, 4L), new ArrayList<>(queue));
+    }
+
+    @Test
+    void workersGradeQueuedRecordsAndRecoverAfterFailedBatch() throws Exception {
+        when(paperSnapshotCache.get(2L)).thenReturn(paper(2L, false));
+        when(examRecordRepository.findUngradedByIds(anyCollection()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenAnswer(invocation -> {
+                    Collection<Long> ids = invocation.getArgument(0);
+                    return ids.stream().map(id -> record(id, 2L, "A")).collect(Collectors.toList());
+                });
+        pipeline.init();
+
+        assertTrue(pipeline.enqueue(21L));
+        await(() -> pipeline.stats().getFailedBatches() == 1 && !pipeline.isPending(21L));
+
+        // 失败批次的记录由补偿扫描重新入队
+        when(examRecordRepository.findUngradedIds(anyInt())).thenReturn(Collections.singletonList(21L));
+        pipeline.recover();
+        await(() -> pipeline.stats().getGradedRecords() == 1);
+
+        ExamRecord written = captureWritten(1).get(0).get(0);
+        assertResult(written, 5, ExamRecord.RecordStatus.GRADED);
+        await(() -> pipeline.stats().getInFlight() == 0);
+    }
+
+    private List<List<ExamRecord>> captureWritten(int times) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExamRecord>> captor = ArgumentCaptor.forClass(List.class);
+        verify(examRecordRepository, times(times)).updateGradingResultBatch(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static void assertResult(ExamRecord record, int score, ExamRecord.RecordStatus status) {
+        assertEquals(score, record.getScore(), "record " + record.getId());
+        assertEquals(status, record.getStatus(), "record " + record.getId());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    private ExamRecord record(Long id, Long paperId, String choice) {
+        List<SubmitAnswerRequest.AnswerItem> answers = new ArrayList<>();
+        answers.add(new SubmitAnswerRequest.AnswerItem(100L, choice, null));
+        answers.add(new SubmitAnswerRequest.AnswerItem(101L, "主观作答", null));
+        return ExamRecord.builder().id(id).paperId(paperId).answers(encoder.encode(answers)).build();
+    }
+
+    private static PaperSnapshot paper(Long paperId, boolean withSubjective) {
+        List<PaperSnapshot.Item> items = new ArrayList<>();
+        items.add(PaperSnapshot.Item.builder().questionId(100L).type(Question.QuestionType.CHOICE).score(5)
+                .answerKey(AnswerKey.compile(Question.QuestionType.CHOICE, "A")).build());
+        if (withSubjective) {
+            items.add(PaperSnapshot.Item.builder().questionId(101L).type(Question.QuestionType.SHORT_ANSWER).score(10).build());
+        }
+        Map<Long, PaperSnapshot.Item> byId = items.stream()
+                .collect(Collectors.toMap(PaperSnapshot.Item::getQuestionId, item -> item));
+        return new PaperSnapshot(paperId, 1L, 15, ExamPaper.PaperStatus.PUBLISHED, items, byId);
+    }
+}
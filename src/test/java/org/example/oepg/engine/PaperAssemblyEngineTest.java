@@ -0,0 +1,127 @@
+package org.example.oepg.engine;
+
+import org.example.oepg.entity.Question;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 约束组卷引擎：可行约束下的结果逐项满足约束，不可行约束下在时间预算内返回最优近似解
+ */
+class PaperAssemblyEngineTest {
+
+    private static final Question.QuestionType[] TYPES = Question.QuestionType.values();
+
+    private PaperAssemblyEngine engine;
+
+    private List<Question> candidates;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PaperAssemblyEngine();
+        ReflectionTestUtils.setField(engine, "parallelism", 2);
+        ReflectionTestUtils.setField(engine, "populationSize", 64);
+        engine.init();
+
+        candidates = new ArrayList<>();
+        for (long id = 1; id <= 80; id++) {
+            // 分类 1~4，四种题型轮流，分值 2~6，难度 1~5
+            candidates.add(Question.builder().id(id).categoryId(1 + id % 4).type(TYPES[(int) (id % 4)])
+                    .score(2 + (int) (id % 5)).difficulty(1 + (int) ((id / 4) % 5)).build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void feasibleConstraintsAreAllSatisfied() {
+        Map<Question.QuestionType, Double> maxRatios = Collections.singletonMap(Question.QuestionType.PROOF, 0.2);
+        Map<Question.QuestionType, Integer> minCounts = Collections.singletonMap(Question.QuestionType.CHOICE, 3);
+        PaperAssemblyEngine.Constraints constraints = PaperAssemblyEngine.Constraints.builder()
+                .questionCount(10)
+                .targetScore(40)
+                .targetDifficulty(3.0)
+                .coverCategoryIds(Arrays.asList(1L, 2L, 3L, 4L))
+                .maxTypeRatios(maxRatios)
+                .minTypeCounts(minCounts)
+                .seed(7L)
+                .build();
+
+        PaperAssemblyEngine.Result result = engine.assemble(candidates, constraints, 5000);
+
+        assertEquals(0, result.getPenalty());
+        List<Question> picked = resolve(result.getQuestionIds());
+        assertEquals(10, picked.size());
+        assertEquals(40, picked.stream().mapToInt(Question::getScore).sum());
+        assertEquals(3.0, picked.stream().mapToInt(Question::getDifficulty).average().orElse(0), 0.05);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L, 4L)),
+                picked.stream().map(Question::getCategoryId).collect(Collectors.toSet()));
+        assertTrue(count(picked, Question.QuestionType.PROOF) <= 2);
+        assertTrue(count(picked, Question.QuestionType.CHOICE) >= 3);
+    }
+
+    @Test
+    void sameSeedGivesSameResult() {
+        PaperAssemblyEngine.Constraints constraints = PaperAssemblyEngine.Constraints.builder()
+                .questionCount(12).targetScore(50).seed(11L).build();
+        assertEquals(engine.assemble(candidates, constraints, 5000).getQuestionIds(),
+                engine.assemble(candidates, constraints, 5000).getQuestionIds());
+    }
+
+    @Test
+    void infeasibleConstraintsReturnBestEffortWithinBudget() {
+        // 10 道题最多 60 分，且候选中没有覆盖分类 9 的题目
+        PaperAssemblyEngine.Constraints constraints = PaperAssemblyEngine.Constraints.builder()
+                .questionCount(10)
+                .targetScore(1000)
+                .coverCategoryIds(Arrays.asList(1L, 9L))
+                .minTypeCounts(Collections.singletonMap(Question.QuestionType.PROOF, 11))
+                .seed(3L)
+                .build();
+
+        PaperAssemblyEngine.Result result = engine.assemble(candidates, constraints, 300);
+
+        assertTrue(result.getPenalty() > 0);
+        assertTrue(result.getElapsedMillis() < 2000, "elapsed " + result.getElapsedMillis());
+        List<Question> picked = resolve(result.getQuestionIds());
+        assertEquals(10, picked.size());
+    }
+
+    @Test
+    void tooFewOrNoCandidates() {
+        PaperAssemblyEngine.Constraints constraints = PaperAssemblyEngine.Constraints.builder()
+                .questionCount(10).targetScore(20).seed(1L).build();
+
+        PaperAssemblyEngine.Result few = engine.assemble(candidates.subList(0, 4), constraints, 200);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L, 4L)), new HashSet<>(few.getQuestionIds()));
+        assertTrue(few.getPenalty() > 0);
+
+        PaperAssemblyEngine.Result none = engine.assemble(Collections.emptyList(), constraints, 200);
+        assertTrue(none.getQuestionIds().isEmpty());
+        assertEquals(Double.MAX_VALUE, none.getPenalty());
+    }
+
+    private List<Question> resolve(List<Long> ids) {
+        Map<Long, Question> byId = candidates.stream().collect(Collectors.toMap(Question::getId, Function.identity()));
+        assertEquals(ids.size(), new HashSet<>(ids).size(), "duplicate question in " + ids);
+        return ids.stream().map(id -> {
+            Question question = byId.get(id);
+            assertNotNull(question, "unknown question " + id);
+            return question;
+        }).collect(Collectors.toList());
+    }
+
+    private static long count(List<Question> questions, Question.QuestionType type) {
+        return questions.stream().filter(q -> q.getType() == type).count();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.oepg.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮到期顺序与取消测试
+ */
+class TimingWheelTest {
+
+    @Test
+    void expiresEachEntryAtItsTickAcrossLevels() {
+        // 每层 4 格：第 0 层 4 个刻度，第 1 层 16 个，第 2 层 64 个，超出后继续加层
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 0);
+        Random random = new Random(3);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + random.nextInt(5000);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+
+        Map<Integer, Long> expiredAt = new HashMap<>();
+        for (long now = 0; now <= 5010; now += 10) {
+            long at = now;
+            wheel.advance(now, key -> assertNull(expiredAt.put(key, at)));
+        }
+
+        assertEquals(deadlines.size(), expiredAt.size());
+        deadlines.forEach((key, deadline) -> {
+            long expected = (deadline + 9) / 10 * 10; // 向上取整到刻度
+            assertEquals(expected, expiredAt.get(key), () -> "key " + key + " deadline " + deadline);
+        });
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledEntriesFireOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 8, 100);
+        wheel.schedule("a", 150);
+        wheel.schedule("b", 150);
+        wheel.schedule("c", 90); // 已过期，下一个刻度到期
+        wheel.cancel("b");
+        wheel.schedule("a", 300);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(101, expired::add);
+        assertEquals(Collections.singletonList("c"), expired);
+
+        wheel.advance(299, expired::add);
+        assertEquals(Collections.singletonList("c"), expired);
+        assertTrue(wheel.contains("a"));
+
+        wheel.advance(1000, expired::add);
+        assertEquals(Arrays.asList("c", "a"), expired);
+        assertFalse(wheel.contains("a"));
+    }
+}
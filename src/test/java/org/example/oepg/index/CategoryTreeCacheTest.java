@@ -0,0 +1,74 @@
+package org.example.oepg.index;
+
+import org.example.oepg.entity.QuestionCategory;
+import org.example.oepg.repository.QuestionCategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分类子树缓存：后代闭包的计算、懒加载只查询一次，以及重建后反映分类变更
+ */
+@ExtendWith(MockitoExtension.class)
+class CategoryTreeCacheTest {
+
+    @Mock
+    private QuestionCategoryRepository categoryRepository;
+
+    @InjectMocks
+    private CategoryTreeCache cache;
+
+    @Test
+    void descendantsIncludeWholeSubtreeAndSelf() {
+        // 1 -> {2, 3}, 2 -> {4, 5}, 5 -> {6}；7 为另一棵树
+        when(categoryRepository.selectList(any())).thenReturn(Arrays.asList(
+                category(1L, null), category(2L, 1L), category(3L, 1L), category(4L, 2L),
+                category(5L, 2L), category(6L, 5L), category(7L, null)));
+
+        assertEquals(set(1L, 2L, 3L, 4L, 5L, 6L), cache.descendantsOf(1L));
+        assertEquals(set(2L, 4L, 5L, 6L), cache.descendantsOf(2L));
+        assertEquals(set(6L), cache.descendantsOf(6L));
+        assertEquals(set(7L), cache.descendantsOf(7L));
+        // 不存在的分类只返回自身
+        assertEquals(set(99L), cache.descendantsOf(99L));
+        // 首次访问时加载，之后不再查询数据库
+        verify(categoryRepository, times(1)).selectList(any());
+    }
+
+    @Test
+    void cyclicParentsDoNotLoop() {
+        when(categoryRepository.selectList(any())).thenReturn(Arrays.asList(
+                category(1L, 3L), category(2L, 1L), category(3L, 2L), category(4L, 3L)));
+
+        assertEquals(set(1L, 2L, 3L, 4L), cache.descendantsOf(1L));
+        assertEquals(set(4L), cache.descendantsOf(4L));
+    }
+
+    @Test
+    void rebuildReflectsMovedCategories() {
+        when(categoryRepository.selectList(any()))
+                .thenReturn(Arrays.asList(category(1L, null), category(2L, 1L), category(3L, 2L)))
+                .thenReturn(Arrays.asList(category(1L, null), category(2L, 1L), category(3L, null)));
+
+        assertEquals(set(1L, 2L, 3L), cache.descendantsOf(1L));
+        cache.rebuild();
+        assertEquals(set(1L, 2L), cache.descendantsOf(1L));
+        assertEquals(set(3L), cache.descendantsOf(3L));
+    }
+
+    private static QuestionCategory category(Long id, Long parentId) {
+        return QuestionCategory.builder().id(id).parentId(parentId).build();
+    }
+
+    private static Set<Long> set(Long... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.oepg.index;
+
+import org.example.oepg.entity.QuestionUsage;
+import org.example.oepg.repository.QuestionUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 题目曝光计数：历史加载、发布累加、低曝光权重，以及增量分批写入和失败重试
+ */
+@ExtendWith(MockitoExtension.class)
+class QuestionExposureTrackerTest {
+
+    @Mock
+    private QuestionUsageRepository questionUsageRepository;
+
+    @InjectMocks
+    private QuestionExposureTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tracker, "batchSize", 2);
+    }
+
+    @Test
+    void loadAndPublishAccumulateExposure() {
+        tracker.load(Arrays.asList(usage(1L, 3L), usage(2L, 1L), usage(null, 5L)));
+        assertEquals(1, tracker.version());
+        tracker.recordPublished(Arrays.asList(1L, 3L, null));
+
+        assertEquals(4, tracker.exposure(1L));
+        assertEquals(1, tracker.exposure(2L));
+        assertEquals(1, tracker.exposure(3L));
+        assertEquals(0, tracker.exposure(4L));
+        assertEquals(0.2, tracker.weight(1L), 1e-12);
+        assertEquals(1.0, tracker.weight(4L), 1e-12);
+        // 发布只改计数不改版本号，别名表在下次写入后才重建
+        assertEquals(1, tracker.version());
+    }
+
+    @Test
+    void flushWritesOnlyIncrementsInBatches() {
+        tracker.load(Collections.singletonList(usage(1L, 10L)));
+        tracker.recordPublished(Arrays.asList(1L, 2L, 3L));
+        tracker.recordPublished(Arrays.asList(1L, 4L, 5L));
+
+        tracker.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<QuestionUsage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(questionUsageRepository, times(3)).upsertIncrements(captor.capture());
+        Map<Long, Long> written = new HashMap<>();
+        for (List<QuestionUsage> batch : captor.getAllValues()) {
+            assertTrue(batch.size() <= 2);
+            batch.forEach(u -> written.merge(u.getQuestionId(), u.getUsageCount(), Long::sum));
+        }
+        Map<Long, Long> expected = new HashMap<>();
+        expected.put(1L, 2L);
+        expected.put(2L, 1L);
+        expected.put(3L, 1L);
+        expected.put(4L, 1L);
+        expected.put(5L, 1L);
+        assertEquals(expected, written);
+        assertEquals(2, tracker.version());
+
+        // 没有新增量时不访问数据库
+        tracker.flush();
+        verifyNoMoreInteractions(questionUsageRepository);
+        assertEquals(12, tracker.exposure(1L));
+    }
+
+    @Test
+    void failedBatchesAreRetriedOnNextFlush() {
+        ReflectionTestUtils.setField(tracker, "batchSize", 3);
+        tracker.recordPublished(Arrays.asList(1L, 2L, 3L, 4L));
+        // 第一批 3 道题写入成功，第二批 1 道题失败，连同新增量在下次写入
+        when(questionUsageRepository.upsertIncrements(anyList()))
+                .thenReturn(3)
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+
+        tracker.flush();
+        tracker.recordPublished(Collections.singletonList(4L));
+        tracker.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<QuestionUsage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(questionUsageRepository, times(3)).upsertIncrements(captor.capture());
+        Map<Long, Long> written = new HashMap<>();
+        List<List<QuestionUsage>> calls = captor.getAllValues();
+        for (List<QuestionUsage> batch : Arrays.asList(calls.get(0), calls.get(2))) {
+            batch.forEach(u -> written.merge(u.getQuestionId(), u.getUsageCount(), Long::sum));
+        }
+        assertEquals(4, written.size());
+        assertEquals(1L, written.get(1L));
+        assertEquals(1L, written.get(2L));
+        assertEquals(1L, written.get(3L));
+        assertEquals(2L, written.get(4L));
+    }
+
+    private static QuestionUsage usage(Long questionId, Long count) {
+        return QuestionUsage.builder().questionId(questionId).usageCount(count).build();
+    }
+}
@@ -0,0 +1,215 @@
+package org.example.oepg.index;
+
+import org.example.oepg.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题目池索引的条件过滤、随机抽题、按曝光加权抽题、增量维护和初始加载期间的变更重放
+ */
+class QuestionPoolIndexTest {
+
+    private static final Question.QuestionType CHOICE = Question.QuestionType.CHOICE;
+    private static final Question.QuestionType BLANK = Question.QuestionType.FILL_BLANK;
+
+    @Test
+    void countsAndSamplesOnlyMatchingQuestions() {
+        QuestionPoolIndex index = new QuestionPoolIndex();
+        List<Question> questions = new ArrayList<>();
+        for (long id = 1; id <= 60; id++) {
+            questions.add(question(id, id % 3 + 1, id % 2 == 0 ? CHOICE : BLANK, (int) (id % 5) + 1));
+        }
+        index.rebuild(questions);
+
+        assertTrue(index.isReady());
+        assertEquals(60, index.count(null, null, null));
+        assertEquals(30, index.count(null, CHOICE, null));
+        assertEquals(20, index.count(Collections.singleton(1L), null, null));
+        assertEquals(40, index.count(Arrays.asList(1L, 2L), null, null));
+        assertEquals(expected(questions, 2L, CHOICE, 3).size(), index.count(Collections.singleton(2L), CHOICE, 3));
+        assertEquals(0, index.count(Collections.singleton(9L), null, null));
+
+        Set<Long> candidates = new HashSet<>(expected(questions, 1L, CHOICE, null));
+        candidates.addAll(expected(questions, 2L, CHOICE, null));
+        for (int round = 0; round < 50; round++) {
+            List<Long> sampled = index.sample(Arrays.asList(1L, 2L), CHOICE, null, 8, Collections.emptySet());
+            assertEquals(8, sampled.size());
+            assertEquals(8, new HashSet<>(sampled).size());
+            assertTrue(candidates.containsAll(sampled));
+        }
+        // 候选不足时返回全部，exclude 中的题目被跳过
+        Set<Long> all = expected(questions, 2L, CHOICE, 3);
+        Long excluded = all.iterator().next();
+        List<Long> rest = index.sample(Collections.singleton(2L), CHOICE, 3, 100, Collections.singleton(excluded));
+        Set<Long> remaining = new HashSet<>(all);
+        remaining.remove(excluded);
+        assertEquals(remaining, new HashSet<>(rest));
+        assertTrue(index.sample(9L, null, null, 5).isEmpty());
+    }
+
+    @Test
+    void sampleIsRoughlyUniform() {
+        QuestionPoolIndex index = new QuestionPoolIndex();
+        List<Question> questions = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            // 分散在两个题目池中，验证跨池的虚拟数组
+            questions.add(question(id, id <= 5 ? 1L : 2L, CHOICE, 1));
+        }
+        index.rebuild(questions);
+
+        Map<Long, Integer> hits = new HashMap<>();
+        int rounds = 20_000;
+        for (int i = 0; i < rounds; i++) {
+            for (Long id : index.sample(null, CHOICE, 1, 2, Collections.emptySet())) {
+                hits.merge(id, 1, Integer::sum);
+            }
+        }
+        double expected = rounds * 2 / 20.0;
+        for (long id = 1; id <= 20; id++) {
+            assertEquals(expected, hits.getOrDefault(id, 0), expected * 0.1, "question " + id);
+        }
+    }
+
+    @Test
+    void incrementalUpdatesMatchReferenceModel() {
+        QuestionPoolIndex index = new QuestionPoolIndex();
+        Map<Long, Question> model = new HashMap<>();
+        List<Question> initial = new ArrayList<>();
+        Random random = new Random(5);
+        for (long id = 1; id <= 200; id++) {
+            Question q = question(id, 1L + random.nextInt(3), random.nextBoolean() ? CHOICE : BLANK, 1 + random.nextInt(2));
+            initial.add(q);
+            model.put(id, q);
+        }
+        index.rebuild(initial);
+
+        for (int op = 0; op < 3000; op++) {
+            long id = 1 + random.nextInt(260);
+            switch (random.nextInt(3)) {
+                case 0:
+                    Question q = question(id, 1L + random.nextInt(3), random.nextBoolean() ? CHOICE : BLANK, 1 + random.nextInt(2));
+                    index.put(q);
+                    model.put(id, q);
+                    break;
+                case 1:
+                    index.remove(id);
+                    model.remove(id);
+                    break;
+                default:
+                    long categoryId = 1L + random.nextInt(3);
+                    index.updateCategory(Collections.singleton(id), categoryId);
+                    Question old = model.get(id);
+                    if (old != null) {
+                        model.put(id, question(id, categoryId, old.getType(), old.getDifficulty()));
+                    }
+            }
+        }
+
+        for (long categoryId = 1; categoryId <= 3; categoryId++) {
+            for (Question.QuestionType type : Arrays.asList(CHOICE, BLANK)) {
+                for (int difficulty = 1; difficulty <= 2; difficulty++) {
+                    Set<Long> expected = expected(model.values(), categoryId, type, difficulty);
+                    assertEquals(expected.size(), index.count(Collections.singleton(categoryId), type, difficulty));
+                    assertEquals(expected, new HashSet<>(index.sample(Collections.singleton(categoryId), type, difficulty,
+                            1000, Collections.emptySet())));
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesDuringInitialLoadAreReplayedAfterRebuild() {
+        QuestionPoolIndex index = new QuestionPoolIndex();
+        // 扫描已读到第 1、2 题之后发生的修改
+        index.put(question(1L, 2L, CHOICE, 1));
+        index.remove(2L);
+        index.put(question(3L, 1L, CHOICE, 1));
+        index.updateCategory(Collections.singleton(3L), 3L);
+        assertFalse(index.isReady());
+        assertEquals(0, index.count(null, null, null));
+
+        index.rebuild(Arrays.asList(question(1L, 1L, CHOICE, 1), question(2L, 1L, CHOICE, 1)));
+
+        assertEquals(0, index.count(Collections.singleton(1L), null, null));
+        assertEquals(Collections.singletonList(1L), index.sample(2L, null, null, 10));
+        assertEquals(Collections.singletonList(3L), index.sample(3L, null, null, 10));
+        assertEquals(2, index.count(null, null, null));
+    }
+
+    @Test
+    void weightedSamplingFollowsWeights() {
+        QuestionPoolIndex index = new QuestionPoolIndex();
+        List<Question> questions = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            questions.add(question(id, 1L, CHOICE, 1));
+        }
+        index.rebuild(questions);
+
+        // 只有偶数题有权重，抽 3 道时不会抽到奇数题
+        for (int i = 0; i < 200; i++) {
+            List<Long> picked = index.sampleWeighted(null, CHOICE, 1, 3, Collections.emptySet(),
+                    id -> id % 2 == 0 ? 1.0 : 0.0, 1);
+            assertEquals(3, new HashSet<>(picked).size());
+            picked.forEach(id -> assertEquals(0, id % 2));
+        }
+        // 权重全为 0 时退化为等概率抽取
+        assertEquals(10, new HashSet<>(index.sampleWeighted(null, CHOICE, 1, 10, Collections.emptySet(),
+                id -> 0.0, 2)).size());
+    }
+
+    @Test
+    void lowExposureQuestionsAreSampledProportionallyToWeight() {
+        QuestionPoolIndex index = new QuestionPoolIndex();
+        QuestionExposureTracker tracker = new QuestionExposureTracker();
+        List<Question> questions = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            // 两个分类各一个题目池，第 id 题已曝光 id - 1 次，权重为 1 / id
+            questions.add(question(id, id <= 4 ? 1L : 2L, CHOICE, 1));
+            tracker.recordPublished(Collections.nCopies((int) id - 1, id));
+        }
+        index.rebuild(questions);
+
+        double harmonic = 0;
+        for (long id = 1; id <= 8; id++) harmonic += 1.0 / id;
+        Map<Long, Integer> hits = draw(index, tracker, 40_000);
+        for (long id = 1; id <= 8; id++) {
+            double expected = 40_000 / id / harmonic;
+            assertEquals(expected, hits.getOrDefault(id, 0), expected * 0.1, "question " + id);
+        }
+
+        // 曝光次数变化后，权重版本号递增时才重建别名表
+        tracker.recordPublished(Collections.nCopies(99, 1L));
+        assertTrue(draw(index, tracker, 4_000).getOrDefault(1L, 0) > 1_000);
+        tracker.load(Collections.emptyList());
+        assertTrue(draw(index, tracker, 4_000).getOrDefault(1L, 0) < 100);
+    }
+
+    private static Map<Long, Integer> draw(QuestionPoolIndex index, QuestionExposureTracker tracker, int rounds) {
+        Map<Long, Integer> hits = new HashMap<>();
+        for (int i = 0; i < rounds; i++) {
+            for (Long id : index.sampleWeighted(null, CHOICE, 1, 1, Collections.emptySet(),
+                    tracker::weight, tracker.version())) {
+                hits.merge(id, 1, Integer::sum);
+            }
+        }
+        return hits;
+    }
+
+    private static Set<Long> expected(Collection<Question> questions, Long categoryId,
+                                      Question.QuestionType type, Integer difficulty) {
+        return questions.stream()
+                .filter(q -> categoryId == null || categoryId.equals(q.getCategoryId()))
+                .filter(q -> type == null || type == q.getType())
+                .filter(q -> difficulty == null || difficulty.equals(q.getDifficulty()))
+                .map(Question::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private static Question question(long id, long categoryId, Question.QuestionType type, int difficulty) {
+        return Question.builder().id(id).categoryId(categoryId).type(type).difficulty(difficulty).build();
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.oepg.index;
+
+import org.example.oepg.entity.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题目相似度索引：MinHash 签名的归一化与相似度估计、组卷去重器的 LSH 分桶判重、签名表增删
+ */
+class QuestionSimilarityIndexTest {
+
+    private final Random random = new Random(17);
+
+    private QuestionSimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new QuestionSimilarityIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "defaultThreshold", 0.7);
+    }
+
+    @Test
+    void signatureIgnoresPunctuationAndCase() {
+        assertArrayEquals(QuestionSimilarityIndex.signature("求 f(x) = X² 的导数。", null),
+                QuestionSimilarityIndex.signature("求fx", "x²的导数"));
+        assertEquals(QuestionSimilarityIndex.BANDS, QuestionSimilarityIndex.signature(null, null).length);
+    }
+
+    @Test
+    void estimateSeparatesNearDuplicatesFromUnrelatedText() {
+        for (int round = 0; round < 20; round++) {
+            String text = randomText(60);
+            long[] original = QuestionSimilarityIndex.signature(text, null);
+            long[] edited = QuestionSimilarityIndex.signature(edit(text, 2), null);
+            long[] unrelated = QuestionSimilarityIndex.signature(randomText(60), null);
+
+            assertEquals(1.0, QuestionSimilarityIndex.estimate(original, original));
+            assertTrue(QuestionSimilarityIndex.estimate(original, edited) >= 0.7, "near duplicate, round " + round);
+            assertTrue(QuestionSimilarityIndex.estimate(original, unrelated) < 0.3, "unrelated, round " + round);
+        }
+    }
+
+    @Test
+    void guardRejectsNearDuplicatesOnly() {
+        List<Question> questions = new ArrayList<>();
+        Map<Long, long[]> signatures = new HashMap<>();
+        for (long id = 1; id <= 200; id += 2) {
+            String content = randomText(50);
+            // 奇数题与下一道偶数题只差一个字
+            questions.add(question(id, "第一章练习", content));
+            questions.add(question(id + 1, "第一章练习", edit(content, 1)));
+        }
+        questions.forEach(q -> signatures.put(q.getId(), QuestionSimilarityIndex.signature(q.getTitle(), q.getContent())));
+        index.rebuild(signatures);
+
+        List<Long> ids = new ArrayList<>();
+        questions.forEach(q -> ids.add(q.getId()));
+        List<Long> accepted = index.newGuard().filter(ids);
+        assertEquals(100, accepted.size());
+        accepted.forEach(id -> assertEquals(1, id % 2));
+
+        // 每次组卷使用独立的去重器；没有签名的题目直接接受
+        QuestionSimilarityIndex.DuplicateGuard guard = index.newGuard();
+        assertTrue(guard.tryAccept(2L));
+        assertFalse(guard.tryAccept(1L));
+        assertTrue(guard.tryAccept(9999L));
+        assertTrue(guard.tryAccept(null));
+    }
+
+    @Test
+    void disabledOrNotReadyAcceptsEverything() {
+        index.put(question(1L, "同一道题", "内容完全相同"));
+        index.put(question(2L, "同一道题", "内容完全相同"));
+        assertFalse(index.isEnabled());
+        assertEquals(Arrays.asList(1L, 2L), index.newGuard().filter(Arrays.asList(1L, 2L)));
+
+        index.rebuild(Collections.emptyMap());
+        assertEquals(Collections.singletonList(1L), index.newGuard().filter(Arrays.asList(1L, 2L)));
+
+        ReflectionTestUtils.setField(index, "enabled", false);
+        assertEquals(Arrays.asList(1L, 2L), index.newGuard().filter(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    void tableSurvivesGrowthAndRemoval() {
+        index.rebuild(Collections.emptyMap());
+        // 每对题目文本相同：(k, k + 10000)
+        for (long k = 1; k <= 2000; k++) {
+            String text = randomText(30);
+            index.put(question(k, null, text));
+            index.put(question(k + 10000, null, text));
+        }
+        for (long k = 1; k <= 2000; k += 3) {
+            index.remove(k + 10000);
+        }
+        // 修改后的题目不再与原配对重复
+        index.put(question(10002L, null, randomText(30)));
+
+        for (long k = 1; k <= 2000; k++) {
+            QuestionSimilarityIndex.DuplicateGuard guard = index.newGuard();
+            assertTrue(guard.tryAccept(k));
+            boolean removedOrChanged = (k - 1) % 3 == 0 || k == 2;
+            assertEquals(removedOrChanged, guard.tryAccept(k + 10000), "pair " + k);
+        }
+    }
+
+    private String randomText(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) (0x4E00 + random.nextInt(3000)));
+        }
+        return sb.toString();
+    }
+
+    private String edit(String text, int changes) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < changes; i++) {
+            chars[random.nextInt(chars.length)] = (char) (0x4E00 + random.nextInt(3000));
+        }
+        return new String(chars);
+    }
+
+    private static Question question(long id, String title, String content) {
+        return Question.builder().id(id).title(title).content(content).build();
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.oepg.index;
+
+import org.example.oepg.entity.Question;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题目全文索引分词、BM25 排序、过滤分页与增量维护测试
+ */
+class QuestionTextIndexTest {
+
+    @Test
+    void tokenizesCjkBigramsAndLowercaseWords() {
+        List<String> tokens = new ArrayList<>();
+        QuestionTextIndex.tokenize("Java程序设计，第2章 的 HTTP/1.1", new QuestionTextIndex.TokenSink() {
+            @Override
+            public void cjk(long key) {
+                int first = (int) (key >>> 21);
+                int second = (int) (key & ((1 << 21) - 1));
+                tokens.add(second == 0 ? new String(Character.toChars(first))
+                        : new String(Character.toChars(first)) + new String(Character.toChars(second)));
+            }
+
+            @Override
+            public void word(String word) {
+                tokens.add(word);
+            }
+        });
+        assertEquals(Arrays.asList("java", "程序", "序设", "设计", "第", "2", "章", "的", "http", "1", "1"), tokens);
+    }
+
+    @Test
+    void ranksByBm25AndAppliesFiltersAndPaging() {
+        QuestionTextIndex index = newIndex();
+        QuestionTextIndex.Builder builder = index.newBuilder();
+        builder.add(question(1L, "数据结构", "链表和数组的区别", 10L, Question.QuestionType.CHOICE, 1));
+        builder.add(question(2L, "二叉树遍历", "写出二叉树的中序遍历，二叉树节点定义见附录", 10L, Question.QuestionType.SHORT_ANSWER, 2));
+        builder.add(question(3L, "排序算法", "快速排序在二叉树上的类比", 20L, Question.QuestionType.CHOICE, 2));
+        builder.add(question(4L, "Binary Tree", "Traverse a binary tree in order", 20L, Question.QuestionType.CHOICE, 3));
+        index.rebuild(builder);
+
+        // 标题和正文多次出现的题目排在前面
+        QuestionTextIndex.SearchResult result = index.search("二叉树", null, null, null, 0, 10);
+        assertEquals(2, result.getTotal());
+        assertEquals(Arrays.asList(2L, 3L), result.getQuestionIds());
+
+        assertEquals(Arrays.asList(3L), index.search("二叉树", 20L, null, null, 0, 10).getQuestionIds());
+        assertEquals(Arrays.asList(2L), index.search("二叉树", null, Question.QuestionType.SHORT_ANSWER, null, 0, 10).getQuestionIds());
+        assertEquals(Arrays.asList(3L), index.search("二叉树", null, null, null, 1, 1).getQuestionIds());
+        assertEquals(Arrays.asList(4L), index.search("BINARY tree", null, null, null, 0, 10).getQuestionIds());
+        assertEquals(0, index.search("红黑树", null, null, null, 0, 10).getTotal());
+
+        // 孤立单字无法由二元组检索，交给数据库
+        assertNull(index.search("树", null, null, null, 0, 10));
+        assertNull(index.search("  ，。", null, null, null, 0, 10));
+    }
+
+    @Test
+    void incrementalUpdatesSurviveCompaction() {
+        QuestionTextIndex index = newIndex();
+        index.rebuild(index.newBuilder());
+        Random random = new Random(7);
+        int count = 5000;
+        for (long id = 1; id <= count; id++) {
+            index.put(question(id, "题目" + id, id % 2 == 0 ? "偶数编号的题目" : "奇数编号的题目",
+                    (long) random.nextInt(5), Question.QuestionType.CHOICE, 1));
+        }
+        // 删除一半并改写一部分，触发压缩
+        for (long id = 1; id <= count; id += 2) {
+            index.remove(id);
+        }
+        for (long id = 2; id <= 1000; id += 2) {
+            index.put(question(id, "题目" + id, "改写后的内容", 1L, Question.QuestionType.CHOICE, 1));
+        }
+
+        QuestionTextIndex.SearchResult odd = index.search("奇数", null, null, null, 0, 10);
+        assertEquals(0, odd.getTotal());
+        QuestionTextIndex.SearchResult even = index.search("偶数编号", null, null, null, 0, count);
+        List<Long> expected = LongStream.rangeClosed(1002, count).filter(id -> id % 2 == 0).boxed()
+                .sorted((a, b) -> Long.compare(b, a)).collect(Collectors.toList());
+        assertEquals(expected.size(), even.getTotal());
+        assertEquals(expected, even.getQuestionIds());
+        assertEquals(500, index.search("改写", 1L, null, null, 0, count).getTotal());
+    }
+
+    @Test
+    void writesDuringInitialLoadAreReplayedAfterRebuild() {
+        QuestionTextIndex index = newIndex();
+        QuestionTextIndex.Builder builder = index.newBuilder();
+        builder.add(question(1L, "二叉树遍历", "中序遍历", 10L, Question.QuestionType.CHOICE, 1));
+        builder.add(question(2L, "链表反转", "单链表", 10L, Question.QuestionType.CHOICE, 1));
+        // 扫描之后：第 1 题改写，第 2 题删除，新增第 3 题并移动分类
+        index.put(question(1L, "红黑树旋转", "左旋右旋", 10L, Question.QuestionType.CHOICE, 1));
+        index.remove(2L);
+        index.put(question(3L, "红黑树插入", "插入后修复", 10L, Question.QuestionType.CHOICE, 1));
+        index.updateCategory(Arrays.asList(3L), 20L);
+        index.rebuild(builder);
+
+        assertEquals(0, index.search("二叉树", null, null, null, 0, 10).getTotal());
+        assertEquals(0, index.search("链表", null, null, null, 0, 10).getTotal());
+        assertEquals(Arrays.asList(1L, 3L), sorted(index.search("红黑树", null, null, null, 0, 10).getQuestionIds()));
+        assertEquals(Arrays.asList(3L), index.search("红黑树", 20L, null, null, 0, 10).getQuestionIds());
+    }
+
+    private static QuestionTextIndex newIndex() {
+        QuestionTextIndex index = new QuestionTextIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "titleBoost", 2);
+        return index;
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().collect(Collectors.toList());
+    }
+
+    private static Question question(Long id, String title, String content, Long categoryId,
+                                     Question.QuestionType type, int difficulty) {
+        return Question.builder().id(id).title(title).content(content).categoryId(categoryId)
+                .type(type).difficulty(difficulty).build();
+    }
+}
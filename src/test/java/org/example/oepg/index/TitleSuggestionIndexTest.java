@@ -0,0 +1,140 @@
+package org.example.oepg.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题目标题建议索引子串匹配、最近修改排序、增量维护与后台合并测试
+ */
+class TitleSuggestionIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void matchesSubstringsIgnoringCaseAndRanksByRecency() {
+        TitleSuggestionIndex index = newIndex();
+        TitleSuggestionIndex.Builder builder = index.newBuilder();
+        builder.add(1L, "二叉树的中序遍历", BASE.plusDays(1));
+        builder.add(2L, "平衡二叉树", BASE.plusDays(3));
+        builder.add(3L, "二叉树的中序遍历", BASE.plusDays(2));
+        builder.add(4L, "Binary Search Tree", BASE.plusDays(4));
+        builder.add(5L, "链表反转", BASE.plusDays(5));
+        index.rebuild(builder);
+
+        assertEquals(Arrays.asList("平衡二叉树", "二叉树的中序遍历"), index.suggest("二叉", 10));
+        assertEquals(Collections.singletonList("平衡二叉树"), index.suggest("二叉", 1));
+        assertEquals(Collections.singletonList("二叉树的中序遍历"), index.suggest("中序", 10));
+        assertEquals(Collections.singletonList("Binary Search Tree"), index.suggest(" search TREE ", 10));
+        // 超过排序深度的关键词逐字校验
+        assertEquals(Collections.singletonList("Binary Search Tree"), index.suggest("binary search tree", 10));
+        assertEquals(Collections.emptyList(), index.suggest("binary search trees", 10));
+        assertEquals(Collections.emptyList(), index.suggest("红黑树", 10));
+    }
+
+    @Test
+    void reflectsWritesBeforeAndAfterMerge() {
+        TitleSuggestionIndex index = newIndex();
+        TitleSuggestionIndex.Builder builder = index.newBuilder();
+        builder.add(1L, "二叉树的中序遍历", BASE.plusDays(1));
+        builder.add(2L, "二叉树的中序遍历", BASE.plusDays(1));
+        builder.add(3L, "平衡二叉树", BASE.plusDays(3));
+        index.rebuild(builder);
+
+        index.add(4L, "二叉树的层序遍历", BASE.plusDays(4));
+        index.replace(1L, "二叉树的中序遍历", "二叉树的中序遍历", BASE.plusDays(5));
+        assertEquals(Arrays.asList("二叉树的中序遍历", "二叉树的层序遍历", "平衡二叉树"), index.suggest("二叉树", 10));
+
+        // 同一标题还有一道题时仍然保留
+        index.replace(1L, "二叉树的中序遍历", "二叉树的后序遍历", BASE.plusDays(6));
+        assertEquals(Arrays.asList("二叉树的后序遍历", "二叉树的中序遍历", "二叉树的层序遍历", "平衡二叉树"),
+                index.suggest("二叉树", 10));
+        index.remove(2L, "二叉树的中序遍历");
+        index.remove(3L, "平衡二叉树");
+        List<String> expected = Arrays.asList("二叉树的后序遍历", "二叉树的层序遍历");
+        assertEquals(expected, index.suggest("二叉树", 10));
+
+        ReflectionTestUtils.setField(index, "mergeThreshold", 1);
+        index.mergePending();
+        assertEquals(expected, index.suggest("二叉树", 10));
+        assertEquals(Collections.singletonList("二叉树的层序遍历"), index.suggest("层序", 10));
+    }
+
+    @Test
+    void writesDuringInitialLoadAreCountedOnce() {
+        TitleSuggestionIndex index = newIndex();
+        TitleSuggestionIndex.Builder builder = index.newBuilder();
+        builder.add(1L, "二叉树的中序遍历", BASE.plusDays(1));
+        // 第 4 题在扫描之前创建，扫描和加载期间的记录都包含它
+        index.add(4L, "二叉树的层序遍历", BASE.plusDays(2));
+        builder.add(2L, "平衡二叉树", BASE.plusDays(1));
+        builder.add(4L, "二叉树的层序遍历", BASE.plusDays(2));
+        // 扫描之后：第 1 题改名，第 2 题删除，新增第 5 题
+        index.replace(1L, "二叉树的中序遍历", "二叉树的后序遍历", BASE.plusDays(3));
+        index.remove(2L, "平衡二叉树");
+        index.add(5L, "二叉树的镜像", BASE.plusDays(4));
+        assertFalse(index.isEnabled());
+        index.rebuild(builder);
+
+        assertEquals(Arrays.asList("二叉树的镜像", "二叉树的后序遍历", "二叉树的层序遍历"), index.suggest("二叉", 10));
+        // 第 4 题只计一次，删除后标题消失
+        index.remove(4L, "二叉树的层序遍历");
+        assertEquals(Arrays.asList("二叉树的镜像", "二叉树的后序遍历"), index.suggest("二叉", 10));
+    }
+
+    @Test
+    void matchesLinearScanOnRandomTitles() {
+        TitleSuggestionIndex index = newIndex();
+        TitleSuggestionIndex.Builder builder = index.newBuilder();
+        Random random = new Random(11);
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            titles.add(randomTitle(random));
+            builder.add((long) i, titles.get(i), BASE.plusMinutes(i));
+        }
+        index.rebuild(builder);
+        for (int i = 3000; i < 3500; i++) {
+            titles.add(randomTitle(random));
+            index.add((long) i, titles.get(i), BASE.plusMinutes(i));
+        }
+
+        for (int q = 0; q < 200; q++) {
+            String title = titles.get(random.nextInt(titles.size()));
+            int from = random.nextInt(title.length());
+            String keyword = title.substring(from, Math.min(title.length(), from + 1 + random.nextInt(3)));
+            // 分钟数即插入顺序，后加入的标题时间更新
+            List<String> expected = new ArrayList<>();
+            for (int i = titles.size() - 1; i >= 0 && expected.size() < 10; i--) {
+                String candidate = titles.get(i);
+                if (candidate.toLowerCase().contains(keyword.toLowerCase()) && !expected.contains(candidate)) {
+                    expected.add(candidate);
+                }
+            }
+            assertEquals(expected, index.suggest(keyword, 10), keyword);
+        }
+    }
+
+    private static String randomTitle(Random random) {
+        String alphabet = "数据结构算法排序树图Ab";
+        int length = 2 + random.nextInt(10);
+        return random.ints(length, 0, alphabet.length())
+                .mapToObj(i -> String.valueOf(alphabet.charAt(i)))
+                .collect(Collectors.joining());
+    }
+
+    private static TitleSuggestionIndex newIndex() {
+        TitleSuggestionIndex index = new TitleSuggestionIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "mergeThreshold", 1024);
+        return index;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.oepg.service.impl;
+
+import org.example.oepg.cache.OpenExamCache;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.PaperQuestion;
+import org.example.oepg.entity.Question;
+import org.example.oepg.exception.BusinessException;
+import org.example.oepg.repository.ExamPaperRepository;
+import org.example.oepg.repository.PaperQuestionRepository;
+import org.example.oepg.repository.QuestionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 试卷服务批量持久化测试，统计每个操作的数据库往返次数
+ */
+@ExtendWith(MockitoExtension.class)
+class ExamPaperServiceImplTest {
+
+    private static final int QUESTION_COUNT = 120;
+    private static final int BATCH_SIZE = 50;
+
+    @Mock
+    private ExamPaperRepository examPaperRepository;
+
+    @Mock
+    private PaperQuestionRepository paperQuestionRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Mock
+    private OpenExamCache openExamCache;
+
+    @InjectMocks
+    private ExamPaperServiceImpl examPaperService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(examPaperService, "batchInsertSize", BATCH_SIZE);
+    }
+
+    @Test
+    void batchAddQuestionsToPaperUsesConstantRoundTrips() {
+        List<Long> questionIds = new ArrayList<>();
+        List<Question> questions = new ArrayList<>();
+        for (long id = 1; id <= QUESTION_COUNT; id++) {
+            questionIds.add(id);
+            questions.add(Question.builder().id(id).score(2).build());
+        }
+        when(examPaperRepository.selectById(10L)).thenReturn(ExamPaper.builder().id(10L).build());
+        when(questionRepository.selectList(any())).thenReturn(questions);
+        when(paperQuestionRepository.findByPaperId(10L)).thenReturn(Collections.emptyList());
+
+        // 同样的题目逐条调用 addQuestionToPaper（批量接口之前的做法），用同一个计数方式统计往返次数
+        when(questionRepository.selectById(any())).thenAnswer(invocation -> questions.get(
+                ((Long) invocation.getArgument(0)).intValue() - 1));
+        for (Long questionId : questionIds) {
+            examPaperService.addQuestionToPaper(10L, questionId, 2, null);
+        }
+        int legacyRoundTrips = roundTrips();
+        clearInvocations(examPaperRepository, paperQuestionRepository, questionRepository);
+
+        examPaperService.batchAddQuestionsToPaper(10L, questionIds);
+
+        int batches = (QUESTION_COUNT + BATCH_SIZE - 1) / BATCH_SIZE;
+        int roundTrips = roundTrips();
+        assertEquals(3 + batches + 1, roundTrips);
+        assertTrue(roundTrips * 100 < legacyRoundTrips);
+        verify(paperQuestionRepository, times(batches)).insertBatch(anyList());
+        verify(paperQuestionRepository, never()).insert(any(PaperQuestion.class));
+
+        ArgumentCaptor<ExamPaper> paperCaptor = ArgumentCaptor.forClass(ExamPaper.class);
+        verify(examPaperRepository).updateById(paperCaptor.capture());
+        assertEquals(QUESTION_COUNT, paperCaptor.getValue().getTotalQuestions());
+        assertEquals(QUESTION_COUNT * 2, paperCaptor.getValue().getTotalScore());
+    }
+
+    @Test
+    void batchAddQuestionsToPaperRejectsDuplicates() {
+        when(examPaperRepository.selectById(10L)).thenReturn(ExamPaper.builder().id(10L).build());
+        when(questionRepository.selectList(any())).thenReturn(Arrays.asList(
+                Question.builder().id(1L).score(2).build(),
+                Question.builder().id(2L).score(2).build()));
+        when(paperQuestionRepository.findByPaperId(10L)).thenReturn(Collections.singletonList(
+                PaperQuestion.builder().paperId(10L).questionId(2L).score(2).build()));
+
+        assertThrows(BusinessException.class,
+                () -> examPaperService.batchAddQuestionsToPaper(10L, Arrays.asList(1L, 2L)));
+        verify(paperQuestionRepository, never()).insertBatch(anyList());
+    }
+
+    @Test
+    void copyExamPaperInsertsQuestionsInBatches() {
+        List<PaperQuestion> original = new ArrayList<>();
+        for (long id = 1; id <= QUESTION_COUNT; id++) {
+            original.add(PaperQuestion.builder().paperId(10L).questionId(id).score(1).sortOrder((int) id).build());
+        }
+        when(examPaperRepository.selectById(10L)).thenReturn(ExamPaper.builder().id(10L).title("期中").build());
+        when(paperQuestionRepository.findByPaperId(10L)).thenReturn(original);
+
+        examPaperService.copyExamPaper(10L);
+
+        // selectById + insert(试卷) + findByPaperId + 分批 insertBatch
+        int batches = (QUESTION_COUNT + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertEquals(3 + batches, roundTrips());
+    }
+
+    private int roundTrips() {
+        return mockingDetails(examPaperRepository).getInvocations().size()
+                + mockingDetails(paperQuestionRepository).getInvocations().size()
+                + mockingDetails(questionRepository).getInvocations().size();
+    }
+}
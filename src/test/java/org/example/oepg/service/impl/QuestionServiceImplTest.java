@@ -0,0 +1,104 @@
+package org.example.oepg.service.impl;
+
+import org.example.oepg.dto.res.QuestionResponse;
+import org.example.oepg.entity.Question;
+import org.example.oepg.index.CategoryTreeCache;
+import org.example.oepg.index.QuestionPoolIndex;
+import org.example.oepg.repository.QuestionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 随机抽题的分类条件：包含子分类时按分类子树抽题，题目池索引未就绪时回退到数据库查询
+ */
+@ExtendWith(MockitoExtension.class)
+class QuestionServiceImplTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private CategoryTreeCache categoryTreeCache;
+
+    @InjectMocks
+    private QuestionServiceImpl questionService;
+
+    private final QuestionPoolIndex questionPoolIndex = new QuestionPoolIndex();
+
+    private final Map<Long, Question> questions = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(questionService, "questionPoolIndex", questionPoolIndex);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "teacher", null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_TEACHER"))));
+        // 分类 1 下有子分类 2，分类 2 下有子分类 3；分类 4 不相关，每个分类 5 道题
+        for (long id = 1; id <= 20; id++) {
+            questions.put(id, Question.builder().id(id).categoryId((id - 1) / 5 + 1)
+                    .type(Question.QuestionType.CHOICE).difficulty(1).build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void includeDescendantsSamplesFromWholeSubtree() {
+        questionPoolIndex.rebuild(new ArrayList<>(questions.values()));
+        when(categoryTreeCache.descendantsOf(2L)).thenReturn(new HashSet<>(Arrays.asList(2L, 3L)));
+        when(questionRepository.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(questions::get).collect(Collectors.toList());
+        });
+
+        List<QuestionResponse> withChildren = questionService.getRandomQuestions(100, 2L, true, null, null);
+        assertEquals(10, withChildren.size());
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L)),
+                withChildren.stream().map(QuestionResponse::getCategoryId).collect(Collectors.toSet()));
+
+        List<QuestionResponse> selfOnly = questionService.getRandomQuestions(100, 2L, false, null, null);
+        assertEquals(5, selfOnly.size());
+        selfOnly.forEach(q -> assertEquals(2L, q.getCategoryId()));
+        verify(categoryTreeCache, times(1)).descendantsOf(2L);
+
+        // 不限分类时抽取全部题目
+        assertEquals(20, questionService.getRandomQuestions(100, null, true, null, null).size());
+    }
+
+    @Test
+    void databaseFallbackReceivesDescendantClosure() {
+        Set<Long> subtree = new HashSet<>(Arrays.asList(1L, 2L, 3L));
+        when(categoryTreeCache.descendantsOf(1L)).thenReturn(subtree);
+        when(questionRepository.findRandomQuestions(eq(5), anyCollection(), isNull(), eq(1)))
+                .thenReturn(Collections.singletonList(questions.get(7L)));
+
+        List<QuestionResponse> result = questionService.getRandomQuestions(5, 1L, true, null, 1);
+
+        assertFalse(questionPoolIndex.isReady());
+        assertEquals(Collections.singletonList(7L),
+                result.stream().map(QuestionResponse::getId).collect(Collectors.toList()));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(questionRepository).findRandomQuestions(eq(5), captor.capture(), isNull(), eq(1));
+        assertEquals(subtree, new HashSet<>(captor.getValue()));
+    }
+}
@@ -0,0 +1,221 @@
+package org.example.oepg.service.impl;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.dto.res.PaperJobResponse;
+import org.example.oepg.dto.res.RegradeJobResponse;
+import org.example.oepg.engine.AnswerKey;
+import org.example.oepg.engine.AnswerSheetCodec;
+import org.example.oepg.engine.ObjectiveGrader;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.entity.Question;
+import org.example.oepg.entity.User;
+import org.example.oepg.exception.BusinessException;
+import org.example.oepg.repository.ExamPaperRepository;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 重新批改任务：游标分块批改后只写回分数变化的记录并统计变化，任务失败、权限和队列满的处理
+ */
+@ExtendWith(MockitoExtension.class)
+class RegradeJobServiceImplTest {
+
+    private static final Long PAPER_ID = 3L;
+
+    @Mock
+    private ExamRecordRepository examRecordRepository;
+
+    @Mock
+    private ExamPaperRepository examPaperRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private AnswerSheetCodec answerSheetCodec = new AnswerSheetCodec();
+
+    @Spy
+    private ObjectiveGrader objectiveGrader = new ObjectiveGrader();
+
+    @InjectMocks
+    private RegradeJobServiceImpl regradeJobService;
+
+    private final AnswerSheetCodec encoder = new AnswerSheetCodec();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(regradeJobService, "parallelism", 2);
+        ReflectionTestUtils.setField(regradeJobService, "chunkSize", 3);
+        ReflectionTestUtils.setField(regradeJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(regradeJobService, "batchSize", 2);
+        regradeJobService.init();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "teacher", null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_TEACHER"))));
+        lenient().when(userRepository.findByUsername("teacher")).thenReturn(User.builder().id(7L).username("teacher").build());
+        lenient().when(examPaperRepository.selectById(PAPER_ID)).thenReturn(ExamPaper.builder().id(PAPER_ID).createdById(7L).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        regradeJobService.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void changedScoresAreWrittenInBatchesAndSummarized() throws Exception {
+        // 标准答案修正为 A（5 分）：原答 A 记 0 分的加分，原答 B 记 5 分的扣分，其余不变
+        List<ExamRecord> records = new ArrayList<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long id = 1; id <= 8; id++) {
+            String answer = id % 2 == 0 ? "A" : "B";
+            int newScore = "A".equals(answer) ? 5 : 0;
+            // 前 4 条按旧答案批改，分数与新答案相反
+            int oldScore = id <= 4 ? 5 - newScore : newScore;
+            records.add(record(id, answer, oldScore));
+            if (newScore != oldScore) expected.put(id, newScore);
+        }
+        Cursor<ExamRecord> cursor = cursor(records);
+        when(paperSnapshotCache.build(PAPER_ID)).thenReturn(paper());
+        when(examRecordRepository.countGradedByPaper(PAPER_ID)).thenReturn((long) records.size());
+        when(examRecordRepository.streamGradedByPaper(PAPER_ID)).thenReturn(cursor);
+
+        RegradeJobResponse submitted = regradeJobService.submitForPaper(PAPER_ID);
+        assertEquals(RegradeJobResponse.Scope.PAPER, submitted.getScope());
+        RegradeJobResponse job = awaitFinished(submitted.getJobId());
+
+        assertEquals(PaperJobResponse.JobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(8, job.getTotalRecords());
+        assertEquals(8, job.getProcessedRecords());
+        assertEquals(100.0, job.getProgress());
+        assertEquals(4, job.getChangedRecords());
+        assertEquals(2, job.getIncreasedRecords());
+        assertEquals(2, job.getDecreasedRecords());
+        assertEquals(0, job.getTotalScoreDelta());
+        assertEquals(5, job.getMaxIncrease());
+        assertEquals(5, job.getMaxDecrease());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExamRecord>> captor = ArgumentCaptor.forClass(List.class);
+        verify(examRecordRepository, atLeastOnce()).updateScoresBatch(captor.capture());
+        Map<Long, Integer> written = new HashMap<>();
+        for (List<ExamRecord> batch : captor.getAllValues()) {
+            assertTrue(batch.size() <= 2);
+            batch.forEach(r -> assertNull(written.put(r.getId(), r.getScore())));
+        }
+        assertEquals(expected, written);
+    }
+
+    @Test
+    void failureIsReportedOnJob() throws Exception {
+        when(paperSnapshotCache.build(PAPER_ID)).thenReturn(paper());
+        when(examRecordRepository.streamGradedByPaper(PAPER_ID)).thenThrow(new IllegalStateException("cursor closed"));
+
+        RegradeJobResponse job = awaitFinished(regradeJobService.submitForPaper(PAPER_ID).getJobId());
+
+        assertEquals(PaperJobResponse.JobStatus.FAILED, job.getStatus());
+        assertEquals("JOB_FAILED", job.getErrorCode());
+        assertEquals("cursor closed", job.getErrorMessage());
+        verify(examRecordRepository, never()).updateScoresBatch(anyList());
+    }
+
+    @Test
+    void onlyOwnerCanSubmitAndQueryJobs() throws Exception {
+        when(examPaperRepository.selectById(4L)).thenReturn(ExamPaper.builder().id(4L).createdById(8L).build());
+        assertEquals("PERMISSION_DENIED",
+                assertThrows(BusinessException.class, () -> regradeJobService.submitForPaper(4L)).getCode());
+        assertEquals("EXAM_PAPER_NOT_FOUND",
+                assertThrows(BusinessException.class, () -> regradeJobService.submitForPaper(5L)).getCode());
+
+        String jobId = awaitFinished(regradeJobService.submitForPaper(PAPER_ID).getJobId()).getJobId();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "other", null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_TEACHER"))));
+        assertEquals("JOB_NOT_FOUND",
+                assertThrows(BusinessException.class, () -> regradeJobService.getJob(jobId)).getCode());
+    }
+
+    @Test
+    void submitIsRejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(examRecordRepository.countGradedByPaper(PAPER_ID)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+
+        // 第一个任务占住任务线程，第二个排队，第三个被拒绝
+        String running = regradeJobService.submitForPaper(PAPER_ID).getJobId();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        String queued = regradeJobService.submitForPaper(PAPER_ID).getJobId();
+        assertEquals(PaperJobResponse.JobStatus.QUEUED, regradeJobService.getJob(queued).getStatus());
+        assertEquals("JOB_QUEUE_FULL",
+                assertThrows(BusinessException.class, () -> regradeJobService.submitForPaper(PAPER_ID)).getCode());
+
+        release.countDown();
+        assertEquals(PaperJobResponse.JobStatus.SUCCEEDED, awaitFinished(running).getStatus());
+        assertEquals(PaperJobResponse.JobStatus.SUCCEEDED, awaitFinished(queued).getStatus());
+    }
+
+    private RegradeJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        RegradeJobResponse job = regradeJobService.getJob(jobId);
+        while (job.getFinishedAt() == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "job not finished within 5s");
+            Thread.sleep(10);
+            job = regradeJobService.getJob(jobId);
+        }
+        return job;
+    }
+
+    private ExamRecord record(long id, String answer, int score) {
+        String answers = encoder.encode(Collections.singletonList(new SubmitAnswerRequest.AnswerItem(100L, answer, null)));
+        return ExamRecord.builder().id(id).paperId(PAPER_ID).answers(answers).score(score).build();
+    }
+
+    private static PaperSnapshot paper() {
+        PaperSnapshot.Item item = PaperSnapshot.Item.builder().questionId(100L).type(Question.QuestionType.CHOICE)
+                .score(5).answerKey(AnswerKey.compile(Question.QuestionType.CHOICE, "A")).build();
+        return new PaperSnapshot(PAPER_ID, 1L, 5, ExamPaper.PaperStatus.PUBLISHED,
+                Collections.singletonList(item), Collections.singletonMap(100L, item));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<ExamRecord> cursor(List<ExamRecord> records) {
+        Cursor<ExamRecord> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenAnswer(invocation -> records.iterator());
+        return cursor;
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.oepg.service.impl;
+
+import org.example.oepg.cache.AnswerAutosaveBuffer;
+import org.example.oepg.cache.PaperSnapshot;
+import org.example.oepg.cache.PaperSnapshotCache;
+import org.example.oepg.dto.req.AutosaveRequest;
+import org.example.oepg.dto.req.SubmitAnswerRequest;
+import org.example.oepg.engine.AnswerSheetCodec;
+import org.example.oepg.engine.ExamDeadlineScheduler;
+import org.example.oepg.engine.ExamEventHub;
+import org.example.oepg.engine.ExamShuffler;
+import org.example.oepg.engine.GradingPipeline;
+import org.example.oepg.dto.res.AutosaveResponse;
+import org.example.oepg.dto.res.HeartbeatResponse;
+import org.example.oepg.entity.Exam;
+import org.example.oepg.entity.ExamPaper;
+import org.example.oepg.entity.ExamRecord;
+import org.example.oepg.repository.ExamRecordRepository;
+import org.example.oepg.repository.ExamRepository;
+import org.example.oepg.util.ExamSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 考试会话交卷：与自动保存写回交错时的答题卡完整性，以及强制交卷提前截止时间后交卷和自动保存的校验
+ */
+@ExtendWith(MockitoExtension.class)
+class StudentExamServiceImplTest {
+
+    private static final long RECORD_ID = 1L;
+    private static final long STUDENT_ID = 2L;
+    private static final long EXAM_ID = 3L;
+    private static final long PAPER_ID = 4L;
+
+    @Mock
+    private ExamRecordRepository examRecordRepository;
+
+    @Mock
+    private ExamRepository examRepository;
+
+    @Mock
+    private PaperSnapshotCache paperSnapshotCache;
+
+    @Mock
+    private ExamShuffler examShuffler;
+
+    @Mock
+    private GradingPipeline gradingPipeline;
+
+    @Mock
+    private ExamDeadlineScheduler examDeadlineScheduler;
+
+    @Mock
+    private ExamEventHub examEventHub;
+
+    @Spy
+    private AnswerSheetCodec answerSheetCodec = new AnswerSheetCodec();
+
+    @Spy
+    private AnswerAutosaveBuffer answerAutosaveBuffer = new AnswerAutosaveBuffer();
+
+    @InjectMocks
+    private StudentExamServiceImpl studentExamService;
+
+    private final ExamSession session = new ExamSession(RECORD_ID, STUDENT_ID, EXAM_ID, PAPER_ID,
+            System.currentTimeMillis() + 3_600_000L, 42L, "student");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(answerAutosaveBuffer, "examRecordRepository", examRecordRepository);
+        ReflectionTestUtils.setField(answerAutosaveBuffer, "answerSheetCodec", answerSheetCodec);
+        ReflectionTestUtils.setField(answerAutosaveBuffer, "batchSize", 500);
+        lenient().when(paperSnapshotCache.get(PAPER_ID)).thenReturn(new PaperSnapshot(PAPER_ID, EXAM_ID, 10,
+                ExamPaper.PaperStatus.PUBLISHED, Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void flushBetweenReadAndSubmitIsDetectedAndReread() {
+        openSession();
+        answerAutosaveBuffer.track(RECORD_ID, STUDENT_ID);
+        answerAutosaveBuffer.save(RECORD_ID, Collections.singletonList(answer(10L, "B")));
+
+        // 交卷读取记录之后、合并缓冲区之前，后台写回把第 10 题落库并移出缓冲区
+        String persisted = answerSheetCodec.encode(Collections.singletonList(answer(9L, "A")));
+        ArgumentCaptor<List<ExamRecord>> flushed = ArgumentCaptor.forClass(List.class);
+        when(examRecordRepository.findOngoingAnswers(any()))
+                .thenReturn(Collections.singletonList(ExamRecord.builder().id(RECORD_ID).answers(persisted).build()));
+        when(examRecordRepository.updateOngoingAnswersBatch(flushed.capture())).thenReturn(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(examRecordRepository.findOngoingSheet(RECORD_ID)).thenAnswer(invocation -> {
+            if (reads.getAndIncrement() == 0) {
+                answerAutosaveBuffer.flush();
+                return sheet(0, persisted);
+            }
+            return sheet(1, flushed.getValue().get(0).getAnswers());
+        });
+        // 写回已递增版本号，按旧版本的条件更新失败
+        when(examRecordRepository.markSubmitted(eq(RECORD_ID), eq(0), anyString(), any())).thenReturn(0);
+        ArgumentCaptor<String> submitted = ArgumentCaptor.forClass(String.class);
+        when(examRecordRepository.markSubmitted(eq(RECORD_ID), eq(1), submitted.capture(), any())).thenReturn(1);
+
+        studentExamService.submitExam(session, request(answer(11L, "C")));
+
+        assertEquals(2, reads.get());
+        Map<Long, SubmitAnswerRequest.AnswerItem> sheet = answerSheetCodec.decode(submitted.getValue());
+        assertEquals(Arrays.asList(9L, 10L, 11L), new ArrayList<>(sheet.keySet()));
+        assertEquals("B", sheet.get(10L).getAnswer());
+        assertFalse(answerAutosaveBuffer.isTracked(RECORD_ID, STUDENT_ID));
+    }
+
+    @Test
+    void bufferIsDiscardedOnlyAfterCommit() {
+        openSession();
+        answerAutosaveBuffer.track(RECORD_ID, STUDENT_ID);
+        answerAutosaveBuffer.save(RECORD_ID, Collections.singletonList(answer(10L, "B")));
+        when(examRecordRepository.findOngoingSheet(RECORD_ID)).thenReturn(sheet(0, null));
+        ArgumentCaptor<String> submitted = ArgumentCaptor.forClass(String.class);
+        when(examRecordRepository.markSubmitted(eq(RECORD_ID), eq(0), submitted.capture(), any())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        studentExamService.submitExam(session, request(answer(11L, "C")));
+
+        assertEquals(Arrays.asList(10L, 11L), new ArrayList<>(answerSheetCodec.decode(submitted.getValue()).keySet()));
+        // 事务未提交（可能回滚）时缓冲答案仍在
+        assertEquals(Collections.singleton(10L), answerAutosaveBuffer.pending(RECORD_ID).keySet());
+        assertTrue(answerAutosaveBuffer.isTracked(RECORD_ID, STUDENT_ID));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(answerAutosaveBuffer.pending(RECORD_ID).isEmpty());
+        assertFalse(answerAutosaveBuffer.isTracked(RECORD_ID, STUDENT_ID));
+        // 考试结束时间已体现在时间轮截止时间中，令牌交卷不读取考试
+        verifyNoInteractions(examRepository);
+    }
+
+    @Test
+    void submitFailsWhenRecordIsNoLongerOngoing() {
+        openSession();
+        when(examRecordRepository.findOngoingSheet(RECORD_ID)).thenReturn(sheet(0, null), (ExamRecord) null);
+        when(examRecordRepository.markSubmitted(eq(RECORD_ID), eq(0), anyString(), any())).thenReturn(0);
+
+        answerAutosaveBuffer.save(RECORD_ID, Collections.singletonList(answer(10L, "B")));
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> studentExamService.submitExam(session, request(answer(11L, "C"))));
+        assertEquals("该记录已提交", e.getMessage());
+        assertFalse(answerAutosaveBuffer.pending(RECORD_ID).isEmpty());
+    }
+
+    @Test
+    void forceSubmitOverridesTokenDeadline() {
+        // 令牌截止时间在一小时后，强制交卷已把时间轮中的截止时间提前到一秒前
+        long forcedDeadline = System.currentTimeMillis() - 1000;
+        when(examDeadlineScheduler.deadlineMillis(RECORD_ID)).thenReturn(forcedDeadline);
+        Exam exam = Exam.builder().id(EXAM_ID).endTime(LocalDateTime.now().minusSeconds(1)).build();
+        when(examRepository.selectById(EXAM_ID)).thenReturn(exam);
+        when(examRecordRepository.selectById(RECORD_ID)).thenReturn(ExamRecord.builder().id(RECORD_ID)
+                .studentId(STUDENT_ID).examId(EXAM_ID).status(ExamRecord.RecordStatus.ONGOING).build());
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> studentExamService.submitExam(session, request(answer(11L, "C"))));
+        assertEquals("已超过考试结束时间", e.getMessage());
+        verify(examRecordRepository, never()).markSubmitted(anyLong(), any(), anyString(), any());
+
+        // 心跳返回当前生效的截止时间，而不是令牌中的
+        HeartbeatResponse heartbeat = studentExamService.heartbeat(new ExamSession(RECORD_ID, STUDENT_ID, EXAM_ID, PAPER_ID,
+                System.currentTimeMillis() + 3_600_000L, 42L, "student"));
+        assertEquals(forcedDeadline, heartbeat.getDeadline().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertEquals(0L, heartbeat.getRemainingSeconds());
+    }
+
+    @Test
+    void sessionAutosaveChecksWheelDeadline() {
+        // 强制交卷把时间轮中的截止时间提前到一秒前，令牌仍在有效期内
+        when(examDeadlineScheduler.deadlineMillis(RECORD_ID)).thenReturn(System.currentTimeMillis() - 1000);
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> studentExamService.autosave(session, autosaveRequest(answer(10L, "B"))));
+        assertEquals("考试已结束，无法保存答案", e.getMessage());
+
+        // 已交卷的记录不在时间轮中，按数据库中的状态校验
+        when(examDeadlineScheduler.deadlineMillis(RECORD_ID)).thenReturn(null);
+        when(examRecordRepository.selectById(RECORD_ID)).thenReturn(ExamRecord.builder().id(RECORD_ID)
+                .studentId(STUDENT_ID).examId(EXAM_ID).status(ExamRecord.RecordStatus.SUBMITTED).build());
+        e = assertThrows(RuntimeException.class,
+                () -> studentExamService.autosave(session, autosaveRequest(answer(10L, "B"))));
+        assertEquals("考试已结束，无法保存答案", e.getMessage());
+
+        verify(answerAutosaveBuffer, never()).save(anyLong(), anyList());
+        assertTrue(answerAutosaveBuffer.pending(RECORD_ID).isEmpty());
+    }
+
+    @Test
+    void sessionAutosaveWritesBufferWithoutDatabase() {
+        openSession();
+        AutosaveResponse response = studentExamService.autosave(session, autosaveRequest(answer(10L, "B")));
+
+        assertEquals(1, response.getSavedAnswers());
+        assertEquals(Collections.singleton(10L), answerAutosaveBuffer.pending(RECORD_ID).keySet());
+        verifyNoInteractions(examRecordRepository, examRepository);
+    }
+
+    private void openSession() {
+        when(examDeadlineScheduler.deadlineMillis(RECORD_ID)).thenReturn(System.currentTimeMillis() + 3_600_000L);
+    }
+
+    private static ExamRecord sheet(int version, String answers) {
+        return ExamRecord.builder().id(RECORD_ID).examId(EXAM_ID).studentId(STUDENT_ID)
+                .answers(answers).version(version).build();
+    }
+
+    private static AutosaveRequest autosaveRequest(SubmitAnswerRequest.AnswerItem... answers) {
+        return new AutosaveRequest(RECORD_ID, Arrays.asList(answers));
+    }
+
+    private static SubmitAnswerRequest request(SubmitAnswerRequest.AnswerItem... answers) {
+        SubmitAnswerRequest request = new SubmitAnswerRequest();
+        request.setRecordId(RECORD_ID);
+        request.setAnswers(new ArrayList<>(Arrays.asList(answers)));
+        return request;
+    }
+
+    private static SubmitAnswerRequest.AnswerItem answer(Long questionId, String answer) {
+        return new SubmitAnswerRequest.AnswerItem(questionId, answer, null);
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.oepg.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 考试会话令牌签发、校验与篡改拒绝测试
+ */
+class ExamSessionTokenUtilTest {
+
+    private ExamSessionTokenUtil tokens;
+
+    @BeforeEach
+    void setUp() {
+        tokens = newUtil("test-secret");
+    }
+
+    @Test
+    void issuedTokenRoundTrips() {
+        long deadline = System.currentTimeMillis() + 60_000;
+        ExamSession session = tokens.verify(tokens.issue(new ExamSession(11, 22, 33, 44, deadline, -5L, "学生_张三")));
+
+        assertNotNull(session);
+        assertEquals(11, session.getRecordId());
+        assertEquals(22, session.getStudentId());
+        assertEquals(33, session.getExamId());
+        assertEquals(44, session.getPaperId());
+        assertEquals(deadline, session.getDeadlineMillis());
+        assertEquals(-5L, session.getSeed());
+        assertEquals("学生_张三", session.getUsername());
+    }
+
+    @Test
+    void rejectsTamperedForeignAndMalformedTokens() {
+        String token = tokens.issue(new ExamSession(11, 22, 33, 44, System.currentTimeMillis() + 60_000, 7, "alice"));
+        int dot = token.indexOf('.');
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+        payload[8] ^= 1; // 改动 recordId
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + token.substring(dot);
+
+        assertNull(tokens.verify(tampered));
+        assertNull(newUtil("other-secret").verify(token));
+        assertNull(tokens.verify(token.substring(0, dot)));
+        assertNull(tokens.verify("%%%." + token.substring(dot + 1)));
+        assertNull(tokens.verify(null));
+    }
+
+    @Test
+    void expiresAfterDeadlinePlusGrace() {
+        long now = System.currentTimeMillis();
+        ExamSession inGrace = tokens.verify(tokens.issue(new ExamSession(1, 2, 3, 4, now - 60_000, 0, "bob")));
+
+        assertNotNull(inGrace);
+        assertTrue(inGrace.isExpired(now));
+        assertNull(tokens.verify(tokens.issue(new ExamSession(1, 2, 3, 4, now - 121_000, 0, "bob"))));
+    }
+
+    private static ExamSessionTokenUtil newUtil(String secret) {
+        ExamSessionTokenUtil util = new ExamSessionTokenUtil();
+        ReflectionTestUtils.setField(util, "secret", secret);
+        ReflectionTestUtils.setField(util, "graceSeconds", 120L);
+        util.init();
+        return util;
+    }
+}